@@ -25,6 +25,14 @@ package org.openwaterfoundation.tstool.plugin.zabbix.commands;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JFrame;
 
@@ -81,6 +89,50 @@ These are TS objects but with mainly the metadata (TSIdent) filled in.
 */
 private List<TS> __discoveryTSList = null;
 
+/**
+Block of time series that is read with one call to ZabbixDataStore.readTimeSeriesList(),
+used to read blocks concurrently and then process the results in catalog order.
+*/
+private static class ReadBlockResult {
+	/**
+	Index of the first time series in the block (0+).
+	*/
+	final int its;
+
+	/**
+	Index after the last time series in the block.
+	*/
+	final int itsEnd;
+
+	/**
+	Read properties for each time series in the block.
+	*/
+	final List<HashMap<String,Object>> readPropertiesList;
+
+	/**
+	Time series that were read, null if the block was not read (e.g., due to cancel).
+	*/
+	List<TS> tsList = null;
+
+	/**
+	Problems reading the block.
+	*/
+	final List<String> problems = new ArrayList<>();
+
+	/**
+	Whether the read for the block completed, set by the thread that runs the command
+	after the block's Future has completed, so that the time series list and problems are safe to use.
+	Blocks that were not completed (e.g., due to cancel) may still be in use by a read thread and must not be used.
+	*/
+	boolean completed = false;
+
+	ReadBlockResult ( int its, int itsEnd, List<HashMap<String,Object>> readPropertiesList ) {
+		this.its = its;
+		this.itsEnd = itsEnd;
+		this.readPropertiesList = readPropertiesList;
+	}
+}
+
 /**
 Constructor.
 */
@@ -113,6 +165,7 @@ throws InvalidCommandParameterException {
     String InputEnd = parameters.getValue ( "InputEnd" );
     String ShiftTrendToIntervalEnd = parameters.getValue ( "ShiftTrendToIntervalEnd" );
     String TextValue = parameters.getValue ( "TextValue" );
+    String MaxConcurrentReads = parameters.getValue ( "MaxConcurrentReads" );
     String Debug = parameters.getValue ( "Debug" );
     String InputFiltersCheck = parameters.getValue ( "InputFiltersCheck" ); // Passed in from the editor, not an actual parameter.
     String Where1 = parameters.getValue ( "Where1" );
@@ -194,6 +247,16 @@ throws InvalidCommandParameterException {
         }
 	}
 
+	if ( (MaxConcurrentReads != null) && !MaxConcurrentReads.equals("") && (MaxConcurrentReads.indexOf("${") < 0) ) {
+		if ( !StringUtil.isInteger(MaxConcurrentReads) || (Integer.parseInt(MaxConcurrentReads) < 1) ) {
+			message = "The MaxConcurrentReads parameter value (" + MaxConcurrentReads + ") is invalid.";
+			warning += "\n" + message;
+			status.addToLog ( CommandPhaseType.INITIALIZATION,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Specify an integer 1 or larger.") );
+		}
+	}
+
 	if ( (Debug != null) && !Debug.equals("") &&
 		!Debug.equalsIgnoreCase(_False) && !Debug.equalsIgnoreCase(_True) ) {
         message = "The Debug parameter value is invalid.";
@@ -292,6 +355,7 @@ throws InvalidCommandParameterException {
     validList.add ( "TimeZone" );
     validList.add ( "ShiftTrendToIntervalEnd" );
     validList.add ( "TextValue" );
+    validList.add ( "MaxConcurrentReads" );
     validList.add ( "Debug" );
     warning = TSCommandProcessorUtil.validateParameterNames ( validList, this, warning );
 
@@ -382,6 +446,39 @@ public <T> List<T> getObjectList ( Class<T> c ) {
 
 // parseCommand is in parent class.
 
+/**
+Read a block of time series.
+Exceptions are saved as problems in the block result so that other blocks continue to be read.
+@param dataStore datastore to read from
+@param blockResult block to read, which is updated with the time series and problems
+@param tsidList list of time series identifiers for all blocks
+@param tsCatalogList list of time series catalog for all blocks
+@param readStart start of read period
+@param readEnd end of read period
+@param readData whether to read data
+*/
+private void readBlock ( ZabbixDataStore dataStore, ReadBlockResult blockResult,
+	List<String> tsidList, List<TimeSeriesCatalog> tsCatalogList,
+	DateTime readStart, DateTime readEnd, boolean readData ) {
+	String routine = getClass().getSimpleName() + ".readBlock";
+	try {
+		blockResult.tsList = dataStore.readTimeSeriesList (
+			tsidList.subList(blockResult.its, blockResult.itsEnd),
+			tsCatalogList.subList(blockResult.its, blockResult.itsEnd),
+			readStart,
+			readEnd,
+			readData,
+			blockResult.readPropertiesList,
+			blockResult.problems );
+	}
+	catch ( Exception e ) {
+		blockResult.tsList = new ArrayList<>();
+		blockResult.problems.add ( "Error reading time series " + (blockResult.its + 1) + " to " + blockResult.itsEnd
+			+ " (" + e + ")." );
+		Message.printWarning ( 3, routine, e );
+	}
+}
+
 /**
 Run the command.
 @param command_number Command number in sequence.
@@ -483,6 +580,17 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 	if ( commandPhase == CommandPhaseType.RUN ) {
 	    TextValue = TSCommandProcessorUtil.expandParameterValue(getCommandProcessor(), this, TextValue);
 	}
+	String MaxConcurrentReads = parameters.getValue ("MaxConcurrentReads" );
+	if ( commandPhase == CommandPhaseType.RUN ) {
+	    MaxConcurrentReads = TSCommandProcessorUtil.expandParameterValue(getCommandProcessor(), this, MaxConcurrentReads);
+	}
+	int maxConcurrentReads = 1; // Default
+	if ( (MaxConcurrentReads != null) && StringUtil.isInteger(MaxConcurrentReads) ) {
+		maxConcurrentReads = Integer.parseInt(MaxConcurrentReads);
+		if ( maxConcurrentReads < 1 ) {
+			maxConcurrentReads = 1;
+		}
+	}
 	String Debug = parameters.getValue ("Debug" );
 	boolean debug = false; // Default
 	if ( (Debug != null) && Debug.equalsIgnoreCase(_True) ) {
@@ -550,6 +658,16 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
                     message, "Verify that a ZabbixDataStore datastore is properly configured." ) );
             throw new RuntimeException ( message );
         }
+		else if ( !dataStore.waitForInitialization() ) {
+			// Datastore initialization in the background did not complete so global data are not available.
+            message = "ZabbixDataStore \"" + DataStore + "\" did not complete initialization (status: "
+            	+ dataStore.getStatusMessage() + ").";
+            Message.printWarning ( 2, routine, message );
+            status.addToLog ( commandPhase,
+                new CommandLogRecord(CommandStatusType.FAILURE,
+                    message, "Check the datastore status and log file, or increase the datastore InitializationTimeout." ) );
+            throw new RuntimeException ( message );
+		}
         else {
 			// Have a datastore so try to read.
         	// See if a Where has been specified by checking for the first Where clause.
@@ -583,7 +701,17 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 					HashMap<String,Object> readProperties = createReadProperties ( its, itsReverse,
 						TimeZone, shiftTrendToIntervalEnd,
 						TextValue, debug );
-	                ts = dataStore.readTimeSeries ( TSID, InputStart_DateTime, InputEnd_DateTime, readData, readProperties );
+					// Problems are for data that could not be read, in which case the time series is partial.
+					List<String> problems = new ArrayList<>();
+	                ts = dataStore.readTimeSeries ( TSID, InputStart_DateTime, InputEnd_DateTime, readData, readProperties, problems );
+					for ( String problem : problems ) {
+						message = "Error reading Zabbix web service time series data: " + problem;
+						Message.printWarning ( 2, routine, message );
+						++warning_count;
+	                    status.addToLog ( commandPhase,
+	                        new CommandLogRecord(CommandStatusType.FAILURE,
+	                           message, "The time series is missing data for the period - see the log file." ) );
+					}
 				}
 				catch ( Exception e ) {
 				    ts = null;
@@ -712,28 +840,9 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 
 				Message.printStatus ( 2, "", "Reading " + size + " time series..." );
 
-				String tsidentString = null; // TSIdent string.
-				TS ts; // Time series to read.
-				TimeSeriesCatalog tsCatalog;
-				HashMap<String,Object> readProperties = null;
-				if ( (TextValue != null) || StringUtil.isDouble(TextValue) ) {
-					// Can use the same read properties for all time series.
-					int its = -1;
-					int itsReverse = -1;
-					readProperties = createReadProperties ( its, itsReverse,
-						TimeZone, shiftTrendToIntervalEnd, TextValue, debug );
-				}
-				for ( int its = 0; its < size; its++ ) {
-					// Check to see if reading time series should be canceled because the command has been canceled.
-					if ( tsprocessor.getCancelProcessingRequested() ) {
-						// The user has requested that command processing should be canceled.
-						// Check here in this command because a very large query could take a long time before a single command finishes.
-						Message.printStatus(2, routine, "Cancel processing based on user request.");
-						break;
-					}
-					// List in order of likelihood to improve performance.
-					tsidentString = null; // Do this in case there is no active match.
-					tsCatalog = (TimeSeriesCatalog)tsCatalogList.get(its);
+				// Create the list of TSID to read, in the same order as the catalog.
+				List<String> tsidList = new ArrayList<>(size);
+				for ( TimeSeriesCatalog tsCatalog : tsCatalogList ) {
 					String locId = dataStore.escapeTsidPart(tsCatalog.getLocId());
 					String dataSource = dataStore.escapeTsidPart(tsCatalog.getDataSource());
 					// Data type is from the catalog (not the original data type).
@@ -747,24 +856,146 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 						// Don't set the interval so called code can determine.
 						interval = "";
 					}
-					tsidentString =
+					tsidList.add (
 						locId
 						+ "." + dataSource
 						+ "." + dataType
-						+ "." + interval;
-		            // Update the progress.
-					message = "Reading Zabbix web service time series " + (its + 1) + " of " + size + " \"" + tsidentString + "\"";
-	                notifyCommandProgressListeners ( its, size, (float)-1.0, message );
+						+ "." + interval );
+				}
+
+				// Read the time series in blocks:
+				// - history for the items in a block is read with one request for each value type
+				// - blocks are read concurrently if MaxConcurrentReads > 1,
+				//   with the block size reduced so that all of the threads have work
+				// - progress is updated and cancel is checked as each block is read
+				// - the time series are added to the output list in catalog order
+				int blockSize = dataStore.getHistoryBatchSize();
+				if ( maxConcurrentReads > 1 ) {
+					blockSize = Math.max(1, Math.min(blockSize, ((size + maxConcurrentReads - 1)/maxConcurrentReads)));
+				}
+				int blockCount = (size + blockSize - 1)/blockSize;
+				List<ReadBlockResult> blockResultList = new ArrayList<>(blockCount);
+				for ( int its = 0; its < size; its += blockSize ) {
+					int itsEnd = Math.min(size, (its + blockSize));
+					// Read properties needs to be regenerated for each time series.
+					List<HashMap<String,Object>> readPropertiesList = new ArrayList<>(itsEnd - its);
+					for ( int its2 = its; its2 < itsEnd; its2++ ) {
+						readPropertiesList.add ( createReadProperties ( (its2 + 1), (size - its2),
+							TimeZone, shiftTrendToIntervalEnd, TextValue, debug ) );
+					}
+					blockResultList.add ( new ReadBlockResult ( its, itsEnd, readPropertiesList ) );
+				}
+				final ZabbixDataStore blockDataStore = dataStore;
+				final DateTime blockReadStart = InputStart_DateTime;
+				final DateTime blockReadEnd = InputEnd_DateTime;
+				final boolean blockReadData = readData;
+				final List<TimeSeriesCatalog> blockTsCatalogList = tsCatalogList;
+				if ( maxConcurrentReads == 1 ) {
+					// Read the blocks sequentially.
+					for ( ReadBlockResult blockResult : blockResultList ) {
+						// Check to see if reading time series should be canceled because the command has been canceled.
+						if ( tsprocessor.getCancelProcessingRequested() ) {
+							// The user has requested that command processing should be canceled.
+							// Check here in this command because a very large query could take a long time before a single command finishes.
+							Message.printStatus(2, routine, "Cancel processing based on user request.");
+							break;
+						}
+			            // Update the progress.
+						message = "Reading Zabbix web service time series " + (blockResult.its + 1) + " to " + blockResult.itsEnd + " of " + size;
+		                notifyCommandProgressListeners ( blockResult.its, size, (float)-1.0, message );
+						readBlock ( blockDataStore, blockResult, tsidList, blockTsCatalogList, blockReadStart, blockReadEnd, blockReadData );
+						blockResult.completed = true;
+					}
+				}
+				else {
+					// Read the blocks using a bounded number of threads.
+					Message.printStatus ( 2, routine, "Reading " + blockCount + " blocks of up to " + blockSize
+						+ " time series using " + maxConcurrentReads + " concurrent reads." );
+					AtomicInteger threadCount = new AtomicInteger(0);
+					ExecutorService executor = Executors.newFixedThreadPool ( maxConcurrentReads, runnable -> {
+						Thread thread = new Thread ( runnable, "ReadZabbix-" + threadCount.incrementAndGet() );
+						// Daemon so that the application can exit if a read hangs.
+						thread.setDaemon ( true );
+						return thread;
+					});
 					try {
-						// Read properties needs to be regenerated for each time series.
-						readProperties = createReadProperties ( (its + 1), (size - its),
-							TimeZone, shiftTrendToIntervalEnd, TextValue, debug );
-					    ts = dataStore.readTimeSeries (
-							tsidentString,
-							InputStart_DateTime,
-							InputEnd_DateTime,
-							readData,
-							readProperties );
+						CompletionService<ReadBlockResult> completionService = new ExecutorCompletionService<>(executor);
+						List<Future<ReadBlockResult>> futureList = new ArrayList<>(blockCount);
+						// Block for each Future, used to identify the block if the read fails.
+						HashMap<Future<ReadBlockResult>,ReadBlockResult> futureBlockMap = new HashMap<>();
+						for ( ReadBlockResult blockResult : blockResultList ) {
+							Future<ReadBlockResult> future = completionService.submit ( () -> {
+								readBlock ( blockDataStore, blockResult, tsidList, blockTsCatalogList, blockReadStart, blockReadEnd, blockReadData );
+								return blockResult;
+							});
+							futureList.add ( future );
+							futureBlockMap.put ( future, blockResult );
+						}
+						int blocksRead = 0;
+						int tsRead = 0;
+						while ( blocksRead < blockCount ) {
+							// Check to see if reading time series should be canceled because the command has been canceled.
+							if ( tsprocessor.getCancelProcessingRequested() ) {
+								// The user has requested that command processing should be canceled.
+								// Check here in this command because a very large query could take a long time before a single command finishes.
+								Message.printStatus(2, routine, "Cancel processing based on user request.");
+								for ( Future<ReadBlockResult> future : futureList ) {
+									future.cancel ( true );
+								}
+								break;
+							}
+							Future<ReadBlockResult> future = completionService.poll ( 500, TimeUnit.MILLISECONDS );
+							if ( future == null ) {
+								// Check for cancel and wait again.
+								continue;
+							}
+							++blocksRead;
+							// The Future has completed so the read thread is done with the block.
+							ReadBlockResult blockResult = futureBlockMap.get ( future );
+							try {
+								future.get();
+							}
+							catch ( ExecutionException e ) {
+								// Should not happen because readBlock() saves problems in the result.
+								Message.printWarning ( 3, routine, e.getCause() );
+								blockResult.tsList = null;
+								blockResult.problems.add ( "Error reading time series " + (blockResult.its + 1) + " to "
+									+ blockResult.itsEnd + " (" + e.getCause() + ")." );
+							}
+							blockResult.completed = true;
+							tsRead += (blockResult.itsEnd - blockResult.its);
+				            // Update the progress.
+							message = "Read Zabbix web service time series block " + blocksRead + " of " + blockCount
+								+ " (" + tsRead + " of " + size + " time series)";
+			                notifyCommandProgressListeners ( tsRead, size, (float)-1.0, message );
+						}
+					}
+					catch ( InterruptedException e ) {
+						Thread.currentThread().interrupt();
+						message = "Interrupted reading Zabbix web service time series.";
+						Message.printWarning ( 2, routine, message );
+						++warning_count;
+	                    status.addToLog ( commandPhase,
+	                        new CommandLogRecord(CommandStatusType.FAILURE,
+	                           message, "Check the log file." ) );
+					}
+					finally {
+						executor.shutdownNow();
+					}
+				}
+
+				// Process the results in block order so that the time series are in catalog order:
+				// - only use blocks that completed, because blocks that were not completed because of cancel
+				//   may still be used by a read thread
+				for ( ReadBlockResult blockResult : blockResultList ) {
+					if ( !blockResult.completed ) {
+						continue;
+					}
+					List<TS> blockTsList = blockResult.tsList;
+					if ( blockTsList == null ) {
+						blockTsList = new ArrayList<>();
+					}
+					for ( TS ts : blockTsList ) {
 						// Add the time series to the temporary list.  It will be further processed below.
 		                if ( (ts != null) && (Alias != null) && !Alias.equals("") ) {
 		                    ts.setAlias ( TSCommandProcessorUtil.expandTimeSeriesMetadataString(
@@ -773,10 +1004,9 @@ throws InvalidCommandParameterException, CommandWarningException, CommandExcepti
 		                // Allow null to be added here.
 						tslist.add ( ts );
 					}
-					catch ( Exception e ) {
-						message = "Unexpected error reading Zabbix web service time series \"" + tsidentString + "\" (" + e + ").";
+					for ( String problem : blockResult.problems ) {
+						message = "Unexpected error reading Zabbix web service time series: " + problem;
 						Message.printWarning ( 2, routine, message );
-						Message.printWarning ( 2, routine, e );
 						++warning_count;
 	                    status.addToLog ( commandPhase,
 	                        new CommandLogRecord(CommandStatusType.FAILURE,
@@ -904,6 +1134,7 @@ public String toString ( PropList parameters ) {
     	"TimeZone",
     	"ShiftTrendToIntervalEnd",
     	"TextValue",
+    	"MaxConcurrentReads",
 		"Debug",
 	};
 
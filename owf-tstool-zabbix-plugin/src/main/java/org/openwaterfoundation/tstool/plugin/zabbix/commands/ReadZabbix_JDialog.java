@@ -53,6 +53,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 
@@ -100,6 +101,7 @@ private JTextField __InputEnd_JTextField = null;
 private JTextField __TimeZone_JTextField = null;
 private SimpleJComboBox __ShiftTrendToIntervalEnd_JComboBox = null;
 private JTextField __TextValue_JTextField = null;
+private JTextField __MaxConcurrentReads_JTextField = null;
 private SimpleJComboBox	__Debug_JComboBox = null;
 
 private JTextArea __command_JTextArea = null;
@@ -204,7 +206,17 @@ private void actionPerformedDataStoreSelected ( ) {
     setDataStoreForSelectedInput();
     //Message.printStatus(2, "", "Selected data store " + __dataStore + " __dmi=" + __dmi );
     // Now populate the data type choices corresponding to the data store
-    populateDataTypeChoices ( getSelectedDataStore() );
+    ZabbixDataStore dataStore = getSelectedDataStore();
+    populateDataTypeChoices ( dataStore );
+    if ( (dataStore != null) && !dataStore.isInitialized() ) {
+    	// The choices indicate that the datastore is loading:
+    	// - populate again when the datastore has initialized, if the datastore is still selected
+    	dataStore.whenInitialized ( () -> SwingUtilities.invokeLater ( () -> {
+    		if ( getSelectedDataStore() == dataStore ) {
+    			populateDataTypeChoices ( dataStore );
+    		}
+    	}));
+    }
 }
 
 /**
@@ -401,6 +413,10 @@ private void checkInput () {
 	if ( TextValue.length() > 0 ) {
 		props.set ( "TextValue", TextValue );
 	}
+	String MaxConcurrentReads = __MaxConcurrentReads_JTextField.getText().trim();
+	if ( MaxConcurrentReads.length() > 0 ) {
+		props.set ( "MaxConcurrentReads", MaxConcurrentReads );
+	}
 	String Debug = __Debug_JComboBox.getSelected();
 	if ( Debug.length() > 0 ) {
 		props.set ( "Debug", Debug );
@@ -457,6 +473,8 @@ private void commitEdits () {
 	__command.setCommandParameter ( "ShiftTrendToIntervalEnd", ShiftTrendToIntervalEnd );
 	String TextValue = __TextValue_JTextField.getText().trim();
 	__command.setCommandParameter (	"TextValue", TextValue );
+	String MaxConcurrentReads = __MaxConcurrentReads_JTextField.getText().trim();
+	__command.setCommandParameter (	"MaxConcurrentReads", MaxConcurrentReads );
 	String Debug = __Debug_JComboBox.getSelected();
 	__command.setCommandParameter (	"Debug", Debug );
 }
@@ -904,6 +922,17 @@ private void initialize ( JFrame parent, ReadZabbix_Command command ) {
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Optional - number to use for text history items."),
         3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
 
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Maximum concurrent reads:"),
+        0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
+    __MaxConcurrentReads_JTextField = new JTextField ( "", 10 );
+    __MaxConcurrentReads_JTextField.setToolTipText( "Maximum number of concurrent web service reads when reading multiple time series, "
+    	+ "can use ${Property}.");
+    __MaxConcurrentReads_JTextField.addKeyListener ( this );
+    JGUIUtil.addComponent(main_JPanel, __MaxConcurrentReads_JTextField,
+        1, y, 2, 1, 1, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+    JGUIUtil.addComponent(main_JPanel, new JLabel ( "Optional - concurrent reads for multiple time series (default=1)."),
+        3, y, 2, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.WEST);
+
     JGUIUtil.addComponent(main_JPanel, new JLabel ( "Debug:"),
 		0, ++y, 1, 1, 0, 0, insetsTLBR, GridBagConstraints.NONE, GridBagConstraints.EAST);
     List<String> Debug_List = new ArrayList<>( 3 );
@@ -1206,6 +1235,7 @@ private void refresh () {
 	String TimeZone = "";
 	String ShiftTrendToIntervalEnd = "";
 	String TextValue = "";
+	String MaxConcurrentReads = "";
 	String Debug = "";
 	PropList props = null;
 	if ( __first_time ) {
@@ -1224,6 +1254,7 @@ private void refresh () {
 		TimeZone = props.getValue ( "TimeZone" );
 		ShiftTrendToIntervalEnd = props.getValue ( "ShiftTrendToIntervalEnd" );
 		TextValue = props.getValue ( "TextValue" );
+		MaxConcurrentReads = props.getValue ( "MaxConcurrentReads" );
 		Debug = props.getValue ( "Debug" );
         // The data store list is set up in initialize() but is selected here.
         if ( JGUIUtil.isSimpleJComboBoxItem(__DataStore_JComboBox, DataStore, JGUIUtil.NONE, null, null ) ) {
@@ -1409,6 +1440,9 @@ private void refresh () {
 		if ( TextValue != null ) {
 			__TextValue_JTextField.setText ( TextValue );
 		}
+		if ( MaxConcurrentReads != null ) {
+			__MaxConcurrentReads_JTextField.setText ( MaxConcurrentReads );
+		}
 	    if ( JGUIUtil.isSimpleJComboBoxItem( __Debug_JComboBox, Debug, JGUIUtil.NONE, null, null ) ) {
             //__Debug_JComboBox.select (index[0] );
             __Debug_JComboBox.select (Debug);
@@ -1514,6 +1548,8 @@ private void refresh () {
 	props.add ( "ShiftTrendToIntervalEnd=" + ShiftTrendToIntervalEnd );
 	TextValue = __TextValue_JTextField.getText().trim();
 	props.add ( "TextValue=" + TextValue );
+	MaxConcurrentReads = __MaxConcurrentReads_JTextField.getText().trim();
+	props.add ( "MaxConcurrentReads=" + MaxConcurrentReads );
 	Debug = __Debug_JComboBox.getSelected();
 	props.add ( "Debug=" + Debug );
 	__command_JTextArea.setText( __command.toString ( props ).trim() );
@@ -0,0 +1,378 @@
+// HistoryColumns - history data for one or more items stored as primitive columns
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * History data for one or more items, stored as primitive arrays rather than a list of History objects.
+ * This is used when reading history with 'history.get', where the 'result' array is decoded directly into the columns.
+ * The items are those in the request, and each record stores the index of its item.
+ * Numeric values are stored as doubles (NaN if the value cannot be parsed).
+ * Text values (for items that are not numeric) are stored as a code for a value in a TextDictionary,
+ * so that repeated values (e.g., status values) are stored once and the time series flags share the same String.
+ * Text values can optionally be truncated to a maximum length, for example for long log lines.
+ * Records are in the order that they are added, which is sorted by clock for 'history.get' results.
+ */
+public class HistoryColumns {
+
+	/**
+	 * Number of records to add to the arrays when they are full, at a minimum.
+	 */
+	private static final int GROWTH_CHUNK = 4096;
+
+	/**
+	 * Item identifiers, in the order of the request.
+	 */
+	private final String [] itemids;
+
+	/**
+	 * Item identifiers as numbers, used to look up the item index without creating strings.
+	 * The value is -1 if the itemid is not a number.
+	 */
+	private final long [] itemidNums;
+
+	/**
+	 * Whether the values are numeric (true) or text (false).
+	 */
+	private final boolean isNumeric;
+
+	/**
+	 * Number of records.
+	 */
+	private int size = 0;
+
+	/**
+	 * Index of the record's item in 'itemids'.
+	 */
+	private int [] itemIndex;
+
+	/**
+	 * History 'clock', UNIX epoch seconds.
+	 */
+	private long [] clock;
+
+	/**
+	 * History 'ns', nanoseconds within the second.
+	 */
+	private int [] ns;
+
+	/**
+	 * History 'value' for numeric items.
+	 */
+	private double [] value;
+
+	/**
+	 * History 'value' for text items as a code in 'textDictionary', null if numeric.
+	 */
+	private int [] textCode;
+
+	/**
+	 * Distinct text values, null if numeric.
+	 * The dictionary is not reset by clear() so that values are shared by all pages of a read.
+	 */
+	private final TextDictionary textDictionary;
+
+	/**
+	 * Maximum length of text values, 0 for no limit.
+	 */
+	private int maxTextLength = 0;
+
+	/**
+	 * Last item index that was matched, used to speed up lookups for consecutive records for the same item.
+	 */
+	private int lastItemIndex = 0;
+
+	/**
+	 * Constructor.
+	 * @param itemidList list of itemid that are read
+	 * @param isNumeric whether the values are numeric (true) or text (false)
+	 * @param initialCapacity the initial number of records to allocate
+	 */
+	public HistoryColumns ( List<String> itemidList, boolean isNumeric, int initialCapacity ) {
+		this.itemids = itemidList.toArray(new String[0]);
+		this.itemidNums = new long[this.itemids.length];
+		for ( int i = 0; i < this.itemids.length; i++ ) {
+			try {
+				this.itemidNums[i] = Long.parseLong(this.itemids[i]);
+			}
+			catch ( NumberFormatException e ) {
+				this.itemidNums[i] = -1;
+			}
+		}
+		this.isNumeric = isNumeric;
+		if ( initialCapacity < 16 ) {
+			initialCapacity = 16;
+		}
+		this.itemIndex = new int[initialCapacity];
+		this.clock = new long[initialCapacity];
+		this.ns = new int[initialCapacity];
+		if ( isNumeric ) {
+			this.value = new double[initialCapacity];
+			this.textDictionary = null;
+		}
+		else {
+			this.textCode = new int[initialCapacity];
+			this.textDictionary = new TextDictionary();
+		}
+	}
+
+	/**
+	 * Add a record.
+	 * @param itemIndex index of the record's item (see findItemIndex())
+	 * @param clock the clock, UNIX epoch seconds
+	 * @param ns the nanoseconds within the second
+	 * @param value the numeric value, ignored for text
+	 * @param textCode the text value code (see encodeText()), ignored for numeric
+	 */
+	public void add ( int itemIndex, long clock, int ns, double value, int textCode ) {
+		if ( this.size == this.clock.length ) {
+			// Grow the arrays.
+			int newCapacity = this.clock.length + Math.max(GROWTH_CHUNK, this.clock.length/2);
+			this.itemIndex = Arrays.copyOf(this.itemIndex, newCapacity);
+			this.clock = Arrays.copyOf(this.clock, newCapacity);
+			this.ns = Arrays.copyOf(this.ns, newCapacity);
+			if ( this.isNumeric ) {
+				this.value = Arrays.copyOf(this.value, newCapacity);
+			}
+			else {
+				this.textCode = Arrays.copyOf(this.textCode, newCapacity);
+			}
+		}
+		this.itemIndex[this.size] = itemIndex;
+		this.clock[this.size] = clock;
+		this.ns[this.size] = ns;
+		if ( this.isNumeric ) {
+			this.value[this.size] = value;
+		}
+		else {
+			this.textCode[this.size] = textCode;
+		}
+		++this.size;
+	}
+
+	/**
+	 * Remove all records, keeping the allocated arrays and text values.
+	 */
+	public void clear () {
+		this.size = 0;
+	}
+
+	/**
+	 * Encode a text value from a character buffer, truncating to the maximum text length.
+	 * @param chars character buffer
+	 * @param offset offset of the first character
+	 * @param length number of characters
+	 * @return the code for the text value, to pass to add()
+	 */
+	public int encodeText ( char [] chars, int offset, int length ) {
+		if ( (this.textDictionary == null) || (chars == null) ) {
+			return -1;
+		}
+		if ( (this.maxTextLength > 0) && (length > this.maxTextLength) ) {
+			length = this.maxTextLength;
+		}
+		return this.textDictionary.add ( chars, offset, length );
+	}
+
+	/**
+	 * Encode a text value, truncating to the maximum text length.
+	 * @param text the text value
+	 * @return the code for the text value, to pass to add(), or -1 if the text is null
+	 */
+	public int encodeText ( String text ) {
+		if ( this.textDictionary == null ) {
+			return -1;
+		}
+		if ( (text != null) && (this.maxTextLength > 0) && (text.length() > this.maxTextLength) ) {
+			text = text.substring(0, this.maxTextLength);
+		}
+		return this.textDictionary.add ( text );
+	}
+
+	/**
+	 * Find the index of an item.
+	 * @param itemidNum the itemid as a number
+	 * @return the index of the item (0+), or -1 if not found
+	 */
+	public int findItemIndex ( long itemidNum ) {
+		if ( (this.lastItemIndex < this.itemidNums.length) && (this.itemidNums[this.lastItemIndex] == itemidNum) ) {
+			return this.lastItemIndex;
+		}
+		for ( int i = 0; i < this.itemidNums.length; i++ ) {
+			if ( this.itemidNums[i] == itemidNum ) {
+				this.lastItemIndex = i;
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Return the clock for a record.
+	 * @param i record index (0+)
+	 * @return the clock for the record, UNIX epoch seconds
+	 */
+	public long getClock ( int i ) {
+		return this.clock[i];
+	}
+
+	/**
+	 * Return the itemid for an item index.
+	 * @param itemIndex item index (0+)
+	 * @return the itemid
+	 */
+	public String getItemid ( int itemIndex ) {
+		return this.itemids[itemIndex];
+	}
+
+	/**
+	 * Return the number of items.
+	 * @return the number of items
+	 */
+	public int getItemCount () {
+		return this.itemids.length;
+	}
+
+	/**
+	 * Return the item index for a record.
+	 * @param i record index (0+)
+	 * @return the item index for the record
+	 */
+	public int getItemIndex ( int i ) {
+		return this.itemIndex[i];
+	}
+
+	/**
+	 * Return the nanoseconds for a record.
+	 * @param i record index (0+)
+	 * @return the nanoseconds within the second for the record
+	 */
+	public int getNs ( int i ) {
+		return this.ns[i];
+	}
+
+	/**
+	 * Return the record indices for each item, in record order.
+	 * @return an array of record indices for each item index
+	 */
+	public int [][] getRowsByItem () {
+		int itemCount = this.itemids.length;
+		int [] counts = new int[itemCount];
+		for ( int i = 0; i < this.size; i++ ) {
+			++counts[this.itemIndex[i]];
+		}
+		int [][] rows = new int[itemCount][];
+		for ( int iItem = 0; iItem < itemCount; iItem++ ) {
+			rows[iItem] = new int[counts[iItem]];
+			counts[iItem] = 0;
+		}
+		for ( int i = 0; i < this.size; i++ ) {
+			int iItem = this.itemIndex[i];
+			rows[iItem][counts[iItem]++] = i;
+		}
+		return rows;
+	}
+
+	/**
+	 * Return the text value for a record.
+	 * The same String is returned for all records that have the same value.
+	 * @param i record index (0+)
+	 * @return the text value, or null if the values are numeric
+	 */
+	public String getText ( int i ) {
+		return (this.textCode == null) ? null : this.textDictionary.getValue(this.textCode[i]);
+	}
+
+	/**
+	 * Return the text value for a record converted to a number.
+	 * The conversion is done once for each distinct text value.
+	 * @param i record index (0+)
+	 * @return the number, or NaN if the text is not a number or the values are numeric
+	 */
+	public double getTextNumber ( int i ) {
+		return (this.textCode == null) ? Double.NaN : this.textDictionary.getNumber(this.textCode[i]);
+	}
+
+	/**
+	 * Return the numeric value for a record.
+	 * @param i record index (0+)
+	 * @return the numeric value, NaN if not available or the values are text
+	 */
+	public double getValue ( int i ) {
+		return (this.value == null) ? Double.NaN : this.value[i];
+	}
+
+	/**
+	 * Indicate whether the values are numeric.
+	 * @return true if the values are numeric, false if text
+	 */
+	public boolean isNumeric () {
+		return this.isNumeric;
+	}
+
+	/**
+	 * Remove records, keeping the order of the other records.
+	 * @param rows the indices of the records to remove
+	 */
+	public void removeRows ( BitSet rows ) {
+		int newSize = 0;
+		for ( int i = 0; i < this.size; i++ ) {
+			if ( rows.get(i) ) {
+				continue;
+			}
+			if ( newSize != i ) {
+				this.itemIndex[newSize] = this.itemIndex[i];
+				this.clock[newSize] = this.clock[i];
+				this.ns[newSize] = this.ns[i];
+				if ( this.isNumeric ) {
+					this.value[newSize] = this.value[i];
+				}
+				else {
+					this.textCode[newSize] = this.textCode[i];
+				}
+			}
+			++newSize;
+		}
+		this.size = newSize;
+	}
+
+	/**
+	 * Set the maximum length of text values, for example to limit memory for long log lines.
+	 * Longer values are truncated when encoded.
+	 * @param maxTextLength maximum length of text values, 0 for no limit
+	 */
+	public void setMaxTextLength ( int maxTextLength ) {
+		this.maxTextLength = maxTextLength;
+	}
+
+	/**
+	 * Return the number of records.
+	 * @return the number of records
+	 */
+	public int size () {
+		return this.size;
+	}
+}
@@ -22,7 +22,9 @@ NoticeEnd */
 
 package org.openwaterfoundation.tstool.plugin.zabbix.dao;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -66,6 +68,22 @@ public class Host {
 	 */
 	public Host() {
 	}
+
+	/**
+	 * Constructor for all data, used when the host is not created from JSON (e.g., read from a catalog snapshot file).
+	 * @param hostid host 'hostid'
+	 * @param host host 'host'
+	 * @param name host 'name'
+	 * @param description host 'description'
+	 * @param groups list of groups that the host belongs to
+	 */
+	public Host ( String hostid, String host, String name, String description, List<HostGroup> groups ) {
+		this.hostid = hostid;
+		this.host = host;
+		this.name = name;
+		this.description = description;
+		this.groups = groups;
+	}
 	
 	/**
 	 * Return the host description.
@@ -107,6 +125,24 @@ public class Host {
 		return this.name;
 	}
 	
+	/**
+	 * Create a map of Host keyed by 'hostid', used to look up hosts without searching the list.
+	 * @param hostList list of Host to index
+	 * @return map of hostid to Host, always non-null
+	 */
+	public static Map<String,Host> createHostIdMap ( List<Host> hostList ) {
+		Map<String,Host> hostIdMap = new HashMap<>();
+		if ( hostList != null ) {
+			for ( Host host : hostList ) {
+				if ( host.getHostid() != null ) {
+					// Use the first if duplicates, consistent with the list lookup.
+					hostIdMap.putIfAbsent ( host.getHostid(), host );
+				}
+			}
+		}
+		return hostIdMap;
+	}
+
 	/**
 	 * Lookup a host given the ID.
 	 * @param hostList list of Host to search
@@ -129,6 +165,19 @@ public class Host {
 		return null;
 	}
 
+	/**
+	 * Lookup a host given the ID, using a map created with createHostIdMap().
+	 * @param hostIdMap map of Host to search
+	 * @param hostid 'hostid' to match
+	 * @return the matching Host or null if not found
+	 */
+	public static Host lookupHostForId ( Map<String,Host> hostIdMap, String hostid ) {
+		if ( (hostIdMap == null) || (hostid == null) || hostid.isEmpty() ) {
+			return null;
+		}
+		return hostIdMap.get(hostid);
+	}
+
 	/**
 	 * Lookup the preferred host group.
 	 * @param preferredHostGroupNames list of preferred host group names, can include * wildcard
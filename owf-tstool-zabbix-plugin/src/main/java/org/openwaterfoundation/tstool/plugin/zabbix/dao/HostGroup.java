@@ -22,8 +22,11 @@ NoticeEnd */
 
 package org.openwaterfoundation.tstool.plugin.zabbix.dao;
 
+import org.openwaterfoundation.tstool.plugin.zabbix.util.PooledStringDeserializer;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Zabbix host group information.
@@ -41,6 +44,7 @@ public class HostGroup {
 	/**
 	 * Host group 'name'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String name = "";
 
 	/**
@@ -48,6 +52,16 @@ public class HostGroup {
 	 */
 	public HostGroup() {
 	}
+
+	/**
+	 * Constructor for all data, used when the host group is not created from JSON (e.g., read from a catalog snapshot file).
+	 * @param groupid host group 'groupid'
+	 * @param name host group 'name'
+	 */
+	public HostGroup ( String groupid, String name ) {
+		this.groupid = groupid;
+		this.name = name;
+	}
 	
 	/**
 	 * Return the host group ID.
@@ -22,9 +22,12 @@ NoticeEnd */
 
 package org.openwaterfoundation.tstool.plugin.zabbix.dao;
 
+import org.openwaterfoundation.tstool.plugin.zabbix.util.PooledStringDeserializer;
+
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 /**
  * Zabbix host information.
@@ -50,11 +53,13 @@ public class Item {
 	/**
 	 * Item 'name'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String name = "";
 
 	/**
 	 * Item 'type'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String type = "";
 
 	/**
@@ -66,11 +71,13 @@ public class Item {
 	/**
 	 * Item 'delay'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String delay = "";
 
 	/**
 	 * Item 'history'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String history = "";
 
 	/**
@@ -94,32 +101,38 @@ public class Item {
 	/**
 	 * Item 'status'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String status = "";
 
 	/**
 	 * Item 'templateid'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String templateid = "";
 
 	/**
 	 * Item 'trends'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String trends = "";
 
 	/**
 	 * Item 'value_type'.
 	 */
 	@JsonProperty("value_type")
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String valueType = "";
 
 	/**
 	 * Item 'units'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String units = "";
 
 	/**
 	 * Item 'error'.
 	 */
+	@JsonDeserialize(using=PooledStringDeserializer.class)
 	private String error = "";
 
 	/**
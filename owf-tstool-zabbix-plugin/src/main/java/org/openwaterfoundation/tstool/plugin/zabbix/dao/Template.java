@@ -22,7 +22,9 @@ NoticeEnd */
 
 package org.openwaterfoundation.tstool.plugin.zabbix.dao;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
@@ -66,6 +68,22 @@ public class Template {
 	 */
 	public Template() {
 	}
+
+	/**
+	 * Constructor for all data, used when the template is not created from JSON (e.g., read from a catalog snapshot file).
+	 * @param templateid template 'templateid'
+	 * @param host template 'host'
+	 * @param name template 'name'
+	 * @param description template 'description'
+	 * @param uuid template 'uuid'
+	 */
+	public Template ( String templateid, String host, String name, String description, String uuid ) {
+		this.templateid = templateid;
+		this.host = host;
+		this.name = name;
+		this.description = description;
+		this.uuid = uuid;
+	}
 	
 	/**
 	 * Return the template description.
@@ -107,6 +125,24 @@ public class Template {
 		return this.uuid;
 	}
 
+	/**
+	 * Create a map of Template keyed by 'templateid', used to look up templates without searching the list.
+	 * @param templateList list of Template to index
+	 * @return map of templateid to Template, always non-null
+	 */
+	public static Map<String,Template> createTemplateIdMap ( List<Template> templateList ) {
+		Map<String,Template> templateIdMap = new HashMap<>();
+		if ( templateList != null ) {
+			for ( Template template : templateList ) {
+				if ( template.getTemplateid() != null ) {
+					// Use the first if duplicates, consistent with the list lookup.
+					templateIdMap.putIfAbsent ( template.getTemplateid(), template );
+				}
+			}
+		}
+		return templateIdMap;
+	}
+
 	/**
 	 * Lookup a template given the ID.
 	 * @param templateList list of template to search
@@ -128,4 +164,17 @@ public class Template {
 		// Not found.
 		return null;
 	}
+
+	/**
+	 * Lookup a template given the ID, using a map created with createTemplateIdMap().
+	 * @param templateIdMap map of Template to search
+	 * @param templateid 'templateid' to match
+	 * @return the matching Template or null if not found
+	 */
+	public static Template lookupTemplateForId ( Map<String,Template> templateIdMap, String templateid ) {
+		if ( (templateIdMap == null) || (templateid == null) || templateid.isEmpty() ) {
+			return null;
+		}
+		return templateIdMap.get(templateid);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+// TextDictionary - distinct text values stored once and referenced by an integer code
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import java.util.Arrays;
+
+/**
+ * Distinct text values, each stored once and referenced by an integer code.
+ * This is used for history of text, log, and character items, which often repeat a small number of values
+ * (e.g., status values) many times, so that each record only needs a code and the time series flags
+ * share one String for each distinct value.
+ * Values can be added from a character buffer (e.g., the JSON parser buffer),
+ * in which case a String is only created for a value that has not been seen.
+ * To limit the memory used for items where most values are distinct (e.g., log lines),
+ * values are only looked up in the hash table until it contains 'maxEntries' values,
+ * after which new values are stored without checking for duplicates.
+ * Instances are not thread-safe.
+ */
+public class TextDictionary {
+
+	/**
+	 * Default maximum number of values in the hash table.
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 65536;
+
+	/**
+	 * Maximum number of values in the hash table.
+	 */
+	private final int maxEntries;
+
+	/**
+	 * Values, indexed by code.
+	 */
+	private String [] values = new String[16];
+
+	/**
+	 * Hash code for each value, indexed by code.
+	 */
+	private int [] hashes = new int[16];
+
+	/**
+	 * Values converted to numbers, indexed by code, computed when first requested.
+	 */
+	private double [] numbers = null;
+
+	/**
+	 * Whether the number has been computed, indexed by code.
+	 */
+	private boolean [] isNumberSet = null;
+
+	/**
+	 * Number of values.
+	 */
+	private int size = 0;
+
+	/**
+	 * Number of values in the hash table.
+	 */
+	private int entryCount = 0;
+
+	/**
+	 * Open addressing hash table of codes, -1 if empty.  The length is a power of two.
+	 */
+	private int [] table;
+
+	/**
+	 * Constructor using the default maximum number of entries.
+	 */
+	public TextDictionary () {
+		this ( DEFAULT_MAX_ENTRIES );
+	}
+
+	/**
+	 * Constructor.
+	 * @param maxEntries maximum number of distinct values to look up, after which values are added without checking
+	 */
+	public TextDictionary ( int maxEntries ) {
+		this.maxEntries = maxEntries;
+		this.table = new int[64];
+		Arrays.fill(this.table, -1);
+	}
+
+	/**
+	 * Add a value from a character buffer if not already in the dictionary.
+	 * @param chars character buffer
+	 * @param offset offset of the first character
+	 * @param length number of characters
+	 * @return the code for the value
+	 */
+	public int add ( char [] chars, int offset, int length ) {
+		// Same hash as String.hashCode() so that String values can also be looked up.
+		int hash = 0;
+		for ( int i = offset, end = offset + length; i < end; i++ ) {
+			hash = 31*hash + chars[i];
+		}
+		int mask = this.table.length - 1;
+		for ( int pos = mix(hash) & mask; ; pos = (pos + 1) & mask ) {
+			int code = this.table[pos];
+			if ( code < 0 ) {
+				return addNew ( new String(chars, offset, length), hash, pos );
+			}
+			if ( (this.hashes[code] == hash) && equals(this.values[code], chars, offset, length) ) {
+				return code;
+			}
+		}
+	}
+
+	/**
+	 * Add a value if not already in the dictionary.
+	 * @param value the value to add
+	 * @return the code for the value, or -1 if the value is null
+	 */
+	public int add ( String value ) {
+		if ( value == null ) {
+			return -1;
+		}
+		int hash = value.hashCode();
+		int mask = this.table.length - 1;
+		for ( int pos = mix(hash) & mask; ; pos = (pos + 1) & mask ) {
+			int code = this.table[pos];
+			if ( code < 0 ) {
+				return addNew ( value, hash, pos );
+			}
+			if ( (this.hashes[code] == hash) && this.values[code].equals(value) ) {
+				return code;
+			}
+		}
+	}
+
+	/**
+	 * Add a new value.
+	 * @param value the value to add
+	 * @param hash the hash code for the value
+	 * @param pos the empty position in the hash table for the value
+	 * @return the code for the value
+	 */
+	private int addNew ( String value, int hash, int pos ) {
+		if ( this.size == this.values.length ) {
+			int newCapacity = this.values.length*2;
+			this.values = Arrays.copyOf(this.values, newCapacity);
+			this.hashes = Arrays.copyOf(this.hashes, newCapacity);
+			if ( this.numbers != null ) {
+				this.numbers = Arrays.copyOf(this.numbers, newCapacity);
+				this.isNumberSet = Arrays.copyOf(this.isNumberSet, newCapacity);
+			}
+		}
+		int code = this.size++;
+		this.values[code] = value;
+		this.hashes[code] = hash;
+		if ( this.entryCount < this.maxEntries ) {
+			// Add to the hash table so that later duplicates are found.
+			this.table[pos] = code;
+			++this.entryCount;
+			if ( this.entryCount*2 > this.table.length ) {
+				rehash();
+			}
+		}
+		return code;
+	}
+
+	/**
+	 * Compare a String with characters in a buffer.
+	 * @param value the String to compare
+	 * @param chars character buffer
+	 * @param offset offset of the first character
+	 * @param length number of characters
+	 * @return true if the characters are the same
+	 */
+	private static boolean equals ( String value, char [] chars, int offset, int length ) {
+		if ( value.length() != length ) {
+			return false;
+		}
+		for ( int i = 0; i < length; i++ ) {
+			if ( value.charAt(i) != chars[offset + i] ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the value converted to a number, for example for status values that are numbers stored as text.
+	 * The conversion is done once for each distinct value.
+	 * @param code the code for the value
+	 * @return the number, or NaN if the value is not a number
+	 */
+	public double getNumber ( int code ) {
+		if ( code < 0 ) {
+			return Double.NaN;
+		}
+		if ( this.numbers == null ) {
+			this.numbers = new double[this.values.length];
+			this.isNumberSet = new boolean[this.values.length];
+		}
+		if ( !this.isNumberSet[code] ) {
+			try {
+				this.numbers[code] = Double.parseDouble(this.values[code]);
+			}
+			catch ( NumberFormatException e ) {
+				this.numbers[code] = Double.NaN;
+			}
+			this.isNumberSet[code] = true;
+		}
+		return this.numbers[code];
+	}
+
+	/**
+	 * Return the value for a code.
+	 * @param code the code for the value
+	 * @return the value, or null if the code is -1
+	 */
+	public String getValue ( int code ) {
+		return (code < 0) ? null : this.values[code];
+	}
+
+	/**
+	 * Spread the hash code bits so that similar values use different positions in the hash table.
+	 * @param hash the hash code
+	 * @return the mixed hash code
+	 */
+	private static int mix ( int hash ) {
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Double the size of the hash table.
+	 */
+	private void rehash () {
+		int [] newTable = new int[this.table.length*2];
+		Arrays.fill(newTable, -1);
+		int mask = newTable.length - 1;
+		for ( int code : this.table ) {
+			if ( code >= 0 ) {
+				int pos = mix(this.hashes[code]) & mask;
+				while ( newTable[pos] >= 0 ) {
+					pos = (pos + 1) & mask;
+				}
+				newTable[pos] = code;
+			}
+		}
+		this.table = newTable;
+	}
+
+	/**
+	 * Return the number of distinct values (may include duplicates if the maximum number of entries was reached).
+	 * @return the number of values
+	 */
+	public int size () {
+		return this.size;
+	}
+}
@@ -24,7 +24,11 @@ package org.openwaterfoundation.tstool.plugin.zabbix.dao;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 import RTi.Util.Message.Message;
 
@@ -34,45 +38,35 @@ import RTi.Util.Message.Message;
  * More data may be included and shown in the table model while evaluating the web services
  * and will be removed or disabled later.
  * The types are as one would expect, whereas the 'TimeSeries' object uses strings as per web service JSON types.
+ * To limit memory use for large catalogs, the host and item data are not copied into each catalog entry:
+ * <ul>
+ * <li> host and host group data are in a TimeSeriesCatalogHost that is shared by all entries for a host</li>
+ * <li> item data are in a TimeSeriesCatalogItem that is shared by the history and trend entries for an item</li>
+ * <li> trend entries are views of the history entry for the item, with the trend statistic</li>
+ * </ul>
+ * Setting host or item data therefore changes the data for all entries that share the host or item.
  */
 public class TimeSeriesCatalog {
 
-	// General data, provided by TSTool, extracted/duplicated from Zabbix services.
-	private String locId = ""; // From host.host.
-	private String dataSource = ""; // From host grup name.
-	private String dataType = ""; // From item.name, will have statistic if trend.
-	private String dataInterval = ""; // Always IrregSecond?
-	private String dataUnits = ""; // From item.units.
-
-	// Host group data, listed alphabetically.
-	private String hostGroupId = null;
-	private String hostGroupName = null;
-	// Additional group names that don't match hostGroupName value.
-	private String hostGroupName2 = null;
-
-	// Host data, listed alphabetically.
-	//private Double stationLatitude = null;
-	//private Double stationLongitude = null;
-	private String host = null;
-	private String hostDescription = null;
-	private String hostId = null;
-	private String hostName = null;
-
-	// Item data, listed alphabetically.
-	private String itemDelay = "";
-	private String itemHistory = "";
-	private String itemId = "";
-	private String itemKey = "";
-	private String itemName = "";
-	private String itemStatus = "";
-	private String itemTemplateName = "";
-	private String itemTemplateid = "";
-	private String itemTrends = "";
-	private String itemType = "";
-	private Integer itemTypeNum = null;
-	private String itemUnits = "";
-	private String itemValueType = "";
-	private Integer itemValueTypeNum = null;
+	// General data, provided by TSTool, extracted/duplicated from Zabbix services:
+	// - the location ID is host.host, the data source is the host group name, and the data units are item.units
+	private String dataType = null; // From item.name, will have statistic if trend, null to use the item name.
+	private String dataInterval = ""; // IrregSecond for history, Hour for trend.
+
+	/**
+	 * Trend statistic, null for history.
+	 */
+	private TrendStatistic statistic = null;
+
+	/**
+	 * Host and host group data, shared by all entries for the host.
+	 */
+	private TimeSeriesCatalogHost hostRecord;
+
+	/**
+	 * Item data, shared by the history and trend entries for the item.
+	 */
+	private TimeSeriesCatalogItem itemRecord;
 
 	// List of problems, one string per issue.
 	private List<String> problems = null; // Initialize to null to save memory ... must check elsewhere when using.
@@ -91,6 +85,33 @@ public class TimeSeriesCatalog {
 	 * Constructor.
 	 */
 	public TimeSeriesCatalog () {
+		this.hostRecord = new TimeSeriesCatalogHost();
+		this.itemRecord = new TimeSeriesCatalogItem();
+	}
+
+	/**
+	 * Constructor for a history time series catalog using shared host and item data.
+	 * @param hostRecord host data, which can be shared with other entries for the host
+	 * @param itemRecord item data
+	 */
+	public TimeSeriesCatalog ( TimeSeriesCatalogHost hostRecord, TimeSeriesCatalogItem itemRecord ) {
+		this.hostRecord = hostRecord;
+		this.itemRecord = itemRecord;
+		this.dataInterval = "IrregSecond";
+	}
+
+	/**
+	 * Constructor for a trend time series catalog, which is a view of the history time series catalog for the item.
+	 * The host and item data are shared with the history time series catalog.
+	 * @param historyTscatalog history time series catalog for the item
+	 * @param statistic trend statistic
+	 */
+	public TimeSeriesCatalog ( TimeSeriesCatalog historyTscatalog, TrendStatistic statistic ) {
+		this.hostRecord = historyTscatalog.hostRecord;
+		this.itemRecord = historyTscatalog.itemRecord;
+		this.statistic = statistic;
+		this.dataType = historyTscatalog.getItemName() + "-" + statistic.getSuffix();
+		this.dataInterval = "Hour";
 	}
 
 	/**
@@ -108,45 +129,17 @@ public class TimeSeriesCatalog {
 	 * @param deepCopy indicates whether an exact deep copy should be made (true)
 	 * or a shallow copy that is typically used when defining a derived catalog record.
 	 * For example, use deepCopy=false when copying a scaled catalog entry for a rated time series.
+	 * A deep copy has its own host and item data, whereas a shallow copy shares the host and item data.
 	 */
 	public TimeSeriesCatalog ( TimeSeriesCatalog timeSeriesCatalog, boolean deepCopy ) {
 		// List in the same order as time series identifier.
-		this.locId = timeSeriesCatalog.locId;
-		this.dataSource = timeSeriesCatalog.dataSource;
 		this.dataType = timeSeriesCatalog.dataType;
 		this.dataInterval = timeSeriesCatalog.dataInterval;
-		this.dataUnits = timeSeriesCatalog.dataUnits;
-
-		// Host group data, listed alphabetically.
-		this.hostGroupId = timeSeriesCatalog.hostGroupId;
-		this.hostGroupName = timeSeriesCatalog.hostGroupName;
-		this.hostGroupName2 = timeSeriesCatalog.hostGroupName2;
-
-		// Host data, listed alphabetically.
-		//private Double stationLatitude = null;
-		//private Double stationLongitude = null;
-		this.host= timeSeriesCatalog.host;
-		this.hostDescription = timeSeriesCatalog.hostDescription;
-		this.hostId = timeSeriesCatalog.hostId;
-		this.hostName = timeSeriesCatalog.hostName;
-
-		// Item data, listed alphabetically.
-		this.itemDelay = timeSeriesCatalog.itemDelay;
-		this.itemHistory = timeSeriesCatalog.itemHistory;
-		this.itemId = timeSeriesCatalog.itemId;
-		this.itemKey = timeSeriesCatalog.itemKey;
-		this.itemName = timeSeriesCatalog.itemName;
-		this.itemStatus = timeSeriesCatalog.itemStatus;
-		this.itemTemplateid = timeSeriesCatalog.itemTemplateid;
-		this.itemTemplateName = timeSeriesCatalog.itemTemplateName;
-		this.itemTrends = timeSeriesCatalog.itemTrends;
-		this.itemType = timeSeriesCatalog.itemType;
-		this.itemTypeNum = timeSeriesCatalog.itemTypeNum;
-		this.itemUnits = timeSeriesCatalog.itemUnits;
-		this.itemValueType = timeSeriesCatalog.itemValueType;
-		this.itemValueTypeNum = timeSeriesCatalog.itemValueTypeNum;
+		this.statistic = timeSeriesCatalog.statistic;
 
 		if ( deepCopy ) {
+			this.hostRecord = new TimeSeriesCatalogHost(timeSeriesCatalog.hostRecord);
+			this.itemRecord = new TimeSeriesCatalogItem(timeSeriesCatalog.itemRecord);
 			// Time series catalog problems.
 			if ( timeSeriesCatalog.problems == null ) {
 				this.problems = null;
@@ -160,6 +153,8 @@ public class TimeSeriesCatalog {
 			}
 		}
 		else {
+			this.hostRecord = timeSeriesCatalog.hostRecord;
+			this.itemRecord = timeSeriesCatalog.itemRecord;
 			// Default is null problems list.
 		}
 	}
@@ -208,15 +203,27 @@ public class TimeSeriesCatalog {
 	}
 
 	public String getDataSource ( ) {
-		return this.dataSource;
+		String hostGroupName = this.hostRecord.getHostGroupName();
+		return (hostGroupName == null) ? "" : hostGroupName;
 	}
 
 	public String getDataType ( ) {
-		return this.dataType;
+		return (this.dataType == null) ? this.itemRecord.getItemName() : this.dataType;
 	}
 
 	public String getDataUnits ( ) {
-		return this.dataUnits;
+		return this.itemRecord.getItemUnits();
+	}
+
+	/**
+	 * Return a hash of the catalog content, used to detect whether the catalog for an item has changed
+	 * when the catalog is refreshed.
+	 * All data that are read from Zabbix are included.  Problems are not included.
+	 * @return a hash of the catalog content
+	 */
+	public int getContentHash () {
+		return Objects.hash ( getDataType(), this.dataInterval, this.statistic,
+			this.hostRecord.hashCode(), this.itemRecord.getContentHash() );
 	}
 
 	/**
@@ -227,22 +234,16 @@ public class TimeSeriesCatalog {
 	 */
 	public static List<String> getDistinctDataIntervals ( List<TimeSeriesCatalog> tscatalogList ) {
 	    List<String> dataIntervalsDistinct = new ArrayList<>();
+	    // Set used to check for duplicates, so that the list is created in one pass.
+	    Set<String> dataIntervalSet = new HashSet<>();
 	    String dataInterval;
-	    boolean found;
 	    for ( TimeSeriesCatalog tscatalog : tscatalogList ) {
 	    	// Data interval from the catalog, something like "IrregSecond", "15Minute", "1Hour", "24Hour".
 	    	dataInterval = tscatalog.getDataInterval();
 	    	if ( dataInterval == null ) {
 	    		continue;
 	    	}
-	    	found = false;
-	    	for ( String dataInterval2 : dataIntervalsDistinct ) {
-	    		if ( dataInterval2.equals(dataInterval) ) {
-	    			found = true;
-	    			break;
-	    		}
-	    	}
-	    	if ( !found ) {
+	    	if ( dataIntervalSet.add(dataInterval) ) {
 	    		// Add to the list of unique data types.
 	    		dataIntervalsDistinct.add(dataInterval);
 	    	}
@@ -257,22 +258,15 @@ public class TimeSeriesCatalog {
 	 */
 	public static List<String> getDistinctDataSources ( List<TimeSeriesCatalog> tscatalogList ) {
 	    List<String> dataSourcesDistinct = new ArrayList<>();
+	    Set<String> dataSourceSet = new HashSet<>();
 	    String dataSource;
-	    boolean found;
 	    for ( TimeSeriesCatalog tscatalog : tscatalogList ) {
 	    	// Data source from the catalog, the host group name.
 	    	dataSource = tscatalog.getDataSource();
 	    	if ( dataSource == null ) {
 	    		continue;
 	    	}
-	    	found = false;
-	    	for ( String dataSource2 : dataSourcesDistinct ) {
-	    		if ( dataSource2.equals(dataSource) ) {
-	    			found = true;
-	    			break;
-	    		}
-	    	}
-	    	if ( !found ) {
+	    	if ( dataSourceSet.add(dataSource) ) {
 	    		// Add to the list of unique data types.
 	    		dataSourcesDistinct.add(dataSource);
 	    	}
@@ -288,22 +282,15 @@ public class TimeSeriesCatalog {
 	 */
 	public static List<String> getDistinctDataTypes ( List<TimeSeriesCatalog> tscatalogList ) {
 	    List<String> dataTypesDistinct = new ArrayList<>();
+	    Set<String> dataTypeSet = new HashSet<>();
 	    String dataType;
-	    boolean found;
 	    for ( TimeSeriesCatalog tscatalog : tscatalogList ) {
 	    	// Data type from the catalog, something like "WaterLevelRiver".
 	    	dataType = tscatalog.getDataType();
 	    	if ( dataType == null ) {
 	    		continue;
 	    	}
-	    	found = false;
-	    	for ( String dataType2 : dataTypesDistinct ) {
-	    		if ( dataType2.equals(dataType) ) {
-	    			found = true;
-	    			break;
-	    		}
-	    	}
-	    	if ( !found ) {
+	    	if ( dataTypeSet.add(dataType) ) {
 	    		// Add to the list of unique data types.
 	    		dataTypesDistinct.add(dataType);
 	    	}
@@ -320,8 +307,8 @@ public class TimeSeriesCatalog {
 	 */
 	public static List<String> getDistinctLocIds ( List<TimeSeriesCatalog> tscatalogList, boolean includeNote ) {
 	    List<String> LocIdsDistinct = new ArrayList<>();
+	    Set<String> locIdSet = new HashSet<>();
 	    String locId;
-	    boolean found;
 	    for ( TimeSeriesCatalog tscatalog : tscatalogList ) {
 	    	// Data type from the catalog, something like "WaterLevelRiver".
 	    	locId = tscatalog.getLocId();
@@ -332,14 +319,7 @@ public class TimeSeriesCatalog {
     			// Add the note at the end.
     			locId = locId + " - " + tscatalog.getHostName();
     		}
-	    	found = false;
-	    	for ( String locId2 : LocIdsDistinct ) {
-	    		if ( locId2.equals(locId) ) {
-	    			found = true;
-	    			break;
-	    		}
-	    	}
-	    	if ( !found ) {
+	    	if ( locIdSet.add(locId) ) {
 	    		// Add to the list of unique data types.
 	    		LocIdsDistinct.add(locId);
 	    	}
@@ -357,55 +337,71 @@ public class TimeSeriesCatalog {
 	}
 
 	public String getHost( ) {
-		return this.host;
+		return this.hostRecord.getHost();
 	}
 
 	public String getHostDescription ( ) {
-		return this.hostDescription;
+		return this.hostRecord.getHostDescription();
 	}
 
 	public String getHostGroupId ( ) {
-		return this.hostGroupId;
+		return this.hostRecord.getHostGroupId();
 	}
 
 	public String getHostGroupName ( ) {
-		return this.hostGroupName;
+		return this.hostRecord.getHostGroupName();
 	}
 
 	public String getHostGroupName2 ( ) {
-		return this.hostGroupName2;
+		return this.hostRecord.getHostGroupName2();
 	}
 
 	public String getHostId ( ) {
-		return this.hostId;
+		return this.hostRecord.getHostId();
 	}
 
 	public String getHostName ( ) {
-		return this.hostName;
+		return this.hostRecord.getHostName();
+	}
+
+	/**
+	 * Return the host data, which is shared by all entries for the host.
+	 * @return the host data
+	 */
+	public TimeSeriesCatalogHost getHostRecord ( ) {
+		return this.hostRecord;
 	}
 
 	public String getItemDelay ( ) {
-		return this.itemDelay;
+		return this.itemRecord.getItemDelay();
 	}
 
 	public String getItemHistory ( ) {
-		return this.itemHistory;
+		return this.itemRecord.getItemHistory();
 	}
 
 	public String getItemId ( ) {
-		return this.itemId;
+		return this.itemRecord.getItemId();
 	}
 
 	public String getItemKey ( ) {
-		return this.itemKey;
+		return this.itemRecord.getItemKey();
 	}
 
 	public String getItemName ( ) {
-		return this.itemName;
+		return this.itemRecord.getItemName();
+	}
+
+	/**
+	 * Return the item data, which is shared by the history and trend entries for the item.
+	 * @return the item data
+	 */
+	public TimeSeriesCatalogItem getItemRecord ( ) {
+		return this.itemRecord;
 	}
 
 	public String getItemStatus ( ) {
-		return this.itemStatus;
+		return this.itemRecord.getItemStatus();
 	}
 
 	/**
@@ -413,39 +409,48 @@ public class TimeSeriesCatalog {
 	 * @return
 	 */
 	public String getItemTemplateName ( ) {
-		return this.itemTemplateName;
+		return this.itemRecord.getItemTemplateName();
 	}
 
 	public String getItemTemplateId ( ) {
-		return this.itemTemplateid;
+		return this.itemRecord.getItemTemplateId();
 	}
 
 	public String getItemTrends ( ) {
-		return this.itemTrends;
+		return this.itemRecord.getItemTrends();
 	}
 
 	public String getItemType ( ) {
-		return this.itemType;
+		return this.itemRecord.getItemType();
 	}
 
 	public Integer getItemTypeNum ( ) {
-		return this.itemTypeNum;
+		return this.itemRecord.getItemTypeNum();
 	}
 
 	public String getItemUnits ( ) {
-		return this.itemUnits;
+		return this.itemRecord.getItemUnits();
 	}
 
 	public String getItemValueType ( ) {
-		return this.itemValueType;
+		return this.itemRecord.getItemValueType();
 	}
 
 	public Integer getItemValueTypeNum ( ) {
-		return this.itemValueTypeNum;
+		return this.itemRecord.getItemValueTypeNum();
 	}
 
 	public String getLocId ( ) {
-		return this.locId;
+		String host = this.hostRecord.getHost();
+		return (host == null) ? "" : host;
+	}
+
+	/**
+	 * Return the trend statistic.
+	 * @return the trend statistic, or null for history
+	 */
+	public TrendStatistic getStatistic ( ) {
+		return this.statistic;
 	}
 
     /**
@@ -454,8 +459,9 @@ public class TimeSeriesCatalog {
      * @return true if the value type is FLOAT or INTEGER and false otherwise.
      */
     public boolean isNumeric () {
-    	if ( (this.itemValueTypeNum == ValueType.FLOAT.getCode())
-    		|| (this.itemValueTypeNum == ValueType.INTEGER.getCode()) ) {
+    	Integer itemValueTypeNum = this.itemRecord.getItemValueTypeNum();
+    	if ( (itemValueTypeNum == ValueType.FLOAT.getCode())
+    		|| (itemValueTypeNum == ValueType.INTEGER.getCode()) ) {
     		return true;
     	}
     	else {
@@ -466,6 +472,7 @@ public class TimeSeriesCatalog {
 	/**
 	 * Lookup time series catalog using parts from the TSTool main UI and input filters.
 	 * This is called when reading a time series using a TSID.
+	 * This scans the full list, so use TimeSeriesCatalogIndex.lookup() for large lists that are searched more than once.
 	 * @param tscatalogListToSearch list of TimeSeriesCatalog to search, for example the global list.
 	 * @param dataType the data type to match, null or "*" to ignore
 	 * @param dataInterval the data interval to match, null or "*" to ignore
@@ -547,16 +554,32 @@ public class TimeSeriesCatalog {
 		this.dataInterval = dataInterval;
 	}
 
+	/**
+	 * Set the data source, which is the host group name.
+	 * @param dataSource the data source
+	 */
 	public void setDataSource ( String dataSource ) {
-		this.dataSource = dataSource;
+		if ( !Objects.equals(dataSource, getDataSource()) ) {
+			this.hostRecord.setHostGroupName(dataSource);
+		}
 	}
 
 	public void setDataType ( String dataType ) {
-		this.dataType = dataType;
+		if ( (this.statistic == null) && (dataType != null) && dataType.equals(this.itemRecord.getItemName()) ) {
+			// Use the item name.
+			this.dataType = null;
+		}
+		else {
+			this.dataType = dataType;
+		}
 	}
 
+	/**
+	 * Set the data units, which are the item units.
+	 * @param dataUnits the data units
+	 */
 	public void setDataUnits ( String dataUnits ) {
-		this.dataUnits = dataUnits;
+		this.itemRecord.setItemUnits(dataUnits);
 	}
 
 	/**
@@ -569,87 +592,97 @@ public class TimeSeriesCatalog {
 	}
 
 	public void setHost ( String host ) {
-		this.host = host;
+		this.hostRecord.setHost(host);
 	}
 
 	public void setHostDescription ( String hostDescription ) {
-		this.hostDescription = hostDescription;
+		this.hostRecord.setHostDescription(hostDescription);
 	}
 
 	public void setHostGroupId ( String hostGroupId ) {
-		this.hostGroupId = hostGroupId;
+		this.hostRecord.setHostGroupId(hostGroupId);
 	}
 
 	public void setHostGroupName ( String hostGroupName ) {
-		this.hostGroupName = hostGroupName;
+		this.hostRecord.setHostGroupName(hostGroupName);
 	}
 
 	public void setHostGroupName2 ( String hostGroupName2 ) {
-		this.hostGroupName2 = hostGroupName2;
+		this.hostRecord.setHostGroupName2(hostGroupName2);
 	}
 
 	public void setHostId ( String hostId ) {
-		this.hostId = hostId;
+		this.hostRecord.setHostId(hostId);
 	}
 
 	public void setHostName ( String hostName ) {
-		this.hostName = hostName;
+		this.hostRecord.setHostName(hostName);
 	}
 
 	public void setItemDelay ( String itemDelay ) {
-		this.itemDelay = itemDelay;
+		this.itemRecord.setItemDelay(itemDelay);
 	}
 
 	public void setItemHistory ( String itemHistory ) {
-		this.itemHistory = itemHistory;
+		this.itemRecord.setItemHistory(itemHistory);
 	}
 
 	public void setItemId ( String itemId ) {
-		this.itemId = itemId;
+		this.itemRecord.setItemId(itemId);
 	}
 
 	public void setItemKey ( String itemKey ) {
-		this.itemKey = itemKey;
+		this.itemRecord.setItemKey(itemKey);
 	}
 
 	public void setItemName ( String itemName ) {
-		this.itemName = itemName;
+		this.itemRecord.setItemName(itemName);
 	}
 
 	public void setItemStatus ( String itemStatus ) {
-		this.itemStatus = itemStatus;
+		this.itemRecord.setItemStatus(itemStatus);
+	}
+
+	public void setItemTemplateName ( String itemTemplateName ) {
+		this.itemRecord.setItemTemplateName(itemTemplateName);
 	}
 
 	public void setItemTemplateId ( String itemTemplateid ) {
-		this.itemTemplateid = itemTemplateid;
+		this.itemRecord.setItemTemplateId(itemTemplateid);
 	}
 
 	public void setItemTrends ( String itemTrends ) {
-		this.itemTrends = itemTrends;
+		this.itemRecord.setItemTrends(itemTrends);
 	}
 
 	public void setItemType ( String itemType ) {
-		this.itemType = itemType;
+		this.itemRecord.setItemType(itemType);
 	}
 
 	public void setItemTypeNum ( Integer itemTypeNum ) {
-		this.itemTypeNum = itemTypeNum;
+		this.itemRecord.setItemTypeNum(itemTypeNum);
 	}
 
 	public void setItemUnits ( String itemUnits ) {
-		this.itemUnits = itemUnits;
+		this.itemRecord.setItemUnits(itemUnits);
 	}
 
 	public void setItemValueType ( String itemValueType ) {
-		this.itemValueType = itemValueType;
+		this.itemRecord.setItemValueType(itemValueType);
 	}
 
 	public void setItemValueTypeNum ( Integer itemValueTypeNum ) {
-		this.itemValueTypeNum = itemValueTypeNum;
+		this.itemRecord.setItemValueTypeNum(itemValueTypeNum);
 	}
 
+	/**
+	 * Set the location ID, which is the host 'host'.
+	 * @param locId the location ID
+	 */
 	public void setLocId ( String locId ) {
-		this.locId = locId;
+		if ( !Objects.equals(locId, getLocId()) ) {
+			this.hostRecord.setHost(locId);
+		}
 	}
 
 	/**
@@ -657,15 +690,26 @@ public class TimeSeriesCatalog {
 	 * @param templateList the list of Template to use as input for derived data.
 	 */
 	public void setDerivedData ( List<Template> templateList ) {
-		Template template = Template.lookupTemplateForId(templateList, getItemTemplateId());
-		if ( template != null ) {
-			this.itemTemplateName = template.getName();
-		}
-		else {
+		if ( !setDerivedData ( Template.createTemplateIdMap(templateList) ) ) {
 			Message.printStatus(2, "", "Could not find template with ID " + getItemTemplateId() );
 		}
 	}
 
+	/**
+	 * Set the derived data including template name (from template).
+	 * This version is used when processing many catalog entries and does not print a message if the template is not found.
+	 * @param templateIdMap map of Template, from Template.createTemplateIdMap(), to use as input for derived data.
+	 * @return true if the template was found, false if not
+	 */
+	public boolean setDerivedData ( Map<String,Template> templateIdMap ) {
+		Template template = Template.lookupTemplateForId(templateIdMap, getItemTemplateId());
+		if ( template != null ) {
+			this.itemRecord.setItemTemplateName(template.getName());
+			return true;
+		}
+		return false;
+	}
+
 	/**
 	 * Set the derived data including template name (from template).
 	 * @param tscatalogList the list of TimeSeriesCatalog to process.
@@ -675,12 +719,9 @@ public class TimeSeriesCatalog {
 		if ( tscatalogList == null ) {
 			return;
 		}
+		Map<String,Template> templateIdMap = Template.createTemplateIdMap(templateList);
 		for ( TimeSeriesCatalog tscatalog : tscatalogList ) {
-			tscatalog.setDerivedData( templateList);
-			Template template = Template.lookupTemplateForId(templateList, tscatalog.getItemTemplateId());
-			if ( template != null ) {
-				tscatalog.itemTemplateName = template.getName();
-			}
+			tscatalog.setDerivedData ( templateIdMap );
 		}
 	}
 
@@ -688,6 +729,6 @@ public class TimeSeriesCatalog {
 	 * Simple string to identify the time series catalog, for example for logging, using TSID format.
 	 */
 	public String toString() {
-		return "" + this.locId + ".." + this.dataType + "." + this.dataInterval;
+		return "" + getLocId() + ".." + getDataType() + "." + this.dataInterval;
 	}
 }
@@ -0,0 +1,195 @@
+// TimeSeriesCatalogHost - host and host group data shared by time series catalog entries for a host
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import java.util.Objects;
+
+/**
+ * Host and host group data for the time series catalog.
+ * One instance is shared by all TimeSeriesCatalog entries for a host (history and trend),
+ * rather than copying the host data (including the potentially long description) into each entry.
+ * The host group is shared with the host group list.
+ * Instances can be deduplicated using equals() and hashCode(), which compare all of the data.
+ */
+public class TimeSeriesCatalogHost {
+
+	/**
+	 * Preferred host group, used for the TSID data source, null if the host is not in a group.
+	 */
+	private HostGroup hostGroup = null;
+
+	/**
+	 * Additional host group names that don't match the preferred host group name, separated by commas.
+	 */
+	private String hostGroupName2 = null;
+
+	/**
+	 * Host 'host', used for the TSID location.
+	 */
+	private String host = null;
+
+	/**
+	 * Host 'description'.
+	 */
+	private String hostDescription = null;
+
+	/**
+	 * Host 'hostid'.
+	 */
+	private String hostId = null;
+
+	/**
+	 * Host 'name'.
+	 */
+	private String hostName = null;
+
+	/**
+	 * Constructor.
+	 */
+	public TimeSeriesCatalogHost () {
+	}
+
+	/**
+	 * Constructor for all data.
+	 * @param hostGroup preferred host group, may be null
+	 * @param hostGroupName2 additional host group names, may be null
+	 * @param host host 'host'
+	 * @param hostDescription host 'description'
+	 * @param hostId host 'hostid'
+	 * @param hostName host 'name'
+	 */
+	public TimeSeriesCatalogHost ( HostGroup hostGroup, String hostGroupName2,
+		String host, String hostDescription, String hostId, String hostName ) {
+		this.hostGroup = hostGroup;
+		this.hostGroupName2 = hostGroupName2;
+		this.host = host;
+		this.hostDescription = hostDescription;
+		this.hostId = hostId;
+		this.hostName = hostName;
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param hostRecord instance to copy
+	 */
+	public TimeSeriesCatalogHost ( TimeSeriesCatalogHost hostRecord ) {
+		this ( hostRecord.hostGroup, hostRecord.hostGroupName2,
+			hostRecord.host, hostRecord.hostDescription, hostRecord.hostId, hostRecord.hostName );
+	}
+
+	@Override
+	public boolean equals ( Object o ) {
+		if ( this == o ) {
+			return true;
+		}
+		if ( !(o instanceof TimeSeriesCatalogHost) ) {
+			return false;
+		}
+		TimeSeriesCatalogHost other = (TimeSeriesCatalogHost)o;
+		return Objects.equals(getHostGroupId(), other.getHostGroupId())
+			&& Objects.equals(getHostGroupName(), other.getHostGroupName())
+			&& Objects.equals(this.hostGroupName2, other.hostGroupName2)
+			&& Objects.equals(this.host, other.host)
+			&& Objects.equals(this.hostDescription, other.hostDescription)
+			&& Objects.equals(this.hostId, other.hostId)
+			&& Objects.equals(this.hostName, other.hostName);
+	}
+
+	public String getHost ( ) {
+		return this.host;
+	}
+
+	public String getHostDescription ( ) {
+		return this.hostDescription;
+	}
+
+	public HostGroup getHostGroup ( ) {
+		return this.hostGroup;
+	}
+
+	public String getHostGroupId ( ) {
+		return (this.hostGroup == null) ? null : this.hostGroup.getGroupid();
+	}
+
+	public String getHostGroupName ( ) {
+		return (this.hostGroup == null) ? null : this.hostGroup.getName();
+	}
+
+	public String getHostGroupName2 ( ) {
+		return this.hostGroupName2;
+	}
+
+	public String getHostId ( ) {
+		return this.hostId;
+	}
+
+	public String getHostName ( ) {
+		return this.hostName;
+	}
+
+	@Override
+	public int hashCode () {
+		return Objects.hash ( getHostGroupId(), getHostGroupName(), this.hostGroupName2,
+			this.host, this.hostDescription, this.hostId, this.hostName );
+	}
+
+	public void setHost ( String host ) {
+		this.host = host;
+	}
+
+	public void setHostDescription ( String hostDescription ) {
+		this.hostDescription = hostDescription;
+	}
+
+	public void setHostGroup ( HostGroup hostGroup ) {
+		this.hostGroup = hostGroup;
+	}
+
+	/**
+	 * Set the host group ID.  A new host group is used so that a shared host group is not changed.
+	 * @param hostGroupId host group 'groupid'
+	 */
+	public void setHostGroupId ( String hostGroupId ) {
+		this.hostGroup = new HostGroup ( hostGroupId, getHostGroupName() );
+	}
+
+	/**
+	 * Set the host group name.  A new host group is used so that a shared host group is not changed.
+	 * @param hostGroupName host group 'name'
+	 */
+	public void setHostGroupName ( String hostGroupName ) {
+		this.hostGroup = new HostGroup ( getHostGroupId(), hostGroupName );
+	}
+
+	public void setHostGroupName2 ( String hostGroupName2 ) {
+		this.hostGroupName2 = hostGroupName2;
+	}
+
+	public void setHostId ( String hostId ) {
+		this.hostId = hostId;
+	}
+
+	public void setHostName ( String hostName ) {
+		this.hostName = hostName;
+	}
+}
@@ -0,0 +1,360 @@
+// TimeSeriesCatalogIndex - hash indexes for a time series catalog list
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hash indexes for a list of TimeSeriesCatalog, used to avoid scanning the full catalog for each lookup.
+ * The following indexes are created:
+ * <ul>
+ * <li> data type and interval</li>
+ * <li> host (Host.host, the TSID location)</li>
+ * <li> host group name (the TSID data source)</li>
+ * <li> TSID parts (host, host group name, data type, interval), for reading a single time series</li>
+ * </ul>
+ * The distinct values used for choices (data type &rarr; data sources &rarr; location identifiers)
+ * are also created, so that choices can be provided without scanning the catalog.
+ * The lists in the indexes are in the same order as the catalog list,
+ * so that lookup() returns the same results in the same order as TimeSeriesCatalog.lookupCatalog().
+ * The catalog list must not be modified after the index is created.
+ */
+public class TimeSeriesCatalogIndex {
+
+	/**
+	 * Full catalog list, used when no index applies.
+	 */
+	private final List<TimeSeriesCatalog> tscatalogList;
+
+	/**
+	 * Index by data type and interval.
+	 */
+	private final Map<String,List<TimeSeriesCatalog>> dataTypeIntervalMap = new HashMap<>();
+
+	/**
+	 * Index by host (Host.host).
+	 */
+	private final Map<String,List<TimeSeriesCatalog>> hostMap = new HashMap<>();
+
+	/**
+	 * Index by host group name.
+	 */
+	private final Map<String,List<TimeSeriesCatalog>> hostGroupNameMap = new HashMap<>();
+
+	/**
+	 * Index by TSID parts (host, host group name, data type, interval).
+	 */
+	private final Map<String,List<TimeSeriesCatalog>> tsidMap = new HashMap<>();
+
+	/**
+	 * Key part used for a data source (host group name) that is not specified,
+	 * which can't be confused with a host group name.
+	 */
+	private static final String ANY_DATA_SOURCE = "\u0002";
+
+	/**
+	 * Distinct data sources (host group names), sorted, by data type and interval.
+	 * The data type and interval can be "*" to match all.
+	 */
+	private final Map<String,List<String>> dataSourceFacetMap = new HashMap<>();
+
+	/**
+	 * Distinct location identifiers (Host.host), sorted, by data type, interval, and data source.
+	 * The data type and interval can be "*" to match all, and the data source can be ANY_DATA_SOURCE.
+	 */
+	private final Map<String,List<String>> locIdFacetMap = new HashMap<>();
+
+	/**
+	 * Distinct location identifiers with the host name note (e.g., "host - Host Name"),
+	 * with the same keys as 'locIdFacetMap'.
+	 */
+	private final Map<String,List<String>> locIdNoteFacetMap = new HashMap<>();
+
+	/**
+	 * Constructor, which creates the indexes.
+	 * @param tscatalogList list of TimeSeriesCatalog to index, which must not be modified after calling
+	 */
+	public TimeSeriesCatalogIndex ( List<TimeSeriesCatalog> tscatalogList ) {
+		if ( tscatalogList == null ) {
+			tscatalogList = Collections.emptyList();
+		}
+		this.tscatalogList = tscatalogList;
+		for ( TimeSeriesCatalog tscatalog : tscatalogList ) {
+			addToIndex ( this.dataTypeIntervalMap, getKey(tscatalog.getDataType(), tscatalog.getDataInterval()), tscatalog );
+			addToIndex ( this.hostMap, tscatalog.getHost(), tscatalog );
+			addToIndex ( this.hostGroupNameMap, tscatalog.getHostGroupName(), tscatalog );
+			addToIndex ( this.tsidMap, getKey(tscatalog.getHost(), tscatalog.getHostGroupName(),
+				tscatalog.getDataType(), tscatalog.getDataInterval()), tscatalog );
+		}
+		createFacets ();
+	}
+
+	/**
+	 * Add a catalog to an index.
+	 * @param indexMap the index map
+	 * @param key the key for the catalog
+	 * @param tscatalog the catalog to add
+	 */
+	private void addToIndex ( Map<String,List<TimeSeriesCatalog>> indexMap, String key, TimeSeriesCatalog tscatalog ) {
+		List<TimeSeriesCatalog> list = indexMap.get(key);
+		if ( list == null ) {
+			list = new ArrayList<>(4);
+			indexMap.put(key, list);
+		}
+		list.add(tscatalog);
+	}
+
+	/**
+	 * Add a value to the distinct values for a facet.
+	 * @param facetMap the facet map
+	 * @param setMap the sets used to check for duplicates, with the same keys as the facet map
+	 * @param key the facet key
+	 * @param value the value to add
+	 */
+	private void addToFacet ( Map<String,List<String>> facetMap, Map<String,Set<String>> setMap, String key, String value ) {
+		Set<String> set = setMap.get(key);
+		if ( set == null ) {
+			set = new HashSet<>();
+			setMap.put(key, set);
+			facetMap.put(key, new ArrayList<>());
+		}
+		if ( set.add(value) ) {
+			facetMap.get(key).add(value);
+		}
+	}
+
+	/**
+	 * Create the distinct values for choices.
+	 * Each catalog is added to the data type and interval, and the wildcard ("*") for each,
+	 * so that lookups with wildcards do not need to scan the catalog.
+	 * The values are added in catalog order and then sorted ignoring case,
+	 * which gives the same order as the TimeSeriesCatalog.getDistinct*() methods.
+	 */
+	private void createFacets () {
+		Map<String,Set<String>> dataSourceSetMap = new HashMap<>();
+		Map<String,Set<String>> locIdSetMap = new HashMap<>();
+		Map<String,Set<String>> locIdNoteSetMap = new HashMap<>();
+		// Location identifier with note, created once for each host.
+		Map<TimeSeriesCatalogHost,String> locIdNoteMap = new IdentityHashMap<>();
+		String [] dataTypes = new String[2];
+		String [] dataIntervals = new String[2];
+		String [] hostGroupNames = new String[2];
+		for ( TimeSeriesCatalog tscatalog : this.tscatalogList ) {
+			String dataSource = tscatalog.getDataSource();
+			String locId = tscatalog.getLocId();
+			String locIdNote = locIdNoteMap.get(tscatalog.getHostRecord());
+			if ( locIdNote == null ) {
+				locIdNote = locId + " - " + tscatalog.getHostName();
+				locIdNoteMap.put(tscatalog.getHostRecord(), locIdNote);
+			}
+			dataTypes[0] = tscatalog.getDataType();
+			dataTypes[1] = "*";
+			dataIntervals[0] = tscatalog.getDataInterval();
+			dataIntervals[1] = "*";
+			// Catalog without a host group only match when the data source is not specified.
+			hostGroupNames[0] = ANY_DATA_SOURCE;
+			hostGroupNames[1] = tscatalog.getHostGroupName();
+			for ( String dataType : dataTypes ) {
+				for ( String dataInterval : dataIntervals ) {
+					addToFacet ( this.dataSourceFacetMap, dataSourceSetMap, getKey(dataType, dataInterval), dataSource );
+					for ( String hostGroupName : hostGroupNames ) {
+						if ( hostGroupName == null ) {
+							continue;
+						}
+						String key = getKey(dataType, dataInterval, hostGroupName);
+						addToFacet ( this.locIdFacetMap, locIdSetMap, key, locId );
+						addToFacet ( this.locIdNoteFacetMap, locIdNoteSetMap, key, locIdNote );
+					}
+				}
+			}
+		}
+		sortFacets ( this.dataSourceFacetMap );
+		sortFacets ( this.locIdFacetMap );
+		sortFacets ( this.locIdNoteFacetMap );
+	}
+
+	/**
+	 * Return the catalog list that was indexed.
+	 * @return the catalog list that was indexed
+	 */
+	public List<TimeSeriesCatalog> getCatalogList () {
+		return this.tscatalogList;
+	}
+
+	/**
+	 * Return the distinct data sources (host group names) for a data type and interval.
+	 * The list is created when the index is created so the cost is that of copying the result.
+	 * @param dataType the data type to match, null or "*" to match all
+	 * @param dataInterval the data interval to match, null or "*" to match all
+	 * @return the distinct data sources, sorted ignoring case, always non-null
+	 */
+	public List<String> getDistinctDataSources ( String dataType, String dataInterval ) {
+		return getFacet ( this.dataSourceFacetMap, getKey(toWildcard(dataType), toWildcard(dataInterval)) );
+	}
+
+	/**
+	 * Return the distinct location identifiers (Host.host) for a data type, interval, and data source.
+	 * The list is created when the index is created so the cost is that of copying the result.
+	 * @param dataType the data type to match, null or "*" to match all
+	 * @param dataInterval the data interval to match, null or "*" to match all
+	 * @param hostGroupName HostGroup.name to match, null to match all
+	 * @param includeNote if true, include a note with the host name
+	 * @return the distinct location identifiers, sorted ignoring case, always non-null
+	 */
+	public List<String> getDistinctLocIds ( String dataType, String dataInterval, String hostGroupName, boolean includeNote ) {
+		String key = getKey(toWildcard(dataType), toWildcard(dataInterval),
+			(hostGroupName == null) ? ANY_DATA_SOURCE : hostGroupName);
+		if ( includeNote ) {
+			return getFacet ( this.locIdNoteFacetMap, key );
+		}
+		else {
+			return getFacet ( this.locIdFacetMap, key );
+		}
+	}
+
+	/**
+	 * Return a copy of the distinct values for a facet key.
+	 * @param facetMap the facet map
+	 * @param key the facet key
+	 * @return a new list of the distinct values, which the caller can modify, or an empty list if not matched
+	 */
+	private List<String> getFacet ( Map<String,List<String>> facetMap, String key ) {
+		List<String> list = facetMap.get(key);
+		if ( list == null ) {
+			return new ArrayList<>();
+		}
+		return new ArrayList<>(list);
+	}
+
+	/**
+	 * Return an index key for the parts.
+	 * Null parts are included as "null", which matches how the catalog is indexed.
+	 * @param parts parts of the key
+	 * @return the index key
+	 */
+	private static String getKey ( String ... parts ) {
+		StringBuilder b = new StringBuilder();
+		for ( int i = 0; i < parts.length; i++ ) {
+			if ( i > 0 ) {
+				// Use a character that will not be in names.
+				b.append ( '\u0001' );
+			}
+			b.append ( parts[i] );
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Return the indexed list for a key.
+	 * @param indexMap the index map
+	 * @param key the key to look up
+	 * @return the matching list, or an empty list if not matched
+	 */
+	private List<TimeSeriesCatalog> getIndexList ( Map<String,List<TimeSeriesCatalog>> indexMap, String key ) {
+		List<TimeSeriesCatalog> list = indexMap.get(key);
+		if ( list == null ) {
+			return Collections.emptyList();
+		}
+		return list;
+	}
+
+	/**
+	 * Sort the distinct values for each facet key, ignoring case, and trim the lists.
+	 * @param facetMap the facet map
+	 */
+	private void sortFacets ( Map<String,List<String>> facetMap ) {
+		for ( Map.Entry<String,List<String>> entry : facetMap.entrySet() ) {
+			ArrayList<String> list = (ArrayList<String>)entry.getValue();
+			Collections.sort(list, String.CASE_INSENSITIVE_ORDER);
+			list.trimToSize();
+		}
+	}
+
+	/**
+	 * Convert a null data type or interval to the "*" wildcard used in the facet keys.
+	 * @param part the data type or interval
+	 * @return the part, or "*" if null
+	 */
+	private static String toWildcard ( String part ) {
+		return (part == null) ? "*" : part;
+	}
+
+	/**
+	 * Lookup time series catalog, with the same behavior as TimeSeriesCatalog.lookupCatalog().
+	 * The smallest index list that applies to the requested parts is searched,
+	 * so that a TSID lookup costs O(1) and other lookups cost O(matches of the most selective part).
+	 * @param dataType the data type to match, null or "*" to ignore
+	 * @param dataInterval the data interval to match, null or "*" to ignore
+	 * @param hostGroupName HostGroup.name to match, null to ignore
+	 * @param host Host.host to match, null to ignore
+	 * @param hostName Host.name to match, null to ignore
+	 * @param itemName Item.name to match, null to ignore
+	 * @return the list of matching TimeSeriesCatalog, always non-null
+	 */
+	public List<TimeSeriesCatalog> lookup (
+		String dataType, String dataInterval,
+		String hostGroupName,
+		String host,
+		String hostName,
+		String itemName ) {
+		boolean haveDataType = (dataType != null) && !dataType.equals("*");
+		boolean haveDataInterval = (dataInterval != null) && !dataInterval.equals("*");
+
+		// Determine the smallest list to search.
+		List<TimeSeriesCatalog> searchList = this.tscatalogList;
+		if ( haveDataType && haveDataInterval && (hostGroupName != null) && (host != null) ) {
+			// TSID lookup.
+			searchList = getIndexList ( this.tsidMap, getKey(host, hostGroupName, dataType, dataInterval) );
+		}
+		else {
+			if ( haveDataType && haveDataInterval ) {
+				searchList = getIndexList ( this.dataTypeIntervalMap, getKey(dataType, dataInterval) );
+			}
+			if ( host != null ) {
+				List<TimeSeriesCatalog> list = getIndexList ( this.hostMap, host );
+				if ( list.size() < searchList.size() ) {
+					searchList = list;
+				}
+			}
+			if ( hostGroupName != null ) {
+				List<TimeSeriesCatalog> list = getIndexList ( this.hostGroupNameMap, hostGroupName );
+				if ( list.size() < searchList.size() ) {
+					searchList = list;
+				}
+			}
+		}
+		if ( searchList.isEmpty() ) {
+			return new ArrayList<>();
+		}
+
+		// Check the remaining parts by searching the list.
+		return TimeSeriesCatalog.lookupCatalog ( searchList, dataType, dataInterval, hostGroupName, host, hostName, itemName );
+	}
+}
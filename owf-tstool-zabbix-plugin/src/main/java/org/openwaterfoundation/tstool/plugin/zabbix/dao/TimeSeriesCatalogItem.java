@@ -0,0 +1,200 @@
+// TimeSeriesCatalogItem - item data shared by the history and trend time series catalog entries for an item
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import java.util.Objects;
+
+/**
+ * Item data for the time series catalog.
+ * One instance is shared by the history and trend TimeSeriesCatalog entries for an item,
+ * rather than copying the item data into each entry.
+ * Strings are as read from Zabbix except that the type and value type are the display names if known.
+ */
+public class TimeSeriesCatalogItem {
+
+	// Item data, listed alphabetically.
+	private String itemDelay = "";
+	private String itemHistory = "";
+	private String itemId = "";
+	private String itemKey = "";
+	private String itemName = "";
+	private String itemStatus = "";
+	private String itemTemplateName = "";
+	private String itemTemplateid = "";
+	private String itemTrends = "";
+	private String itemType = "";
+	private Integer itemTypeNum = null;
+	private String itemUnits = "";
+	private String itemValueType = "";
+	private Integer itemValueTypeNum = null;
+
+	/**
+	 * Constructor.
+	 */
+	public TimeSeriesCatalogItem () {
+	}
+
+	/**
+	 * Copy constructor.
+	 * @param itemRecord instance to copy
+	 */
+	public TimeSeriesCatalogItem ( TimeSeriesCatalogItem itemRecord ) {
+		this.itemDelay = itemRecord.itemDelay;
+		this.itemHistory = itemRecord.itemHistory;
+		this.itemId = itemRecord.itemId;
+		this.itemKey = itemRecord.itemKey;
+		this.itemName = itemRecord.itemName;
+		this.itemStatus = itemRecord.itemStatus;
+		this.itemTemplateName = itemRecord.itemTemplateName;
+		this.itemTemplateid = itemRecord.itemTemplateid;
+		this.itemTrends = itemRecord.itemTrends;
+		this.itemType = itemRecord.itemType;
+		this.itemTypeNum = itemRecord.itemTypeNum;
+		this.itemUnits = itemRecord.itemUnits;
+		this.itemValueType = itemRecord.itemValueType;
+		this.itemValueTypeNum = itemRecord.itemValueTypeNum;
+	}
+
+	/**
+	 * Return a hash of the item data, used to detect whether the catalog for an item has changed.
+	 * @return a hash of the item data
+	 */
+	int getContentHash () {
+		return Objects.hash (
+			this.itemDelay, this.itemHistory, this.itemId, this.itemKey, this.itemName, this.itemStatus,
+			this.itemTemplateName, this.itemTemplateid, this.itemTrends, this.itemType, this.itemTypeNum,
+			this.itemUnits, this.itemValueType, this.itemValueTypeNum );
+	}
+
+	public String getItemDelay ( ) {
+		return this.itemDelay;
+	}
+
+	public String getItemHistory ( ) {
+		return this.itemHistory;
+	}
+
+	public String getItemId ( ) {
+		return this.itemId;
+	}
+
+	public String getItemKey ( ) {
+		return this.itemKey;
+	}
+
+	public String getItemName ( ) {
+		return this.itemName;
+	}
+
+	public String getItemStatus ( ) {
+		return this.itemStatus;
+	}
+
+	public String getItemTemplateName ( ) {
+		return this.itemTemplateName;
+	}
+
+	public String getItemTemplateId ( ) {
+		return this.itemTemplateid;
+	}
+
+	public String getItemTrends ( ) {
+		return this.itemTrends;
+	}
+
+	public String getItemType ( ) {
+		return this.itemType;
+	}
+
+	public Integer getItemTypeNum ( ) {
+		return this.itemTypeNum;
+	}
+
+	public String getItemUnits ( ) {
+		return this.itemUnits;
+	}
+
+	public String getItemValueType ( ) {
+		return this.itemValueType;
+	}
+
+	public Integer getItemValueTypeNum ( ) {
+		return this.itemValueTypeNum;
+	}
+
+	public void setItemDelay ( String itemDelay ) {
+		this.itemDelay = itemDelay;
+	}
+
+	public void setItemHistory ( String itemHistory ) {
+		this.itemHistory = itemHistory;
+	}
+
+	public void setItemId ( String itemId ) {
+		this.itemId = itemId;
+	}
+
+	public void setItemKey ( String itemKey ) {
+		this.itemKey = itemKey;
+	}
+
+	public void setItemName ( String itemName ) {
+		this.itemName = itemName;
+	}
+
+	public void setItemStatus ( String itemStatus ) {
+		this.itemStatus = itemStatus;
+	}
+
+	public void setItemTemplateName ( String itemTemplateName ) {
+		this.itemTemplateName = itemTemplateName;
+	}
+
+	public void setItemTemplateId ( String itemTemplateid ) {
+		this.itemTemplateid = itemTemplateid;
+	}
+
+	public void setItemTrends ( String itemTrends ) {
+		this.itemTrends = itemTrends;
+	}
+
+	public void setItemType ( String itemType ) {
+		this.itemType = itemType;
+	}
+
+	public void setItemTypeNum ( Integer itemTypeNum ) {
+		this.itemTypeNum = itemTypeNum;
+	}
+
+	public void setItemUnits ( String itemUnits ) {
+		this.itemUnits = itemUnits;
+	}
+
+	public void setItemValueType ( String itemValueType ) {
+		this.itemValueType = itemValueType;
+	}
+
+	public void setItemValueTypeNum ( Integer itemValueTypeNum ) {
+		this.itemValueTypeNum = itemValueTypeNum;
+	}
+}
@@ -0,0 +1,266 @@
+// TrendColumns - hourly trend data for one item, stored as arrays
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import java.util.Arrays;
+
+/**
+ * Hourly trend data for one item, stored as arrays rather than a list of Trend objects.
+ * This is used when reading trends for many items with one 'trend.get' request,
+ * where the records are split by 'itemid' as they are read.
+ * Trend records are not necessarily sorted by clock (see https://support.zabbix.com/browse/ZBXNEXT-3974)
+ * so the clock limits are tracked as records are added.
+ * Values that cannot be parsed are stored as NaN.
+ * Only the statistics that are needed may be read, in which case the other statistics are NaN.
+ */
+public class TrendColumns {
+
+	/**
+	 * Statistic flag for 'value_min', used to indicate which statistics are read.
+	 */
+	public static final int STAT_MIN = 1;
+
+	/**
+	 * Statistic flag for 'value_avg', used to indicate which statistics are read.
+	 */
+	public static final int STAT_AVG = 2;
+
+	/**
+	 * Statistic flag for 'value_max', used to indicate which statistics are read.
+	 */
+	public static final int STAT_MAX = 4;
+
+	/**
+	 * Statistic flags for all statistics.
+	 */
+	public static final int STAT_ALL = STAT_MIN | STAT_AVG | STAT_MAX;
+
+	/**
+	 * Trend 'itemid'.
+	 */
+	private String itemid = "";
+
+	/**
+	 * Statistics that were read, using the STAT_* flags.
+	 */
+	private int statistics = STAT_ALL;
+
+	/**
+	 * Number of records.
+	 */
+	private int size = 0;
+
+	/**
+	 * Trend 'clock' (hour beginning timestamp), UNIX epoch seconds.
+	 */
+	private long [] clock;
+
+	/**
+	 * Trend 'value_avg'.
+	 */
+	private double [] valueAvg;
+
+	/**
+	 * Trend 'value_max'.
+	 */
+	private double [] valueMax;
+
+	/**
+	 * Trend 'value_min'.
+	 */
+	private double [] valueMin;
+
+	/**
+	 * Minimum clock, -1 if no records.
+	 */
+	private long clockMin = -1;
+
+	/**
+	 * Maximum clock, -1 if no records.
+	 */
+	private long clockMax = -1;
+
+	/**
+	 * Constructor.
+	 * @param itemid the item identifier
+	 * @param initialCapacity the initial number of records to allocate, for example the number of hours in the read period
+	 */
+	public TrendColumns ( String itemid, int initialCapacity ) {
+		this ( itemid, initialCapacity, STAT_ALL );
+	}
+
+	/**
+	 * Constructor.
+	 * @param itemid the item identifier
+	 * @param initialCapacity the initial number of records to allocate, for example the number of hours in the read period
+	 * @param statistics the statistics that are read, using the STAT_* flags
+	 */
+	public TrendColumns ( String itemid, int initialCapacity, int statistics ) {
+		this.itemid = itemid;
+		this.statistics = statistics;
+		if ( initialCapacity < 16 ) {
+			initialCapacity = 16;
+		}
+		this.clock = new long[initialCapacity];
+		this.valueAvg = new double[initialCapacity];
+		this.valueMax = new double[initialCapacity];
+		this.valueMin = new double[initialCapacity];
+	}
+
+	/**
+	 * Add a trend record.
+	 * @param trend the trend record to add
+	 */
+	public void add ( Trend trend ) {
+		add ( Long.parseLong(trend.getClock()),
+			parseValue(trend.getValueMin()), parseValue(trend.getValueAvg()), parseValue(trend.getValueMax()) );
+	}
+
+	/**
+	 * Add a trend record.
+	 * @param clock the hour beginning timestamp, UNIX epoch seconds
+	 * @param valueMin the minimum value
+	 * @param valueAvg the average value
+	 * @param valueMax the maximum value
+	 */
+	public void add ( long clock, double valueMin, double valueAvg, double valueMax ) {
+		if ( this.size == this.clock.length ) {
+			// Grow the arrays.
+			int newCapacity = this.clock.length*2;
+			this.clock = Arrays.copyOf(this.clock, newCapacity);
+			this.valueAvg = Arrays.copyOf(this.valueAvg, newCapacity);
+			this.valueMax = Arrays.copyOf(this.valueMax, newCapacity);
+			this.valueMin = Arrays.copyOf(this.valueMin, newCapacity);
+		}
+		this.clock[this.size] = clock;
+		this.valueAvg[this.size] = valueAvg;
+		this.valueMax[this.size] = valueMax;
+		this.valueMin[this.size] = valueMin;
+		++this.size;
+		if ( (this.clockMin < 0) || (clock < this.clockMin) ) {
+			this.clockMin = clock;
+		}
+		if ( (this.clockMax < 0) || (clock > this.clockMax) ) {
+			this.clockMax = clock;
+		}
+	}
+
+	/**
+	 * Return the clock for a record.
+	 * @param i record index (0+)
+	 * @return the clock for the record, UNIX epoch seconds
+	 */
+	public long getClock ( int i ) {
+		return this.clock[i];
+	}
+
+	/**
+	 * Return the maximum clock.
+	 * @return the maximum clock, or -1 if no records
+	 */
+	public long getClockMax () {
+		return this.clockMax;
+	}
+
+	/**
+	 * Return the minimum clock.
+	 * @return the minimum clock, or -1 if no records
+	 */
+	public long getClockMin () {
+		return this.clockMin;
+	}
+
+	/**
+	 * Return the trend itemid.
+	 * @return the trend itemid
+	 */
+	public String getItemid () {
+		return this.itemid;
+	}
+
+	/**
+	 * Return the statistics that were read.
+	 * @return the statistics that were read, using the STAT_* flags
+	 */
+	public int getStatistics () {
+		return this.statistics;
+	}
+
+	/**
+	 * Return the average value for a record.
+	 * @param i record index (0+)
+	 * @return the average value, NaN if not available
+	 */
+	public double getValueAvg ( int i ) {
+		return this.valueAvg[i];
+	}
+
+	/**
+	 * Return the maximum value for a record.
+	 * @param i record index (0+)
+	 * @return the maximum value, NaN if not available
+	 */
+	public double getValueMax ( int i ) {
+		return this.valueMax[i];
+	}
+
+	/**
+	 * Return the minimum value for a record.
+	 * @param i record index (0+)
+	 * @return the minimum value, NaN if not available
+	 */
+	public double getValueMin ( int i ) {
+		return this.valueMin[i];
+	}
+
+	/**
+	 * Indicate whether the requested statistics were read.
+	 * @param statistics the statistics to check, using the STAT_* flags
+	 * @return true if all the requested statistics were read
+	 */
+	public boolean hasStatistics ( int statistics ) {
+		return (this.statistics & statistics) == statistics;
+	}
+
+	/**
+	 * Parse a value, returning NaN if it cannot be parsed.
+	 * @param value the value string from the trend record
+	 * @return the value or NaN
+	 */
+	private static double parseValue ( String value ) {
+		try {
+			return Double.parseDouble(value);
+		}
+		catch ( NumberFormatException | NullPointerException e ) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Return the number of records.
+	 * @return the number of records
+	 */
+	public int size () {
+		return this.size;
+	}
+}
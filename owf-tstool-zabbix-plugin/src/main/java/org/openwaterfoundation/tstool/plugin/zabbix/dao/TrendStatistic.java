@@ -0,0 +1,94 @@
+// TrendStatistic - trend statistic for trend time series
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+/**
+ * Trend statistic for trend time series, which is appended to the item name for the TSID data type (e.g., "Name-Avg").
+ */
+public enum TrendStatistic {
+
+	/**
+	 * Hourly average ('value_avg').
+	 */
+	AVG ( "Avg", TrendColumns.STAT_AVG ),
+
+	/**
+	 * Hourly maximum ('value_max').
+	 */
+	MAX ( "Max", TrendColumns.STAT_MAX ),
+
+	/**
+	 * Hourly minimum ('value_min').
+	 */
+	MIN ( "Min", TrendColumns.STAT_MIN );
+
+	/**
+	 * Data type suffix, without the dash.
+	 */
+	private final String suffix;
+
+	/**
+	 * TrendColumns.STAT_* flag for the statistic.
+	 */
+	private final int statisticFlag;
+
+	/**
+	 * Constructor.
+	 * @param suffix data type suffix, without the dash
+	 * @param statisticFlag TrendColumns.STAT_* flag for the statistic
+	 */
+	private TrendStatistic ( String suffix, int statisticFlag ) {
+		this.suffix = suffix;
+		this.statisticFlag = statisticFlag;
+	}
+
+	/**
+	 * Return the TrendColumns.STAT_* flag for the statistic.
+	 * @return the TrendColumns.STAT_* flag for the statistic
+	 */
+	public int getStatisticFlag () {
+		return this.statisticFlag;
+	}
+
+	/**
+	 * Return the data type suffix, without the dash (e.g., "Avg").
+	 * @return the data type suffix
+	 */
+	public String getSuffix () {
+		return this.suffix;
+	}
+
+	/**
+	 * Return the enumeration value given a data type suffix, ignoring case.
+	 * @param suffix data type suffix, without the dash (e.g., "Avg")
+	 * @return the enumeration value, or null if not matched
+	 */
+	public static TrendStatistic valueOfSuffixIgnoreCase ( String suffix ) {
+		for ( TrendStatistic statistic : values() ) {
+			if ( statistic.suffix.equalsIgnoreCase(suffix) ) {
+				return statistic;
+			}
+		}
+		return null;
+	}
+}
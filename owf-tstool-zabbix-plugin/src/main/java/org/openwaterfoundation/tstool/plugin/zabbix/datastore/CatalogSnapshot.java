@@ -0,0 +1,310 @@
+// CatalogSnapshot - immutable snapshot of the global data cached by the datastore
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Host;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HostGroup;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Item;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Template;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalog;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogIndex;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendStatistic;
+
+/**
+ * Immutable snapshot of the global data that the datastore keeps in memory
+ * (host groups, hosts, templates, items, item names, and history and trend time series catalog).
+ * The datastore publishes the current snapshot atomically so that:
+ * <ul>
+ * <li> readers get a consistent set of lists without locking, even if a refresh is occurring</li>
+ * <li> a refresh builds a new snapshot and then swaps it in, rather than modifying lists that are in use</li>
+ * </ul>
+ * The lists are unmodifiable.  The objects in the lists must not be modified after the snapshot is created.
+ * The time series catalog indexes and the host and template maps are created when the snapshot is created,
+ * so that they are always consistent with the lists.
+ */
+final class CatalogSnapshot {
+
+	/**
+	 * Empty snapshot, used before global data are read.
+	 */
+	static final CatalogSnapshot EMPTY = new CatalogSnapshot ( null, null, null, null, null, null, null );
+
+	/**
+	 * Host group list.
+	 */
+	private final List<HostGroup> hostGroupList;
+
+	/**
+	 * Host list.
+	 */
+	private final List<Host> hostList;
+
+	/**
+	 * Template list.
+	 */
+	private final List<Template> templateList;
+
+	/**
+	 * Item list.
+	 * CURRENTLY NOT POPULATED.
+	 */
+	private final List<Item> itemList;
+
+	/**
+	 * Unique item names, sorted.
+	 */
+	private final List<String> itemNameList;
+
+	/**
+	 * Data types for history (item names) and trend (item name and statistic) time series, sorted.
+	 */
+	private final List<String> dataTypeList;
+
+	/**
+	 * History time series catalog.
+	 */
+	private final List<TimeSeriesCatalog> historyTscatalogList;
+
+	/**
+	 * Trend time series catalog.
+	 */
+	private final List<TimeSeriesCatalog> trendTscatalogList;
+
+	/**
+	 * Index for the history time series catalog.
+	 */
+	private final TimeSeriesCatalogIndex historyTscatalogIndex;
+
+	/**
+	 * Index for the trend time series catalog.
+	 */
+	private final TimeSeriesCatalogIndex trendTscatalogIndex;
+
+	/**
+	 * Host map, keyed by 'hostid'.
+	 */
+	private final Map<String,Host> hostIdMap;
+
+	/**
+	 * Template map, keyed by 'templateid'.
+	 */
+	private final Map<String,Template> templateIdMap;
+
+	/**
+	 * Constructor.
+	 * The lists are copied so that later changes to the lists that are passed in do not change the snapshot.
+	 * @param hostGroupList host group list, null for an empty list
+	 * @param hostList host list, null for an empty list
+	 * @param templateList template list, null for an empty list
+	 * @param itemList item list, null for an empty list
+	 * @param itemNameList unique sorted item names, null for an empty list
+	 * @param historyTscatalogList history time series catalog, null for an empty list
+	 * @param trendTscatalogList trend time series catalog, null for an empty list
+	 */
+	CatalogSnapshot (
+		List<HostGroup> hostGroupList,
+		List<Host> hostList,
+		List<Template> templateList,
+		List<Item> itemList,
+		List<String> itemNameList,
+		List<TimeSeriesCatalog> historyTscatalogList,
+		List<TimeSeriesCatalog> trendTscatalogList ) {
+		this.hostGroupList = toUnmodifiableList ( hostGroupList );
+		this.hostList = toUnmodifiableList ( hostList );
+		this.templateList = toUnmodifiableList ( templateList );
+		this.itemList = toUnmodifiableList ( itemList );
+		this.itemNameList = toUnmodifiableList ( itemNameList );
+		this.dataTypeList = createDataTypeList ( this.itemNameList );
+		this.historyTscatalogList = toUnmodifiableList ( historyTscatalogList );
+		this.trendTscatalogList = toUnmodifiableList ( trendTscatalogList );
+		this.historyTscatalogIndex = new TimeSeriesCatalogIndex ( this.historyTscatalogList );
+		this.trendTscatalogIndex = new TimeSeriesCatalogIndex ( this.trendTscatalogList );
+		this.hostIdMap = Host.createHostIdMap ( this.hostList );
+		this.templateIdMap = Template.createTemplateIdMap ( this.templateList );
+	}
+
+	/**
+	 * Create the list of data types from the item names.
+	 * @param itemNameList unique item names
+	 * @return the unmodifiable sorted list of history and trend data types
+	 */
+	private static List<String> createDataTypeList ( List<String> itemNameList ) {
+		TrendStatistic [] statistics = TrendStatistic.values();
+		List<String> dataTypeList = new ArrayList<>(itemNameList.size()*(1 + statistics.length));
+		for ( String itemName : itemNameList ) {
+			// Item names are for history time series.
+			dataTypeList.add ( itemName );
+			// Add data types for trend time series:
+			// - use the Zabbix statistics as is to avoid confusion
+			for ( TrendStatistic statistic : statistics ) {
+				dataTypeList.add ( itemName + "-" + statistic.getSuffix() );
+			}
+		}
+		Collections.sort(dataTypeList, String.CASE_INSENSITIVE_ORDER);
+		return Collections.unmodifiableList(dataTypeList);
+	}
+
+	/**
+	 * Return the data types for history and trend time series.
+	 * @return the unmodifiable sorted list of data types
+	 */
+	List<String> getDataTypeList () {
+		return this.dataTypeList;
+	}
+
+	/**
+	 * Return the history time series catalog index.
+	 * @return the history time series catalog index
+	 */
+	TimeSeriesCatalogIndex getHistoryTscatalogIndex () {
+		return this.historyTscatalogIndex;
+	}
+
+	/**
+	 * Return the history time series catalog.
+	 * @return the unmodifiable history time series catalog
+	 */
+	List<TimeSeriesCatalog> getHistoryTscatalogList () {
+		return this.historyTscatalogList;
+	}
+
+	/**
+	 * Return the host group list.
+	 * @return the unmodifiable host group list
+	 */
+	List<HostGroup> getHostGroupList () {
+		return this.hostGroupList;
+	}
+
+	/**
+	 * Return the host map, keyed by 'hostid'.
+	 * @return the host map, which must not be modified
+	 */
+	Map<String,Host> getHostIdMap () {
+		return this.hostIdMap;
+	}
+
+	/**
+	 * Return the host list.
+	 * @return the unmodifiable host list
+	 */
+	List<Host> getHostList () {
+		return this.hostList;
+	}
+
+	/**
+	 * Return the item list.
+	 * @return the unmodifiable item list
+	 */
+	List<Item> getItemList () {
+		return this.itemList;
+	}
+
+	/**
+	 * Return the unique item names.
+	 * @return the unmodifiable sorted list of item names
+	 */
+	List<String> getItemNameList () {
+		return this.itemNameList;
+	}
+
+	/**
+	 * Return the template map, keyed by 'templateid'.
+	 * @return the template map, which must not be modified
+	 */
+	Map<String,Template> getTemplateIdMap () {
+		return this.templateIdMap;
+	}
+
+	/**
+	 * Return the template list.
+	 * @return the unmodifiable template list
+	 */
+	List<Template> getTemplateList () {
+		return this.templateList;
+	}
+
+	/**
+	 * Return the trend time series catalog index.
+	 * @return the trend time series catalog index
+	 */
+	TimeSeriesCatalogIndex getTrendTscatalogIndex () {
+		return this.trendTscatalogIndex;
+	}
+
+	/**
+	 * Return the trend time series catalog.
+	 * @return the unmodifiable trend time series catalog
+	 */
+	List<TimeSeriesCatalog> getTrendTscatalogList () {
+		return this.trendTscatalogList;
+	}
+
+	/**
+	 * Copy a list into an unmodifiable list.
+	 * @param list list to copy, can be null
+	 * @param <T> type of list object
+	 * @return unmodifiable copy of the list, empty if the list is null
+	 */
+	private static <T> List<T> toUnmodifiableList ( List<T> list ) {
+		if ( (list == null) || list.isEmpty() ) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(new ArrayList<>(list));
+	}
+
+	/**
+	 * Return a new snapshot with the history time series catalog replaced.
+	 * @param historyTscatalogList new history time series catalog
+	 * @return new snapshot
+	 */
+	CatalogSnapshot withHistoryTscatalogList ( List<TimeSeriesCatalog> historyTscatalogList ) {
+		return new CatalogSnapshot ( this.hostGroupList, this.hostList, this.templateList, this.itemList,
+			this.itemNameList, historyTscatalogList, this.trendTscatalogList );
+	}
+
+	/**
+	 * Return a new snapshot with the host group list replaced.
+	 * @param hostGroupList new host group list
+	 * @return new snapshot
+	 */
+	CatalogSnapshot withHostGroupList ( List<HostGroup> hostGroupList ) {
+		return new CatalogSnapshot ( hostGroupList, this.hostList, this.templateList, this.itemList,
+			this.itemNameList, this.historyTscatalogList, this.trendTscatalogList );
+	}
+
+	/**
+	 * Return a new snapshot with the host list replaced.
+	 * @param hostList new host list
+	 * @return new snapshot
+	 */
+	CatalogSnapshot withHostList ( List<Host> hostList ) {
+		return new CatalogSnapshot ( this.hostGroupList, hostList, this.templateList, this.itemList,
+			this.itemNameList, this.historyTscatalogList, this.trendTscatalogList );
+	}
+}
@@ -0,0 +1,515 @@
+// CatalogSnapshotFile - read and write the global data snapshot as a binary file
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Host;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HostGroup;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Template;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalog;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogHost;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogItem;
+
+import RTi.Util.Message.Message;
+
+/**
+ * Read and write the global data (host groups, hosts, templates, and history time series catalog) as a binary file,
+ * so that TSTool can start without reading the data from the web service.
+ * The trend catalog and item names are not saved because they are created from the history catalog.
+ * The file format is:
+ * <ul>
+ * <li> header:  magic number, format version, time that the data were read (ms), service root URI</li>
+ * <li> string table:  count followed by each unique string (length and UTF-8 bytes),
+ *      which allows repeated strings such as host group names to be saved and read once</li>
+ * <li> sections for host groups, hosts, templates, and history time series catalog,
+ *      each with a count followed by records that use string table indices (-1 for null)</li>
+ * </ul>
+ * The file is read using a memory-mapped buffer and does not require parsing JSON.
+ */
+class CatalogSnapshotFile {
+
+	/**
+	 * Magic number at the start of the file ("ZBXC").
+	 */
+	private static final int MAGIC = 0x5a425843;
+
+	/**
+	 * File format version, which must be incremented if the format changes.
+	 */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * Value used for a null Integer.
+	 */
+	private static final int NULL_INTEGER = Integer.MIN_VALUE;
+
+	/**
+	 * Path to the snapshot file.
+	 */
+	private final Path path;
+
+	/**
+	 * Constructor.
+	 * @param path path to the snapshot file
+	 */
+	CatalogSnapshotFile ( Path path ) {
+		this.path = path;
+	}
+
+	/**
+	 * Return the age of the file.
+	 * @return the age of the file (ms), or -1 if the file does not exist or an error
+	 */
+	long getAge () {
+		try {
+			if ( !Files.isRegularFile(this.path) ) {
+				return -1;
+			}
+			return System.currentTimeMillis() - Files.getLastModifiedTime(this.path).toMillis();
+		}
+		catch ( IOException e ) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Return the path to the snapshot file.
+	 * @return the path to the snapshot file
+	 */
+	Path getPath () {
+		return this.path;
+	}
+
+	/**
+	 * Read the snapshot file.
+	 * @param serviceRootURI service root URI for the datastore, which must match the file
+	 * @return the data read from the file, or null if the file does not exist, is for another service, or has an error
+	 */
+	SnapshotData read ( String serviceRootURI ) {
+		String routine = getClass().getSimpleName() + ".read";
+		if ( !Files.isRegularFile(this.path) ) {
+			return null;
+		}
+		try ( FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ) ) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+			// Header.
+			if ( buffer.getInt() != MAGIC ) {
+				Message.printWarning(3, routine, "File is not a catalog snapshot file: " + this.path );
+				return null;
+			}
+			if ( buffer.getInt() != FORMAT_VERSION ) {
+				Message.printStatus(2, routine, "Catalog snapshot file format version does not match - ignoring: " + this.path );
+				return null;
+			}
+			long readTime = buffer.getLong();
+			String fileServiceRootURI = readString ( buffer );
+			if ( !fileServiceRootURI.equals(serviceRootURI) ) {
+				Message.printStatus(2, routine, "Catalog snapshot file is for service \"" + fileServiceRootURI
+					+ "\" - ignoring: " + this.path );
+				return null;
+			}
+
+			// String table.
+			int stringCount = buffer.getInt();
+			String [] strings = new String[stringCount];
+			for ( int i = 0; i < stringCount; i++ ) {
+				strings[i] = readString ( buffer );
+			}
+
+			// Host groups.
+			int count = buffer.getInt();
+			List<HostGroup> hostGroupList = new ArrayList<>(count);
+			Map<String,HostGroup> hostGroupMap = new HashMap<>();
+			for ( int i = 0; i < count; i++ ) {
+				HostGroup hostGroup = new HostGroup ( getString(strings, buffer), getString(strings, buffer) );
+				hostGroupList.add ( hostGroup );
+				hostGroupMap.put ( hostGroup.getGroupid(), hostGroup );
+			}
+
+			// Hosts.
+			count = buffer.getInt();
+			List<Host> hostList = new ArrayList<>(count);
+			for ( int i = 0; i < count; i++ ) {
+				String hostid = getString(strings, buffer);
+				String host = getString(strings, buffer);
+				String name = getString(strings, buffer);
+				String description = getString(strings, buffer);
+				int groupCount = buffer.getInt();
+				List<HostGroup> groups = null;
+				if ( groupCount >= 0 ) {
+					groups = new ArrayList<>(groupCount);
+					for ( int j = 0; j < groupCount; j++ ) {
+						String groupid = getString(strings, buffer);
+						String groupName = getString(strings, buffer);
+						// Share the host group with the host group list if the same.
+						HostGroup hostGroup = hostGroupMap.get(groupid);
+						if ( (hostGroup == null) || !hostGroup.getName().equals(groupName) ) {
+							hostGroup = new HostGroup ( groupid, groupName );
+						}
+						groups.add ( hostGroup );
+					}
+				}
+				hostList.add ( new Host ( hostid, host, name, description, groups ) );
+			}
+
+			// Templates.
+			count = buffer.getInt();
+			List<Template> templateList = new ArrayList<>(count);
+			for ( int i = 0; i < count; i++ ) {
+				templateList.add ( new Template ( getString(strings, buffer), getString(strings, buffer),
+					getString(strings, buffer), getString(strings, buffer), getString(strings, buffer) ) );
+			}
+
+			// History time series catalog, in the same order as written:
+			// - the host data are shared by all entries for the host
+			// - the host group is shared with the host group list if the same
+			count = buffer.getInt();
+			List<TimeSeriesCatalog> historyTscatalogList = new ArrayList<>(count);
+			Map<TimeSeriesCatalogHost,TimeSeriesCatalogHost> hostRecordMap = new HashMap<>();
+			for ( int i = 0; i < count; i++ ) {
+				// The location ID, data source, data type, data interval, and data units are derived from the host and item data.
+				getString(strings, buffer); // locId
+				getString(strings, buffer); // dataSource
+				String dataType = getString(strings, buffer);
+				String dataInterval = getString(strings, buffer);
+				getString(strings, buffer); // dataUnits
+				String hostGroupId = getString(strings, buffer);
+				String hostGroupName = getString(strings, buffer);
+				HostGroup hostGroup = null;
+				if ( (hostGroupId != null) || (hostGroupName != null) ) {
+					hostGroup = hostGroupMap.get(hostGroupId);
+					if ( (hostGroup == null) || !hostGroup.getName().equals(hostGroupName) ) {
+						hostGroup = new HostGroup ( hostGroupId, hostGroupName );
+					}
+				}
+				TimeSeriesCatalogHost hostRecord = new TimeSeriesCatalogHost ( hostGroup,
+					getString(strings, buffer), getString(strings, buffer), getString(strings, buffer),
+					getString(strings, buffer), getString(strings, buffer) );
+				TimeSeriesCatalogHost sharedHostRecord = hostRecordMap.putIfAbsent ( hostRecord, hostRecord );
+				if ( sharedHostRecord != null ) {
+					hostRecord = sharedHostRecord;
+				}
+				TimeSeriesCatalogItem itemRecord = new TimeSeriesCatalogItem();
+				itemRecord.setItemDelay ( getString(strings, buffer) );
+				itemRecord.setItemHistory ( getString(strings, buffer) );
+				itemRecord.setItemId ( getString(strings, buffer) );
+				itemRecord.setItemKey ( getString(strings, buffer) );
+				itemRecord.setItemName ( getString(strings, buffer) );
+				itemRecord.setItemStatus ( getString(strings, buffer) );
+				itemRecord.setItemTemplateId ( getString(strings, buffer) );
+				itemRecord.setItemTemplateName ( getString(strings, buffer) );
+				itemRecord.setItemTrends ( getString(strings, buffer) );
+				itemRecord.setItemType ( getString(strings, buffer) );
+				itemRecord.setItemTypeNum ( getInteger(buffer) );
+				itemRecord.setItemUnits ( getString(strings, buffer) );
+				itemRecord.setItemValueType ( getString(strings, buffer) );
+				itemRecord.setItemValueTypeNum ( getInteger(buffer) );
+				TimeSeriesCatalog tscatalog = new TimeSeriesCatalog ( hostRecord, itemRecord );
+				tscatalog.setDataType ( dataType );
+				tscatalog.setDataInterval ( dataInterval );
+				historyTscatalogList.add ( tscatalog );
+			}
+
+			return new SnapshotData ( readTime, hostGroupList, hostList, templateList, historyTscatalogList );
+		}
+		catch ( Exception e ) {
+			// Includes BufferUnderflowException and IndexOutOfBoundsException for a truncated or corrupt file.
+			Message.printWarning(3, routine, "Error reading catalog snapshot file \"" + this.path + "\" (" + e + ")." );
+			return null;
+		}
+	}
+
+	/**
+	 * Read an Integer.
+	 * @param buffer buffer to read from
+	 * @return the Integer, may be null
+	 */
+	private Integer getInteger ( ByteBuffer buffer ) {
+		int i = buffer.getInt();
+		if ( i == NULL_INTEGER ) {
+			return null;
+		}
+		return Integer.valueOf(i);
+	}
+
+	/**
+	 * Read a string using the string table.
+	 * @param strings the string table
+	 * @param buffer buffer to read from
+	 * @return the string, may be null
+	 */
+	private String getString ( String [] strings, ByteBuffer buffer ) {
+		int i = buffer.getInt();
+		if ( i < 0 ) {
+			return null;
+		}
+		return strings[i];
+	}
+
+	/**
+	 * Read a string that is saved as the number of bytes followed by UTF-8 bytes.
+	 * @param buffer buffer to read from
+	 * @return the string
+	 */
+	private String readString ( ByteBuffer buffer ) {
+		int length = buffer.getInt();
+		byte [] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Write the snapshot file.
+	 * The file is written to a temporary file and then moved so that other processes do not read a partial file.
+	 * @param serviceRootURI service root URI for the datastore
+	 * @param snapshot the global data to write
+	 * @throws IOException if an error writing the file
+	 */
+	void write ( String serviceRootURI, CatalogSnapshot snapshot ) throws IOException {
+		// Create the string table.
+		Map<String,Integer> stringMap = new LinkedHashMap<>();
+		for ( HostGroup hostGroup : snapshot.getHostGroupList() ) {
+			addString ( stringMap, hostGroup.getGroupid(), hostGroup.getName() );
+		}
+		for ( Host host : snapshot.getHostList() ) {
+			addString ( stringMap, host.getHostid(), host.getHost(), host.getName(), host.getDescription() );
+			if ( host.getGroups() != null ) {
+				for ( HostGroup hostGroup : host.getGroups() ) {
+					addString ( stringMap, hostGroup.getGroupid(), hostGroup.getName() );
+				}
+			}
+		}
+		for ( Template template : snapshot.getTemplateList() ) {
+			addString ( stringMap, template.getTemplateid(), template.getHost(), template.getName(),
+				template.getDescription(), template.getUuid() );
+		}
+		for ( TimeSeriesCatalog tscatalog : snapshot.getHistoryTscatalogList() ) {
+			addString ( stringMap,
+				tscatalog.getLocId(), tscatalog.getDataSource(), tscatalog.getDataType(), tscatalog.getDataInterval(),
+				tscatalog.getDataUnits(), tscatalog.getHostGroupId(), tscatalog.getHostGroupName(), tscatalog.getHostGroupName2(),
+				tscatalog.getHost(), tscatalog.getHostDescription(), tscatalog.getHostId(), tscatalog.getHostName(),
+				tscatalog.getItemDelay(), tscatalog.getItemHistory(), tscatalog.getItemId(), tscatalog.getItemKey(),
+				tscatalog.getItemName(), tscatalog.getItemStatus(), tscatalog.getItemTemplateId(), tscatalog.getItemTemplateName(),
+				tscatalog.getItemTrends(), tscatalog.getItemType(), tscatalog.getItemUnits(), tscatalog.getItemValueType() );
+		}
+
+		Path parent = this.path.toAbsolutePath().getParent();
+		if ( parent != null ) {
+			Files.createDirectories(parent);
+		}
+		Path tempPath = this.path.resolveSibling(this.path.getFileName().toString() + ".tmp");
+		try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath), 65536)) ) {
+			// Header.
+			out.writeInt ( MAGIC );
+			out.writeInt ( FORMAT_VERSION );
+			out.writeLong ( System.currentTimeMillis() );
+			writeString ( out, serviceRootURI );
+
+			// String table.
+			out.writeInt ( stringMap.size() );
+			for ( String s : stringMap.keySet() ) {
+				writeString ( out, s );
+			}
+
+			// Host groups.
+			out.writeInt ( snapshot.getHostGroupList().size() );
+			for ( HostGroup hostGroup : snapshot.getHostGroupList() ) {
+				putString ( out, stringMap, hostGroup.getGroupid() );
+				putString ( out, stringMap, hostGroup.getName() );
+			}
+
+			// Hosts.
+			out.writeInt ( snapshot.getHostList().size() );
+			for ( Host host : snapshot.getHostList() ) {
+				putString ( out, stringMap, host.getHostid() );
+				putString ( out, stringMap, host.getHost() );
+				putString ( out, stringMap, host.getName() );
+				putString ( out, stringMap, host.getDescription() );
+				if ( host.getGroups() == null ) {
+					out.writeInt ( -1 );
+				}
+				else {
+					out.writeInt ( host.getGroups().size() );
+					for ( HostGroup hostGroup : host.getGroups() ) {
+						putString ( out, stringMap, hostGroup.getGroupid() );
+						putString ( out, stringMap, hostGroup.getName() );
+					}
+				}
+			}
+
+			// Templates.
+			out.writeInt ( snapshot.getTemplateList().size() );
+			for ( Template template : snapshot.getTemplateList() ) {
+				putString ( out, stringMap, template.getTemplateid() );
+				putString ( out, stringMap, template.getHost() );
+				putString ( out, stringMap, template.getName() );
+				putString ( out, stringMap, template.getDescription() );
+				putString ( out, stringMap, template.getUuid() );
+			}
+
+			// History time series catalog.
+			out.writeInt ( snapshot.getHistoryTscatalogList().size() );
+			for ( TimeSeriesCatalog tscatalog : snapshot.getHistoryTscatalogList() ) {
+				putString ( out, stringMap, tscatalog.getLocId() );
+				putString ( out, stringMap, tscatalog.getDataSource() );
+				putString ( out, stringMap, tscatalog.getDataType() );
+				putString ( out, stringMap, tscatalog.getDataInterval() );
+				putString ( out, stringMap, tscatalog.getDataUnits() );
+				putString ( out, stringMap, tscatalog.getHostGroupId() );
+				putString ( out, stringMap, tscatalog.getHostGroupName() );
+				putString ( out, stringMap, tscatalog.getHostGroupName2() );
+				putString ( out, stringMap, tscatalog.getHost() );
+				putString ( out, stringMap, tscatalog.getHostDescription() );
+				putString ( out, stringMap, tscatalog.getHostId() );
+				putString ( out, stringMap, tscatalog.getHostName() );
+				putString ( out, stringMap, tscatalog.getItemDelay() );
+				putString ( out, stringMap, tscatalog.getItemHistory() );
+				putString ( out, stringMap, tscatalog.getItemId() );
+				putString ( out, stringMap, tscatalog.getItemKey() );
+				putString ( out, stringMap, tscatalog.getItemName() );
+				putString ( out, stringMap, tscatalog.getItemStatus() );
+				putString ( out, stringMap, tscatalog.getItemTemplateId() );
+				putString ( out, stringMap, tscatalog.getItemTemplateName() );
+				putString ( out, stringMap, tscatalog.getItemTrends() );
+				putString ( out, stringMap, tscatalog.getItemType() );
+				putInteger ( out, tscatalog.getItemTypeNum() );
+				putString ( out, stringMap, tscatalog.getItemUnits() );
+				putString ( out, stringMap, tscatalog.getItemValueType() );
+				putInteger ( out, tscatalog.getItemValueTypeNum() );
+			}
+		}
+		Files.move(tempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Add strings to the string table.
+	 * @param stringMap the string table, with the index of each string
+	 * @param strings strings to add, null strings are ignored
+	 */
+	private void addString ( Map<String,Integer> stringMap, String ... strings ) {
+		for ( String s : strings ) {
+			if ( (s != null) && !stringMap.containsKey(s) ) {
+				stringMap.put ( s, stringMap.size() );
+			}
+		}
+	}
+
+	/**
+	 * Write an Integer.
+	 * @param out output stream
+	 * @param i the Integer to write, may be null
+	 * @throws IOException if an error writing
+	 */
+	private void putInteger ( DataOutputStream out, Integer i ) throws IOException {
+		if ( i == null ) {
+			out.writeInt ( NULL_INTEGER );
+		}
+		else {
+			out.writeInt ( i );
+		}
+	}
+
+	/**
+	 * Write a string as its string table index.
+	 * @param out output stream
+	 * @param stringMap the string table, with the index of each string
+	 * @param s the string to write, may be null
+	 * @throws IOException if an error writing
+	 */
+	private void putString ( DataOutputStream out, Map<String,Integer> stringMap, String s ) throws IOException {
+		if ( s == null ) {
+			out.writeInt ( -1 );
+		}
+		else {
+			out.writeInt ( stringMap.get(s) );
+		}
+	}
+
+	/**
+	 * Write a string as the number of bytes followed by UTF-8 bytes.
+	 * @param out output stream
+	 * @param s the string to write
+	 * @throws IOException if an error writing
+	 */
+	private void writeString ( DataOutputStream out, String s ) throws IOException {
+		byte [] bytes = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt ( bytes.length );
+		out.write ( bytes );
+	}
+
+	/**
+	 * Data read from a snapshot file.
+	 */
+	static class SnapshotData {
+		/**
+		 * Time that the data were read from the web service (ms).
+		 */
+		final long readTime;
+
+		/**
+		 * Host group list.
+		 */
+		final List<HostGroup> hostGroupList;
+
+		/**
+		 * Host list.
+		 */
+		final List<Host> hostList;
+
+		/**
+		 * Template list.
+		 */
+		final List<Template> templateList;
+
+		/**
+		 * History time series catalog.
+		 */
+		final List<TimeSeriesCatalog> historyTscatalogList;
+
+		SnapshotData ( long readTime, List<HostGroup> hostGroupList, List<Host> hostList,
+			List<Template> templateList, List<TimeSeriesCatalog> historyTscatalogList ) {
+			this.readTime = readTime;
+			this.hostGroupList = hostGroupList;
+			this.hostList = hostList;
+			this.templateList = templateList;
+			this.historyTscatalogList = historyTscatalogList;
+		}
+	}
+}
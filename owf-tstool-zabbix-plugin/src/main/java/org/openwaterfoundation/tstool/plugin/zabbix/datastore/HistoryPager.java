@@ -0,0 +1,198 @@
+// HistoryPager - read history in pages using a clock cursor
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HistoryColumns;
+
+/**
+ * Read history in pages using a clock cursor.
+ * Each request uses 'limit' and the next request starts at the last 'clock' that was returned.
+ * Records that have the same clock as the cursor and were returned by the previous page are skipped,
+ * so that duplicate timestamps (for different items or the same item with different 'ns') are handled.
+ * Records are identified by item, 'clock', and 'ns', which is the unique key for history records in Zabbix,
+ * so every page, including the page that reads all records for one clock, must include 'ns'.
+ * If more records than the page size have the same clock, the records for the clock are read without a limit.
+ */
+class HistoryPager {
+
+	/**
+	 * Reader for one page of history, which is implemented by the datastore to make the request.
+	 */
+	interface PageReader {
+		/**
+		 * Read one page of history, including 'ns'.
+		 * @param timeFrom timestamp to start read, UNIX epoch seconds, or -1 if not specified
+		 * @param timeTill timestamp to end read, UNIX epoch seconds, or -1 if not specified
+		 * @param limit maximum number of records to return, or 0 for no limit
+		 * @param page columns to add the records to, sorted by clock
+		 * @throws IOException if an error reading the page
+		 */
+		void readPage ( long timeFrom, long timeTill, int limit, HistoryColumns page ) throws IOException;
+	}
+
+	/**
+	 * Maximum number of records in a page.
+	 */
+	private final int pageSize;
+
+	/**
+	 * Reader for each page.
+	 */
+	private final PageReader pageReader;
+
+	/**
+	 * Number of pages that were read.
+	 */
+	private int pageCount = 0;
+
+	/**
+	 * Number of records that were passed to the consumer.
+	 */
+	private long recordCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param pageSize maximum number of records in a page, must be greater than zero
+	 * @param pageReader reader for each page
+	 */
+	HistoryPager ( int pageSize, PageReader pageReader ) {
+		this.pageSize = pageSize;
+		this.pageReader = pageReader;
+	}
+
+	/**
+	 * Return a key that uniquely identifies a history record, used to skip duplicate records when reading pages.
+	 * @param columns history columns
+	 * @param i record index (0+)
+	 * @return a key for the history record
+	 */
+	private static String getHistoryKey ( HistoryColumns columns, int i ) {
+		return columns.getItemIndex(i) + "," + columns.getClock(i) + "," + columns.getNs(i);
+	}
+
+	/**
+	 * Return the number of pages that were read.
+	 * @return the number of pages that were read
+	 */
+	int getPageCount () {
+		return this.pageCount;
+	}
+
+	/**
+	 * Return the number of records that were passed to the consumer.
+	 * @return the number of records that were passed to the consumer
+	 */
+	long getRecordCount () {
+		return this.recordCount;
+	}
+
+	/**
+	 * Read the history in pages.
+	 * @param page columns used for each page, which are cleared before each page is read
+	 * @param timeFrom timestamp to start read, UNIX epoch seconds, or -1 if not specified
+	 * @param timeTill timestamp to end read, UNIX epoch seconds, or -1 if not specified
+	 * @param pageConsumer consumer for each page of history records, which are sorted by clock;
+	 * the columns are reused for the next page so must be processed before returning
+	 * @throws IOException if an error reading the history, in which case the message indicates the period that was not read
+	 */
+	void read ( HistoryColumns page, long timeFrom, long timeTill, Consumer<HistoryColumns> pageConsumer )
+		throws IOException {
+		long cursor = timeFrom;
+		// Keys for records that have the cursor clock and have already been processed.
+		Set<String> cursorKeySet = new HashSet<>();
+		while ( true ) {
+			page.clear();
+			try {
+				this.pageReader.readPage ( cursor, timeTill, this.pageSize, page );
+			}
+			catch ( IOException e ) {
+				if ( this.recordCount == 0 ) {
+					throw e;
+				}
+				throw new IOException ( "Error reading history page " + (this.pageCount + 1) + " after " + this.recordCount
+					+ " records.  History for timefrom=" + cursor + " timetill=" + timeTill + " was not read ("
+					+ e.getMessage() + ").", e );
+			}
+			++this.pageCount;
+			boolean isLastPage = page.size() < this.pageSize;
+			long lastClock = (page.size() == 0) ? cursor : page.getClock(page.size() - 1);
+			if ( !isLastPage && (lastClock == cursor) ) {
+				// All the records in the page have the cursor clock, so the page size is too small for the clock:
+				// - read all records for the clock
+				page.clear();
+				try {
+					this.pageReader.readPage ( cursor, cursor, 0, page );
+				}
+				catch ( IOException e ) {
+					throw new IOException ( "Error reading history for clock " + cursor + " after " + this.recordCount
+						+ " records.  History for timefrom=" + cursor + " timetill=" + timeTill + " was not read ("
+						+ e.getMessage() + ").", e );
+				}
+			}
+			// Remove the records that were processed with the previous page:
+			// - the records with the cursor clock are at the start of the page
+			if ( !cursorKeySet.isEmpty() ) {
+				BitSet duplicateRows = new BitSet();
+				for ( int i = 0; (i < page.size()) && (page.getClock(i) == cursor); i++ ) {
+					if ( cursorKeySet.contains(getHistoryKey(page, i)) ) {
+						duplicateRows.set(i);
+					}
+				}
+				page.removeRows ( duplicateRows );
+			}
+			// Determine the keys for the records with the last clock before passing the page to the consumer.
+			Set<String> lastClockKeySet = new HashSet<>();
+			if ( !isLastPage && (lastClock != cursor) ) {
+				for ( int i = page.size() - 1; (i >= 0) && (page.getClock(i) == lastClock); i-- ) {
+					lastClockKeySet.add ( getHistoryKey(page, i) );
+				}
+			}
+			if ( page.size() > 0 ) {
+				this.recordCount += page.size();
+				pageConsumer.accept ( page );
+			}
+			if ( isLastPage ) {
+				break;
+			}
+			if ( lastClock == cursor ) {
+				// Read all records for the clock above so continue after the clock.
+				cursor = lastClock + 1;
+				cursorKeySet.clear();
+			}
+			else {
+				// Continue at the last clock, skipping records for the clock that were processed.
+				cursor = lastClock;
+				cursorKeySet = lastClockKeySet;
+			}
+			if ( (timeTill >= 0) && (cursor > timeTill) ) {
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,287 @@
+// ItemChunkPlanner - determine the number of hosts to include in each 'item.get' request
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.List;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Item;
+import org.openwaterfoundation.tstool.plugin.zabbix.dto.ZabbixApiException;
+
+/**
+ * Determine the number of hosts to include in each 'item.get' request when reading items for many hosts.
+ * Reading items for all hosts in one request does not work on large servers (response size and memory limits),
+ * and small chunks result in many requests.
+ * The planner starts with a configured chunk size and adjusts it based on the results of each request:
+ * <ul>
+ * <li> the chunk size grows if requests are fast and the number of items in the response is well under the limit</li>
+ * <li> the chunk size shrinks if requests are slow or the response has too many items</li>
+ * <li> the chunk size shrinks if a request fails, and the failed chunk should be split and read again</li>
+ * </ul>
+ * Splitting failed chunks is limited for each read by a RetryBudget,
+ * so that a server that is down does not result in a request for every host.
+ * The planner is owned by the datastore so that a good chunk size is remembered when global data are read again.
+ * The methods are synchronized because chunks are read concurrently.
+ */
+class ItemChunkPlanner {
+
+	/**
+	 * Default initial chunk size (number of hosts).
+	 */
+	static final int DEFAULT_CHUNK_SIZE = 15;
+
+	/**
+	 * Default maximum chunk size (number of hosts).
+	 */
+	static final int DEFAULT_MAX_CHUNK_SIZE = 500;
+
+	/**
+	 * Target request time (ms).  Faster requests allow the chunk size to grow.
+	 */
+	private static final long TARGET_TIME = 10000;
+
+	/**
+	 * Target maximum number of items in a response.  Smaller responses allow the chunk size to grow.
+	 */
+	private static final int TARGET_ITEM_COUNT = 10000;
+
+	/**
+	 * Maximum number of times that failed chunks are split and read again, for one read of all hosts.
+	 */
+	static final int MAX_SPLIT_COUNT = 16;
+
+	/**
+	 * Maximum number of single host chunks that fail in a row before reading stops.
+	 */
+	static final int MAX_SINGLE_HOST_FAILURES = 3;
+
+	/**
+	 * Current chunk size (number of hosts).
+	 */
+	private int chunkSize;
+
+	/**
+	 * Maximum chunk size (number of hosts).
+	 */
+	private final int maxChunkSize;
+
+	/**
+	 * Chunk of hosts that is read with one 'item.get' request, and the result.
+	 */
+	static class Chunk {
+		/**
+		 * Index of the first host in the chunk (0+).
+		 */
+		final int start;
+
+		/**
+		 * Index after the last host in the chunk.
+		 */
+		final int end;
+
+		/**
+		 * Items that were read, null if an error.
+		 */
+		List<Item> itemList = null;
+
+		/**
+		 * Exception reading the chunk, null if no error.
+		 */
+		Exception exception = null;
+
+		/**
+		 * Time to read the chunk (ms).
+		 */
+		long elapsedTime = 0;
+
+		/**
+		 * Constructor.
+		 * @param start index of the first host in the chunk (0+)
+		 * @param end index after the last host in the chunk
+		 */
+		Chunk ( int start, int end ) {
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Return the number of hosts in the chunk.
+		 * @return the number of hosts in the chunk
+		 */
+		int size () {
+			return this.end - this.start;
+		}
+	}
+
+	/**
+	 * Limits on reading failed chunks again, for one read of all hosts.
+	 * Reading stops if the error is not related to the response size (e.g., the server is down or the request
+	 * is not authorized), if single host chunks keep failing, or if chunks have been split too many times.
+	 * This class is not synchronized because it is only used by the thread that starts the requests.
+	 */
+	static class RetryBudget {
+		/**
+		 * Number of times that a failed chunk was split.
+		 */
+		private int splitCount = 0;
+
+		/**
+		 * Number of single host chunks that failed in a row.
+		 */
+		private int singleHostFailureCount = 0;
+
+		/**
+		 * Reason that reading stopped, null if reading can continue.
+		 */
+		private String stopReason = null;
+
+		/**
+		 * Return the reason that reading stopped.
+		 * @return the reason that reading stopped, or null if reading can continue
+		 */
+		String getStopReason () {
+			return this.stopReason;
+		}
+
+		/**
+		 * Indicate whether reading should stop.
+		 * @return true if reading should stop
+		 */
+		boolean isStopped () {
+			return this.stopReason != null;
+		}
+
+		/**
+		 * Record that reading a chunk failed and determine whether the chunk should be split and read again.
+		 * If false is returned, check isStopped() to determine whether reading should stop.
+		 * @param chunk the chunk that failed
+		 * @return true if the chunk should be split and read again
+		 */
+		boolean recordFailure ( Chunk chunk ) {
+			if ( !isSizeError(chunk.exception) ) {
+				this.stopReason = "the error is not related to the response size (" + chunk.exception + ")";
+				return false;
+			}
+			if ( chunk.size() <= 1 ) {
+				++this.singleHostFailureCount;
+				if ( this.singleHostFailureCount >= MAX_SINGLE_HOST_FAILURES ) {
+					this.stopReason = "items could not be read for " + this.singleHostFailureCount + " hosts in a row";
+				}
+				return false;
+			}
+			if ( this.splitCount >= MAX_SPLIT_COUNT ) {
+				this.stopReason = "failed chunks were split " + this.splitCount + " times";
+				return false;
+			}
+			++this.splitCount;
+			return true;
+		}
+
+		/**
+		 * Record that reading a chunk was successful.
+		 * @param chunk the chunk that was read
+		 */
+		void recordSuccess ( Chunk chunk ) {
+			this.singleHostFailureCount = 0;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 * @param chunkSize initial chunk size (number of hosts)
+	 * @param maxChunkSize maximum chunk size (number of hosts)
+	 */
+	ItemChunkPlanner ( int chunkSize, int maxChunkSize ) {
+		if ( maxChunkSize < 1 ) {
+			maxChunkSize = 1;
+		}
+		this.maxChunkSize = maxChunkSize;
+		this.chunkSize = Math.max(1, Math.min(chunkSize, maxChunkSize));
+	}
+
+	/**
+	 * Return the current chunk size (number of hosts).
+	 * @return the current chunk size
+	 */
+	synchronized int getChunkSize () {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Indicate whether an error reading a chunk may be related to the size of the response,
+	 * in which case reading fewer hosts may be successful.
+	 * Errors returned by the API and connection errors will not be avoided by reading fewer hosts.
+	 * @param e the exception reading a chunk
+	 * @return true if the error may be related to the response size
+	 */
+	static boolean isSizeError ( Throwable e ) {
+		for ( Throwable cause = e; cause != null; cause = cause.getCause() ) {
+			if ( (cause instanceof ZabbixApiException) || (cause instanceof ConnectException)
+				|| (cause instanceof NoRouteToHostException) || (cause instanceof UnknownHostException)
+				|| (cause instanceof HttpConnectTimeoutException) || (cause instanceof InterruptedException)
+				|| ((cause instanceof InterruptedIOException) && !(cause instanceof SocketTimeoutException)) ) {
+				return false;
+			}
+			if ( cause.getCause() == cause ) {
+				break;
+			}
+		}
+		// Other errors (e.g., HTTP 500, timeout reading the response, incomplete JSON) may be due to the response size.
+		return true;
+	}
+
+	/**
+	 * Record that reading a chunk failed.
+	 * The chunk size is reduced to half of the failed chunk so that following chunks are smaller.
+	 * @param chunk the chunk that failed
+	 */
+	synchronized void recordFailure ( Chunk chunk ) {
+		this.chunkSize = Math.max(1, Math.min(this.chunkSize, (chunk.size()/2)));
+	}
+
+	/**
+	 * Record that reading a chunk was successful, and adjust the chunk size.
+	 * @param chunk the chunk that was read
+	 */
+	synchronized void recordSuccess ( Chunk chunk ) {
+		int hostCount = chunk.size();
+		int itemCount = chunk.itemList.size();
+		// Ratio of the target to the observed time and response size, limited by the most constrained.
+		double timeRatio = (chunk.elapsedTime > 0) ? ((double)TARGET_TIME/chunk.elapsedTime) : Double.MAX_VALUE;
+		double itemRatio = (itemCount > 0) ? ((double)TARGET_ITEM_COUNT/itemCount) : Double.MAX_VALUE;
+		double ratio = Math.min(timeRatio, itemRatio);
+		if ( ratio < 1.0 ) {
+			// Over the target so shrink to the size that would have met the target, with some margin.
+			this.chunkSize = Math.max(1, Math.min(this.chunkSize, (int)(hostCount*ratio*.8)));
+		}
+		else if ( (ratio >= 2.0) && (hostCount >= this.chunkSize) ) {
+			// Well under the target for a full chunk so grow, but not too quickly in case the hosts vary.
+			this.chunkSize = Math.min(this.maxChunkSize, Math.max((this.chunkSize + 1), (int)(this.chunkSize*1.5)));
+		}
+	}
+}
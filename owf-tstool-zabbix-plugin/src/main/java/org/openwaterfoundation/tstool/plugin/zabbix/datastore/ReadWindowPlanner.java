@@ -0,0 +1,181 @@
+// ReadWindowPlanner - split a long read period into windows that can be read concurrently
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split a long read period into windows that can be read concurrently.
+ * A single 'history.get' or 'trend.get' request for a long period is processed by one Zabbix frontend worker,
+ * whereas windows can be processed by several workers at the same time.
+ * The number of windows is determined from the expected number of records,
+ * which is estimated from the item update interval ('delay') for history and one record per hour for trend.
+ * The windows do not overlap and are returned in clock order so that the results can be merged in order.
+ */
+class ReadWindowPlanner {
+
+	/**
+	 * Target number of records in a window.
+	 */
+	static final int DEFAULT_RECORDS_PER_WINDOW = 50000;
+
+	/**
+	 * Maximum number of windows.
+	 */
+	static final int MAX_WINDOW_COUNT = 64;
+
+	/**
+	 * Default item update interval (seconds), used when the item 'delay' cannot be determined.
+	 */
+	private static final long DEFAULT_DELAY = 60;
+
+	/**
+	 * Read window.
+	 */
+	static class Window {
+		/**
+		 * Timestamp to start the read, UNIX epoch seconds.
+		 */
+		final long timeFrom;
+
+		/**
+		 * Timestamp to end the read, UNIX epoch seconds (inclusive).
+		 */
+		final long timeTill;
+
+		/**
+		 * Constructor.
+		 * @param timeFrom timestamp to start the read, UNIX epoch seconds
+		 * @param timeTill timestamp to end the read, UNIX epoch seconds (inclusive)
+		 */
+		Window ( long timeFrom, long timeTill ) {
+			this.timeFrom = timeFrom;
+			this.timeTill = timeTill;
+		}
+	}
+
+	/**
+	 * Constructor.
+	 */
+	private ReadWindowPlanner () {
+	}
+
+	/**
+	 * Estimate the number of records for a read period.
+	 * @param timeFrom timestamp to start the read, UNIX epoch seconds
+	 * @param timeTill timestamp to end the read, UNIX epoch seconds
+	 * @param interval interval between records (seconds)
+	 * @return the estimated number of records
+	 */
+	private static long estimateRecordCount ( long timeFrom, long timeTill, long interval ) {
+		return (timeTill - timeFrom)/interval + 1;
+	}
+
+	/**
+	 * Parse the item update interval from the item 'delay'.
+	 * The delay can be a number of seconds (e.g., "60"), a number with a suffix (e.g., "30s", "1m", "1h", "1d", "1w"),
+	 * and can include flexible and scheduling intervals after a semicolon, which are ignored.
+	 * User macros (e.g., "{$DELAY}") and zero (e.g., for trapper items) cannot be used to estimate the interval.
+	 * @param delay the item 'delay'
+	 * @return the update interval in seconds, or -1 if it cannot be determined
+	 */
+	static long parseDelay ( String delay ) {
+		if ( (delay == null) || delay.isEmpty() ) {
+			return -1;
+		}
+		int pos = delay.indexOf(';');
+		if ( pos >= 0 ) {
+			delay = delay.substring(0, pos);
+		}
+		delay = delay.trim();
+		if ( delay.isEmpty() ) {
+			return -1;
+		}
+		long multiplier = 1;
+		char suffix = delay.charAt(delay.length() - 1);
+		if ( Character.isLetter(suffix) ) {
+			switch ( suffix ) {
+				case 's': multiplier = 1; break;
+				case 'm': multiplier = 60; break;
+				case 'h': multiplier = 3600; break;
+				case 'd': multiplier = 86400; break;
+				case 'w': multiplier = 604800; break;
+				default: return -1;
+			}
+			delay = delay.substring(0, delay.length() - 1);
+		}
+		try {
+			long seconds = Long.parseLong(delay)*multiplier;
+			if ( seconds <= 0 ) {
+				return -1;
+			}
+			return seconds;
+		}
+		catch ( NumberFormatException e ) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Plan the read windows for a read period.
+	 * @param timeFrom timestamp to start the read, UNIX epoch seconds, or -1 if not specified
+	 * @param timeTill timestamp to end the read, UNIX epoch seconds, or -1 if not specified
+	 * @param readTrend whether trend (one record per hour) is read, or history
+	 * @param delay the item 'delay', used to estimate the number of history records
+	 * @param windowCount the requested number of windows, or 0 to determine from the expected number of records
+	 * @return the list of windows in clock order, which is one window for the full period if the period is not split
+	 */
+	static List<Window> plan ( long timeFrom, long timeTill, boolean readTrend, String delay, int windowCount ) {
+		List<Window> windowList = new ArrayList<>();
+		if ( (timeFrom < 0) || (timeTill < timeFrom) ) {
+			// Period is not fully specified so can't split.
+			windowList.add ( new Window(timeFrom, timeTill) );
+			return windowList;
+		}
+		long interval = 3600;
+		if ( !readTrend ) {
+			interval = parseDelay ( delay );
+			if ( interval <= 0 ) {
+				interval = DEFAULT_DELAY;
+			}
+		}
+		if ( windowCount <= 0 ) {
+			// Determine the number of windows from the expected number of records.
+			long recordCount = estimateRecordCount ( timeFrom, timeTill, interval );
+			windowCount = (int)Math.min(MAX_WINDOW_COUNT,
+				(recordCount + DEFAULT_RECORDS_PER_WINDOW - 1)/DEFAULT_RECORDS_PER_WINDOW);
+		}
+		// Don't use windows shorter than the record interval.
+		long periodLength = timeTill - timeFrom + 1;
+		windowCount = (int)Math.max(1, Math.min(windowCount, periodLength/interval));
+		long windowLength = periodLength/windowCount;
+		long windowStart = timeFrom;
+		for ( int i = 0; i < windowCount; i++ ) {
+			long windowEnd = (i == (windowCount - 1)) ? timeTill : (windowStart + windowLength - 1);
+			windowList.add ( new Window(windowStart, windowEnd) );
+			windowStart = windowEnd + 1;
+		}
+		return windowList;
+	}
+}
@@ -0,0 +1,142 @@
+// TimeSeriesReadRequest - information needed to read data for one time series
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.time.ZoneId;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalog;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendColumns;
+
+import RTi.TS.TS;
+
+/**
+ * Information needed to read data for one time series,
+ * determined from the time series identifier, catalog, and read properties.
+ * This allows the time series to be created first and the data to be read later,
+ * for example when history for many items is read with one request.
+ */
+class TimeSeriesReadRequest {
+
+	/**
+	 * Requested time series identifier.
+	 */
+	String tsid = null;
+
+	/**
+	 * Time series catalog that matches the identifier.
+	 */
+	TimeSeriesCatalog tscatalog = null;
+
+	/**
+	 * Time series that is being read.
+	 */
+	TS ts = null;
+
+	/**
+	 * Whether reading trend (true) or history (false).
+	 */
+	boolean readTrend = false;
+
+	/**
+	 * Trend statistic to read: -1 = Min, 0 = Avg, 1 = Max.
+	 */
+	int valueStat = -999;
+
+	/**
+	 * Whether to shift the trend clock by 3600 seconds to the end of the interval.
+	 */
+	boolean shiftTrendToIntervalEnd = true;
+
+	/**
+	 * Time zone for time series date/times, null for GMT.
+	 */
+	String timeZone = null;
+
+	/**
+	 * ZoneId for time series date/times, null for GMT.
+	 */
+	ZoneId zoneId = null;
+
+	/**
+	 * Number to use for text values, null to use the missing value.
+	 */
+	Double textValue = null;
+
+	/**
+	 * Whether to convert text values to numbers.
+	 */
+	boolean doTextAsNumber = false;
+
+	/**
+	 * Timestamp to start the read, UNIX epoch seconds, or -1 to use the default.
+	 */
+	long timeFrom = -1;
+
+	/**
+	 * Timestamp to end the read, UNIX epoch seconds, or -1 to use the default.
+	 */
+	long timeTill = -1;
+
+	/**
+	 * Number of windows to split the read period into, 0 to determine from the expected number of records.
+	 */
+	int windowCount = 0;
+
+	/**
+	 * Number of windows to read concurrently, 0 to use the number of datastore connections.
+	 */
+	int windowParallelism = 0;
+
+	/**
+	 * Number of history records that have been set in the time series,
+	 * used when the history is set one page at a time.
+	 */
+	long historyCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param tsid requested time series identifier
+	 */
+	TimeSeriesReadRequest ( String tsid ) {
+		this.tsid = tsid;
+	}
+
+	/**
+	 * Return the trend statistic that is needed for the request, used to limit the trend data that are read.
+	 * @return the TrendColumns.STAT_* flag for the trend statistic, or TrendColumns.STAT_ALL if not known
+	 */
+	int getTrendStatistic () {
+		if ( this.valueStat == -1 ) {
+			return TrendColumns.STAT_MIN;
+		}
+		else if ( this.valueStat == 0 ) {
+			return TrendColumns.STAT_AVG;
+		}
+		else if ( this.valueStat == 1 ) {
+			return TrendColumns.STAT_MAX;
+		}
+		else {
+			return TrendColumns.STAT_ALL;
+		}
+	}
+}
@@ -0,0 +1,207 @@
+// TrendCache - cache of trend data read from Zabbix, shared by time series that use the same item
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendColumns;
+
+/**
+ * Cache of trend data, keyed by itemid and read window.
+ * Each numeric item has three trend time series (-Avg, -Min, -Max) that are created from the same 'trend.get' result,
+ * so the cache allows the time series to be created from one request
+ * when the statistics are read together, and allows the data to be reused by separate commands.
+ * The cache is limited in size (least recently used entries are removed)
+ * and entries expire so that new data are read in long-running sessions.
+ * Data that will be cached should be read with all statistics (see getReadStatistics()) so that one entry can be
+ * used for all of the statistics.
+ * Entries may only contain some of the statistics (see TrendColumns.hasStatistics()),
+ * in which case an entry is only used if it contains the requested statistics,
+ * and an entry is not replaced with an entry that contains fewer statistics.
+ * The methods are synchronized so that the cache can be used by concurrent reads.
+ */
+class TrendCache {
+
+	/**
+	 * Cache entry.
+	 */
+	private static class CacheEntry {
+		/**
+		 * Trend data for the item.
+		 */
+		final TrendColumns trendColumns;
+
+		/**
+		 * Time that the entry was added (ms).
+		 */
+		final long addTime;
+
+		CacheEntry ( TrendColumns trendColumns, long addTime ) {
+			this.trendColumns = trendColumns;
+			this.addTime = addTime;
+		}
+	}
+
+	/**
+	 * Maximum number of entries, 0 if the cache is disabled.
+	 */
+	private final int maxSize;
+
+	/**
+	 * Maximum age of an entry (ms).
+	 */
+	private final long maxAge;
+
+	/**
+	 * Cache map, in access order so that the least recently used entry is removed first.
+	 */
+	private final LinkedHashMap<String,CacheEntry> cacheMap;
+
+	/**
+	 * Number of cache hits, for troubleshooting.
+	 */
+	private long hitCount = 0;
+
+	/**
+	 * Number of cache misses, for troubleshooting.
+	 */
+	private long missCount = 0;
+
+	/**
+	 * Constructor.
+	 * @param maxSize maximum number of entries, 0 to disable the cache
+	 * @param maxAge maximum age of an entry (seconds)
+	 */
+	TrendCache ( int maxSize, int maxAge ) {
+		if ( maxSize < 0 ) {
+			maxSize = 0;
+		}
+		this.maxSize = maxSize;
+		this.maxAge = maxAge*1000L;
+		this.cacheMap = new LinkedHashMap<String,CacheEntry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry ( Map.Entry<String,CacheEntry> eldest ) {
+				return size() > TrendCache.this.maxSize;
+			}
+		};
+	}
+
+	/**
+	 * Clear the cache.
+	 */
+	synchronized void clear () {
+		this.cacheMap.clear();
+	}
+
+	/**
+	 * Get trend data from the cache.
+	 * @param itemid item identifier
+	 * @param timeFrom timestamp to start read, UNIX epoch seconds, or -1 if not specified
+	 * @param timeTill timestamp to end read, UNIX epoch seconds, or -1 if not specified
+	 * @param statistics statistics that are needed, using the TrendColumns.STAT_* flags
+	 * @return the cached trend data or null if not in the cache (or expired, or without the statistics)
+	 */
+	synchronized TrendColumns get ( String itemid, long timeFrom, long timeTill, int statistics ) {
+		if ( this.maxSize == 0 ) {
+			return null;
+		}
+		String key = getKey ( itemid, timeFrom, timeTill );
+		CacheEntry entry = this.cacheMap.get(key);
+		if ( entry != null ) {
+			if ( (System.currentTimeMillis() - entry.addTime) > this.maxAge ) {
+				// Expired.
+				this.cacheMap.remove(key);
+			}
+			else if ( entry.trendColumns.hasStatistics(statistics) ) {
+				++this.hitCount;
+				return entry.trendColumns;
+			}
+		}
+		++this.missCount;
+		return null;
+	}
+
+	/**
+	 * Return the number of cache hits.
+	 * @return the number of cache hits
+	 */
+	synchronized long getHitCount () {
+		return this.hitCount;
+	}
+
+	/**
+	 * Return the statistics to read when the given statistics are needed.
+	 * All statistics are read if the cache is enabled so that the -Avg, -Min, and -Max time series for an item
+	 * can be created from one request, even if the time series are read separately.
+	 * @param statistics statistics that are needed, using the TrendColumns.STAT_* flags
+	 * @return the statistics to read, using the TrendColumns.STAT_* flags
+	 */
+	int getReadStatistics ( int statistics ) {
+		if ( this.maxSize == 0 ) {
+			return statistics;
+		}
+		return TrendColumns.STAT_ALL;
+	}
+
+	/**
+	 * Return the cache key.
+	 * @param itemid item identifier
+	 * @param timeFrom timestamp to start read, UNIX epoch seconds, or -1 if not specified
+	 * @param timeTill timestamp to end read, UNIX epoch seconds, or -1 if not specified
+	 * @return the cache key
+	 */
+	private String getKey ( String itemid, long timeFrom, long timeTill ) {
+		return itemid + "," + timeFrom + "," + timeTill;
+	}
+
+	/**
+	 * Return the number of cache misses.
+	 * @return the number of cache misses
+	 */
+	synchronized long getMissCount () {
+		return this.missCount;
+	}
+
+	/**
+	 * Add trend data to the cache.
+	 * An entry that has not expired is not replaced if it contains statistics that the new data do not contain.
+	 * @param timeFrom timestamp to start read, UNIX epoch seconds, or -1 if not specified
+	 * @param timeTill timestamp to end read, UNIX epoch seconds, or -1 if not specified
+	 * @param trendColumns trend data to add, which must not be modified after adding
+	 */
+	synchronized void put ( long timeFrom, long timeTill, TrendColumns trendColumns ) {
+		if ( this.maxSize == 0 ) {
+			return;
+		}
+		String key = getKey(trendColumns.getItemid(), timeFrom, timeTill);
+		CacheEntry entry = this.cacheMap.get(key);
+		if ( (entry != null) && ((System.currentTimeMillis() - entry.addTime) <= this.maxAge)
+			&& !trendColumns.hasStatistics(entry.trendColumns.getStatistics()) ) {
+			// Don't replace with an entry that contains fewer statistics.
+			return;
+		}
+		this.cacheMap.put ( key, new CacheEntry(trendColumns, System.currentTimeMillis()) );
+	}
+}
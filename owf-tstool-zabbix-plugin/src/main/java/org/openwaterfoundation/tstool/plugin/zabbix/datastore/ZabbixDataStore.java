@@ -24,35 +24,60 @@ package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
 
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.swing.SwingUtilities;
+import java.util.function.Consumer;
 
 import org.openwaterfoundation.tstool.plugin.zabbix.PluginMeta;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.ApiAuthType;
-import org.openwaterfoundation.tstool.plugin.zabbix.dao.ApiVersion;
-import org.openwaterfoundation.tstool.plugin.zabbix.dao.History;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HistoryColumns;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.Host;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.HostGroup;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.Item;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.ItemType;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.Template;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalog;
-import org.openwaterfoundation.tstool.plugin.zabbix.dao.Trend;
-import org.openwaterfoundation.tstool.plugin.zabbix.dao.UserLogin;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogHost;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogItem;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendColumns;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendStatistic;
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.ValueType;
+import org.openwaterfoundation.tstool.plugin.zabbix.dto.ColumnarResultDecoder;
 import org.openwaterfoundation.tstool.plugin.zabbix.dto.JacksonToolkit;
+import org.openwaterfoundation.tstool.plugin.zabbix.dto.ZabbixHttpTransport;
 import org.openwaterfoundation.tstool.plugin.zabbix.ui.Zabbix_TimeSeries_CellRenderer;
 import org.openwaterfoundation.tstool.plugin.zabbix.ui.Zabbix_TimeSeries_InputFilter_JPanel;
 import org.openwaterfoundation.tstool.plugin.zabbix.ui.Zabbix_TimeSeries_TableModel;
-
-import com.fasterxml.jackson.core.type.TypeReference;
+import org.openwaterfoundation.tstool.plugin.zabbix.util.StringPool;
 
 import RTi.TS.TS;
 import RTi.TS.TSIdent;
@@ -86,53 +111,185 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	private String apiToken = "";
 
 	/**
-	 * Default timeout (ms) to use for URL requests.
-	 * This helps ensure that requests do not hang.
-	 * The default is 2 minutes.
+	 * Default timeout (ms) to use for URL requests, from sending the request until the response body has been read.
+	 * This helps ensure that requests do not hang, including when the server stalls while sending the response.
+	 * The default is 2 minutes and can be set with the 'Timeout' configuration property.
 	 */
-	private int defaultTimeout = 120000;
+	private int defaultTimeout = ZabbixHttpTransport.DEFAULT_TIMEOUT;
 
 	/**
-	 * Properties for the plugin, used to help with application integration.
+	 * Connection timeout (ms) to use for URL requests,
+	 * set with the 'ConnectTimeout' configuration property.
 	 */
-	private Map<String,Object> pluginProperties = new LinkedHashMap<>();
+	private int connectTimeout = ZabbixHttpTransport.DEFAULT_CONNECT_TIMEOUT;
+
+	/**
+	 * Maximum number of concurrent connections to the web service,
+	 * set with the 'MaxConnections' configuration property.
+	 */
+	private int maxConnections = ZabbixHttpTransport.DEFAULT_MAX_CONNECTIONS;
+
+	/**
+	 * Maximum number of items to include in one 'history.get' request when reading many time series,
+	 * set with the 'HistoryBatchSize' configuration property.
+	 */
+	private int historyBatchSize = 100;
+
+	/**
+	 * Maximum number of history records to read with one 'history.get' request, 0 to read all records at once,
+	 * set with the 'HistoryPageSize' configuration property.
+	 */
+	private int historyPageSize = 100000;
+
+	/**
+	 * Maximum length of history text values (e.g., log lines), 0 for no limit,
+	 * set with the 'TextMaxLength' configuration property.
+	 */
+	private int textMaxLength = 0;
+
+	/**
+	 * Maximum number of items to include in one 'trend.get' request when reading many time series,
+	 * set with the 'TrendBatchSize' configuration property.
+	 */
+	private int trendBatchSize = 100;
+
+	/**
+	 * Cache of trend data, shared by time series that use the same item and read window.
+	 * The size is set with the 'TrendCacheSize' configuration property (0 to disable)
+	 * and the maximum age (seconds) with the 'TrendCacheMaxAge' configuration property.
+	 */
+	private TrendCache trendCache = null;
+
+	/**
+	 * Pool of strings read from the web service for the catalog (host group and item data),
+	 * so that values repeated across hosts and items (e.g., item names and units from templates) are stored once.
+	 * Only fields that use PooledStringDeserializer are pooled.
+	 * A new pool is created each time the global data are read or refreshed so that values that are no longer used
+	 * are not kept for the life of the datastore.
+	 */
+	private volatile StringPool stringPool = new StringPool();
+
+	/**
+	 * HTTP transport used for all requests, which reuses connections between requests.
+	 */
+	private ZabbixHttpTransport httpTransport = null;
+
+	/**
+	 * Planner for the number of hosts in each 'item.get' request, which remembers a good size between reads.
+	 */
+	private ItemChunkPlanner itemChunkPlanner = null;
+
+	/**
+	 * Future that is completed when the datastore has been initialized (global data have been read),
+	 * used to wait for background initialization.
+	 */
+	private CompletableFuture<Void> initializationFuture = null;
+
+	/**
+	 * Maximum time to wait for initialization (seconds), set with the 'InitializationTimeout' configuration property.
+	 */
+	private int initializationTimeout = 300;
+
+	/**
+	 * Datastore status for OK, used with setStatus().
+	 */
+	private static final int STATUS_OK = 0;
+
+	/**
+	 * Datastore status for an error, used with setStatus().
+	 */
+	private static final int STATUS_ERROR = 1;
+
+	/**
+	 * Datastore status while initializing and loading global data, used with setStatus().
+	 * This is not OK so that the datastore is not shown as usable until the global data are ready.
+	 */
+	private static final int STATUS_INITIALIZING = 2;
+
+	/**
+	 * Choice returned for choice lists (e.g., data types) while the datastore is initializing,
+	 * when the choices are requested on the Swing event thread, which must not wait for initialization.
+	 */
+	public static final String LOADING_CHOICE = "Loading...";
+
+	/**
+	 * Catalog snapshot file, null if not used.
+	 */
+	private CatalogSnapshotFile catalogSnapshotFile = null;
+
+	/**
+	 * Maximum age of the catalog snapshot file (seconds) that can be used at startup.
+	 */
+	private int catalogSnapshotMaxAge = 0;
+
+	/**
+	 * Interval (seconds) to refresh global data in the background, 0 to not refresh,
+	 * set with the 'CatalogRefreshInterval' configuration property.
+	 */
+	private int catalogRefreshInterval = 0;
+
+	/**
+	 * Executor used to refresh global data on a schedule, created when initialization is complete.
+	 */
+	private ScheduledExecutorService catalogRefreshExecutor = null;
+
+	/**
+	 * Item properties to request with 'item.get', which are the properties used to create the time series catalog.
+	 * Requesting only these properties is much smaller than the default "extend" output.
+	 */
+	private static final String ITEM_OUTPUT = "[\"itemid\",\"hostid\",\"name\",\"type\",\"key_\",\"delay\","
+		+ "\"history\",\"status\",\"templateid\",\"trends\",\"value_type\",\"units\"]";
+
+	/**
+	 * Host properties to request with 'host.get', which are the properties used to create the time series catalog.
+	 */
+	private static final String HOST_OUTPUT = "[\"hostid\",\"host\",\"name\",\"description\"]";
+
+	/**
+	 * Host group properties to request with 'hostgroup.get', and with 'host.get' for each host.
+	 */
+	private static final String HOST_GROUP_OUTPUT = "[\"groupid\",\"name\"]";
 
 	/**
-	 * Global history time series catalog, used to streamline creating lists for UI choices.
+	 * Template properties to request with 'template.get', which are the properties used by the Template class.
 	 */
-	private List<TimeSeriesCatalog> globalHistoryTscatalogList = new ArrayList<>();
+	private static final String TEMPLATE_OUTPUT = "[\"templateid\",\"host\",\"name\",\"description\",\"uuid\"]";
 
 	/**
-	 * Global trend time series catalog, used to streamline creating lists for UI choices.
+	 * History properties to request with 'history.get' when reading without pages ('ns' is not used).
 	 */
-	private List<TimeSeriesCatalog> globalTrendTscatalogList = new ArrayList<>();
+	private static final String HISTORY_OUTPUT = "[\"itemid\",\"clock\",\"value\"]";
 
 	/**
-	 * Global host group list.
+	 * History properties to request with 'history.get' when reading pages,
+	 * which includes 'ns' so that records with the same clock can be identified.
 	 */
-	private List<HostGroup> globalHostGroupList = new ArrayList<>();
+	private static final String HISTORY_PAGE_OUTPUT = "[\"itemid\",\"clock\",\"ns\",\"value\"]";
 
 	/**
-	 * Global host list.
+	 * Trend statistics for which a trend time series catalog is created for each numeric item,
+	 * in the order that they are listed.
 	 */
-	private List<Host> globalHostList = new ArrayList<>();
+	private static final TrendStatistic [] TRENDSTATISTICS = { TrendStatistic.AVG, TrendStatistic.MIN, TrendStatistic.MAX };
 
 	/**
-	 * Global item list.
-	 * CURRENTLY NOT POPULATED.
+	 * Executor used to run requests concurrently, for example when reading global data,
+	 * created when first used.
 	 */
-	private List<Item> globalItemList = new ArrayList<>();
+	private ExecutorService readExecutor = null;
 
 	/**
-	 * Global item list.
-	 * CURRENTLY NOT POPULATED.
+	 * Properties for the plugin, used to help with application integration.
 	 */
-	private List<String> globalItemNameList = new ArrayList<>();
+	private Map<String,Object> pluginProperties = new LinkedHashMap<>();
 
 	/**
-	 * Global template list.
+	 * Global data (host groups, hosts, templates, item names, and history and trend time series catalog),
+	 * used to streamline reading time series and creating lists for UI choices.
+	 * The snapshot is immutable and is replaced as a whole when the data are read again,
+	 * so that readers can use the data without locking.
 	 */
-	private List<Template> globalTemplateList = new ArrayList<>();
+	private final AtomicReference<CatalogSnapshot> catalogSnapshot = new AtomicReference<>(CatalogSnapshot.EMPTY);
 
 	/**
 	 * Global debug option for datastore, used for development and troubleshooting.
@@ -188,6 +345,43 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	    	this.apiToken = "";
 	    }
 
+	    // Set up the HTTP transport, which is shared by all requests for the datastore.
+	    this.defaultTimeout = getIntegerProperty ( props, "Timeout", this.defaultTimeout );
+	    this.connectTimeout = getIntegerProperty ( props, "ConnectTimeout", this.connectTimeout );
+	    this.maxConnections = getIntegerProperty ( props, "MaxConnections", this.maxConnections );
+	    this.httpTransport = new ZabbixHttpTransport ( this.connectTimeout, this.defaultTimeout, this.maxConnections );
+	    this.historyBatchSize = getIntegerProperty ( props, "HistoryBatchSize", this.historyBatchSize );
+	    if ( this.historyBatchSize < 1 ) {
+	    	this.historyBatchSize = 1;
+	    }
+	    this.historyPageSize = getIntegerProperty ( props, "HistoryPageSize", this.historyPageSize );
+	    this.textMaxLength = getIntegerProperty ( props, "TextMaxLength", this.textMaxLength );
+	    this.trendBatchSize = getIntegerProperty ( props, "TrendBatchSize", this.trendBatchSize );
+	    if ( this.trendBatchSize < 1 ) {
+	    	this.trendBatchSize = 1;
+	    }
+	    this.itemChunkPlanner = new ItemChunkPlanner (
+	    	getIntegerProperty ( props, "ItemChunkSize", ItemChunkPlanner.DEFAULT_CHUNK_SIZE ),
+	    	getIntegerProperty ( props, "ItemChunkSizeMax", ItemChunkPlanner.DEFAULT_MAX_CHUNK_SIZE ) );
+	    this.catalogSnapshotMaxAge = getIntegerProperty ( props, "CatalogSnapshotMaxAge", this.catalogSnapshotMaxAge );
+	    if ( this.catalogSnapshotMaxAge > 0 ) {
+	    	// Save global data in a file so that later sessions start faster.
+	    	String catalogSnapshotFileProp = props.getValue("CatalogSnapshotFile");
+	    	Path catalogSnapshotPath = null;
+	    	if ( (catalogSnapshotFileProp != null) && !catalogSnapshotFileProp.isEmpty() ) {
+	    		catalogSnapshotPath = Paths.get(catalogSnapshotFileProp);
+	    	}
+	    	else {
+	    		catalogSnapshotPath = Paths.get(System.getProperty("user.home"), ".tstool", "plugin-cache",
+	    			"owf-tstool-zabbix-plugin", name.replaceAll("[^A-Za-z0-9_.-]", "_") + "-catalog.bin");
+	    	}
+	    	this.catalogSnapshotFile = new CatalogSnapshotFile ( catalogSnapshotPath );
+	    }
+	    this.catalogRefreshInterval = getIntegerProperty ( props, "CatalogRefreshInterval", this.catalogRefreshInterval );
+	    this.trendCache = new TrendCache (
+	    	getIntegerProperty ( props, "TrendCacheSize", 500 ),
+	    	getIntegerProperty ( props, "TrendCacheMaxAge", 900 ) );
+
 	    // Set standard plugin properties:
         // - plugin properties can be listed in the main TSTool interface
         // - version is used to create a versioned installer and documentation.
@@ -212,39 +406,105 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
         	}
         }
 
-        // Get the version:
-        // - if major version is 6, authenticate with the ApiToken
-        // - else, authenticate with older user and password and request "auth" once logged in
-        this.apiVersion = readVersion();
-        Message.printStatus(2, routine, "Zabbix API version = " + this.apiVersion);
-        int pos = this.apiVersion.indexOf(".");
-        this.apiMajorVersion = -1;
-        if ( pos < 0 ) {
-        	// Unable to determine version, which will be a problem.
-        	Message.printWarning(3, routine, "Unable to determine version for Zabbix API.  Errors will result.");
-        }
-        else {
-        	// Convert the major version to an integer.
-        	this.apiMajorVersion = Integer.parseInt(this.apiVersion.substring(0,pos));
-        	this.apiAuthType = ApiAuthType.AUTH_JSON;
-        }
-        if ( apiMajorVersion >= 6 ) {
-        	// Newer authentication:
-        	// - no need to authenticate because the API token is read from the configuration and
-        	this.apiAuthType = ApiAuthType.AUTH_HTTP_API_TOKEN;
+        // Initialize the datastore:
+        // - read the version, authenticate, and read global data
+        // - if InitializationMode=Background, do in a background thread so that the application is not delayed,
+        //   and methods that need global data will wait for initialization to complete
+        String initializationMode = props.getValue("InitializationMode");
+        this.initializationTimeout = getIntegerProperty ( props, "InitializationTimeout", this.initializationTimeout );
+        setStatus ( STATUS_INITIALIZING );
+        setStatusMessage ( "Initializing" );
+        if ( (initializationMode != null) && initializationMode.equalsIgnoreCase("Background") ) {
+        	Message.printStatus(2, routine, "Initializing datastore \"" + name + "\" in the background." );
+        	this.initializationFuture = new CompletableFuture<>();
+        	Thread initializationThread = new Thread ( () -> initialize ( props ), "ZabbixDataStore-" + name + "-initialize" );
+        	initializationThread.setDaemon ( true );
+        	initializationThread.start();
         }
         else {
-        	// Authenticate the API:
-        	// - this is used with older API
-	    	String login = props.getValue("SystemLogin");
-	    	String password = props.getValue("SystemPassword");
-        	authenticate ( login, password );
+        	this.initializationFuture = new CompletableFuture<>();
+        	initialize ( props );
         }
+	}
+
+	/**
+	 * Initialize the datastore by reading the version, authenticating, and reading global data.
+	 * The datastore status is set to indicate the result,
+	 * and the initialization future is completed so that methods waiting for global data can continue.
+	 * @param props datastore configuration properties
+	 */
+	private void initialize ( PropList props ) {
+		String routine = getClass().getSimpleName() + ".initialize";
+		setStatus ( STATUS_INITIALIZING );
+		setStatusMessage ( "Loading" );
+		try {
+			// Get the version:
+			// - if major version is 6, authenticate with the ApiToken
+			// - else, authenticate with older user and password and request "auth" once logged in
+			// - this must be done before other requests so is not run concurrently with other requests
+			long authStartTime = System.currentTimeMillis();
+			this.apiVersion = readVersion();
+			Message.printStatus(2, routine, "Zabbix API version = " + this.apiVersion);
+			int pos = this.apiVersion.indexOf(".");
+			this.apiMajorVersion = -1;
+			if ( pos < 0 ) {
+				// Unable to determine version, which will be a problem.
+				Message.printWarning(3, routine, "Unable to determine version for Zabbix API.  Errors will result.");
+			}
+			else {
+				// Convert the major version to an integer.
+				this.apiMajorVersion = Integer.parseInt(this.apiVersion.substring(0,pos));
+				this.apiAuthType = ApiAuthType.AUTH_JSON;
+			}
+			if ( apiMajorVersion >= 6 ) {
+				// Newer authentication:
+				// - no need to authenticate because the API token is read from the configuration and
+				this.apiAuthType = ApiAuthType.AUTH_HTTP_API_TOKEN;
+			}
+			else {
+				// Authenticate the API:
+				// - this is used with older API
+				String login = props.getValue("SystemLogin");
+				String password = props.getValue("SystemPassword");
+				authenticate ( login, password );
+			}
+			Message.printStatus(2, routine, "Read version and authenticated in "
+				+ (System.currentTimeMillis() - authStartTime) + " ms.");
+
+			// Read global data used throughout the session:
+			// - in particular a cache of the TimeSeriesCatalog used for further queries
+			// - use the snapshot file if enabled and recent, in which case the data are refreshed in the background
 
-	    // Read global data used throughout the session:
-	    // - in particular a cache of the TimeSeriesCatalog used for further queries
+			if ( !readGlobalDataFromSnapshotFile() ) {
+				readGlobalData();
+			}
 
-	    readGlobalData();
+			// Set the status based on the global data.
+			CatalogSnapshot snapshot = this.catalogSnapshot.get();
+			if ( this.apiMajorVersion < 0 ) {
+				setStatus ( STATUS_ERROR );
+				setStatusMessage ( "Failed - unable to determine the Zabbix API version (check ServiceRootURI and the server)" );
+			}
+			else if ( snapshot.getHostList().isEmpty() ) {
+				setStatus ( STATUS_ERROR );
+				setStatusMessage ( "Failed - no hosts were read (check authentication and the log file)" );
+			}
+			else {
+				setStatus ( STATUS_OK );
+				setStatusMessage ( "Ready" );
+				// Refresh global data on a schedule, if configured.
+				startCatalogRefresh();
+			}
+		}
+		catch ( Exception e ) {
+			Message.printWarning(3, routine, "Error initializing datastore \"" + getName() + "\" (" + e + ")." );
+			Message.printWarning(3, routine, e );
+			setStatus ( STATUS_ERROR );
+			setStatusMessage ( "Failed - " + e );
+		}
+		finally {
+			this.initializationFuture.complete ( null );
+		}
 	}
 
 	/**
@@ -257,8 +517,10 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	 * @param password Zabbix password
 	 */
 	private void authenticate ( String login, String password ) {
-		UserLogin userLogin = readUserLogin ( login, password );
-		this.apiToken = userLogin.getApiToken();
+		String userLoginToken = readUserLogin ( login, password );
+		if ( userLoginToken != null ) {
+			this.apiToken = userLoginToken;
+		}
 	}
 
 	/**
@@ -414,138 +676,757 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	}
 	
 	/**
-	 * Escape (protect) a TSID part to ensure that it works well with TSID.
-	 * If the part contains a space or period, the returned value will be surrounded by single quotes.
-	 * @param tsidPart time series identifier part
-	 * @return the part surrounded by single quotes if necessary, otherwise the original value
+	 * Create a time series and determine the information needed to read its data.
+	 * @param tsidReq requested time series identifier
+	 * @param tscatalog time series catalog matching the identifier, or null to look up using the identifier
+	 * @param readStart start of read, in the time zone of the host (or GMT if no host time zone), or null to read the default period
+	 * @param readEnd end of read, in the time zone of the host (or GMT if no host time zone), or null to read the default period
+	 * @param readProperties additional properties to control the query (see readTimeSeries)
+	 * @return the read request, which includes the time series with metadata set
+	 * @throws Exception if the time series cannot be created
 	 */
-	public String escapeTsidPart ( String tsidPart ) {
-		if ( (tsidPart.indexOf(" ") > 0) || (tsidPart.indexOf(".") > 0) ) {
-			if ( !tsidPart.startsWith("'") ) {
-				// Escape the part by surrounding with single quotes.
-				return "'" + tsidPart + "'";
-			}
-			else {
-				// Already escaped.
-				return tsidPart;
-			}
-		}
-		else {
-			// Return the original part.
-			return tsidPart;
-		}
-	}
+	private TimeSeriesReadRequest createTimeSeriesReadRequest ( String tsidReq, TimeSeriesCatalog tscatalog,
+		DateTime readStart, DateTime readEnd, HashMap<String,Object> readProperties ) throws Exception {
+    	String routine = getClass().getSimpleName() + ".createTimeSeriesReadRequest";
 
-	/**
-	 * Get the list of location identifier (station_no) strings used in the UI.
-	 * The list is determined from the cached list of time series catalog.
-	 * @param dataType to match, or * or null to return all, should be a value of stationparameter_no
-	 * @return a unique sorted list of the location identifiers (station_no)
-	 */
-	public List<String> getStationIdStrings ( String dataType ) {
-		List<String> locIdList = new ArrayList<>();
-		/*
-		if ( (dataType == null) || dataType.isEmpty() || dataType.equals("*") ) {
-			// Return the cached list of all locations.
-			return this.locIdList;
-		}
-		else {
-			// Get the list of locations from the cached list of time series catalog
-			List<String> locIdList = new ArrayList<>();
-			String stationNo = null;
-			String stationParameterNo = null;
-			boolean found = false;
-			for ( TimeSeriesCatalog tscatalog : this.tscatalogList ) {
-				stationNo = tscatalog.getStationNo();
-				stationParameterNo = tscatalog.getStationParameterNo();
+    	TimeSeriesReadRequest request = new TimeSeriesReadRequest ( tsidReq );
 
-				if ( !stationParameterNo.equals(dataType) ) {
-					// Requested data type does not match.
-					continue;
-				}
+    	// Set properties for specific functionality.
+    	
+    	// Default is to use TSTool end of interval time for trend.
+    	request.shiftTrendToIntervalEnd = true;
 
-				found = false;
-				for ( String locId2 : locIdList ) {
-					if ( locId2.equals(stationNo) ) {
-						found = true;
-						break;
-					}
-				}
-				if ( !found ) {
-					locIdList.add(stationNo);
-				}
-			}
-			Collections.sort(locIdList, String.CASE_INSENSITIVE_ORDER);
-			return locIdList;
-		}
-		*/
-		return locIdList;
-	}
+    	String timeZone = null;
+    	if ( readProperties != null ) {
+    		// TODO need to enable debug as temporary setting in this function
+    		Object propObject = readProperties.get ( "Debug" );
 
-	/**
-	 * Return the API token.
-	 */
-	public String getApiToken() {
-		return this.apiToken;
-	}
+    		propObject = readProperties.get ( "ShiftTrendToIntervalEnd" );
+    		if ( propObject != null ) {
+    			if ( propObject instanceof String ) {
+    				String propString = (String)propObject;
+    				if ( propString.equalsIgnoreCase("true") ) {
+    					request.shiftTrendToIntervalEnd = true;
+    				}
+    				else if ( propString.equalsIgnoreCase("false") ) {
+    					request.shiftTrendToIntervalEnd = false;
+    				}
+    			}
+    			else if ( propObject instanceof Boolean ) {
+    				request.shiftTrendToIntervalEnd = (Boolean)propObject;
+    			}
+    		}
 
-	/**
-	 * Return the API token query parameter (token=API_TOKEN).
-	 */
-	public String getApiTokenParameter() {
-		return "token=" + this.apiToken;
-	}
+    		propObject = readProperties.get ( "TimeZone" );
+    		if ( propObject != null ) {
+    			timeZone = (String)propObject;
+    		}
 
-	/**
-	 * Get the 'auth' JSON for requests, formatted as:
-	 * <pre>
-	 *   , "auth": "apiToken"
-	 * </pre>
-	 * If the API version is newer, an empty string is returned because the API token is specified
-	 * in the HTTP request headers.
-	 * The result from this method should be added at the end of the request data, before the closing }.
-	 * @return the 'auth' JSON or a blank string
-	 */
-	private String getAuthJSON () {
-		if ( this.apiAuthType == ApiAuthType.AUTH_HTTP_API_TOKEN ) {
-			// The API token is specified with HTTP headers so return an empty string.
-			return "";
-		}
-		else {
-			// Return the 'auth' JSON.
-			return ", \"auth\": \"" + getApiToken() + "\"";
-		}
-	}
-	
-	/**
-	 * Return the default timeout for requests (ms).
-	 * Negative value means the timeout should not be used.
-	 * @return the default timeout for requests (ms).
-	 */
-	private int getDefaultTimeout () {
-		return this.defaultTimeout;
-	}
+    		propObject = readProperties.get ( "TextValue" );
+    		if ( propObject != null ) {
+    			if ( propObject instanceof String ) {
+    				// Convert the string to a number for the value.
+    				String textValue0 = (String)propObject;
+    				if ( textValue0.equalsIgnoreCase("Text") ) {
+    					request.doTextAsNumber = true;
+    				}
+    				if ( StringUtil.isDouble(textValue0) ) {
+    					request.textValue = Double.valueOf(textValue0);
+    				}
+    			}
+    			else if ( propObject instanceof Double ) {
+    				// Double number was passed.
+    				request.textValue = (Double)propObject;
+    			}
+    			else if ( propObject instanceof Integer ) {
+    				// Integer number was passed.
+    				request.textValue = Double.valueOf((Integer)propObject);
+    			}
+    		}
 
-	/**
-	 * Return the list of hosts.
-	 * @param readData if false, return the global cached data, if true read the data and reset in the cache
-	 */
-	public List<Host> getHosts(boolean readData) throws IOException {
-		if ( readData ) {
-			this.globalHostList = readHostList();
-		}
-		return this.globalHostList;
-	}
+    		propObject = readProperties.get ( "WindowCount" );
+    		if ( propObject != null ) {
+    			request.windowCount = getIntegerReadProperty ( propObject, 0 );
+    		}
 
-	/**
-	 * Return the list of host groups.
-	 * @param readData if false, return the global cached data, if true read the data and reset in the cache
-	 */
-	public List<HostGroup> getHostGroups(boolean readData) throws IOException {
-		if ( readData ) {
-			this.globalHostGroupList = readHostGroupList();
+    		propObject = readProperties.get ( "WindowParallelism" );
+    		if ( propObject != null ) {
+    			request.windowParallelism = getIntegerReadProperty ( propObject, 0 );
+    		}
+    	}
+
+    	// Create a time series identifier for the requested TSID:
+    	// - the actual output may be set to a different identifier based on the above properties
+    	// - also save interval base and multiplier for the original request
+    	TSIdent tsidentReq = TSIdent.parseIdentifier(tsidReq);
+
+    	// Up front, check for invalid request and throw exceptions:
+   		// - some cases are OK as long as IrregularInterval was specified in ReadZabbix
+
+ 		// Get the data interval:
+ 		// - for history should be 'IrregSecond'
+ 		// - for trend should be 'Hour'
+ 		String dataInterval = tsidentReq.getInterval();
+ 		// Get the data type:
+ 		// - remove surrounding quotes
+ 		// - the dataType corresponds to the item.name
+ 		String dataType = tsidentReq.getType();
+ 		dataType = dataType.replace("'", "");
+ 		// If the dataType ends in '-Avg', '-Max', '-Min', read the trend time series:
+ 		// - default is to read history
+ 		// Which statistic to read:
+ 		// -1 = Min
+ 		// 0 = Avg
+ 		// 1 = Max
+ 		if ( isTrendDataType(dataType) ) {
+ 			// Trend time series.
+ 			request.readTrend = true;
+ 			if ( !dataInterval.equalsIgnoreCase("Hour") ) {
+ 				throw new InvalidTimeIntervalException (
+ 					"Requested time series \"" + tsidReq + "\" is trend but interval is not Hour.");
+ 			}
+ 			if ( dataType.endsWith("-Avg") ) {
+ 				request.valueStat = 0;
+ 			}
+ 			else if ( dataType.endsWith("-Min") ) {
+ 				request.valueStat = -1;
+ 			}
+ 			else if ( dataType.endsWith("-Max") ) {
+ 				request.valueStat = 1;
+ 			}
+ 		}
+ 		else {
+ 			// History time series.
+ 			request.readTrend = false;
+ 			if ( !dataInterval.equalsIgnoreCase("IrregSecond") ) {
+ 				throw new InvalidTimeIntervalException (
+ 					"Requested time series \"" + tsidReq + "\" is history but interval is not IrregSecond.");
+ 			}
+ 		}
+
+ 		// Create the time series.
+ 		TS ts = null;
+    	try {
+    		ts = TSUtil.newTimeSeries(tsidentReq.toString(), true);
+    		ts.setIdentifier(tsidentReq);
+    	}
+    	catch ( Exception e ) {
+    		throw new RuntimeException ( e );
+    	}
+    	request.ts = ts;
+
+    	if ( tscatalog == null ) {
+    		// Get the matching TimeSeriesCatalog by matching the 'tsidReq':
+    		// - in this case the TSID controls so set the other filters to null
+    		String dataTypeReq = null;
+    		String dataIntervalReq = null;
+    		InputFilter_JPanel ifp = null;
+    		List<TimeSeriesCatalog> tscatalogList = readTimeSeriesCatalog ( tsidReq, dataTypeReq, dataIntervalReq, ifp );
+			if ( tscatalogList.size() == 0 ) {
+				throw new RuntimeException ( "Did not match any 'tscatalog' for tsid \"" + tsidReq + "\".");
+			}
+			else if ( tscatalogList.size() == 1 ) {
+				tscatalog = tscatalogList.get(0);
+			}
+			else {
+				throw new RuntimeException ( "Matched " + tscatalogList.size()
+					+ " 'tscatalog' but expecting 1 for TSID \"" + tsidReq + "\".");
+			}
+    	}
+
+    	if ( tscatalog == null ) {
+    		throw new RuntimeException ( "Unable to match 'tscatalog' for tsid = \"" + tsidReq + "\"." );
+    	}
+    	request.tscatalog = tscatalog;
+    	
+   		// Get the host object matching the TimeSeriesCcatalog:
+   		// - this is used to check the time zone for output
+    	// - it is also used for the time series description
+   		Host host = Host.lookupHostForId(getCatalogSnapshot().getHostIdMap(), tscatalog.getHostId() );
+    	if ( timeZone != null ) {
+    		// Time zone is specified by the calling code, not host description.
+    		request.timeZone = timeZone;
+			request.zoneId = ZoneId.of(timeZone);
+			Message.printStatus(2, routine, "Time zone from read parameter is \"" + timeZone + "\".");
+    	}
+    	else {
+    		if ( host == null ) {
+   				Message.printStatus(2, routine, "Unable to find cached host ID=" + tscatalog.getHostId() );
+    		}
+    		else {
+    			String description = host.getDescription();
+    			// Parse the description to get embedded properties.
+    			EmbeddedPropertiesString eps = new EmbeddedPropertiesString(description, "//");
+    			String hostTimeZone = eps.getPropertyValue ( "Timezone" );
+    			if ( hostTimeZone == null ) {
+    				// Try the other variation.
+    				hostTimeZone = eps.getPropertyValue ( "TimeZone" );
+    			}
+    			if ( hostTimeZone == null ) {
+    				Message.printStatus(2, routine, "Host id=" + host.getHostid()
+    					+ " host=\"" + host.getHost() + "\" name=\"" + host.getName()
+    					+ "\" does not specify time zone.  Data will use GMT.");
+    			}
+    			else {
+    				// Have a time zone for the host:
+    				// - get the ZoneId for use below
+    				request.timeZone = hostTimeZone;
+    				request.zoneId = ZoneId.of(hostTimeZone);
+    				Message.printStatus(2, routine, "Host \"" + host.getHost() + "\" name=\"" + host.getName()
+    					+ "\" uses time zone \"" + hostTimeZone + "\".");
+    			}
+    		}
+    	}
+
+   		// Set the standard time series properties from the catalog.
+    	ts.setDataUnits(tscatalog.getDataUnits());
+    	ts.setDataUnitsOriginal(tscatalog.getDataUnits());
+    	// Use the name for the description because the description is multi-line and fouls up legends.
+    	if ( host != null ) {
+    		ts.setDescription(host.getName());
+    	}
+    	else {
+    		ts.setDescription(tscatalog.getHostName());
+    	}
+    	setTimeSeriesProperties(ts, tscatalog);
+
+    	// Determine the read window:
+    	// - if not specified, will use default history period
+    	// - if specified, assumed to be in local time for the host
+    	if ( readStart != null ) {
+    		request.timeFrom = toEpochSecond ( readStart, request.timeZone );
+    	}
+    	if ( readEnd != null ) {
+    		request.timeTill = toEpochSecond ( readEnd, request.timeZone );
+    	}
+    	return request;
+	}
+
+	/**
+	 * Escape (protect) a TSID part to ensure that it works well with TSID.
+	 * If the part contains a space or period, the returned value will be surrounded by single quotes.
+	 * @param tsidPart time series identifier part
+	 * @return the part surrounded by single quotes if necessary, otherwise the original value
+	 */
+	public String escapeTsidPart ( String tsidPart ) {
+		if ( (tsidPart.indexOf(" ") > 0) || (tsidPart.indexOf(".") > 0) ) {
+			if ( !tsidPart.startsWith("'") ) {
+				// Escape the part by surrounding with single quotes.
+				return "'" + tsidPart + "'";
+			}
+			else {
+				// Already escaped.
+				return tsidPart;
+			}
+		}
+		else {
+			// Return the original part.
+			return tsidPart;
+		}
+	}
+
+	/**
+	 * Get the list of location identifier (station_no) strings used in the UI.
+	 * The list is determined from the cached list of time series catalog.
+	 * @param dataType to match, or * or null to return all, should be a value of stationparameter_no
+	 * @return a unique sorted list of the location identifiers (station_no)
+	 */
+	public List<String> getStationIdStrings ( String dataType ) {
+		List<String> locIdList = new ArrayList<>();
+		/*
+		if ( (dataType == null) || dataType.isEmpty() || dataType.equals("*") ) {
+			// Return the cached list of all locations.
+			return this.locIdList;
+		}
+		else {
+			// Get the list of locations from the cached list of time series catalog
+			List<String> locIdList = new ArrayList<>();
+			String stationNo = null;
+			String stationParameterNo = null;
+			boolean found = false;
+			for ( TimeSeriesCatalog tscatalog : this.tscatalogList ) {
+				stationNo = tscatalog.getStationNo();
+				stationParameterNo = tscatalog.getStationParameterNo();
+
+				if ( !stationParameterNo.equals(dataType) ) {
+					// Requested data type does not match.
+					continue;
+				}
+
+				found = false;
+				for ( String locId2 : locIdList ) {
+					if ( locId2.equals(stationNo) ) {
+						found = true;
+						break;
+					}
+				}
+				if ( !found ) {
+					locIdList.add(stationNo);
+				}
+			}
+			Collections.sort(locIdList, String.CASE_INSENSITIVE_ORDER);
+			return locIdList;
+		}
+		*/
+		return locIdList;
+	}
+
+	/**
+	 * Return the API token.
+	 */
+	public String getApiToken() {
+		return this.apiToken;
+	}
+
+	/**
+	 * Return the API token query parameter (token=API_TOKEN).
+	 */
+	public String getApiTokenParameter() {
+		return "token=" + this.apiToken;
+	}
+
+	/**
+	 * Get the 'auth' JSON for requests, formatted as:
+	 * <pre>
+	 *   , "auth": "apiToken"
+	 * </pre>
+	 * If the API version is newer, an empty string is returned because the API token is specified
+	 * in the HTTP request headers.
+	 * The result from this method should be added at the end of the request data, before the closing }.
+	 * @return the 'auth' JSON or a blank string
+	 */
+	private String getAuthJSON () {
+		if ( this.apiAuthType == ApiAuthType.AUTH_HTTP_API_TOKEN ) {
+			// The API token is specified with HTTP headers so return an empty string.
+			return "";
+		}
+		else {
+			// Return the 'auth' JSON.
+			return ", \"auth\": \"" + getApiToken() + "\"";
+		}
+	}
+
+	/**
+	 * Get the API token to pass in the HTTP 'Authorization' header.
+	 * The header is only used with the newer API, which does not use 'auth' in the request data.
+	 * @return the API token for the HTTP header, or null if the header should not be used
+	 */
+	private String getAuthHeaderToken () {
+		if ( this.apiAuthType == ApiAuthType.AUTH_HTTP_API_TOKEN ) {
+			return getApiToken();
+		}
+		else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Return the maximum number of items to include in one 'history.get' request.
+	 * @return the maximum number of items to include in one 'history.get' request
+	 */
+	public int getHistoryBatchSize () {
+		return this.historyBatchSize;
+	}
+
+	/**
+	 * Return the HTTP transport used for requests.
+	 * @return the HTTP transport used for requests
+	 */
+	public ZabbixHttpTransport getHttpTransport () {
+		return this.httpTransport;
+	}
+
+	/**
+	 * Return an integer configuration property.
+	 * @param props datastore configuration properties
+	 * @param propName the property name
+	 * @param defaultValue the value to return if the property is not set or is invalid
+	 * @return the property value or the default
+	 */
+	private int getIntegerProperty ( PropList props, String propName, int defaultValue ) {
+		String routine = getClass().getSimpleName() + ".getIntegerProperty";
+		String propValue = props.getValue(propName);
+		if ( (propValue == null) || propValue.trim().isEmpty() ) {
+			return defaultValue;
+		}
+		try {
+			int value = Integer.parseInt(propValue.trim());
+			Message.printStatus(2, routine, "Datastore \"" + getName() + "\" using " + propName + "=" + value );
+			return value;
+		}
+		catch ( NumberFormatException e ) {
+			Message.printWarning(3, routine, "Datastore \"" + getName() + "\" " + propName + "=\"" + propValue
+				+ "\" is not an integer, using the default " + defaultValue + ".");
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Create a snapshot of global data, including data that are derived from the history time series catalog:
+	 * <ul>
+	 * <li> unique item names, sorted</li>
+	 * <li> trend time series catalog</li>
+	 * </ul>
+	 * @param hostGroupList host group list
+	 * @param hostList host list
+	 * @param templateList template list
+	 * @param historyTscatalogList history time series catalog
+	 * @param reuseTrendTscatalogMap trend time series catalog to reuse, keyed by 'itemid',
+	 * for example for items that did not change when refreshing, or null to create all trend time series catalog
+	 * @return a new snapshot
+	 */
+	private CatalogSnapshot createCatalogSnapshot ( List<HostGroup> hostGroupList, List<Host> hostList,
+		List<Template> templateList, List<TimeSeriesCatalog> historyTscatalogList,
+		Map<String,List<TimeSeriesCatalog>> reuseTrendTscatalogMap ) {
+		String routine = getClass().getSimpleName() + ".createCatalogSnapshot";
+		// Loop through the history time series catalog and create other global data:
+		// - these are used in the TSTool UI and commands to improve performance
+		// - create unique item name
+		// - the lists are unique across all the data but may not be used for each host, etc/
+		// - TODO smalers maybe don't need to create a trend time series catalog list if can do on the fly from the history catalog
+
+		List<TimeSeriesCatalog> trendTscatalogList = new ArrayList<>();
+		List<String> itemNameList = new ArrayList<>();
+		Set<String> itemNameSet = new HashSet<>();
+		for ( TimeSeriesCatalog tscatalog : historyTscatalogList ) {
+			String itemName = tscatalog.getItemName();
+
+			if ( itemNameSet.add(itemName) ) {
+				itemNameList.add(itemName);
+			}
+			
+			// Create the trend time series catalog:
+			// - only do for numeric item types
+			// - the trend catalog is a view of the history catalog that shares the host and item data
+			// - the data type includes the statistic at the end
+			// - the interval is 'Hour'
+
+			List<TimeSeriesCatalog> reuseTrendTscatalogList = null;
+			if ( reuseTrendTscatalogMap != null ) {
+				reuseTrendTscatalogList = reuseTrendTscatalogMap.get ( tscatalog.getItemId() );
+			}
+			if ( reuseTrendTscatalogList != null ) {
+				// Reuse the trend catalog that was previously created.
+				trendTscatalogList.addAll ( reuseTrendTscatalogList );
+			}
+			else if ( tscatalog.isNumeric() ) {
+				for ( TrendStatistic statistic : TRENDSTATISTICS ) {
+					// The data type (item name and statistic) is the same for items from the same template.
+					TimeSeriesCatalog trendTscatalog = new TimeSeriesCatalog(tscatalog, statistic);
+					trendTscatalog.setDataType ( this.stringPool.intern(trendTscatalog.getDataType()) );
+					trendTscatalogList.add(trendTscatalog);
+				}
+			}
 		}
-		return this.globalHostGroupList;
+
+		Message.printStatus(2, routine, "Created " + trendTscatalogList.size()
+			+ " trend time series catalog (3x history catalog minus text items)." );
+
+		// Sort the simple lists.
+		Collections.sort(itemNameList,String.CASE_INSENSITIVE_ORDER);
+
+		return new CatalogSnapshot ( hostGroupList, hostList, templateList, null,
+			itemNameList, historyTscatalogList, trendTscatalogList );
+	}
+
+	/**
+	 * Create the host data for the time series catalog, which is shared by all time series catalog for the host.
+	 * @param host the host, or null if the item's host was not found
+	 * @return the host data for the time series catalog
+	 */
+	private TimeSeriesCatalogHost createTimeSeriesCatalogHost ( Host host ) {
+		TimeSeriesCatalogHost hostRecord = new TimeSeriesCatalogHost();
+		if ( host == null ) {
+			return hostRecord;
+		}
+		// Host group data:
+		// - Zabbix allows a host to be in multiple groups
+		// - however, for identification, use the preferred group
+		HostGroup hostGroup = host.lookupPreferredHostGroup ( this.preferredHostGroupNames );
+		if ( hostGroup != null ) {
+			String hostGroupName = hostGroup.getName();
+			hostRecord.setHostGroup ( hostGroup );
+			// Set the additional group names as information, but are not used in TSID.
+			List<HostGroup> hostGroups = host.getGroups();
+			if ( (hostGroups != null) && (hostGroups.size() > 1) ) {
+				StringBuilder b = new StringBuilder();
+				for ( HostGroup hostGroup2 : hostGroups ) {
+					if ( !hostGroup2.getName().equals(hostGroupName) ) {
+						// Name does not match so add.
+						if ( b.length() > 0 ) {
+							b.append ( "," );
+						}
+						b.append ( hostGroup2.getName() );
+					}
+				}
+				hostRecord.setHostGroupName2(this.stringPool.intern(b.toString()));
+			}
+		}
+
+		// Host data, listed alphabetically.
+		hostRecord.setHost ( host.getHost() );
+		hostRecord.setHostDescription ( host.getDescription() );
+		hostRecord.setHostId ( host.getHostid() );
+		hostRecord.setHostName ( host.getName() );
+		return hostRecord;
+	}
+
+	/**
+	 * Create the history time series catalog from a list of items.
+	 * @param snapshot global data used to look up hosts and templates
+	 * @param itemList list of Item to process, each of which will be one time series catalog
+	 * @return the list of history time series catalog
+	 */
+	private List<TimeSeriesCatalog> createTimeSeriesCatalogList ( CatalogSnapshot snapshot, List<Item> itemList ) {
+		String routine = getClass().getSimpleName() + ".createTimeSeriesCatalogList";
+		List<TimeSeriesCatalog> tscatalogList = new ArrayList<>();
+		
+		// Determine preferred host groups:
+		// - to help when there are multiple groups for a host
+		// - for example, prefer "Clients/" over other groups
+		// - TODO smalers hard-code this for now but add a configuration file property later
+
+		// Loop through the 'Item' instances and create corresponding TimeSeriesCatalog entries:
+		// - the host data are shared by all entries for the host
+		Map<String,TimeSeriesCatalogHost> hostRecordMap = new HashMap<>();
+		int derivedDataNotFoundCount = 0;
+		for ( Item item : itemList ) {
+
+			// Look up the related host from the cached data.
+			Host host = Host.lookupHostForId ( snapshot.getHostIdMap(), item.getHostid() );
+
+			// Host and host group data.
+			TimeSeriesCatalogHost hostRecord = hostRecordMap.get ( item.getHostid() );
+			if ( hostRecord == null ) {
+				hostRecord = createTimeSeriesCatalogHost ( host );
+				hostRecordMap.put ( item.getHostid(), hostRecord );
+			}
+
+			// Item data, listed alphabetically.
+			TimeSeriesCatalogItem itemRecord = new TimeSeriesCatalogItem();
+			itemRecord.setItemDelay ( item.getDelay() );
+			itemRecord.setItemHistory ( item.getHistory() );
+			itemRecord.setItemId ( item.getItemid() );
+			itemRecord.setItemKey ( item.getKey() );
+			itemRecord.setItemName ( item.getName() );
+			itemRecord.setItemStatus ( item.getStatus() );
+			itemRecord.setItemTemplateId ( item.getTemplateid() );
+			itemRecord.setItemTrends ( item.getTrends() );
+			ItemType itemType = ItemType.valueOfIgnoreCase(item.getType());
+			if ( itemType == null ) {
+				// Set to the number (as a String).
+				itemRecord.setItemType ( item.getType() );
+			}
+			else {
+				// Set to the name.
+				itemRecord.setItemType ( itemType.getDisplayName() );
+				// Also set the number.
+				itemRecord.setItemTypeNum ( itemType.getCode() );
+			}
+			itemRecord.setItemUnits ( item.getUnits() );
+			ValueType itemValueType = ValueType.valueOfIgnoreCase(item.getValueType());
+			if ( itemValueType == null ) {
+				// Set to the number (as a String).
+				itemRecord.setItemValueType ( item.getValueType() );
+			}
+			else {
+				// Set to the name.
+				itemRecord.setItemValueType ( itemValueType.getDisplayName() );
+				// Also set the number.
+				itemRecord.setItemValueTypeNum ( itemValueType.getCode() );
+			}
+
+			// The location ID is the host 'host', the data source is the host group name,
+			// the data type is the item name, and the data units are the item units.
+			TimeSeriesCatalog tscatalog = new TimeSeriesCatalog ( hostRecord, itemRecord );
+			
+			// Populate derived data that is looked up from other objects:
+			// - for example, item template 'name' from 'templateid'
+			// - the lookup uses the template map so is fast
+			// - items that are not from a template, or where 'templateid' does not match a template, are counted
+			if ( !tscatalog.setDerivedData ( snapshot.getTemplateIdMap() ) ) {
+				++derivedDataNotFoundCount;
+			}
+
+			tscatalogList.add(tscatalog);
+		}
+
+		Message.printStatus(2, routine, "Read " + tscatalogList.size() + " Zabbix history time series catalog using 'item' list.");
+		if ( derivedDataNotFoundCount > 0 ) {
+			Message.printStatus(2, routine, "Could not find the template for " + derivedDataNotFoundCount
+				+ " items (item is not from a template or template was not read).");
+		}
+		return tscatalogList;
+	}
+
+	/**
+	 * Return the current snapshot of global data.
+	 * Callers should get the snapshot once and use it for related lookups so that the data are consistent.
+	 * If the datastore is being initialized in the background, wait for the initialization to complete.
+	 * @return the current snapshot of global data, never null
+	 * @throws IllegalStateException if initialization did not complete within the initialization timeout
+	 */
+	CatalogSnapshot getCatalogSnapshot () {
+		if ( !waitForInitialization() ) {
+			throw new IllegalStateException ( "Datastore \"" + getName() + "\" did not initialize within "
+				+ this.initializationTimeout + " seconds (InitializationTimeout) - global data are not available." );
+		}
+		return this.catalogSnapshot.get();
+	}
+
+	/**
+	 * Return the current snapshot of global data, for use in choice lists.
+	 * If called on the Swing event thread while the datastore is initializing, null is returned rather than waiting,
+	 * so that the user interface is not blocked.
+	 * @return the current snapshot of global data, or null if the datastore is initializing
+	 * and this method is called on the Swing event thread
+	 * @throws IllegalStateException if initialization did not complete within the initialization timeout
+	 */
+	private CatalogSnapshot getCatalogSnapshotForChoices () {
+		if ( !isInitialized() && SwingUtilities.isEventDispatchThread() ) {
+			return null;
+		}
+		return getCatalogSnapshot();
+	}
+
+	/**
+	 * Return the choices to use while the datastore is initializing.
+	 * @return a new list containing LOADING_CHOICE
+	 */
+	private List<String> getLoadingChoices () {
+		List<String> choices = new ArrayList<>();
+		choices.add ( LOADING_CHOICE );
+		return choices;
+	}
+
+	/**
+	 * Return the executor used to run requests concurrently.
+	 * The number of threads is the same as the maximum number of HTTP connections,
+	 * and idle threads are stopped so that an idle datastore does not hold threads.
+	 * @return the executor used to run requests concurrently
+	 */
+	private synchronized ExecutorService getReadExecutor () {
+		if ( this.readExecutor == null ) {
+			String threadName = "ZabbixDataStore-" + getName();
+			ThreadPoolExecutor executor = new ThreadPoolExecutor (
+				this.maxConnections, this.maxConnections, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), runnable -> {
+					Thread thread = new Thread ( runnable, threadName );
+					// Daemon so that the application can exit.
+					thread.setDaemon ( true );
+					return thread;
+				});
+			executor.allowCoreThreadTimeOut ( true );
+			this.readExecutor = executor;
+		}
+		return this.readExecutor;
+	}
+
+	/**
+	 * Indicate whether datastore initialization has completed (successfully or not).
+	 * @return true if initialization has completed, false if initializing in the background
+	 */
+	public boolean isInitialized () {
+		CompletableFuture<Void> future = this.initializationFuture;
+		return (future == null) || future.isDone();
+	}
+
+	/**
+	 * Run an action when datastore initialization has completed, for example to refresh choices in the user interface.
+	 * The action is run in the thread that completes initialization, or immediately if initialization has completed.
+	 * @param action action to run
+	 */
+	public void whenInitialized ( Runnable action ) {
+		CompletableFuture<Void> future = this.initializationFuture;
+		if ( future == null ) {
+			action.run();
+		}
+		else {
+			future.thenRun ( action );
+		}
+	}
+
+	/**
+	 * Wait for datastore initialization to complete, for example when initializing in the background.
+	 * Commands should call this before using global data so that a timeout can be reported as a failure.
+	 * @return true if initialization has completed, false if the wait timed out or was interrupted
+	 */
+	public boolean waitForInitialization () {
+		String routine = getClass().getSimpleName() + ".waitForInitialization";
+		CompletableFuture<Void> future = this.initializationFuture;
+		if ( (future == null) || future.isDone() ) {
+			return true;
+		}
+		Message.printStatus(2, routine, "Waiting up to " + this.initializationTimeout
+			+ " seconds for datastore \"" + getName() + "\" to initialize." );
+		try {
+			future.get ( this.initializationTimeout, TimeUnit.SECONDS );
+			return true;
+		}
+		catch ( TimeoutException e ) {
+			Message.printWarning(3, routine, "Timeout waiting for datastore \"" + getName()
+				+ "\" to initialize.  Global data are not available." );
+			return false;
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		catch ( ExecutionException e ) {
+			// Should not happen because initialize() handles exceptions.
+			Message.printWarning(3, routine, e );
+			return true;
+		}
+	}
+
+	/**
+	 * Return the list of hosts.
+	 * @param readData if false, return the global cached data, if true read the data and reset in the cache
+	 */
+	public List<Host> getHosts(boolean readData) throws IOException {
+		if ( readData ) {
+			List<Host> hostList = readHostList();
+			return this.catalogSnapshot.updateAndGet(snapshot -> snapshot.withHostList(hostList)).getHostList();
+		}
+		CatalogSnapshot snapshot = getCatalogSnapshotForChoices();
+		if ( snapshot == null ) {
+			// Initializing so don't block the user interface.
+			return new ArrayList<>();
+		}
+		return snapshot.getHostList();
+	}
+
+	/**
+	 * Return the list of host groups.
+	 * @param readData if false, return the global cached data, if true read the data and reset in the cache
+	 */
+	public List<HostGroup> getHostGroups(boolean readData) throws IOException {
+		if ( readData ) {
+			List<HostGroup> hostGroupList = readHostGroupList();
+			return this.catalogSnapshot.updateAndGet(snapshot -> snapshot.withHostGroupList(hostGroupList)).getHostGroupList();
+		}
+		CatalogSnapshot snapshot = getCatalogSnapshotForChoices();
+		if ( snapshot == null ) {
+			// Initializing so don't block the user interface.
+			return new ArrayList<>();
+		}
+		return snapshot.getHostGroupList();
+	}
+
+	/**
+	 * Return an integer read property value.
+	 * @param propObject the property value, an Integer or String
+	 * @param defaultValue the value to return if the property is not an integer
+	 * @return the integer value
+	 */
+	private int getIntegerReadProperty ( Object propObject, int defaultValue ) {
+		if ( propObject instanceof Integer ) {
+			return (Integer)propObject;
+		}
+		else if ( (propObject instanceof String) && StringUtil.isInteger((String)propObject) ) {
+			return Integer.parseInt(((String)propObject).trim());
+		}
+		return defaultValue;
 	}
 
 	/**
@@ -577,17 +1458,38 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 		return null;
 	}
 
+	/**
+	 * Map each item to the read requests that use the item.
+	 * The same item may be used by more than one request,
+	 * for example trend time series for each statistic or duplicate requests.
+	 * @param requestList list of read requests
+	 * @return map of itemid to the read requests that use the item, in the order of the requests
+	 */
+	private Map<String,List<TimeSeriesReadRequest>> getItemRequestMap ( List<TimeSeriesReadRequest> requestList ) {
+		Map<String,List<TimeSeriesReadRequest>> itemRequestMap = new LinkedHashMap<>();
+		for ( TimeSeriesReadRequest request : requestList ) {
+			List<TimeSeriesReadRequest> itemRequestList = itemRequestMap.get(request.tscatalog.getItemId());
+			if ( itemRequestList == null ) {
+				itemRequestList = new ArrayList<>();
+				itemRequestMap.put(request.tscatalog.getItemId(), itemRequestList);
+			}
+			itemRequestList.add(request);
+		}
+		return itemRequestMap;
+	}
+
 	/**
 	 * Return the list of item names determined from the TimeSeriesCatalog at initialization.
 	 */
 	public List<String> getItemNames() {
-		return this.globalItemNameList;
+		return getCatalogSnapshot().getItemNameList();
 	}
 	
 	/**
 	 * Get the location identifier strings.
 	 * This is used by the ReadZabbix command editor.
-	 * The locIds are looked up from the global history and trend catalog.
+	 * The locIds are looked up from the distinct values that are created when the global catalog is read,
+	 * so that the catalog is not scanned each time the choices are refreshed.
 	 * @param dataSource data source of interest (host group name)
 	 * @param dataType data type of interest (item name)
 	 * @param dataInterval data interval of interest (IrregSecond or Hour)
@@ -597,21 +1499,17 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	 */
 	public List<String> getLocIdStrings ( String dataSource, String dataType, String dataInterval,
 		boolean includeWildcards, boolean includeNote ) {
-		List<String> locIdList = new ArrayList<>();
-		List<TimeSeriesCatalog> tscatalogList = null;
-		String locId = null; // null, since it is what is being looked up.
-		String hostName = null; // Not used in this lookup.
-		String itemName = null; // itemName is not used since data type (possibly with trend statistic) controls.
+		// Item name is not used since data type (possibly with trend statistic) controls.
+		CatalogSnapshot snapshot = getCatalogSnapshotForChoices();
+		if ( snapshot == null ) {
+			return getLoadingChoices();
+		}
 		if ( isTrendDataType(dataType) ) {
-			tscatalogList = TimeSeriesCatalog.lookupCatalog (
-				this.globalTrendTscatalogList, dataType, dataInterval, dataSource, locId, hostName, itemName );
+			return snapshot.getTrendTscatalogIndex().getDistinctLocIds ( dataType, dataInterval, dataSource, includeNote );
 		}
 		else {
-			tscatalogList = TimeSeriesCatalog.lookupCatalog (
-				this.globalHistoryTscatalogList, dataType, dataInterval, dataSource, locId, hostName, itemName );
+			return snapshot.getHistoryTscatalogIndex().getDistinctLocIds ( dataType, dataInterval, dataSource, includeNote );
 		}
-		locIdList = TimeSeriesCatalog.getDistinctLocIds(tscatalogList, includeNote );
-		return locIdList;
 	}
 
 	/**
@@ -769,9 +1667,11 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 			String dataTypeReq = null;
 			String dataIntervalReq = null;
     		InputFilter_JPanel ifp = null;
-			this.globalHistoryTscatalogList = readTimeSeriesCatalog(tsid, dataTypeReq, dataIntervalReq, ifp );
+			List<TimeSeriesCatalog> historyTscatalogList = readTimeSeriesCatalog(tsid, dataTypeReq, dataIntervalReq, ifp );
+			return this.catalogSnapshot.updateAndGet(snapshot -> snapshot.withHistoryTscatalogList(historyTscatalogList))
+				.getHistoryTscatalogList();
 		}
-		return this.globalHistoryTscatalogList;
+		return getCatalogSnapshot().getHistoryTscatalogList();
 	}
 
 	/**
@@ -831,29 +1731,24 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	/**
 	 * Get the data source strings.
 	 * This is used by the ReadZabbix command editor.
-	 * The data sources are looked up from the global history and trend catalog.
+	 * The data sources are looked up from the distinct values that are created when the global catalog is read.
 	 * @param dataType data type of interest (item name)
 	 * @param dataInterval data interval of interest (IrregSecond or Hour)
 	 * @param includeWildcards whether to include "*" wildcards
 	 * @return a unique list of locId from the time series catalog, sorted and always not null (but may be an empty list)
 	 */
 	public List<String> getTimeSeriesDataSourceStrings ( String dataType, String dataInterval, boolean includeWildcards ) {
-		List<String> dataSourceList = new ArrayList<>();
-		List<TimeSeriesCatalog> tscatalogList = null;
-		String dataSource = null; // null, since this is being looked up.
-		String locId = null; // null, since don't have that yet (have to pick data source first).
-		String hostName = null; // Not used in this lookup.
-		String itemName = null; // itemName is not used since data type (possibly with trend statistic) controls.
+		// Location is not used since it is selected after the data source.
+		CatalogSnapshot snapshot = getCatalogSnapshotForChoices();
+		if ( snapshot == null ) {
+			return getLoadingChoices();
+		}
 		if ( isTrendDataType(dataType) ) {
-			tscatalogList = TimeSeriesCatalog.lookupCatalog (
-				this.globalTrendTscatalogList, dataType, dataInterval, dataSource, locId, hostName, itemName );
+			return snapshot.getTrendTscatalogIndex().getDistinctDataSources ( dataType, dataInterval );
 		}
 		else {
-			tscatalogList = TimeSeriesCatalog.lookupCatalog (
-				this.globalHistoryTscatalogList, dataType, dataInterval, dataSource, locId, hostName, itemName );
+			return snapshot.getHistoryTscatalogIndex().getDistinctDataSources ( dataType, dataInterval );
 		}
-		dataSourceList = TimeSeriesCatalog.getDistinctDataSources(tscatalogList);
-		return dataSourceList;
 	}
 
 	/**
@@ -877,24 +1772,13 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	public List<String> getTimeSeriesDataTypeStrings(String dataInterval, boolean includeWildcards ) {
 		//String routine = getClass().getSimpleName() + ".getTimeSeriesDataTypeStrings";
 
-		// Currently the data types are a static list, not determined from an API call.
-		List<String> dataTypes = new ArrayList<>();
-
-		boolean addTrendTypes = true;
-		for ( String itemName : this.globalItemNameList ) {
-			// Item names are for history time series.
-			dataTypes.add( itemName );
-			if ( addTrendTypes ) {
-				// Add data types for trend time series:
-				// - use the Zabbix statistics as is to avoid confusion
-				dataTypes.add( itemName + "-Avg");
-				dataTypes.add( itemName + "-Max");
-				dataTypes.add( itemName + "-Min");
-			}
+		// The data types (item names and trend data types) are created and sorted when the catalog is read:
+		// - copy so that the wildcards can be added
+		CatalogSnapshot snapshot = getCatalogSnapshotForChoices();
+		if ( snapshot == null ) {
+			return getLoadingChoices();
 		}
-
-		// Sort the names.
-		Collections.sort(dataTypes, String.CASE_INSENSITIVE_ORDER);
+		List<String> dataTypes = new ArrayList<>(snapshot.getDataTypeList());
 
 		if ( includeWildcards ) {
 			// Add wildcard at the front and end - allows querying all data types for the location:
@@ -959,6 +1843,26 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
     	return new Zabbix_TimeSeries_TableModel(this,(List<TimeSeriesCatalog>)data);
     }
 
+    /**
+     * Return the trend value for the requested statistic.
+     * @param trendColumns trend data for an item
+     * @param i record index (0+)
+     * @param valueStat the statistic (-1=min, 0=avg, 1=max)
+     * @return the trend value, or NaN if not available
+     */
+    private double getTrendValue ( TrendColumns trendColumns, int i, int valueStat ) {
+    	if ( valueStat < 0 ) {
+    		return trendColumns.getValueMin(i);
+    	}
+    	else if ( valueStat == 0 ) {
+    		return trendColumns.getValueAvg(i);
+    	}
+    	else if ( valueStat == 1 ) {
+    		return trendColumns.getValueMax(i);
+    	}
+    	return Double.NaN;
+    }
+
     /**
      * Determine whether a data type is for trend data (ends in "-Avg", "-Max", or "-Min").
      * This does not check for "*" so must do that separately.
@@ -989,152 +1893,313 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	 * <ul>
 	 * <li>TimeSeriesCatalog - cache used to find time series without re-requesting from the web service</li>
 	 * </ul>
+	 * The requests are run as stages that depend on each other, and independent stages are run concurrently:
+	 * <ul>
+	 * <li> host groups and hosts are read at the same time</li>
+	 * <li> templates and items are read when the hosts have been read, with item chunks read concurrently</li>
+	 * <li> the time series catalog is created when the host groups, items, and templates have been read</li>
+	 * </ul>
+	 * The data are read into a new snapshot, which replaces the current snapshot when all data have been read.
 	 * If an error is detected, set on the datastore so that TSTool View / Datastores will show the error.
 	 * This is usually an issue with a misconfigured datastore.
 	 */
 	public void readGlobalData () {
 		String routine = getClass().getSimpleName() + ".readGlobalData";
 		Message.printStatus ( 2, routine, "Reading global data for datastore \"" + getName() + "\"." );
+		long startTime = System.currentTimeMillis();
+		// Start a new string pool so that strings from previous reads are not retained.
+		this.stringPool = new StringPool();
+		// Time for each stage (ms), in the order that the stages are started.
+		Map<String,Long> stageTimeMap = Collections.synchronizedMap(new LinkedHashMap<>());
+		ExecutorService executor = getReadExecutor();
 
 		// Read the host groups.
 
-		try {
-			this.globalHostGroupList = readHostGroupList();
-			Message.printStatus(2, routine, "Read " + this.globalHostGroupList.size() + " host groups." );
-		}
-		catch ( Exception e ) {
-			Message.printWarning(3, routine, "Error reading global host group list (" + e + ")");
-			Message.printWarning(3, routine, e );
-		}
+		CompletableFuture<List<HostGroup>> hostGroupFuture = CompletableFuture.supplyAsync ( () -> {
+			long stageStart = System.currentTimeMillis();
+			List<HostGroup> hostGroupList = new ArrayList<>();
+			try {
+				hostGroupList = readHostGroupList();
+				Message.printStatus(2, routine, "Read " + hostGroupList.size() + " host groups." );
+			}
+			catch ( Exception e ) {
+				Message.printWarning(3, routine, "Error reading global host group list (" + e + ")");
+				Message.printWarning(3, routine, e );
+			}
+			stageTimeMap.put ( "host groups", System.currentTimeMillis() - stageStart );
+			return hostGroupList;
+		}, executor );
 
 		// Read the hosts.
 
-		try {
-			this.globalHostList = readHostList();
-			Message.printStatus(2, routine, "Read " + this.globalHostList.size() + " hosts." );
-		}
-		catch ( Exception e ) {
-			Message.printWarning(3, routine, "Error reading global host list (" + e + ")");
-			Message.printWarning(3, routine, e );
-		}
+		CompletableFuture<List<Host>> hostFuture = CompletableFuture.supplyAsync ( () -> {
+			long stageStart = System.currentTimeMillis();
+			List<Host> hostList = new ArrayList<>();
+			try {
+				hostList = readHostList();
+				Message.printStatus(2, routine, "Read " + hostList.size() + " hosts." );
+			}
+			catch ( Exception e ) {
+				Message.printWarning(3, routine, "Error reading global host list (" + e + ")");
+				Message.printWarning(3, routine, e );
+			}
+			stageTimeMap.put ( "hosts", System.currentTimeMillis() - stageStart );
+			return hostList;
+		}, executor );
+
+		// Read the templates, which requires the hosts.
 
-		// Read the items:
-		// - can't seem to query all without a filter such as host group
+		CompletableFuture<List<Template>> templateFuture = hostFuture.thenApplyAsync ( hostList -> {
+			long stageStart = System.currentTimeMillis();
+			List<Template> templateList = new ArrayList<>();
+			try {
+				templateList = readTemplateList(hostList);
+				Message.printStatus(2, routine, "Read " + templateList.size() + " templates." );
+			}
+			catch ( Exception e ) {
+				Message.printWarning(3, routine, "Error reading global templates list (" + e + ")");
+				Message.printWarning(3, routine, e );
+			}
+			stageTimeMap.put ( "templates", System.currentTimeMillis() - stageStart );
+			return templateList;
+		}, executor );
+
+		// Read the items for the time series catalog, which requires the hosts:
+		// - the item chunks are read concurrently using the executor
+		// - the chunks are started from this thread rather than an executor thread,
+		//   so that waiting for the chunks does not use one of the executor threads
+		// - the items are not saved in the snapshot
 		// - TODO smalers 2023-05-18 need to decide whether to read up front
 
-		/*
+		// The stages handle their own exceptions so join() will not throw an exception for a read error.
+		List<Host> hostList = hostFuture.join();
+		long itemStart = System.currentTimeMillis();
+		List<Item> itemList = new ArrayList<>();
+		// Problems reading items, in which case the item list is incomplete.
+		List<String> itemProblems = new ArrayList<>();
 		try {
-			this.globalItemList = readItemList();
-			Message.printStatus(2, routine, "Initialized " + this.globalItemList.size() + " items." );
+			itemList = readItemListForHosts ( hostList, itemProblems );
 		}
 		catch ( Exception e ) {
-			Message.printWarning(3, routine, "Error initializing global item list (" + e + ")");
+			itemProblems.add ( "Error reading global item list (" + e + ")" );
 			Message.printWarning(3, routine, e );
 		}
-		*/
+		for ( String problem : itemProblems ) {
+			Message.printWarning(3, routine, problem );
+		}
+		stageTimeMap.put ( "items", System.currentTimeMillis() - itemStart );
 
-		// Read the templates.
+		// Wait for the other stages to complete.
 
-		try {
-			this.globalTemplateList = readTemplateList(this.globalHostList);
-			Message.printStatus(2, routine, "Read " + this.globalTemplateList.size() + " templates." );
-		}
-		catch ( Exception e ) {
-			Message.printWarning(3, routine, "Error reading global templates list (" + e + ")");
-			Message.printWarning(3, routine, e );
-		}
+		List<HostGroup> hostGroupList = hostGroupFuture.join();
+		List<Template> templateList = templateFuture.join();
 
-		// Read the global list of history and trend time series catalog:
+		// Create the global list of history and trend time series catalog:
 		// - process after reading other data because may need to use for derived data
 		// - used to look up history time series when reading
 		// - used to create choices for the UI
 		// - TODO smalers need to create a data pyramid to streamline performance
-		// - TODO smalers maybe don't need to create a trend time series catalog list if can do on the fly from the history catalog
+		long stageStart = System.currentTimeMillis();
+		List<TimeSeriesCatalog> historyTscatalogList = new ArrayList<>();
 		try {
-			String tsid = null;
-    		String dataTypeReq = null;
-    		String dataIntervalReq = null;
-    		InputFilter_JPanel ifp = null;
-    		// Read the catalog for all time series.
-			this.globalHistoryTscatalogList = readTimeSeriesCatalog(tsid, dataTypeReq, dataIntervalReq, ifp );
-			Message.printStatus(2, routine, "Read " + this.globalHistoryTscatalogList.size() + " history time series catalog." );
-
-			// Loop through the history time series catalog and create other global data:
-			// - these are used in the TSTool UI and commands to improve performance
-			// - create unique item name
-			// - the lists are unique across all the data but may not be used for each host, etc/
-
-			this.globalItemNameList = new ArrayList<>();
-			this.globalTrendTscatalogList = new ArrayList<>();
-			String itemName = null;
-			boolean found;
-			for ( TimeSeriesCatalog tscatalog : this.globalHistoryTscatalogList ) {
-				itemName = tscatalog.getItemName();
-
-				found = false;
-				for ( String itemName2 : this.globalItemNameList ) {
-					if ( itemName2.equals(itemName) ) {
-						found = true;
-						break;
-					}
-				}
-				if ( !found ) {
-					this.globalItemNameList.add(itemName);
-				}
-				
-				// Create the trend time series catalog:
-				// - only do for numeric item types
-				// - copy the history catalog since most of the data will be the same
-				// - modify the data type to include the statistic at the end
-				// - set the interval to 'Hour'
-
-				if ( tscatalog.isNumeric() ) {
-					// 'Avg' statistic.
-					TimeSeriesCatalog tscatalog2 = new TimeSeriesCatalog(tscatalog);
-					tscatalog2.setDataType(tscatalog.getItemName() + "-Avg");
-					tscatalog2.setDataInterval("Hour");
-					this.globalTrendTscatalogList.add(tscatalog2);
-					// 'Min' statistic.
-					tscatalog2 = new TimeSeriesCatalog(tscatalog);
-					tscatalog2.setDataType(tscatalog.getItemName() + "-Min");
-					tscatalog2.setDataInterval("Hour");
-					this.globalTrendTscatalogList.add(tscatalog2);
-					// 'Max' statistic.
-					tscatalog2 = new TimeSeriesCatalog(tscatalog);
-					tscatalog2.setDataType(tscatalog.getItemName() + "-Max");
-					tscatalog2.setDataInterval("Hour");
-					this.globalTrendTscatalogList.add(tscatalog2);
-				}
-			}
-
-			Message.printStatus(2, routine, "Read " + this.globalTrendTscatalogList.size()
-				+ " trend time series catalog (3x history catalog minus text items)." );
-
-			// Sort the simple lists.
-			Collections.sort(this.globalItemNameList,String.CASE_INSENSITIVE_ORDER);
+    		// Create the catalog for all time series:
+    		// - use a snapshot with the hosts and templates that were just read,
+    		//   which is not published until the catalog has been created
+    		CatalogSnapshot snapshot = new CatalogSnapshot ( hostGroupList, hostList, templateList, null, null, null, null );
+			historyTscatalogList = createTimeSeriesCatalogList ( snapshot, itemList );
+			Message.printStatus(2, routine, "Read " + historyTscatalogList.size() + " history time series catalog." );
 		}
 		catch ( Exception e ) {
 			Message.printWarning(3, routine, "Error reading global history and trend time series catalog lists (" + e + ")");
 			Message.printWarning(3, routine, e );
 		}
 
+		// Publish the new snapshot:
+		// - readers that already have the previous snapshot continue to use it
+		// - the item list is not saved because it is only used to create the catalog
+		// - if the items are incomplete, keep the previous catalog if there is one (e.g., read from the snapshot file),
+		//   so that an error does not remove time series from the catalog
+		CatalogSnapshot snapshot = createCatalogSnapshot ( hostGroupList, hostList, templateList, historyTscatalogList, null );
+		if ( !itemProblems.isEmpty() && !this.catalogSnapshot.get().getHistoryTscatalogList().isEmpty() ) {
+			Message.printWarning(3, routine, "Items were not read for all hosts.  Keeping the previous global data for datastore \""
+				+ getName() + "\"." );
+			snapshot = null;
+		}
+		else {
+			this.catalogSnapshot.set ( snapshot );
+		}
+		stageTimeMap.put ( "catalog", System.currentTimeMillis() - stageStart );
+
+		// Save the snapshot file if enabled:
+		// - only save if hosts and time series were read, to avoid saving the result of an error
+		// - don't save incomplete items so that the file does not remove time series from the catalog when used
+		if ( (this.catalogSnapshotFile != null) && (snapshot != null) && itemProblems.isEmpty()
+			&& !hostList.isEmpty() && !historyTscatalogList.isEmpty() ) {
+			stageStart = System.currentTimeMillis();
+			try {
+				this.catalogSnapshotFile.write ( getServiceRootURI().toString(), snapshot );
+				Message.printStatus(2, routine, "Wrote catalog snapshot file \"" + this.catalogSnapshotFile.getPath() + "\"." );
+			}
+			catch ( Exception e ) {
+				Message.printWarning(3, routine, "Error writing catalog snapshot file \""
+					+ this.catalogSnapshotFile.getPath() + "\" (" + e + ")." );
+			}
+			stageTimeMap.put ( "snapshot file", System.currentTimeMillis() - stageStart );
+		}
+
+		// Log the time for each stage:
+		// - stages that run concurrently overlap so the total is less than the sum
+		StringBuilder b = new StringBuilder();
+		synchronized ( stageTimeMap ) {
+			for ( Map.Entry<String,Long> entry : stageTimeMap.entrySet() ) {
+				b.append ( " " + entry.getKey() + "=" + entry.getValue() + " ms" );
+			}
+		}
+		Message.printStatus ( 2, routine, "Read global data for datastore \"" + getName() + "\" in "
+			+ (System.currentTimeMillis() - startTime) + " ms, stage times:" + b );
+		Message.printStatus ( 2, routine, "String pool for datastore \"" + getName() + "\": " + this.stringPool );
+	}
+
+	/**
+	 * Read global data from the catalog snapshot file, if enabled and the file is not older than the maximum age.
+	 * If the snapshot is read, the global data are read from the web service in a background thread
+	 * so that the snapshot and the file are updated.
+	 * @return true if the snapshot was read and published, false if global data need to be read from the web service
+	 */
+	private boolean readGlobalDataFromSnapshotFile () {
+		String routine = getClass().getSimpleName() + ".readGlobalDataFromSnapshotFile";
+		if ( this.catalogSnapshotFile == null ) {
+			return false;
+		}
+		long age = this.catalogSnapshotFile.getAge();
+		if ( age < 0 ) {
+			Message.printStatus(2, routine, "Catalog snapshot file does not exist: " + this.catalogSnapshotFile.getPath() );
+			return false;
+		}
+		if ( age > this.catalogSnapshotMaxAge*1000L ) {
+			Message.printStatus(2, routine, "Catalog snapshot file age (" + (age/1000) + " seconds) is older than "
+				+ this.catalogSnapshotMaxAge + " seconds: " + this.catalogSnapshotFile.getPath() );
+			return false;
+		}
+		long startTime = System.currentTimeMillis();
+		CatalogSnapshotFile.SnapshotData data = this.catalogSnapshotFile.read ( getServiceRootURI().toString() );
+		if ( (data == null) || data.hostList.isEmpty() || data.historyTscatalogList.isEmpty() ) {
+			return false;
+		}
+		this.catalogSnapshot.set ( createCatalogSnapshot ( data.hostGroupList, data.hostList, data.templateList,
+			data.historyTscatalogList, null ) );
+		Message.printStatus(2, routine, "Read " + data.hostList.size() + " hosts and " + data.historyTscatalogList.size()
+			+ " history time series catalog from snapshot file in " + (System.currentTimeMillis() - startTime)
+			+ " ms (data are " + ((System.currentTimeMillis() - data.readTime)/1000) + " seconds old): "
+			+ this.catalogSnapshotFile.getPath() );
+
+		// Refresh the data in the background:
+		// - use a separate thread rather than the read executor because readGlobalData() uses the executor
+		Thread refreshThread = new Thread ( () -> {
+			Message.printStatus(2, routine, "Refreshing global data in the background after reading the snapshot file." );
+			readGlobalData();
+		}, "ZabbixDataStore-" + getName() + "-refresh" );
+		refreshThread.setDaemon ( true );
+		refreshThread.start();
+		return true;
 	}
 
     /**
-     * Read the history list from the web service.
+     * Read history data for one or more items and append the data to the time series for the requests.
+     * All items must have the same value type because 'history.get' only accepts one value type.
+     * The history is read in pages (see readHistoryPages()) and each page is appended to the time series as it is read,
+     * so that a very long period does not require one large response.
+     * @param itemRequestMap map of itemid to the requests that use the item
+     * @param itemValueType the item value type
+     * @param timeFrom timestamp to start read, UNIX epoch seconds
+     * @param timeTill timestamp to end read, UNIX epoch seconds
+     * @throws IOException if an error reading the history, in which case the time series will contain the data
+     * that were read before the error and the message indicates the period that was not read
+     */
+    private void readHistoryData ( Map<String,List<TimeSeriesReadRequest>> itemRequestMap, int itemValueType,
+    	long timeFrom, long timeTill ) throws IOException {
+    	readHistoryPages ( new ArrayList<>(itemRequestMap.keySet()), itemValueType, timeFrom, timeTill, historyPage -> {
+    		// Split the page by item and append to the time series.
+    		int [][] rowsByItem = historyPage.getRowsByItem();
+    		for ( int iItem = 0; iItem < rowsByItem.length; iItem++ ) {
+    			if ( rowsByItem[iItem].length == 0 ) {
+    				continue;
+    			}
+    			List<TimeSeriesReadRequest> itemRequestList = itemRequestMap.get(historyPage.getItemid(iItem));
+    			if ( itemRequestList != null ) {
+    				for ( TimeSeriesReadRequest request : itemRequestList ) {
+    					setHistoryData ( request, historyPage, rowsByItem[iItem] );
+    				}
+    			}
+    		}
+    	});
+    }
+
+    /**
+     * Read history from the web service for one or more items, in pages.
+     * If the 'HistoryPageSize' configuration property is greater than zero, each request uses 'limit'
+     * and the next request starts at the last 'clock' that was returned (a clock cursor, see HistoryPager).
+     * @param itemidList list of itemid to match
+     * @param itemValueType the item value type
+     * @param timeFrom timestamp to start read, UNIX epoch seconds, or -1 if not specified
+     * @param timeTill timestamp to end read, UNIX epoch seconds, or -1 if not specified
+     * @param pageConsumer consumer for each page of history records, which are sorted by clock
+     * (records for different items are mixed and can be split using the item index);
+     * the columns are reused for the next page so must be processed before returning
+     * @throws IOException if an error reading the history, in which case the message indicates the period that was not read
+     */
+    private void readHistoryPages ( List<String> itemidList, int itemValueType, long timeFrom, long timeTill,
+    	Consumer<HistoryColumns> pageConsumer ) throws IOException {
+    	String routine = getClass().getSimpleName() + ".readHistoryPages";
+    	int pageSize = this.historyPageSize;
+    	boolean isNumeric = (itemValueType == ValueType.FLOAT.getCode()) || (itemValueType == ValueType.INTEGER.getCode());
+    	if ( pageSize <= 0 ) {
+    		// Read all the data with one request.
+    		HistoryColumns page = new HistoryColumns ( itemidList, isNumeric, 0 );
+    		page.setMaxTextLength ( this.textMaxLength );
+    		readHistoryColumns ( itemidList, itemValueType, timeFrom, timeTill, 0, false, page );
+    		pageConsumer.accept ( page );
+    		return;
+    	}
+    	HistoryColumns page = new HistoryColumns ( itemidList, isNumeric, pageSize );
+    	page.setMaxTextLength ( this.textMaxLength );
+    	// Always request 'ns' for pages so that records with the same clock can be identified.
+    	HistoryPager pager = new HistoryPager ( pageSize, ( pageTimeFrom, pageTimeTill, limit, columns ) ->
+    		readHistoryColumns ( itemidList, itemValueType, pageTimeFrom, pageTimeTill, limit, true, columns ) );
+    	pager.read ( page, timeFrom, timeTill, pageConsumer );
+    	if ( pager.getPageCount() > 1 ) {
+    		Message.printStatus(2, routine, "Read " + pager.getRecordCount() + " history records using "
+    			+ pager.getPageCount() + " pages." );
+    	}
+    }
+
+    /**
+     * Read history from the web service for one or more items, decoding the response directly into columns.
+     * All items must have the same value type because 'history.get' only accepts one value type.
      * See (current): https://www.zabbix.com/documentation/current/en/manual/api/reference/history/get
      * See (5.4):  https://www.zabbix.com/documentation/5.4/en/manual/api/reference/history/get
-     * @param itemid itemid to match
+     * @param itemidList list of itemid to match
      * @param itemValueType the item value type
      * @param timeFrom timestamp to start read, UNIX epoch seconds
      * @param timeTill timestamp to end read, UNIX epoch seconds
-     * @return the history list, may be an empty list if a problem or no data
+     * @param limit maximum number of records to return, or 0 for no limit
+     * @param readNs whether to request 'ns', which is needed to uniquely identify records when reading pages
+     * @param columns columns to add the history records to, which are sorted by clock
+     * (records for different items are mixed and can be split using the item index)
+     * @throws IOException if an error reading the history
      */
-    private List<History> readHistoryList ( String itemid, int itemValueType, long timeFrom, long timeTill) {
-		String routine = getClass().getSimpleName() + ".readHistoryList";
+    private void readHistoryColumns ( List<String> itemidList, int itemValueType, long timeFrom, long timeTill,
+    	int limit, boolean readNs, HistoryColumns columns ) throws IOException {
+		String routine = getClass().getSimpleName() + ".readHistoryColumns";
 		String requestUrl = getServiceRootURI().toString();
-		List<String> itemidList = new ArrayList<>();
-		itemidList.add(itemid);
+		String limitParam = "";
+		if ( limit > 0 ) {
+			limitParam = ",\"limit\": " + limit;
+		}
+		String output = HISTORY_OUTPUT;
+		if ( readNs ) {
+			output = HISTORY_PAGE_OUTPUT;
+		}
 		// Seems to require 'history' and/or 'output'.
 		String requestData =
 			"{"
@@ -1142,28 +2207,21 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"method\": \"history.get\","
 				+ "\"params\": {"
 					+ "\"history\": " + itemValueType + ","
-					+ "\"output\": \"extend\","
+					+ "\"output\": " + output + ","
 					+ "\"sortfield\": \"clock\","
 					+ "\"sortorder\": \"ASC\""
 					+ getParamTimeFrom(true, timeFrom)
 					+ getParamTimeTill(true, timeTill)
 					+ getParamItemIds(true, itemidList)
+					+ limitParam
 				+ "},"
 				+ "\"id\": 1"
 				+ getAuthJSON()
     		+ "}";
 		Message.printStatus(2, routine, "Request data = " + requestData);
-		String dataElement = "result";  // 'result' contains an array of the objects.
-		try {
-			String historyJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
-			List<History> history = JacksonToolkit.getInstance().getObjectMapper().readValue(historyJson, new TypeReference<List<History>>(){});
-			return history;
-		}
-		catch ( Exception e ) {
-			Message.printWarning(3,routine,e);
-			return new ArrayList<History>();
-		}
+		JacksonToolkit.getInstance().readResult (
+			getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData,
+			parser -> ColumnarResultDecoder.decodeHistory(parser, columns) );
     }
 
     /**
@@ -1194,18 +2252,18 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"jsonrpc\": \"2.0\","
 				+ "\"method\": \"host.get\","
 				+ "\"params\": {"
-					+ "\"selectGroups\": \"extend\""
+					+ "\"output\": " + HOST_OUTPUT + ","
+					+ "\"selectGroups\": " + HOST_GROUP_OUTPUT
 					+ getParamFilter(true, propertyName, propertyValueList)
 				+ "},"
 				+ "\"id\": 1"
 				+ getAuthJSON()
     		+ "}";
 		Message.printStatus(2, routine, "Reading hosts, requestData = " + requestData);
-		String dataElement = "result";  // 'result' contains an array of the objects.
 		try {
-			String hostJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
-			List<Host> hosts = JacksonToolkit.getInstance().getObjectMapper().readValue(hostJson, new TypeReference<List<Host>>(){});
+			List<Host> hosts = new ArrayList<>();
+			JacksonToolkit.getInstance().readResultArray (
+				getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData, Host.class, this.stringPool, hosts::add );
 			return hosts;
 		}
 		catch ( Exception e ) {
@@ -1229,16 +2287,15 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"jsonrpc\": \"2.0\","
 				+ "\"method\": \"hostgroup.get\","
 				+ "\"params\": {"
-				+   "\"output\": \"extend\""
+				+   "\"output\": " + HOST_GROUP_OUTPUT
 				+ "},"
 				+ "\"id\": 1"
 				+ getAuthJSON()
     		+ "}";
-		String dataElement = "result";  // 'result' contains an array of the objects.
 		try {
-			String hostGroupJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
-			List<HostGroup> hostGroups = JacksonToolkit.getInstance().getObjectMapper().readValue(hostGroupJson, new TypeReference<List<HostGroup>>(){});
+			List<HostGroup> hostGroups = new ArrayList<>();
+			JacksonToolkit.getInstance().readResultArray (
+				getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData, HostGroup.class, this.stringPool, hostGroups::add );
 			return hostGroups;
 		}
 		catch ( Exception e ) {
@@ -1257,6 +2314,25 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
      */
     private List<Item> readItemList ( List<Host> hostList ) {
 		String routine = getClass().getSimpleName() + ".readItemList";
+		try {
+			return readItemListForRequest ( hostList );
+		}
+		catch ( Exception e ) {
+			Message.printWarning(3,routine,e);
+			return new ArrayList<Item>();
+		}
+    }
+
+    /**
+     * Read the item list from the web service, throwing an exception if a problem.
+     * This is used when the caller needs to know about errors, for example to retry with a smaller request.
+     * @param hostList list of Host to filter items
+     * (must be non-null an non-empty because items can't be queried without a filter)
+     * @return the item list
+     * @throws IOException if an error reading the items
+     */
+    private List<Item> readItemListForRequest ( List<Host> hostList ) throws IOException {
+		String routine = getClass().getSimpleName() + ".readItemListForRequest";
 		String requestUrl = getServiceRootURI().toString();
 		String sortParam = "";
 		if ( hostList.size() == 1 ) {
@@ -1269,6 +2345,7 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"jsonrpc\": \"2.0\","
 				+ "\"method\": \"item.get\","
 				+ "\"params\": {"
+					+ "\"output\": " + ITEM_OUTPUT + ","
 					+ sortParam
 					+ getParamHostIds(false, hostList)
 				+ "},"
@@ -1276,17 +2353,148 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ getAuthJSON()
     		+ "}";
 		Message.printStatus(2, routine, "Request data = " + requestData);
-		String dataElement = "result";  // 'result' contains an array of the objects.
-		try {
-			String itemJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
-			List<Item> items = JacksonToolkit.getInstance().getObjectMapper().readValue(itemJson, new TypeReference<List<Item>>(){});
-			return items;
+		List<Item> items = new ArrayList<>();
+		JacksonToolkit.getInstance().readResultArray (
+			getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData, Item.class, this.stringPool, items::add );
+		return items;
+    }
+
+    /**
+     * Read the item list for many hosts.
+     * Items are read in chunks of hosts because reading for all hosts in one request does not seem to work.
+     * The chunk size is determined by the datastore ItemChunkPlanner, which adjusts the size based on the results.
+     * The chunks are read concurrently using the datastore read executor,
+     * a chunk that fails is split and read again, and the items are returned in the order of the hosts.
+     * Problems are logged.
+     * @param hostList list of Host to read items
+     * @return the item list, may be an empty list if a problem
+     */
+    private List<Item> readItemListForHosts ( List<Host> hostList ) {
+		String routine = getClass().getSimpleName() + ".readItemListForHosts";
+		List<String> problems = new ArrayList<>();
+		List<Item> itemList = readItemListForHosts ( hostList, problems );
+		for ( String problem : problems ) {
+			Message.printWarning(3, routine, problem );
+		}
+		return itemList;
+    }
+
+    /**
+     * Read the item list for many hosts.
+     * Items are read in chunks of hosts because reading for all hosts in one request does not seem to work.
+     * The chunk size is determined by the datastore ItemChunkPlanner, which adjusts the size based on the results.
+     * The chunks are read concurrently using the datastore read executor,
+     * a chunk that fails is split and read again, and the items are returned in the order of the hosts.
+     * Reading stops if the error is not related to the response size (e.g., the server is down),
+     * if single host chunks keep failing, or if chunks have been split too many times (see ItemChunkPlanner.RetryBudget).
+     * @param hostList list of Host to read items
+     * @param problems list of problems, to which a problem is added for each host or range of hosts
+     * for which items could not be read, and if reading was interrupted
+     * (the item list is incomplete if any problems are added)
+     * @return the item list, may be an empty list if a problem
+     */
+    private List<Item> readItemListForHosts ( List<Host> hostList, List<String> problems ) {
+		String routine = getClass().getSimpleName() + ".readItemListForHosts";
+		ItemChunkPlanner planner = this.itemChunkPlanner;
+		ItemChunkPlanner.RetryBudget retryBudget = new ItemChunkPlanner.RetryBudget();
+		CompletionService<ItemChunkPlanner.Chunk> completionService = new ExecutorCompletionService<>(getReadExecutor());
+		// Chunks to read again after an error, which are read before new chunks.
+		Deque<ItemChunkPlanner.Chunk> retryChunks = new ArrayDeque<>();
+		// Chunks that have been read, sorted by the first host.
+		TreeMap<Integer,List<Item>> itemListMap = new TreeMap<>();
+		int hostCount = hostList.size();
+		int nextStart = 0;
+		int inProgressCount = 0;
+		int requestCount = 0;
+		int errorCount = 0;
+		int readHostCount = 0;
+		while ( (nextStart < hostCount) || !retryChunks.isEmpty() || (inProgressCount > 0) ) {
+			// Start chunks up to the number of connections, using the current chunk size.
+			while ( (inProgressCount < this.maxConnections) && ((nextStart < hostCount) || !retryChunks.isEmpty()) ) {
+				ItemChunkPlanner.Chunk chunk = retryChunks.poll();
+				if ( chunk == null ) {
+					chunk = new ItemChunkPlanner.Chunk ( nextStart, Math.min(hostCount, (nextStart + planner.getChunkSize())) );
+					nextStart = chunk.end;
+				}
+				ItemChunkPlanner.Chunk chunkF = chunk;
+				completionService.submit ( () -> {
+					long startTime = System.currentTimeMillis();
+					try {
+						chunkF.itemList = readItemListForRequest ( hostList.subList(chunkF.start, chunkF.end) );
+					}
+					catch ( Exception e ) {
+						chunkF.exception = e;
+					}
+					chunkF.elapsedTime = System.currentTimeMillis() - startTime;
+					return chunkF;
+				});
+				++inProgressCount;
+				++requestCount;
+			}
+			// Wait for a chunk to be read.
+			ItemChunkPlanner.Chunk chunk = null;
+			try {
+				chunk = completionService.take().get();
+			}
+			catch ( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				problems.add ( "Interrupted reading items.  Items will be incomplete." );
+				break;
+			}
+			catch ( ExecutionException e ) {
+				// Should not happen because the task saves the exception.
+				problems.add ( "Error reading items (" + e + ").  Items will be incomplete." );
+				--inProgressCount;
+				continue;
+			}
+			--inProgressCount;
+			if ( chunk.exception == null ) {
+				planner.recordSuccess ( chunk );
+				retryBudget.recordSuccess ( chunk );
+				itemListMap.put ( chunk.start, chunk.itemList );
+				readHostCount += chunk.size();
+				Message.printStatus(2, routine, "  Read " + chunk.itemList.size() + " items for hosts "
+					+ chunk.start + " through " + (chunk.end - 1) + " in " + chunk.elapsedTime + " ms." );
+			}
+			else {
+				++errorCount;
+				if ( ItemChunkPlanner.isSizeError(chunk.exception) ) {
+					// Only reduce the chunk size for errors that may be due to the size of the response.
+					planner.recordFailure ( chunk );
+				}
+				if ( retryBudget.recordFailure(chunk) ) {
+					// Split the chunk and read again.
+					int middle = chunk.start + chunk.size()/2;
+					Message.printStatus(2, routine, "  Error reading items for hosts " + chunk.start + " through "
+						+ (chunk.end - 1) + " (" + chunk.exception + "), will read again as 2 chunks." );
+					retryChunks.add ( new ItemChunkPlanner.Chunk ( chunk.start, middle ) );
+					retryChunks.add ( new ItemChunkPlanner.Chunk ( middle, chunk.end ) );
+				}
+				else if ( retryBudget.isStopped() ) {
+					// Don't read the remaining chunks because they are likely to fail the same way:
+					// - chunks that are still being read are ignored
+					problems.add ( "Stopped reading items after " + requestCount + " requests because "
+						+ retryBudget.getStopReason() + ".  Items were read for " + readHostCount + " of "
+						+ hostCount + " hosts and will not be available for other hosts." );
+					Message.printWarning(3, routine, chunk.exception );
+					break;
+				}
+				else {
+					problems.add ( "Error reading items for host " + chunk.start + " \""
+						+ hostList.get(chunk.start).getHost() + "\" (" + chunk.exception
+						+ ").  Items for the host will not be available." );
+					Message.printWarning(3, routine, chunk.exception );
+				}
+			}
 		}
-		catch ( Exception e ) {
-			Message.printWarning(3,routine,e);
-			return new ArrayList<Item>();
+		List<Item> itemList = new ArrayList<>();
+		for ( List<Item> itemSubList : itemListMap.values() ) {
+			itemList.addAll ( itemSubList );
 		}
+		Message.printStatus(2, routine, "Read " + itemList.size() + " items for " + hostCount
+			+ " hosts using " + requestCount + " requests (" + errorCount + " errors).  Item chunk size is now "
+			+ planner.getChunkSize() + " hosts." );
+		return itemList;
     }
 
     /**
@@ -1310,18 +2518,17 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"jsonrpc\": \"2.0\","
 				+ "\"method\": \"template.get\","
 				+ "\"params\": {"
-				+   "\"output\": \"extend\""
+				+   "\"output\": " + TEMPLATE_OUTPUT
 					+ getParamFilter(true, propertyName, propertyValueList)
 				+ "},"
 				+ "\"id\": 1"
 				+ getAuthJSON()
     		+ "}";
-		String dataElement = "result";  // 'result' contains an array of the objects.
 		Message.printStatus(2, routine, "Reading templates, requestData = " + requestData);
 		try {
-			String templateJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
-			List<Template> templates = JacksonToolkit.getInstance().getObjectMapper().readValue(templateJson, new TypeReference<List<Template>>(){});
+			List<Template> templates = new ArrayList<>();
+			JacksonToolkit.getInstance().readResultArray (
+				getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData, Template.class, templates::add );
 			/*
 			for ( Template template : templates ) {
 				Message.printStatus( 2, routine, " templateid=" + template.getTemplateid() + " name=" + template.getName()
@@ -1372,465 +2579,392 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
      * <li> "TimeZone" - the time zone to use for time series date/times</li>
      * <li> "TextValue" - the time series numerical value to use when the history time series value is text,
      *      for example use an integer plotting position</li>
+     * <li> "WindowCount" - the number of windows to split the read period into (Integer or String),
+     *      default is determined from the expected number of records, 1 to not split</li>
+     * <li> "WindowParallelism" - the number of windows to read concurrently (Integer or String),
+     *      default and maximum is the MaxConnections datastore configuration property</li>
      * </ul>
+     * If data for part of the period cannot be read, the time series contains the data that were read,
+     * a warning is printed, and the period that was not read is added to the time series genesis.
+     * Use the version that takes a problems list to handle the problems in calling code.
      * @return the time series or null if not read
      */
     public TS readTimeSeries ( String tsidReq, DateTime readStart, DateTime readEnd,
     	boolean readData, HashMap<String,Object> readProperties ) throws Exception {
     	String routine = getClass().getSimpleName() + ".readTimeSeries";
+    	List<String> problems = new ArrayList<>();
+    	TS ts = readTimeSeries ( tsidReq, readStart, readEnd, readData, readProperties, problems );
+    	for ( String problem : problems ) {
+    		Message.printWarning(2, routine, problem );
+    	}
+    	return ts;
+    }
+
+    /**
+     * Read a single time series given its time series identifier.
+     * @param tsidReq requested time series identifier.
+     * @param readStart start of read, will be set to 'periodStart' service parameter.
+     * @param readEnd end of read, will be set to 'periodEnd' service parameter.
+     * @param readProperties additional properties to control the query (see the version without the problems list)
+     * @param problems list of problems, to which messages are added if data for part or all of the period could not be read,
+     * including the period that was not read (the messages are also added to the time series genesis)
+     * @return the time series or null if not read
+     */
+    public TS readTimeSeries ( String tsidReq, DateTime readStart, DateTime readEnd,
+    	boolean readData, HashMap<String,Object> readProperties, List<String> problems ) throws Exception {
+    	String routine = getClass().getSimpleName() + ".readTimeSeries";
     	
     	Message.printStatus(2, routine, "Reading time series \"" + tsidReq + "\" from " + readStart + " to " + readEnd );
 
-    	// Set properties for specific functionality.
-    	
-    	// Default is to use TSTool end of interval time for trend.
-    	boolean shiftTrendToIntervalEnd = true;
+    	// Create the time series and determine the information needed to read data:
+    	// - the catalog is looked up from the TSID
+    	TimeSeriesCatalog tscatalog = null;
+    	TimeSeriesReadRequest request = createTimeSeriesReadRequest ( tsidReq, tscatalog, readStart, readEnd, readProperties );
 
-    	String timeZone = null;
-    	Double textValue = null;
-    	// If true, convert the text value to a number.
-    	boolean doTextAsNumber = false;
-    	if ( readProperties != null ) {
-    		// TODO need to enable debug as temporary setting in this function
-    		Object propObject = readProperties.get ( "Debug" );
+    	// Split a long read period into windows that are read concurrently.
+    	List<ReadWindowPlanner.Window> windowList = null;
+    	if ( readData ) {
+    		windowList = ReadWindowPlanner.plan ( request.timeFrom, request.timeTill, request.readTrend,
+    			request.tscatalog.getItemDelay(), request.windowCount );
+    	}
 
-    		propObject = readProperties.get ( "ShiftTrendToIntervalEnd" );
-    		if ( propObject != null ) {
-    			if ( propObject instanceof String ) {
-    				String propString = (String)propObject;
-    				if ( propString.equalsIgnoreCase("true") ) {
-    					shiftTrendToIntervalEnd = true;
-    				}
-    				else if ( propString.equalsIgnoreCase("false") ) {
-    					shiftTrendToIntervalEnd = false;
-    				}
+    	// Problems for this time series, added to the time series genesis below.
+    	List<String> tsProblems = new ArrayList<>();
+    	if ( readData ) {
+    		if ( windowList.size() > 1 ) {
+    			readTimeSeriesWindows ( request, windowList, tsProblems );
+    		}
+    		else if ( request.readTrend ) {
+    			// Reading the trend data into a hour interval time series.
+    			String itemid = request.tscatalog.getItemId();
+    			TrendColumns trendColumns = null;
+    			try {
+    				List<String> itemidList = new ArrayList<>();
+    				itemidList.add(itemid);
+    				trendColumns = readTrendColumns ( itemidList, request.timeFrom, request.timeTill,
+    					request.getTrendStatistic() ).get(itemid);
     			}
-    			else if ( propObject instanceof Boolean ) {
-    				shiftTrendToIntervalEnd = (Boolean)propObject;
+    			catch ( Exception e ) {
+    				Message.printWarning(3,routine,e);
+    				trendColumns = new TrendColumns(itemid, 0);
+    				tsProblems.add ( "Error reading trend for time series \"" + tsidReq + "\".  Trend for timefrom="
+    					+ request.timeFrom + " timetill=" + request.timeTill + " was not read (" + e.getMessage() + ")." );
     			}
+    			Message.printStatus(2,routine,"Read " + trendColumns.size() + " trend records for timefrom="
+    				+ request.timeFrom + " timetill=" + request.timeTill + ".");
+    			setTrendData ( request, trendColumns );
     		}
-
-    		propObject = readProperties.get ( "TimeZone" );
-    		if ( propObject != null ) {
-    			timeZone = (String)propObject;
-    		}
-
-    		propObject = readProperties.get ( "TextValue" );
-    		if ( propObject != null ) {
-    			if ( propObject instanceof String ) {
-    				// Convert the string to a number for the value.
-    				String textValue0 = (String)propObject;
-    				if ( textValue0.equalsIgnoreCase("Text") ) {
-    					doTextAsNumber = true;
-    				}
-    				if ( StringUtil.isDouble(textValue0) ) {
-    					textValue = Double.valueOf(textValue0);
-    				}
-    			}
-    			else if ( propObject instanceof Double ) {
-    				// Double number was passed.
-    				textValue = (Double)propObject;
+    		else {
+    			// Reading the history data into an irregular interval time series:
+    			// - the data are appended to the time series as each page is read
+    			// - if an error occurs, the time series contains the data that were read before the error
+    			List<TimeSeriesReadRequest> requestList = new ArrayList<>();
+    			requestList.add(request);
+    			try {
+    				readHistoryData ( getItemRequestMap(requestList), request.tscatalog.getItemValueTypeNum(),
+    					request.timeFrom, request.timeTill );
     			}
-    			else if ( propObject instanceof Integer ) {
-    				// Integer number was passed.
-    				textValue = Double.valueOf((Integer)propObject);
+    			catch ( Exception e ) {
+    				Message.printWarning(3,routine,e);
+    				// The exception message indicates the period that was not read if some pages were read.
+    				tsProblems.add ( "Error reading history for time series \"" + tsidReq + "\" for timefrom="
+    					+ request.timeFrom + " timetill=" + request.timeTill + ".  Data were not read, "
+    					+ "other than records read before the error (" + e.getMessage() + ")." );
     			}
+    			Message.printStatus(2,routine,"Read " + request.historyCount + " history records for timefrom="
+    				+ request.timeFrom + " timetill=" + request.timeTill + ".");
     		}
     	}
 
-    	// Create a time series identifier for the requested TSID:
-    	// - the actual output may be set to a different identifier based on the above properties
-    	// - also save interval base and multiplier for the original request
-    	TSIdent tsidentReq = TSIdent.parseIdentifier(tsidReq);
-
-    	// Up front, check for invalid request and throw exceptions:
-   		// - some cases are OK as long as IrregularInterval was specified in ReadZabbix
-
-    	// Time series catalog for the single matching time series.
- 		TimeSeriesCatalog tscatalog = null;
-
- 		// Get the location:
- 		// - remove surrounding quotes
- 		// - the locId corresponds to the host.host
- 		String locId = tsidentReq.getLocation();
- 		locId = locId.replace("'", "");
- 		// Get the data source:
- 		// - remove surrounding quotes
- 		// - the dataSource corresponds to the hostgroup.name
- 		String dataSource = tsidentReq.getSource();
- 		dataSource = dataSource.replace("'", "");
- 		// Get the data interval:
- 		// - for history should be 'IrregSecond'
- 		// - for trend should be 'Hour'
- 		String dataInterval = tsidentReq.getInterval();
- 		// Get the data type:
- 		// - remove surrounding quotes
- 		// - the dataType corresponds to the item.name
- 		String dataType = tsidentReq.getType();
- 		dataType = dataType.replace("'", "");
- 		// If the dataType ends in '-Avg', '-Max', '-Min', read the trend time series:
- 		// - default is to read history
- 		boolean readHistory = true;
- 		boolean readTrend = false;
- 		// Which statistic to read:
- 		// -1 = Min
- 		// 0 = Avg
- 		// 1 = Max
- 		int valueStat = -999;
- 		if ( isTrendDataType(dataType) ) {
- 			// Trend time series.
- 			readTrend = true;
- 			readHistory = false;
- 			if ( !dataInterval.equalsIgnoreCase("Hour") ) {
- 				throw new InvalidTimeIntervalException (
- 					"Requested time series \"" + tsidReq + "\" is trend but interval is not Hour.");
- 			}
- 			if ( dataType.endsWith("-Avg") ) {
- 				valueStat = 0;
- 			}
- 			else if ( dataType.endsWith("-Min") ) {
- 				valueStat = -1;
- 			}
- 			else if ( dataType.endsWith("-Max") ) {
- 				valueStat = 1;
- 			}
- 		}
- 		else {
- 			// History time series.
- 			readTrend = false;
- 			readHistory = true;
- 			if ( !dataInterval.equalsIgnoreCase("IrregSecond") ) {
- 				throw new InvalidTimeIntervalException (
- 					"Requested time series \"" + tsidReq + "\" is history but interval is not IrregSecond.");
- 			}
- 		}
-
- 		// Create the time series.
- 		TS ts = null;
-    	try {
-    		ts = TSUtil.newTimeSeries(tsidentReq.toString(), true);
-    		ts.setIdentifier(tsidentReq);
-    	}
-    	catch ( Exception e ) {
-    		throw new RuntimeException ( e );
+    	for ( String problem : tsProblems ) {
+    		request.ts.addToGenesis ( problem );
     	}
+    	problems.addAll ( tsProblems );
+    	return request.ts;
+    }
 
-    	// Get the matching TimeSeriesCatalog by matching the 'tsidReq':
-    	// - in this case the TSID controls so set the other filters to null
-    	String dataTypeReq = null;
-    	String dataIntervalReq = null;
-    	InputFilter_JPanel ifp = null;
-    	List<TimeSeriesCatalog> tscatalogList = readTimeSeriesCatalog ( tsidReq, dataTypeReq, dataIntervalReq, ifp );
-		if ( tscatalogList.size() == 0 ) {
-			throw new RuntimeException ( "Did not match any 'tscatalog' for tsid \"" + tsidReq + "\".");
-		}
-		else if ( tscatalogList.size() == 1 ) {
-			tscatalog = tscatalogList.get(0);
-		}
-		else {
-			throw new RuntimeException ( "Matched " + tscatalogList.size()
-				+ " 'tscatalog' but expecting 1 for TSID \"" + tsidReq + "\".");
-		}
-
-    	if ( tscatalog == null ) {
-    		throw new RuntimeException ( "Unable to match 'tscatalog' for tsid = \"" + tsidReq + "\"." );
+    /**
+     * Read the data for a single time series by splitting the read period into windows
+     * (see ReadWindowPlanner) and reading the windows concurrently.
+     * The windows are merged into the time series in clock order as soon as the previous windows have been merged.
+     * If a window cannot be read, a problem indicates the period that was not read and the other windows are used.
+     * @param request the read request for the time series
+     * @param windowList the read windows, in clock order
+     * @param problems list of problems, to which messages are added for windows that could not be read
+     */
+    private void readTimeSeriesWindows ( TimeSeriesReadRequest request, List<ReadWindowPlanner.Window> windowList,
+    	List<String> problems ) {
+    	String routine = getClass().getSimpleName() + ".readTimeSeriesWindows";
+    	long startTime = System.currentTimeMillis();
+    	int windowCount = windowList.size();
+    	int parallelism = this.maxConnections;
+    	if ( request.windowParallelism > 0 ) {
+    		// Can't use more than the number of connections.
+    		parallelism = Math.min(request.windowParallelism, this.maxConnections);
     	}
-    	
-   		// Get the host object matching the TimeSeriesCcatalog:
-   		// - this is used to check the time zone for output
-    	// - it is also used for the time series description
-   		Host host = Host.lookupHostForId(this.globalHostList, tscatalog.getHostId() );
-   		String hostTimeZone = null;
-   		ZoneId hostZoneId = null;
-    	if ( timeZone != null ) {
-    		// Time zone is specified by the calling code, not host description.
-    		hostTimeZone = timeZone;
-			hostZoneId = ZoneId.of(hostTimeZone);
-			Message.printStatus(2, routine, "Time zone from read parameter is \"" + hostTimeZone + "\".");
+    	String itemid = request.tscatalog.getItemId();
+    	List<String> itemidList = new ArrayList<>();
+    	itemidList.add(itemid);
+    	int statistics = request.getTrendStatistic();
+    	Message.printStatus(2, routine, "Reading \"" + request.tsid + "\" using " + windowCount
+    		+ " windows with " + parallelism + " concurrent requests." );
+
+    	// Results for each window, in window order:
+    	// - HistoryColumns for history or TrendColumns for trend
+    	// - set when the window has been read and cleared when merged
+    	Object [] windowResults = new Object[windowCount];
+    	Exception [] windowExceptions = new Exception[windowCount];
+    	boolean [] windowDone = new boolean[windowCount];
+    	TrendColumns trendColumns = null;
+    	if ( request.readTrend ) {
+    		int initialCapacity = (int)Math.min(((request.timeTill - request.timeFrom)/3600 + 1), 100000);
+    		trendColumns = new TrendColumns ( itemid, initialCapacity, statistics );
     	}
-    	else {
-    		if ( host == null ) {
-   				Message.printStatus(2, routine, "Unable to find cached host ID=" + tscatalog.getHostId() );
+    	CompletionService<Integer> completionService = new ExecutorCompletionService<>(getReadExecutor());
+    	int nextSubmit = 0;
+    	int nextMerge = 0;
+    	int inProgressCount = 0;
+    	while ( nextMerge < windowCount ) {
+    		// Start windows up to the parallelism.
+    		while ( (inProgressCount < parallelism) && (nextSubmit < windowCount) ) {
+    			int iWindow = nextSubmit++;
+    			ReadWindowPlanner.Window window = windowList.get(iWindow);
+    			completionService.submit ( () -> {
+    				try {
+    					if ( request.readTrend ) {
+    						windowResults[iWindow] = readTrendColumns (
+    							itemidList, window.timeFrom, window.timeTill, statistics ).get(itemid);
+    					}
+    					else {
+    						// Set the columns first so that records read before an error are used.
+    						HistoryColumns windowColumns = new HistoryColumns ( itemidList, request.tscatalog.isNumeric(), 0 );
+    						windowResults[iWindow] = windowColumns;
+    						readHistoryPages ( itemidList, request.tscatalog.getItemValueTypeNum(),
+    							window.timeFrom, window.timeTill, historyPage -> {
+    							// The page is reused so copy the records.
+    							for ( int i = 0; i < historyPage.size(); i++ ) {
+    								windowColumns.add ( historyPage.getItemIndex(i), historyPage.getClock(i),
+    									historyPage.getNs(i), historyPage.getValue(i), windowColumns.encodeText(historyPage.getText(i)) );
+    							}
+    						});
+    					}
+    				}
+    				catch ( Exception e ) {
+    					windowExceptions[iWindow] = e;
+    				}
+    				return iWindow;
+    			});
+    			++inProgressCount;
     		}
-    		else {
-    			String description = host.getDescription();
-    			// Parse the description to get embedded properties.
-    			EmbeddedPropertiesString eps = new EmbeddedPropertiesString(description, "//");
-    			hostTimeZone = eps.getPropertyValue ( "Timezone" );
-    			if ( hostTimeZone == null ) {
-    				// Try the other variation.
-    				hostTimeZone = eps.getPropertyValue ( "TimeZone" );
+    		// Wait for a window to be read.
+    		try {
+    			windowDone[completionService.take().get()] = true;
+    		}
+    		catch ( InterruptedException e ) {
+    			Thread.currentThread().interrupt();
+    			problems.add ( "Interrupted reading \"" + request.tsid + "\".  Data for timefrom="
+    				+ windowList.get(nextMerge).timeFrom + " timetill=" + request.timeTill + " were not read." );
+    			break;
+    		}
+    		catch ( ExecutionException e ) {
+    			// Should not happen because the task saves the exception.
+    			Message.printWarning(3, routine, e );
+    			problems.add ( "Error reading \"" + request.tsid + "\".  Data for timefrom="
+    				+ windowList.get(nextMerge).timeFrom + " timetill=" + request.timeTill + " were not read ("
+    				+ e.getCause() + ")." );
+    			break;
+    		}
+    		--inProgressCount;
+    		// Merge the windows that are complete, in clock order.
+    		while ( (nextMerge < windowCount) && windowDone[nextMerge] ) {
+    			ReadWindowPlanner.Window window = windowList.get(nextMerge);
+    			if ( windowExceptions[nextMerge] != null ) {
+    				// History windows use the records that were read before the error, in which case
+    				// the exception message indicates the period that was not read.
+    				Message.printWarning(3, routine, windowExceptions[nextMerge] );
+    				if ( request.readTrend ) {
+    					problems.add ( "Error reading \"" + request.tsid + "\" for timefrom="
+    						+ window.timeFrom + " timetill=" + window.timeTill + ".  Data for the window were not read ("
+    						+ windowExceptions[nextMerge].getMessage() + ")." );
+    				}
+    				else {
+    					problems.add ( "Error reading \"" + request.tsid + "\" for timefrom="
+    						+ window.timeFrom + " timetill=" + window.timeTill + ".  Data for the window were not read, "
+    						+ "other than records read before the error (" + windowExceptions[nextMerge].getMessage() + ")." );
+    				}
     			}
-    			if ( hostTimeZone == null ) {
-    				Message.printStatus(2, routine, "Host id=" + host.getHostid()
-    					+ " host=\"" + host.getHost() + "\" name=\"" + host.getName()
-    					+ "\" does not specify time zone.  Data will use GMT.");
+    			if ( request.readTrend ) {
+    				TrendColumns windowTrendColumns = (TrendColumns)windowResults[nextMerge];
+    				if ( windowTrendColumns != null ) {
+    					for ( int i = 0; i < windowTrendColumns.size(); i++ ) {
+    						trendColumns.add ( windowTrendColumns.getClock(i), windowTrendColumns.getValueMin(i),
+    							windowTrendColumns.getValueAvg(i), windowTrendColumns.getValueMax(i) );
+    					}
+    				}
     			}
     			else {
-    				// Have a time zone for the host:
-    				// - get the ZoneId for use below
-    				hostZoneId = ZoneId.of(hostTimeZone);
-    				Message.printStatus(2, routine, "Host \"" + host.getHost() + "\" name=\"" + host.getName()
-    					+ "\" uses time zone \"" + hostTimeZone + "\".");
+    				HistoryColumns windowColumns = (HistoryColumns)windowResults[nextMerge];
+    				if ( (windowColumns != null) && (windowColumns.size() > 0) ) {
+    					setHistoryData ( request, windowColumns, windowColumns.getRowsByItem()[0] );
+    				}
     			}
+    			windowResults[nextMerge] = null;
+    			++nextMerge;
     		}
     	}
+    	if ( request.readTrend ) {
+    		setTrendData ( request, trendColumns );
+    	}
+    	Message.printStatus(2, routine, "Read \"" + request.tsid + "\" using " + windowCount + " windows in "
+    		+ (System.currentTimeMillis() - startTime) + " ms." );
+    }
 
-   		// Set the standard time series properties from the catalog.
-    	ts.setDataUnits(tscatalog.getDataUnits());
-    	ts.setDataUnitsOriginal(tscatalog.getDataUnits());
-    	// Use the name for the description because the description is multi-line and fouls up legends.
-    	ts.setDescription(host.getName());
-    	setTimeSeriesProperties(ts, tscatalog);
+    /**
+     * Read a list of time series given the time series catalog for each time series.
+     * History for many items is read with one request for each group of items that have the same value type
+     * and read window (the window depends on the host time zone),
+     * and the returned records are split by 'itemid' into separate time series.
+     * Trend data are read for each time series.
+     * @param tsidList requested time series identifiers, in the same order as the catalog list
+     * @param tscatalogList time series catalog for each time series, for example from readTimeSeriesCatalog()
+     * @param readStart start of read, will be set to 'periodStart' service parameter.
+     * @param readEnd end of read, will be set to 'periodEnd' service parameter.
+     * @param readData whether to read data (false to only read metadata)
+     * @param readPropertiesList read properties for each time series (see readTimeSeries), in the same order as the catalog list,
+     * can be null to use defaults
+     * @param problems list of problems, to which messages are added if a time series or its data could not be read
+     * @return the list of time series in the same order as the catalog list, with null for time series that could not be created
+     */
+    public List<TS> readTimeSeriesList ( List<String> tsidList, List<TimeSeriesCatalog> tscatalogList,
+    	DateTime readStart, DateTime readEnd, boolean readData,
+    	List<HashMap<String,Object>> readPropertiesList, List<String> problems ) {
+    	String routine = getClass().getSimpleName() + ".readTimeSeriesList";
+
+    	// Create the time series and read requests.
+    	int size = tscatalogList.size();
+    	List<TS> tsList = new ArrayList<>(size);
+    	List<TimeSeriesReadRequest> requestList = new ArrayList<>(size);
+    	for ( int its = 0; its < size; its++ ) {
+    		String tsid = tsidList.get(its);
+    		HashMap<String,Object> readProperties = null;
+    		if ( readPropertiesList != null ) {
+    			readProperties = readPropertiesList.get(its);
+    		}
+    		try {
+    			TimeSeriesReadRequest request = createTimeSeriesReadRequest (
+    				tsid, tscatalogList.get(its), readStart, readEnd, readProperties );
+    			tsList.add(request.ts);
+    			requestList.add(request);
+    		}
+    		catch ( Exception e ) {
+    			Message.printWarning(3, routine, e);
+    			problems.add("Error creating time series \"" + tsid + "\" (" + e + ").");
+    			tsList.add(null);
+    		}
+    	}
+    	if ( !readData ) {
+    		return tsList;
+    	}
 
-    	if ( readData ) {
-    		// Read the 'history' for the time series.
-    		long timeFrom = -1;
-    		long timeTill = -1;
-    		if ( readStart != null ) {
-    			// Read start is specified:
-    			// - if not specified, will use default history period
-    			// - if specified, assumed to be in local time for the host
-				if ( hostZoneId == null ) {
-					// Don't have host time zone so use GMT.
-					timeFrom = TimeUtil.toUnixTime(readStart, true)/1000;
-				}
-				else {
-					// Convert the 'readStart' (assumed to be in host time zone) to GMT for the API.
-					readStart.setTimeZone(hostTimeZone);
-					ZonedDateTime readStartHostZone = readStart.toZonedDateTime(null);
-					ZoneId zoneIdGmt = ZoneId.of("GMT");
-					ZonedDateTime readStartGmt = readStartHostZone.withZoneSameInstant(zoneIdGmt);
-					timeFrom = readStartGmt.toEpochSecond();
-				}
+    	// Group the history requests by value type and read window,
+    	// and the trend requests by read window.
+    	Map<String,List<TimeSeriesReadRequest>> historyGroupMap = new LinkedHashMap<>();
+    	Map<String,List<TimeSeriesReadRequest>> trendGroupMap = new LinkedHashMap<>();
+    	for ( TimeSeriesReadRequest request : requestList ) {
+    		if ( request.readTrend ) {
+    			String groupKey = request.timeFrom + "," + request.timeTill;
+    			List<TimeSeriesReadRequest> groupList = trendGroupMap.get(groupKey);
+    			if ( groupList == null ) {
+    				groupList = new ArrayList<>();
+    				trendGroupMap.put(groupKey, groupList);
+    			}
+    			groupList.add(request);
     		}
-    		if ( readEnd != null ) {
-    			// Read end is specified:
-    			// - if not specified, will use default history period
-    			// - if specified, assumed to be in local time for the host
-				if ( hostZoneId == null ) {
-					// Don't have host time zone so use GMT.
-					timeTill = TimeUtil.toUnixTime(readEnd, true)/1000;
-				}
-				else {
-					// Convert the 'readEnd' (assumed to be in host time zone) to GMT for the API.
-					readEnd.setTimeZone(hostTimeZone);
-					ZonedDateTime readEndHostZone = readEnd.toZonedDateTime(null);
-					ZoneId zoneIdGmt = ZoneId.of("GMT");
-					ZonedDateTime readEndGmt = readEndHostZone.withZoneSameInstant(zoneIdGmt);
-					timeTill = readEndGmt.toEpochSecond();
-				}
+    		else {
+    			String groupKey = request.tscatalog.getItemValueTypeNum() + "," + request.timeFrom + "," + request.timeTill;
+    			List<TimeSeriesReadRequest> groupList = historyGroupMap.get(groupKey);
+    			if ( groupList == null ) {
+    				groupList = new ArrayList<>();
+    				historyGroupMap.put(groupKey, groupList);
+    			}
+    			groupList.add(request);
     		}
-    		if ( readHistory ) {
-    			// Reading the history data into an irregular interval time series:
-    			// - don't need to allocate memory
-    			List<History> historyList = readHistoryList (
-    				tscatalog.getItemId(), tscatalog.getItemValueTypeNum(), timeFrom, timeTill );
-    			Message.printStatus(2,routine,"Read " + historyList.size() + " history records for timefrom="
-    				+ timeFrom + " timetill=" + timeTill + ".");
-    			// If any data were returned, add to the time series.
-    			double value;
-    			String flag = null;
-    			History history = null;
-    			DateTime dt = null;
-
-    			// Check whether the item provides a numerical value:
-    			// - if so, then the time series value will contain the item value
-    			// - if not, the flag will contain the item value
-    			boolean isItemNumeric = tscatalog.isNumeric();
-    			double missingValue = ts.getMissing();
-    			
-    			// Loop through the records and add the data to the time series.
-    			if ( historyList.size() > 0 ) {
-    				// Set the period:
-    				// - note that 'clock' is seconds but TimeUtil.fromUnixTime() accepts ms.
-    				DateTime dataStart = null;
-    				DateTime dataEnd = null;
-    				ZonedDateTime zonedDateTime = null;
-    				long clockStart = Long.parseLong(historyList.get(0).getClock());
-    				long clockEnd = Long.parseLong(historyList.get(historyList.size() - 1).getClock());
-					if ( hostZoneId == null ) {
-						// Leave the host time zone as GMT:
-						// - the following takes milliseconds
-						dataStart = TimeUtil.fromUnixTime(clockStart*1000, null);
-						dataEnd = TimeUtil.fromUnixTime(clockEnd*1000, null);
-					}
-					else {
-						// Adjust the time zone from GMT to the host time zone.
-    					zonedDateTime = Instant.ofEpochMilli(clockStart*1000).atZone(hostZoneId);
-   						dataStart = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
-    					zonedDateTime = Instant.ofEpochMilli(clockEnd*1000).atZone(hostZoneId);
-   						dataEnd = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
-					}
- 					dataStart.setPrecision(DateTime.PRECISION_SECOND);
- 					dataEnd.setPrecision(DateTime.PRECISION_SECOND);
-    				Message.printStatus(2, routine, "Setting period to " + dataStart + " to " + dataEnd );
-    				ts.setDate1(dataStart);
-    				ts.setDate1Original(dataStart);
-    				ts.setDate2(dataEnd);
-    				ts.setDate2Original(dataEnd);
-    				for ( int i = 0; i < historyList.size(); i++ ) {
-    					try {
-    						history = historyList.get(i);
-    						long clock = Long.parseLong(history.getClock());
-   							if ( hostZoneId == null ) {
-   								// Using GMT so can directly work with DateTime.
-   								if ( i == 0 ) {
-   									// Create the DateTime the first time.
-   									dt = TimeUtil.fromUnixTime(clock*1000, null);
-   									dt.setPrecision(DateTime.PRECISION_SECOND);
-   								}
-   								else {
-   									// Reuse the same DateTime.
-   									TimeUtil.fromUnixTime(clock*1000, dt);
-   								}
-   							}
-   							else {
-    							// Host time zone is specified (e.g., "America/Denver"):
-    							// - the legacy DateTime.shiftTimeZone() does not yet handle new java.time
-    							// - therefore use ZonedDateTime to convert to the desired time zone.
-   								// - this is slower because a new DateTime instance is created for each value
-    							zonedDateTime = Instant.ofEpochMilli(clock*1000).atZone(hostZoneId);
-   								dt = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
-    						}
-   							if ( isItemNumeric ) {
-   								// Set the numeric value without a flag (since flag is not used).
-   								value = Double.parseDouble(history.getValue());
-    							ts.setDataValue(dt, value);
-   							}
-   							else {
-   								// Set the text value as the flag:
-   								// - TODO smalers 2023-05-26 perhaps there is a numerical value that makes sense,
-   								//   like a constant or a lookup from the text value.
-   								if ( doTextAsNumber ) {
-   									// Convert the text value to a number.
-   									value = Double.parseDouble(history.getValue());
-   								}
-   								else if ( textValue != null ) {
-   									// Use the provided value.
-   									value = textValue;
-   								}
-   								else {
-   									// Use the time series missing value.
-   									value = missingValue;
-   								}
-   								flag = history.getValue();
-    							ts.setDataValue(dt, value, flag, 0);
-   							}
-   						}
-    					catch ( Exception e ) {
-    						// Should not happen:
-    						// - catch exceptions so that only bad values are ignored
-    					}
+    	}
+
+    	// Read the history for each group:
+    	// - very large groups are split into batches to limit the response size
+    	for ( List<TimeSeriesReadRequest> groupList : historyGroupMap.values() ) {
+    		TimeSeriesReadRequest firstRequest = groupList.get(0);
+    		int itemValueType = firstRequest.tscatalog.getItemValueTypeNum();
+    		for ( int iStart = 0; iStart < groupList.size(); iStart += this.historyBatchSize ) {
+    			List<TimeSeriesReadRequest> batchList =
+    				groupList.subList(iStart, Math.min(groupList.size(), (iStart + this.historyBatchSize)));
+    			// The same item may be requested more than once so map each item to its requests.
+    			Map<String,List<TimeSeriesReadRequest>> itemRequestMap = getItemRequestMap ( batchList );
+    			// Read the history and append to the time series as each page is read:
+    			// - if an error occurs, the time series contain the data that were read before the error
+    			//   and the problem indicates the period that was not read
+    			try {
+    				readHistoryData ( itemRequestMap, itemValueType, firstRequest.timeFrom, firstRequest.timeTill );
+    			}
+    			catch ( Exception e ) {
+    				Message.printWarning(3, routine, e);
+    				for ( TimeSeriesReadRequest request : batchList ) {
+    					problems.add("Error reading history for time series \"" + request.tsid + "\" for timefrom="
+    						+ firstRequest.timeFrom + " timetill=" + firstRequest.timeTill + ".  Data were not read, "
+    						+ "other than records read before the error (" + e.getMessage() + ").");
     				}
+    				continue;
     			}
+    			Message.printStatus(2, routine, "Read history for " + itemRequestMap.size() + " items with value type "
+    				+ itemValueType + " for timefrom=" + firstRequest.timeFrom + " timetill=" + firstRequest.timeTill + ".");
     		}
-    		else if ( readTrend ) {
-    			// Reading the trend data into a hour interval time series:
-    			// - allocate based on the records that are returned
-    			// - all trend data are numeric
-    			List<Trend> trendList = readTrendList ( tscatalog.getItemId(), timeFrom, timeTill );
-    			Message.printStatus(2,routine,"Read " + trendList.size() + " trend records for timefrom="
-    				+ timeFrom + " timetill=" + timeTill + ".");
-    			// If any data were returned, add to the time series.
-    			double value = ts.getMissing();
-    			Trend trend = null;
-    			DateTime dt = null;
-    			if ( trendList.size() > 0 ) {
-    				// Set the period:
-    				// - note that 'clock' is seconds but TimeUtil.fromUnixTime() accepts ms.
-    				// - clock is also the start of the interval so shift by an hour to agree with TSTool conventions
-    				DateTime dataStart = null;
-    				DateTime dataEnd = null;
-    				ZonedDateTime zonedDateTime = null;
-   					long clockStart = 0;
-   					long clockEnd = 0;
-    				boolean dataIsSorted = false;
-    				if ( dataIsSorted ) {
-    					// Should be able to do this.
-    					clockStart = Long.parseLong(trendList.get(0).getClock());
-    					clockEnd = Long.parseLong(trendList.get(trendList.size() - 1).getClock());
-    				}
-    				else {
-    					// However, trend data are apparently not sorted by clock so have to determine the clock limits.
-    					// See:  https://support.zabbix.com/browse/ZBXNEXT-3974
-    					long [] clockLimits = Trend.getClockLimits(trendList);
-    					clockStart = clockLimits[0];
-    					clockEnd = clockLimits[1];
-    				}
-    				if ( shiftTrendToIntervalEnd ) {
-    					// Zabbix returns timestamp at interval start.  Shift to interval end consistent with TSTool.
-    					clockStart += 3600;
-    					clockEnd += 3600;
+    	}
+
+    	// Read the trend for each group:
+    	// - each Hour time series uses one of the statistics from an item so the same item may be used more than once
+    	for ( List<TimeSeriesReadRequest> groupList : trendGroupMap.values() ) {
+    		TimeSeriesReadRequest firstRequest = groupList.get(0);
+    		// Map each item to its requests and then read in batches of items.
+    		Map<String,List<TimeSeriesReadRequest>> itemRequestMap = getItemRequestMap ( groupList );
+    		List<String> itemidList = new ArrayList<>(itemRequestMap.keySet());
+    		for ( int iStart = 0; iStart < itemidList.size(); iStart += this.trendBatchSize ) {
+    			List<String> batchItemidList =
+    				itemidList.subList(iStart, Math.min(itemidList.size(), (iStart + this.trendBatchSize)));
+    			// Only read the statistics that are needed for the batch.
+    			int statistics = 0;
+    			for ( String itemid : batchItemidList ) {
+    				for ( TimeSeriesReadRequest request : itemRequestMap.get(itemid) ) {
+    					statistics |= request.getTrendStatistic();
     				}
-					if ( hostZoneId == null ) {
-						// Adjust the time zone.
-						dataStart = TimeUtil.fromUnixTime(clockStart*1000, null);
-						dataEnd = TimeUtil.fromUnixTime(clockEnd*1000, null);
-					}
-					else {
-    					zonedDateTime = Instant.ofEpochMilli(clockStart*1000).atZone(hostZoneId);
-   						dataStart = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
-    					zonedDateTime = Instant.ofEpochMilli(clockEnd*1000).atZone(hostZoneId);
-   						dataEnd = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
-					}
- 					dataStart.setPrecision(DateTime.PRECISION_SECOND);
- 					dataEnd.setPrecision(DateTime.PRECISION_SECOND);
-    				Message.printStatus(2, routine, "Setting period to " + dataStart + " to " + dataEnd );
-    				ts.setDate1(dataStart);
-    				ts.setDate1Original(dataStart);
-    				ts.setDate2(dataEnd);
-    				ts.setDate2Original(dataEnd);
-    				ts.allocateDataSpace();
-    				for ( int i = 0; i < trendList.size(); i++ ) {
-    					try {
-    						trend = trendList.get(i);
-    						long clock = Long.parseLong(trend.getClock());
-    						if ( shiftTrendToIntervalEnd ) {
-    							// Zabbix returns timestamp at interval start.  Shift to interval end consistent with TSTool.
-    							clock += 3600;
-    						}
-    						if ( valueStat < 0 ) {
-    							value = Double.parseDouble(trend.getValueMin());
-    						}
-    						else if ( valueStat == 0 ) {
-    							value = Double.parseDouble(trend.getValueAvg());
-    						}
-    						else if ( valueStat == 1 ) {
-    							value = Double.parseDouble(trend.getValueMax());
-    						}
-   							if ( hostZoneId == null ) {
-   								// Using GMT so can directly work with DateTime.
-   								if ( i == 0 ) {
-   									// Create the DateTime the first time.
-   									dt = TimeUtil.fromUnixTime(clock*1000, null);
-   									dt.setPrecision(DateTime.PRECISION_SECOND);
-   								}
-   								else {
-   									// Reuse the same DateTime.
-   									TimeUtil.fromUnixTime(clock*1000, dt);
-   								}
-   							}
-   							else {
-    							// Host time zone is specified (e.g., "America/Denver"):
-    							// - the legacy DateTime.shiftTimeZone() does not yet handle new java.time
-    							// - therefore use ZonedDateTime to convert to the desired time zone.
-   								// - this is slower because a new DateTime instance is created for each value
-    							zonedDateTime = Instant.ofEpochMilli(clock*1000).atZone(hostZoneId);
-   								dt = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
-    						}
-    						ts.setDataValue(dt, value);
-    					}
-    					catch ( Exception e ) {
-    						// Should not happen:
-    						// - catch exceptions so that only bad values are ignored
+    			}
+    			Map<String,TrendColumns> trendColumnsMap = null;
+    			try {
+    				trendColumnsMap = readTrendColumns ( batchItemidList, firstRequest.timeFrom, firstRequest.timeTill,
+    					statistics );
+    			}
+    			catch ( Exception e ) {
+    				Message.printWarning(3, routine, e);
+    				for ( String itemid : batchItemidList ) {
+    					for ( TimeSeriesReadRequest request : itemRequestMap.get(itemid) ) {
+    						problems.add("Error reading trend for time series \"" + request.tsid + "\".  Trend for timefrom="
+    							+ firstRequest.timeFrom + " timetill=" + firstRequest.timeTill + " was not read (" + e + ").");
     					}
     				}
+    				continue;
+    			}
+    			Message.printStatus(2, routine, "Read trend for " + batchItemidList.size()
+    				+ " items for timefrom=" + firstRequest.timeFrom + " timetill=" + firstRequest.timeTill + ".");
+    			for ( String itemid : batchItemidList ) {
+    				TrendColumns trendColumns = trendColumnsMap.get(itemid);
+    				for ( TimeSeriesReadRequest request : itemRequestMap.get(itemid) ) {
+    					setTrendData ( request, trendColumns );
+    				}
     			}
     		}
     	}
 
-    	return ts;
+    	return tsList;
     }
 
 	/**
@@ -1844,6 +2978,21 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	 * @param ifp input filter panel with "where" conditions, if null or all blank will not be used
 	 */
 	public List<TimeSeriesCatalog> readTimeSeriesCatalog ( String tsid, String dataTypeReq, String dataIntervalReq, InputFilter_JPanel ifp ) {
+		return readTimeSeriesCatalog ( getCatalogSnapshot(), tsid, dataTypeReq, dataIntervalReq, ifp );
+	}
+
+	/**
+	 * Read the time series catalog using a snapshot of global data.
+	 * The snapshot is passed so that all lookups use consistent data,
+	 * including when reading global data into a new snapshot that has not been published.
+	 * @param snapshot global data used to look up the catalog, hosts, etc.
+	 * @param tsid requested time series identifier, see the public method
+	 * @param dataTypeReq Requested data type or "*" to read all data types, or null to use default of "*".
+	 * @param dataIntervalReq Requested data interval or "*" to read all intervals, or null to use default of "*".
+	 * @param ifp input filter panel with "where" conditions, if null or all blank will not be used
+	 */
+	private List<TimeSeriesCatalog> readTimeSeriesCatalog ( CatalogSnapshot snapshot,
+		String tsid, String dataTypeReq, String dataIntervalReq, InputFilter_JPanel ifp ) {
 		String routine = getClass().getSimpleName() + ".readTimeSeriesCatalog";
 
 		// The following are checked below to know when the data type contains a _1, etc.
@@ -1930,12 +3079,10 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				String hostName = null;
 				String itemName = null;
 				if ( readHistory ) {
-					tsidCatalogList = TimeSeriesCatalog.lookupCatalog (
-						this.globalHistoryTscatalogList, dataType, dataInterval, dataSource, locId, hostName, itemName );
+					tsidCatalogList = snapshot.getHistoryTscatalogIndex().lookup ( dataType, dataInterval, dataSource, locId, hostName, itemName );
 				}
 				else if ( readTrend ) {
-					tsidCatalogList = TimeSeriesCatalog.lookupCatalog (
-						this.globalTrendTscatalogList, dataType, dataInterval, dataSource, locId, hostName, itemName );
+					tsidCatalogList = snapshot.getTrendTscatalogIndex().lookup ( dataType, dataInterval, dataSource, locId, hostName, itemName );
 				}
 				// Should match a single time series.
 				if ( tsidCatalogList.size() == 0 ) {
@@ -1998,11 +3145,11 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 					// No filters have been requested, typically:
 					// - read global data at startup
 					Message.printStatus(2, routine, "  No filters have been specified.");
-					if ( (this.globalHistoryTscatalogList != null) && (this.globalHistoryTscatalogList.size() > 0) ) {
+					if ( (snapshot.getHistoryTscatalogList() != null) && (snapshot.getHistoryTscatalogList().size() > 0) ) {
 						// Have global data so return.
 						Message.printStatus(2, routine, "  Returning the global cache (size="
-							+ this.globalHistoryTscatalogList.size() + ").");
-						return this.globalHistoryTscatalogList;
+							+ snapshot.getHistoryTscatalogList().size() + ").");
+						return snapshot.getHistoryTscatalogList();
 					}
 					else {
 						// Don't have the global catalog:
@@ -2031,8 +3178,7 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 					// - otherwise, read one or the other based on the data interval
 					if ( dataTypeReq.equals("*") || readHistory ) {
 						// Try to match history time series.
-						tscatalogList = TimeSeriesCatalog.lookupCatalog(this.globalHistoryTscatalogList,
-							dataTypeReq,
+						tscatalogList = snapshot.getHistoryTscatalogIndex().lookup ( dataTypeReq,
 							dataIntervalReq,
 							hostGroupName,
 							host,
@@ -2042,8 +3188,7 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 					}
 					if ( dataTypeReq.equals("*") || readTrend ) {
 						// Try to match trend time series.
-						List<TimeSeriesCatalog> tscatalogList2 = TimeSeriesCatalog.lookupCatalog(this.globalTrendTscatalogList,
-							dataTypeReq,
+						List<TimeSeriesCatalog> tscatalogList2 = snapshot.getTrendTscatalogIndex().lookup ( dataTypeReq,
 							dataIntervalReq,
 							hostGroupName,
 							host,
@@ -2086,36 +3231,7 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 					// No host name or host was requested:
 					// - get all the hosts and query all associated items
 					// - can use the global list of hosts
-					// - this does not seem to work on the full list so read 25 at a time
-					int iChunk = 15;
-					int iStart = -iChunk, iEnd = -1;  // Zero index positions in global host to read.
-					while ( true ) {
-						// Set the indices to get hosts.
-						iStart += iChunk;
-						iEnd += iChunk;
-						if ( iStart >= this.globalHostList.size() ) {
-							// No more data to read.
-							break;
-						}
-						if ( iEnd >= this.globalHostList.size() ) {
-							iEnd = this.globalHostList.size() - 1;
-						}
-						// Get a list of Host to read.
-						List<Host> hostSubList = new ArrayList<>();
-						for ( int i = iStart; i <= iEnd; i++ ) {
-							hostSubList.add(this.globalHostList.get(i));
-						}
-						try {
-							Message.printStatus(2, routine, "Reading items for hosts " + iStart + " through " + iEnd + ".");
-							List<Item> itemSubList = readItemList ( hostSubList );
-							itemList.addAll(itemSubList);
-							Message.printStatus(2, routine, "  Read " + itemSubList.size() + " items, now have " + itemList.size() + " total." );
-						}
-						catch ( Exception e ) {
-							Message.printWarning(3, routine, "  Error reading items." );
-							Message.printWarning(3, routine, e );
-						}
-					}
+					itemList = readItemListForHosts ( snapshot.getHostList() );
 				}
 				else if ( hostHost != null ) {
 					// Host takes precedence over the group.
@@ -2146,106 +3262,7 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 
 			// If here have matching 'Item' to process into TimeSeriesCatalog.
 
-			List<TimeSeriesCatalog> tscatalogList = new ArrayList<>();
-			String dataInterval = "IrregSecond";
-			
-			// Determine preferred host groups:
-			// - to help when there are multiple groups for a host
-			// - for example, prefer "Clients/" over other groups
-			// - TODO smalers hard-code this for now but add a configuration file property later
-
-			// Loop through the 'Item' instances and create corresponding TimeSeriesCatalog entries.
-			for ( Item item : itemList ) {
-
-				TimeSeriesCatalog tscatalog = new TimeSeriesCatalog();
-
-				// Look up the related host from the cached data.
-				Host host = Host.lookupHostForId ( this.globalHostList, item.getHostid() );
-
-				tscatalog.setLocId ( host.getHost() );
-				// Data source is set below with host group data.
-				tscatalog.setDataType ( item.getName() );
-				tscatalog.setDataInterval ( dataInterval );
-				tscatalog.setDataUnits ( item.getUnits() );
-
-				// Host group data, listed alphabetically.
-				if ( host != null ) {
-					// Look up the host group:
-					// - Zabbix allows a host to be in multiple groups
-					// - however, for identification, use the first group
-					HostGroup hostGroup = host.lookupPreferredHostGroup ( this.preferredHostGroupNames );
-					if ( hostGroup != null ) {
-						String hostGroupName = hostGroup.getName();
-						tscatalog.setDataSource ( hostGroupName );
-						tscatalog.setHostGroupId ( hostGroup.getGroupid() );
-						tscatalog.setHostGroupName ( hostGroup.getName() );
-						// Set the additional group names as information, but are not used in TSID.
-						List<HostGroup> hostGroups = host.getGroups();
-						if ( (hostGroups != null) && (hostGroups.size() > 1) ) {
-							StringBuilder b = new StringBuilder();
-							for ( HostGroup hostGroup2 : hostGroups ) {
-								if ( !hostGroup2.getName().equals(hostGroupName) ) {
-									// Name does not match so add.
-									if ( b.length() > 0 ) {
-										b.append ( "," );
-									}
-									b.append ( hostGroup2.getName() );
-								}
-							}
-							tscatalog.setHostGroupName2(b.toString());
-						}
-					}
-
-					// Host data, listed alphabetically.
-					tscatalog.setHost ( host.getHost() );
-					tscatalog.setHostDescription ( host.getDescription() );
-					tscatalog.setHostId ( host.getHostid() );
-					tscatalog.setHostName ( host.getName() );
-				}
-
-				// Item data, listed alphabetically.
-				tscatalog.setItemDelay ( item.getDelay() );
-				tscatalog.setItemHistory ( item.getHistory() );
-				tscatalog.setItemId ( item.getItemid() );
-				tscatalog.setItemKey ( item.getKey() );
-				tscatalog.setItemName ( item.getName() );
-				tscatalog.setItemStatus ( item.getStatus() );
-				tscatalog.setItemTemplateId ( item.getTemplateid() );
-				tscatalog.setItemTrends ( item.getTrends() );
-				ItemType itemType = ItemType.valueOfIgnoreCase(item.getType());
-				if ( itemType == null ) {
-					// Set to the number (as a String).
-					tscatalog.setItemType ( item.getType() );
-				}
-				else {
-					// Set to the name.
-					tscatalog.setItemType ( itemType.getDisplayName() );
-					// Also set the number.
-					tscatalog.setItemTypeNum ( itemType.getCode() );
-				}
-				tscatalog.setItemUnits ( item.getUnits() );
-				ValueType itemValueType = ValueType.valueOfIgnoreCase(item.getValueType());
-				if ( itemValueType == null ) {
-					// Set to the number (as a String).
-					tscatalog.setItemValueType ( item.getValueType() );
-				}
-				else {
-					// Set to the name.
-					tscatalog.setItemValueType ( itemValueType.getDisplayName() );
-					// Also set the number.
-					tscatalog.setItemValueTypeNum ( itemValueType.getCode() );
-				}
-				
-				// Populate derived data that is looked up from other objects:
-				// - for example, item template 'name' from 'templateid'
-				// - TODO smalers 2023-05-25 disable for now since it does not work
-				// tscatalog.setDerivedData ( this.globalTemplateList );
-
-				tscatalogList.add(tscatalog);
-			}
-
-			Message.printStatus(2, routine, "Read " + tscatalogList.size() + " Zabbix history time series catalog using 'item' list.");
-			return tscatalogList;
+			return createTimeSeriesCatalogList ( snapshot, itemList );
 		}
 	}
 
@@ -2272,26 +3289,101 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	}
 
     /**
-     * Read the trend list from the web service.
+     * Read the trend data from the web service for one or more items,
+     * and split the records into hourly arrays for each item.
+     * Trend data that were previously read for an item, the same read window, and the needed statistics
+     * are taken from the trend cache, so that reading the same trend time series again does not require a request.
+     * If the trend cache is enabled, all statistics are read so that the -Avg, -Min, and -Max time series
+     * for an item share one request, even if they are read separately (e.g., by separate commands).
+     * @param itemidList list of itemid to match
+     * @param timeFrom timestamp to start read, UNIX epoch time seconds
+     * @param timeTill timestamp to end read, UNIX epoch time seconds
+     * @param statistics statistics that are needed, using the TrendColumns.STAT_* flags
+     * (other statistics will be NaN if the trend cache is disabled)
+     * @return map of itemid to the trend data, with an entry for each requested item (may have no records)
+     * @throws IOException if an error reading the trend data
+     */
+    private Map<String,TrendColumns> readTrendColumns ( List<String> itemidList, long timeFrom, long timeTill,
+    	int statistics ) throws IOException {
+    	// Read all statistics if the data will be cached so that the other statistics can be taken from the cache.
+    	statistics = this.trendCache.getReadStatistics ( statistics );
+    	// Size the arrays for the number of hours in the period, if known.
+    	int initialCapacity = 0;
+    	if ( (timeFrom >= 0) && (timeTill >= timeFrom) ) {
+    		initialCapacity = (int)Math.min(((timeTill - timeFrom)/3600 + 1), 100000);
+    	}
+    	String routine = getClass().getSimpleName() + ".readTrendColumns";
+    	Map<String,TrendColumns> trendColumnsMap = new HashMap<>();
+    	// Items that are not in the cache and need to be read.
+    	List<String> readItemidList = new ArrayList<>();
+    	// Trend data being read, which are added to the cache after reading.
+    	Map<String,TrendColumns> readTrendColumnsMap = new HashMap<>();
+    	for ( String itemid : itemidList ) {
+    		TrendColumns trendColumns = this.trendCache.get(itemid, timeFrom, timeTill, statistics);
+    		if ( trendColumns == null ) {
+    			trendColumns = new TrendColumns(itemid, initialCapacity, statistics);
+    			readItemidList.add(itemid);
+    			readTrendColumnsMap.put(itemid, trendColumns);
+    		}
+    		trendColumnsMap.put(itemid, trendColumns);
+    	}
+    	if ( readItemidList.size() < itemidList.size() ) {
+    		Message.printStatus(2, routine, "Using cached trend data for " + (itemidList.size() - readItemidList.size())
+    			+ " of " + itemidList.size() + " items.");
+    	}
+    	if ( readItemidList.isEmpty() ) {
+    		// All of the data were in the cache.
+    		return trendColumnsMap;
+    	}
+    	TrendColumns [] readTrendColumns = new TrendColumns[readItemidList.size()];
+    	for ( int i = 0; i < readTrendColumns.length; i++ ) {
+    		readTrendColumns[i] = readTrendColumnsMap.get(readItemidList.get(i));
+    	}
+    	readTrendList ( readItemidList, timeFrom, timeTill, statistics, readTrendColumns );
+    	// Add to the cache only after the request is successful so that partial results are not cached.
+    	for ( TrendColumns trendColumns : readTrendColumnsMap.values() ) {
+    		this.trendCache.put(timeFrom, timeTill, trendColumns);
+    	}
+    	return trendColumnsMap;
+    }
+
+    /**
+     * Read the trend list from the web service for one or more items.
      * See (current): https://www.zabbix.com/documentation/current/en/manual/api/reference/trend/get
      * See (5.4):  https://www.zabbix.com/documentation/5.4/en/manual/api/reference/trend/get
-     * @param itemid itemid to match
+     * @param itemidList list of itemid to match
      * @param timeFrom timestamp to start read, UNIX epoch time seconds
      * @param timeTill timestamp to end read, UNIX epoch time seconds
-     * @return the trend list, may be an empty list if a problem or no data
+     * @param statistics statistics to read, using the TrendColumns.STAT_* flags,
+     * which limits the output to 'itemid', 'clock', and the statistic columns
+     * @param trendColumns trend columns for each item, in the same order as 'itemidList',
+     * to which the records are added as the response is decoded
+     * @throws IOException if an error reading the trend data
      */
-    private List<Trend> readTrendList ( String itemid, long timeFrom, long timeTill) {
+    private void readTrendList ( List<String> itemidList, long timeFrom, long timeTill, int statistics,
+    	TrendColumns [] trendColumns ) throws IOException {
 		String routine = getClass().getSimpleName() + ".readTrendList";
 		String requestUrl = getServiceRootURI().toString();
-		List<String> itemidList = new ArrayList<>();
-		itemidList.add(itemid);
+		// Only request the statistic columns that are needed:
+		// - statistics that are not read are set to NaN in TrendColumns
+		StringBuilder output = new StringBuilder ( "[\"itemid\",\"clock\"" );
+		if ( (statistics & TrendColumns.STAT_MIN) != 0 ) {
+			output.append ( ",\"value_min\"" );
+		}
+		if ( (statistics & TrendColumns.STAT_AVG) != 0 ) {
+			output.append ( ",\"value_avg\"" );
+		}
+		if ( (statistics & TrendColumns.STAT_MAX) != 0 ) {
+			output.append ( ",\"value_max\"" );
+		}
+		output.append ( "]" );
 		// Seems to require 'output'.
 		String requestData =
 			"{"
 				+ "\"jsonrpc\": \"2.0\","
 				+ "\"method\": \"trend.get\","
 				+ "\"params\": {"
-					+ "\"output\": \"extend\","
+					+ "\"output\": " + output + ","
 					+ "\"sortfield\": \"clock\","
 					+ "\"sortorder\": \"ASC\""
 					+ getParamTimeFrom(true, timeFrom)
@@ -2302,17 +3394,19 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ getAuthJSON()
     		+ "}";
 		Message.printStatus(2, routine, "Request data = " + requestData);
-		String dataElement = "result";  // 'result' contains an array of the objects.
-		try {
-			String trendJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
-			List<Trend> trend = JacksonToolkit.getInstance().getObjectMapper().readValue(trendJson, new TypeReference<List<Trend>>(){});
-			return trend;
-		}
-		catch ( Exception e ) {
-			Message.printWarning(3,routine,e);
-			return new ArrayList<Trend>();
+		// Decode the records directly into the columns for each item.
+		long [] itemidNums = new long[itemidList.size()];
+		for ( int i = 0; i < itemidNums.length; i++ ) {
+			try {
+				itemidNums[i] = Long.parseLong(itemidList.get(i));
+			}
+			catch ( NumberFormatException e ) {
+				itemidNums[i] = -1;
+			}
 		}
+		JacksonToolkit.getInstance().readResult (
+			getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData,
+			parser -> ColumnarResultDecoder.decodeTrend(parser, itemidNums, trendColumns) );
     }
 
     /**
@@ -2320,9 +3414,9 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
      * See: https://www.zabbix.com/documentation/5.4/en/manual/api
 	 * @param login Zabbix login
 	 * @param password Zabbix password
-     * @return the UserLogin object from authentication, or null if an error
+     * @return the API token from authentication, or null if an error
      */
-    private UserLogin readUserLogin ( String login, String password ) {
+    private String readUserLogin ( String login, String password ) {
 		String routine = getClass().getSimpleName() + ".readUserLogin";
 		String requestUrl = getServiceRootURI().toString();
 		String requestData =
@@ -2336,15 +3430,14 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"id\": 1,"
 				+ "\"auth\": null"
     		+ "}";
-		String dataElement = null;  // Version is at the root of the response.
 		try {
-			String userLoginJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
+			// The 'result' is the API token.
+			String apiToken = JacksonToolkit.getInstance().readResultValue (
+				getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData, String.class );
 			if ( Message.isDebugOn ) {
-				Message.printDebug(1, routine, "User login JSON=" + userLoginJson);
+				Message.printDebug(1, routine, "User login result=" + apiToken);
 			}
-			UserLogin userLogin = JacksonToolkit.getInstance().getObjectMapper().readValue(userLoginJson, new TypeReference<UserLogin>(){});
-			return userLogin;
+			return apiToken;
 		}
 		catch ( Exception e ) {
 			Message.printWarning(3,routine,e);
@@ -2366,15 +3459,14 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 				+ "\"params\": [],"
 				+ "\"id\": 1"
     		+ "}";
-		String dataElement = null;  // Version is at the root of the response.
 		try {
-			String versionJson = JacksonToolkit.getInstance().getJsonFromWebServiceUrl (
-				requestUrl, getApiToken(), requestData, dataElement, getDefaultTimeout() );
+			// The 'result' is the version string.
+			String version = JacksonToolkit.getInstance().readResultValue (
+				getHttpTransport(), requestUrl, getAuthHeaderToken(), requestData, String.class );
 			if ( Message.isDebugOn ) {
-				Message.printDebug(1, routine, "Version JSON=" + versionJson);
+				Message.printDebug(1, routine, "Version result=" + version);
 			}
-			ApiVersion version = JacksonToolkit.getInstance().getObjectMapper().readValue(versionJson, new TypeReference<ApiVersion>(){});
-			return version.getVersion();
+			return version;
 		}
 		catch ( Exception e ) {
 			Message.printWarning(3,routine,e);
@@ -2382,6 +3474,249 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 		}
     }
 
+	/**
+	 * Refresh global data by reading the host groups, hosts, templates, and items
+	 * and updating the time series catalog for the items that have changed.
+	 * This is called on a schedule if the 'CatalogRefreshInterval' configuration property is set,
+	 * so that long-running sessions see new and changed hosts and items.
+	 * The refresh is incremental:
+	 * <ul>
+	 * <li> hosts and items are read with only the properties needed for the time series catalog</li>
+	 * <li> the new catalog is compared with the current catalog using the item ID and the catalog content hash</li>
+	 * <li> unchanged catalog entries and their trend catalog entries are reused,
+	 *      and trend catalog entries are only created for new and changed items</li>
+	 * <li> the new snapshot replaces the current snapshot atomically,
+	 *      unless the global data were replaced while refreshing (e.g., by readGlobalData()),
+	 *      in which case the refresh is ignored</li>
+	 * <li> the current catalog is kept if no hosts were read or items could not be read for all hosts,
+	 *      so that an error does not remove time series from the catalog or the snapshot file</li>
+	 * </ul>
+	 * The number of added, removed, and changed time series catalog entries is logged.
+	 */
+	public void refreshGlobalData () {
+		String routine = getClass().getSimpleName() + ".refreshGlobalData";
+		long startTime = System.currentTimeMillis();
+		CatalogSnapshot previousSnapshot = this.catalogSnapshot.get();
+		// Start a new string pool so that strings that are no longer used are not retained.
+		// Reused catalog objects keep their strings until they are replaced.
+		this.stringPool = new StringPool();
+
+		// Read the data that are used to create the time series catalog.
+		List<HostGroup> hostGroupList = readHostGroupList();
+		List<Host> hostList = readHostList();
+		if ( hostList.isEmpty() ) {
+			// Don't replace the data with empty data, which is likely due to an error.
+			Message.printWarning(3, routine, "No hosts were read.  Not refreshing global data for datastore \""
+				+ getName() + "\"." );
+			return;
+		}
+		List<Template> templateList = readTemplateList ( hostList );
+		List<String> itemProblems = new ArrayList<>();
+		List<Item> itemList = readItemListForHosts ( hostList, itemProblems );
+		if ( !itemProblems.isEmpty() ) {
+			// Don't replace the data with incomplete data, which would remove the time series that were not read.
+			for ( String problem : itemProblems ) {
+				Message.printWarning(3, routine, problem );
+			}
+			Message.printWarning(3, routine, "Items were not read for all hosts.  Not refreshing global data for datastore \""
+				+ getName() + "\"." );
+			return;
+		}
+		long readTime = System.currentTimeMillis() - startTime;
+
+		// Create the catalog from the new data and compare with the previous catalog.
+		CatalogSnapshot lookupSnapshot = new CatalogSnapshot ( hostGroupList, hostList, templateList, null, null, null, null );
+		List<TimeSeriesCatalog> newTscatalogList = createTimeSeriesCatalogList ( lookupSnapshot, itemList );
+		Map<String,TimeSeriesCatalog> previousTscatalogMap = new HashMap<>();
+		for ( TimeSeriesCatalog tscatalog : previousSnapshot.getHistoryTscatalogList() ) {
+			previousTscatalogMap.put ( tscatalog.getItemId(), tscatalog );
+		}
+		Map<String,List<TimeSeriesCatalog>> previousTrendTscatalogMap = new HashMap<>();
+		for ( TimeSeriesCatalog tscatalog : previousSnapshot.getTrendTscatalogList() ) {
+			previousTrendTscatalogMap.computeIfAbsent ( tscatalog.getItemId(), itemid -> new ArrayList<>(3) ).add ( tscatalog );
+		}
+		List<TimeSeriesCatalog> historyTscatalogList = new ArrayList<>(newTscatalogList.size());
+		// Trend catalog for unchanged items, which can be reused.
+		Map<String,List<TimeSeriesCatalog>> reuseTrendTscatalogMap = new HashMap<>();
+		int addCount = 0;
+		int changeCount = 0;
+		for ( TimeSeriesCatalog tscatalog : newTscatalogList ) {
+			TimeSeriesCatalog previousTscatalog = previousTscatalogMap.remove ( tscatalog.getItemId() );
+			if ( previousTscatalog == null ) {
+				++addCount;
+				historyTscatalogList.add ( tscatalog );
+			}
+			else if ( previousTscatalog.getContentHash() != tscatalog.getContentHash() ) {
+				++changeCount;
+				historyTscatalogList.add ( tscatalog );
+			}
+			else {
+				// Unchanged so reuse the previous catalog objects.
+				historyTscatalogList.add ( previousTscatalog );
+				List<TimeSeriesCatalog> trendTscatalogList = previousTrendTscatalogMap.get ( tscatalog.getItemId() );
+				if ( trendTscatalogList != null ) {
+					reuseTrendTscatalogMap.put ( tscatalog.getItemId(), trendTscatalogList );
+				}
+			}
+		}
+		// Previous catalog entries that were not matched have been removed.
+		int removeCount = previousTscatalogMap.size();
+
+		// Publish the new snapshot if the global data have not been replaced while refreshing.
+		CatalogSnapshot snapshot = createCatalogSnapshot ( hostGroupList, hostList, templateList,
+			historyTscatalogList, reuseTrendTscatalogMap );
+		if ( !this.catalogSnapshot.compareAndSet ( previousSnapshot, snapshot ) ) {
+			Message.printStatus(2, routine, "Global data were replaced while refreshing.  Ignoring the refresh." );
+			return;
+		}
+		Message.printStatus(2, routine, "Refreshed global data for datastore \"" + getName() + "\" in "
+			+ (System.currentTimeMillis() - startTime) + " ms (read " + readTime + " ms): "
+			+ historyTscatalogList.size() + " history time series catalog, " + addCount + " added, "
+			+ removeCount + " removed, " + changeCount + " changed." );
+		Message.printStatus ( 2, routine, "String pool for datastore \"" + getName() + "\": " + this.stringPool );
+
+		// Save the snapshot file if enabled and the catalog has changed.
+		if ( (this.catalogSnapshotFile != null) && ((addCount + removeCount + changeCount) > 0)
+			&& !historyTscatalogList.isEmpty() ) {
+			try {
+				this.catalogSnapshotFile.write ( getServiceRootURI().toString(), snapshot );
+			}
+			catch ( Exception e ) {
+				Message.printWarning(3, routine, "Error writing catalog snapshot file \""
+					+ this.catalogSnapshotFile.getPath() + "\" (" + e + ")." );
+			}
+		}
+	}
+
+    /**
+     * Set the history data in a time series.
+     * This can be called more than once for a time series, for example for each page of history records,
+     * in which case the records must be later than the records that were previously set.
+     * @param request the read request that contains the time series
+     * @param columns history columns that contain the records
+     * @param rows indices of the records in the columns for the time series item,
+     * which should be sorted by clock (will be sorted if not)
+     */
+    private void setHistoryData ( TimeSeriesReadRequest request, HistoryColumns columns, int [] rows ) {
+    	String routine = getClass().getSimpleName() + ".setHistoryData";
+    	TS ts = request.ts;
+    	ZoneId hostZoneId = request.zoneId;
+		// If any data were returned, add to the time series.
+		double value;
+		String flag = null;
+		DateTime dt = null;
+
+		// Check whether the item provides a numerical value:
+		// - if so, then the time series value will contain the item value
+		// - if not, the flag will contain the item value
+		boolean isItemNumeric = request.tscatalog.isNumeric();
+		double missingValue = ts.getMissing();
+		
+		// Loop through the records and add the data to the time series.
+		if ( rows.length > 0 ) {
+			// History is requested sorted by clock so the values are appended to the end of the time series:
+			// - check the order so that the period is correct and values are not inserted out of order
+			rows = sortHistoryRows ( columns, rows );
+			// Set the period:
+			// - note that 'clock' is seconds but TimeUtil.fromUnixTime() accepts ms.
+			DateTime dataStart = null;
+			DateTime dataEnd = null;
+			ZonedDateTime zonedDateTime = null;
+			long clockStart = columns.getClock(rows[0]);
+			long clockEnd = columns.getClock(rows[rows.length - 1]);
+			if ( hostZoneId == null ) {
+				// Leave the host time zone as GMT:
+				// - the following takes milliseconds
+				dataStart = TimeUtil.fromUnixTime(clockStart*1000, null);
+				dataEnd = TimeUtil.fromUnixTime(clockEnd*1000, null);
+			}
+			else {
+				// Adjust the time zone from GMT to the host time zone.
+				zonedDateTime = Instant.ofEpochMilli(clockStart*1000).atZone(hostZoneId);
+				dataStart = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
+				zonedDateTime = Instant.ofEpochMilli(clockEnd*1000).atZone(hostZoneId);
+				dataEnd = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
+			}
+			dataStart.setPrecision(DateTime.PRECISION_SECOND);
+			dataEnd.setPrecision(DateTime.PRECISION_SECOND);
+			if ( request.historyCount == 0 ) {
+				// First records so set the start.
+				Message.printStatus(2, routine, "Setting period to " + dataStart + " to " + dataEnd );
+				ts.setDate1(dataStart);
+				ts.setDate1Original(dataStart);
+			}
+			else {
+				// Appending records so extend the end.
+				Message.printStatus(2, routine, "Extending period end to " + dataEnd );
+			}
+			ts.setDate2(dataEnd);
+			ts.setDate2Original(dataEnd);
+			request.historyCount += rows.length;
+			ZoneDateTimeConverter zoneConverter = (hostZoneId == null) ? null : new ZoneDateTimeConverter(hostZoneId);
+			for ( int i = 0; i < rows.length; i++ ) {
+				try {
+					int row = rows[i];
+					long clock = columns.getClock(row);
+					if ( hostZoneId == null ) {
+						// Using GMT so can directly work with DateTime.
+						if ( i == 0 ) {
+							// Create the DateTime the first time.
+							dt = TimeUtil.fromUnixTime(clock*1000, null);
+							dt.setPrecision(DateTime.PRECISION_SECOND);
+						}
+						else {
+							// Reuse the same DateTime.
+							TimeUtil.fromUnixTime(clock*1000, dt);
+						}
+					}
+					else {
+						// Host time zone is specified (e.g., "America/Denver"):
+						// - the legacy DateTime.shiftTimeZone() does not yet handle new java.time
+						// - the converter caches the zone offset and reuses the same DateTime
+						dt = zoneConverter.toDateTime(clock);
+					}
+					if ( isItemNumeric ) {
+						// Set the numeric value without a flag (since flag is not used).
+						value = columns.getValue(row);
+						if ( Double.isNaN(value) ) {
+							// Value could not be parsed.
+							continue;
+						}
+						ts.setDataValue(dt, value);
+					}
+					else {
+						// Set the text value as the flag:
+						// - TODO smalers 2023-05-26 perhaps there is a numerical value that makes sense,
+						//   like a constant or a lookup from the text value.
+						if ( request.doTextAsNumber ) {
+							// Convert the text value to a number:
+							// - the conversion is done once for each distinct text value
+							value = columns.getTextNumber(row);
+							if ( Double.isNaN(value) ) {
+								// Text is not a number so ignore.
+								continue;
+							}
+						}
+						else if ( request.textValue != null ) {
+							// Use the provided value.
+							value = request.textValue;
+						}
+						else {
+							// Use the time series missing value.
+							value = missingValue;
+						}
+						flag = columns.getText(row);
+						ts.setDataValue(dt, value, flag, 0);
+					}
+				}
+				catch ( Exception e ) {
+					// Should not happen:
+					// - catch exceptions so that only bad values are ignored
+				}
+			}
+		}
+    }
+
     /**
      * Set the time series properties from the TimeSeriesCatalog.
      * @param ts time series to update
@@ -2414,4 +3749,259 @@ public class ZabbixDataStore extends AbstractWebServiceDataStore implements Data
 	   	ts.setProperty("item.valuetypenum", tscatalog.getItemValueTypeNum() );
     }
 
+
+    /**
+     * Set the trend data in a time series.
+     * @param request the read request that contains the time series
+     * @param trendColumns trend data for the time series item
+     */
+    private void setTrendData ( TimeSeriesReadRequest request, TrendColumns trendColumns ) {
+    	String routine = getClass().getSimpleName() + ".setTrendData";
+    	TS ts = request.ts;
+    	ZoneId hostZoneId = request.zoneId;
+    	boolean shiftTrendToIntervalEnd = request.shiftTrendToIntervalEnd;
+    	int valueStat = request.valueStat;
+		// Reading the trend data into a hour interval time series:
+		// - allocate based on the records that are returned
+		// - all trend data are numeric
+		// If any data were returned, add to the time series.
+		double value = ts.getMissing();
+		DateTime dt = null;
+		if ( trendColumns.size() > 0 ) {
+			// Set the period:
+			// - note that 'clock' is seconds but TimeUtil.fromUnixTime() accepts ms.
+			// - clock is also the start of the interval so shift by an hour to agree with TSTool conventions
+			// - trend data are apparently not sorted by clock so use the limits determined when reading
+			//   See:  https://support.zabbix.com/browse/ZBXNEXT-3974
+			DateTime dataStart = null;
+			DateTime dataEnd = null;
+			ZonedDateTime zonedDateTime = null;
+			long clockStart = trendColumns.getClockMin();
+			long clockEnd = trendColumns.getClockMax();
+			if ( shiftTrendToIntervalEnd ) {
+				// Zabbix returns timestamp at interval start.  Shift to interval end consistent with TSTool.
+				clockStart += 3600;
+				clockEnd += 3600;
+			}
+			if ( hostZoneId == null ) {
+				// Adjust the time zone.
+				dataStart = TimeUtil.fromUnixTime(clockStart*1000, null);
+				dataEnd = TimeUtil.fromUnixTime(clockEnd*1000, null);
+			}
+			else {
+				zonedDateTime = Instant.ofEpochMilli(clockStart*1000).atZone(hostZoneId);
+				dataStart = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
+				zonedDateTime = Instant.ofEpochMilli(clockEnd*1000).atZone(hostZoneId);
+				dataEnd = new DateTime(zonedDateTime, DateTime.PRECISION_SECOND, hostZoneId.toString());
+			}
+			dataStart.setPrecision(DateTime.PRECISION_SECOND);
+			dataEnd.setPrecision(DateTime.PRECISION_SECOND);
+			Message.printStatus(2, routine, "Setting period to " + dataStart + " to " + dataEnd );
+			ts.setDate1(dataStart);
+			ts.setDate1Original(dataStart);
+			ts.setDate2(dataEnd);
+			ts.setDate2Original(dataEnd);
+			ts.allocateDataSpace();
+			ZoneDateTimeConverter zoneConverter = (hostZoneId == null) ? null : new ZoneDateTimeConverter(hostZoneId);
+			// Fill an array with a value for each hour in the period:
+			// - the hour index is computed from the clock so trend records do not need to be sorted
+			// - the clock limits were determined when the records were read
+			// - if the clock is not at an hour boundary (should not happen), set the values one at a time below
+			long clockMin = trendColumns.getClockMin();
+			int hourCount = (int)((trendColumns.getClockMax() - clockMin)/3600 + 1);
+			double [] hourValues = new double[hourCount];
+			Arrays.fill(hourValues, Double.NaN);
+			boolean isHourly = true;
+			for ( int i = 0; i < trendColumns.size(); i++ ) {
+				long clockOffset = trendColumns.getClock(i) - clockMin;
+				if ( (clockOffset % 3600) != 0 ) {
+					isHourly = false;
+					break;
+				}
+				hourValues[(int)(clockOffset/3600)] = getTrendValue(trendColumns, i, valueStat);
+			}
+			if ( isHourly ) {
+				// Set the values in hour order, moving one DateTime forward rather than converting each clock.
+				int hourPrev = -1;
+				for ( int hour = 0; hour < hourCount; hour++ ) {
+					value = hourValues[hour];
+					if ( Double.isNaN(value) ) {
+						// No record or value could not be parsed so ignore.
+						continue;
+					}
+					long clock = clockMin + hour*3600L;
+					if ( shiftTrendToIntervalEnd ) {
+						// Zabbix returns timestamp at interval start.  Shift to interval end consistent with TSTool.
+						clock += 3600;
+					}
+					if ( hostZoneId == null ) {
+						// Using GMT so can directly work with DateTime.
+						if ( dt == null ) {
+							// Create the DateTime the first time.
+							dt = TimeUtil.fromUnixTime(clock*1000, null);
+							dt.setPrecision(DateTime.PRECISION_SECOND);
+						}
+						else {
+							// GMT does not have daylight saving time so add the hours since the previous value.
+							dt.addHour(hour - hourPrev);
+						}
+					}
+					else {
+						// Host time zone is specified (e.g., "America/Denver"):
+						// - the converter handles daylight saving time and reuses the same DateTime
+						dt = zoneConverter.toDateTime(clock);
+					}
+					ts.setDataValue(dt, value);
+					hourPrev = hour;
+				}
+				return;
+			}
+			for ( int i = 0; i < trendColumns.size(); i++ ) {
+				long clock = trendColumns.getClock(i);
+				if ( shiftTrendToIntervalEnd ) {
+					// Zabbix returns timestamp at interval start.  Shift to interval end consistent with TSTool.
+					clock += 3600;
+				}
+				value = getTrendValue(trendColumns, i, valueStat);
+				if ( Double.isNaN(value) ) {
+					// Value could not be parsed so ignore.
+					continue;
+				}
+				if ( hostZoneId == null ) {
+					// Using GMT so can directly work with DateTime.
+					if ( dt == null ) {
+						// Create the DateTime the first time.
+						dt = TimeUtil.fromUnixTime(clock*1000, null);
+						dt.setPrecision(DateTime.PRECISION_SECOND);
+					}
+					else {
+						// Reuse the same DateTime.
+						TimeUtil.fromUnixTime(clock*1000, dt);
+					}
+				}
+				else {
+					// Host time zone is specified (e.g., "America/Denver"):
+					// - the legacy DateTime.shiftTimeZone() does not yet handle new java.time
+					// - the converter caches the zone offset and reuses the same DateTime
+					dt = zoneConverter.toDateTime(clock);
+				}
+				ts.setDataValue(dt, value);
+			}
+		}
+    }
+
+    /**
+     * Sort history records by clock and 'ns', if not already sorted.
+     * History is requested sorted by clock so normally the records are sorted and only a check is done.
+     * @param columns history columns that contain the records
+     * @param rows indices of the records in the columns
+     * @return the sorted indices, which is the original array if already sorted
+     */
+    private int [] sortHistoryRows ( HistoryColumns columns, int [] rows ) {
+    	boolean isSorted = true;
+    	for ( int i = 1; i < rows.length; i++ ) {
+    		long clockPrev = columns.getClock(rows[i - 1]);
+    		long clock = columns.getClock(rows[i]);
+    		if ( (clock < clockPrev) || ((clock == clockPrev) && (columns.getNs(rows[i]) < columns.getNs(rows[i - 1]))) ) {
+    			isSorted = false;
+    			break;
+    		}
+    	}
+    	if ( isSorted ) {
+    		return rows;
+    	}
+    	// Sort a copy, keeping the original order for equal timestamps:
+    	// - use a bottom-up merge sort of the primitive indices, which is stable and does not create objects
+    	Message.printStatus(2, getClass().getSimpleName() + ".sortHistoryRows", "History records are not sorted by clock.  Sorting.");
+    	int n = rows.length;
+    	int [] src = rows.clone();
+    	int [] dst = new int[n];
+    	for ( int width = 1; width < n; width *= 2 ) {
+    		for ( int lo = 0; lo < n; lo += 2*width ) {
+    			int mid = Math.min(lo + width, n);
+    			int hi = Math.min(lo + 2*width, n);
+    			int i = lo;
+    			int j = mid;
+    			for ( int k = lo; k < hi; k++ ) {
+    				// Take from the right run only if it is strictly earlier, so that equal records keep their order.
+    				if ( (i < mid) && ((j >= hi) || !isHistoryRowBefore(columns, src[j], src[i])) ) {
+    					dst[k] = src[i++];
+    				}
+    				else {
+    					dst[k] = src[j++];
+    				}
+    			}
+    		}
+    		int [] temp = src;
+    		src = dst;
+    		dst = temp;
+    	}
+    	return src;
+    }
+
+    /**
+     * Indicate whether a history record is before another record, by clock and then 'ns'.
+     * @param columns history columns that contain the records
+     * @param row1 index of the first record
+     * @param row2 index of the second record
+     * @return true if the first record is before the second record
+     */
+    private static boolean isHistoryRowBefore ( HistoryColumns columns, int row1, int row2 ) {
+    	long clock1 = columns.getClock(row1);
+    	long clock2 = columns.getClock(row2);
+    	return (clock1 < clock2) || ((clock1 == clock2) && (columns.getNs(row1) < columns.getNs(row2)));
+    }
+
+	/**
+	 * Start refreshing global data on a schedule, if the 'CatalogRefreshInterval' configuration property is set.
+	 * A single daemon thread is used so that refreshes do not overlap and the application can exit.
+	 */
+	private synchronized void startCatalogRefresh () {
+		String routine = getClass().getSimpleName() + ".startCatalogRefresh";
+		if ( (this.catalogRefreshInterval <= 0) || (this.catalogRefreshExecutor != null) ) {
+			return;
+		}
+		String threadName = "ZabbixDataStore-" + getName() + "-refresh";
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor ( 1, runnable -> {
+			Thread thread = new Thread ( runnable, threadName );
+			thread.setDaemon ( true );
+			return thread;
+		});
+		executor.scheduleWithFixedDelay ( () -> {
+			try {
+				refreshGlobalData();
+			}
+			catch ( Exception e ) {
+				// Catch all exceptions because an exception would cancel the schedule.
+				Message.printWarning(3, routine, "Error refreshing global data (" + e + ")." );
+				Message.printWarning(3, routine, e );
+			}
+		}, this.catalogRefreshInterval, this.catalogRefreshInterval, TimeUnit.SECONDS );
+		this.catalogRefreshExecutor = executor;
+		Message.printStatus(2, routine, "Refreshing global data for datastore \"" + getName() + "\" every "
+			+ this.catalogRefreshInterval + " seconds." );
+	}
+
+    /**
+     * Convert a read start or end to UNIX epoch seconds for the API.
+     * @param dt date/time in the host time zone, or GMT if the host time zone is not specified
+     * @param hostTimeZone host time zone (e.g., "America/Denver"), or null for GMT
+     * @return the UNIX epoch seconds
+     */
+    private long toEpochSecond ( DateTime dt, String hostTimeZone ) {
+		if ( hostTimeZone == null ) {
+			// Don't have host time zone so use GMT.
+			return TimeUtil.toUnixTime(dt, true)/1000;
+		}
+		else {
+			// Convert the date/time (assumed to be in host time zone) to GMT for the API:
+			// - copy so that the time zone of the original is not changed
+			DateTime dtHost = new DateTime(dt);
+			dtHost.setTimeZone(hostTimeZone);
+			ZonedDateTime dtHostZone = dtHost.toZonedDateTime(null);
+			ZoneId zoneIdGmt = ZoneId.of("GMT");
+			ZonedDateTime dtGmt = dtHostZone.withZoneSameInstant(zoneIdGmt);
+			return dtGmt.toEpochSecond();
+		}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+// ZoneDateTimeConverter - convert UNIX epoch seconds to DateTime in a time zone, reusing one DateTime
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+import RTi.Util.Time.DateTime;
+
+/**
+ * Convert UNIX epoch seconds to DateTime in a time zone (e.g., "America/Denver"), for reading data values.
+ * Using ZonedDateTime and the DateTime(ZonedDateTime) constructor creates several objects for each value.
+ * Instead, the offset for the zone is cached for the period between the zone's offset transitions
+ * (e.g., daylight saving time changes) and the date/time fields are computed from the local epoch seconds
+ * and set in one DateTime that is reused.
+ * The zone rules are only queried when a value is outside the cached period,
+ * which is rare because values are processed in clock order.
+ * An instance is not thread-safe and should be used for one read loop.
+ */
+class ZoneDateTimeConverter {
+
+	/**
+	 * Seconds in a day.
+	 */
+	private static final long SECONDS_PER_DAY = 86400;
+
+	/**
+	 * Rules for the zone.
+	 */
+	private final ZoneRules zoneRules;
+
+	/**
+	 * DateTime that is returned from toDateTime(), reused for each value.
+	 */
+	private final DateTime dt;
+
+	/**
+	 * Start of the period for the cached offset, UNIX epoch seconds (inclusive).
+	 */
+	private long offsetStart = Long.MAX_VALUE;
+
+	/**
+	 * End of the period for the cached offset, UNIX epoch seconds (exclusive).
+	 */
+	private long offsetEnd = Long.MIN_VALUE;
+
+	/**
+	 * Cached offset from GMT, seconds.
+	 */
+	private int offsetSeconds = 0;
+
+	/**
+	 * Constructor.
+	 * @param zoneId the time zone for the DateTime
+	 */
+	ZoneDateTimeConverter ( ZoneId zoneId ) {
+		this.zoneRules = zoneId.getRules();
+		this.dt = new DateTime ( DateTime.PRECISION_SECOND );
+		this.dt.setTimeZone ( zoneId.toString() );
+	}
+
+	/**
+	 * Convert UNIX epoch seconds to a DateTime in the time zone.
+	 * The same DateTime instance is returned for each call so it must not be saved by the caller.
+	 * @param epochSecond UNIX epoch seconds
+	 * @return the DateTime in the time zone, with second precision
+	 */
+	DateTime toDateTime ( long epochSecond ) {
+		if ( (epochSecond < this.offsetStart) || (epochSecond >= this.offsetEnd) ) {
+			updateOffset ( epochSecond );
+		}
+		long localSecond = epochSecond + this.offsetSeconds;
+		long days = Math.floorDiv ( localSecond, SECONDS_PER_DAY );
+		int secondOfDay = (int)Math.floorMod ( localSecond, SECONDS_PER_DAY );
+		// Convert days since 1970-01-01 to year, month, day (proleptic Gregorian calendar):
+		// - shift the epoch to 0000-03-01 so that the leap day is at the end of the year
+		// - see:  https://howardhinnant.github.io/date_algorithms.html#civil_from_days
+		long z = days + 719468;
+		long era = Math.floorDiv ( z, 146097 );
+		long dayOfEra = z - era*146097;
+		long yearOfEra = (dayOfEra - dayOfEra/1460 + dayOfEra/36524 - dayOfEra/146096)/365;
+		long dayOfYear = dayOfEra - (365*yearOfEra + yearOfEra/4 - yearOfEra/100);
+		long mp = (5*dayOfYear + 2)/153;
+		int day = (int)(dayOfYear - (153*mp + 2)/5 + 1);
+		int month = (int)((mp < 10) ? (mp + 3) : (mp - 9));
+		int year = (int)(yearOfEra + era*400 + ((month <= 2) ? 1 : 0));
+		// Set the day before the month and year so that the day is valid while setting.
+		this.dt.setDay ( 1 );
+		this.dt.setYear ( year );
+		this.dt.setMonth ( month );
+		this.dt.setDay ( day );
+		this.dt.setHour ( secondOfDay/3600 );
+		this.dt.setMinute ( (secondOfDay/60)%60 );
+		this.dt.setSecond ( secondOfDay%60 );
+		return this.dt;
+	}
+
+	/**
+	 * Update the cached offset and its period for the zone.
+	 * @param epochSecond UNIX epoch seconds that the offset is needed for
+	 */
+	private void updateOffset ( long epochSecond ) {
+		Instant instant = Instant.ofEpochSecond ( epochSecond );
+		this.offsetSeconds = this.zoneRules.getOffset(instant).getTotalSeconds();
+		// The previous transition at or before the instant.
+		ZoneOffsetTransition previous = this.zoneRules.previousTransition ( instant.plusSeconds(1) );
+		this.offsetStart = (previous == null) ? Long.MIN_VALUE : previous.toEpochSecond();
+		// The next transition after the instant.
+		ZoneOffsetTransition next = this.zoneRules.nextTransition ( instant );
+		this.offsetEnd = (next == null) ? Long.MAX_VALUE : next.toEpochSecond();
+	}
+}
@@ -0,0 +1,218 @@
+// ColumnarResultDecoder - decode history and trend 'result' arrays directly into primitive columns
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dto;
+
+import java.io.IOException;
+
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HistoryColumns;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendColumns;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Decode the 'result' array of 'history.get' and 'trend.get' responses directly into primitive columns,
+ * without creating History or Trend objects and strings for each record.
+ * The methods are used with JacksonToolkit.readResult() and are called with the parser positioned
+ * on the start of the 'result' array.
+ * Numbers are parsed from the parser's character buffer (see DecimalParser).
+ * Properties that are not used are skipped.
+ */
+public class ColumnarResultDecoder {
+
+	/**
+	 * Constructor.
+	 */
+	private ColumnarResultDecoder () {
+	}
+
+	/**
+	 * Check that the parser is positioned on the start of the 'result' array.
+	 * @param parser the parser
+	 * @throws IOException if the parser is not positioned on an array
+	 */
+	private static void checkArray ( JsonParser parser ) throws IOException {
+		if ( parser.currentToken() != JsonToken.START_ARRAY ) {
+			throw new IOException ( "'result' is not an array." );
+		}
+	}
+
+	/**
+	 * Decode a 'history.get' result array into history columns.
+	 * Records for items that are not in the columns are ignored.
+	 * @param parser parser positioned on the start of the 'result' array
+	 * @param columns columns to add records to
+	 * @return the number of records that were added
+	 * @throws IOException if an error parsing the result
+	 */
+	public static int decodeHistory ( JsonParser parser, HistoryColumns columns ) throws IOException {
+		checkArray ( parser );
+		boolean isNumeric = columns.isNumeric();
+		int count = 0;
+		while ( parser.nextToken() == JsonToken.START_OBJECT ) {
+			int itemIndex = -1;
+			long clock = -1;
+			int ns = 0;
+			double value = Double.NaN;
+			int textCode = -1;
+			while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if ( (token == JsonToken.START_OBJECT) || (token == JsonToken.START_ARRAY) ) {
+					parser.skipChildren();
+				}
+				else if ( name.equals("itemid") ) {
+					itemIndex = columns.findItemIndex ( parseLong(parser) );
+				}
+				else if ( name.equals("clock") ) {
+					clock = parseLong ( parser );
+				}
+				else if ( name.equals("ns") ) {
+					ns = (int)parseLong ( parser );
+				}
+				else if ( name.equals("value") ) {
+					if ( isNumeric ) {
+						value = parseDouble ( parser );
+					}
+					else {
+						// Look up the text in the dictionary without creating a String.
+						textCode = columns.encodeText ( parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength() );
+					}
+				}
+			}
+			if ( (itemIndex >= 0) && (clock >= 0) ) {
+				columns.add ( itemIndex, clock, ns, value, textCode );
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Decode a 'trend.get' result array into trend columns for each item.
+	 * Records for items that are not requested are ignored.
+	 * Statistics that are not in the result are set to NaN.
+	 * @param parser parser positioned on the start of the 'result' array
+	 * @param itemidNums the requested itemid as numbers
+	 * @param trendColumns the trend columns for each requested itemid, in the same order as 'itemidNums'
+	 * @return the number of records that were added
+	 * @throws IOException if an error parsing the result
+	 */
+	public static int decodeTrend ( JsonParser parser, long [] itemidNums, TrendColumns [] trendColumns )
+		throws IOException {
+		checkArray ( parser );
+		int count = 0;
+		int lastItemIndex = 0;
+		while ( parser.nextToken() == JsonToken.START_OBJECT ) {
+			int itemIndex = -1;
+			long clock = -1;
+			double valueMin = Double.NaN;
+			double valueAvg = Double.NaN;
+			double valueMax = Double.NaN;
+			while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if ( (token == JsonToken.START_OBJECT) || (token == JsonToken.START_ARRAY) ) {
+					parser.skipChildren();
+				}
+				else if ( name.equals("itemid") ) {
+					long itemidNum = parseLong ( parser );
+					if ( (lastItemIndex < itemidNums.length) && (itemidNums[lastItemIndex] == itemidNum) ) {
+						itemIndex = lastItemIndex;
+					}
+					else {
+						for ( int i = 0; i < itemidNums.length; i++ ) {
+							if ( itemidNums[i] == itemidNum ) {
+								itemIndex = i;
+								lastItemIndex = i;
+								break;
+							}
+						}
+					}
+				}
+				else if ( name.equals("clock") ) {
+					clock = parseLong ( parser );
+				}
+				else if ( name.equals("value_min") ) {
+					valueMin = parseDouble ( parser );
+				}
+				else if ( name.equals("value_avg") ) {
+					valueAvg = parseDouble ( parser );
+				}
+				else if ( name.equals("value_max") ) {
+					valueMax = parseDouble ( parser );
+				}
+			}
+			if ( (itemIndex >= 0) && (clock >= 0) ) {
+				trendColumns[itemIndex].add ( clock, valueMin, valueAvg, valueMax );
+				++count;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Parse a double from the current token, which can be a string or number,
+	 * using the parser's character buffer so that a string is not created (see DecimalParser).
+	 * @param parser parser positioned on the value
+	 * @return the value, or NaN if the value cannot be parsed
+	 * @throws IOException if an error reading the value
+	 */
+	private static double parseDouble ( JsonParser parser ) throws IOException {
+		char [] chars = parser.getTextCharacters();
+		if ( chars == null ) {
+			return Double.NaN;
+		}
+		try {
+			return DecimalParser.parseDouble ( chars, parser.getTextOffset(), parser.getTextLength() );
+		}
+		catch ( NumberFormatException e ) {
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Parse a non-negative integer from the current token, which can be a string or number,
+	 * using the parser's character buffer so that a string is not created.
+	 * @param parser parser positioned on the value
+	 * @return the value, or -1 if the value is not a non-negative integer
+	 * @throws IOException if an error reading the value
+	 */
+	private static long parseLong ( JsonParser parser ) throws IOException {
+		char [] chars = parser.getTextCharacters();
+		int offset = parser.getTextOffset();
+		int length = parser.getTextLength();
+		if ( (chars == null) || (length == 0) || (length > 18) ) {
+			return -1;
+		}
+		long value = 0;
+		for ( int i = offset, end = offset + length; i < end; i++ ) {
+			char c = chars[i];
+			if ( (c < '0') || (c > '9') ) {
+				return -1;
+			}
+			value = value*10 + (c - '0');
+		}
+		return value;
+	}
+}
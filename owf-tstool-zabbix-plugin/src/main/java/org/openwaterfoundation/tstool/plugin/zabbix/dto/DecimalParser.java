@@ -0,0 +1,158 @@
+// DecimalParser - parse decimal numbers from a character buffer without creating a String
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dto;
+
+/**
+ * Parse decimal numbers from a character buffer without creating a String,
+ * used to decode numeric history and trend values from the JSON parser's buffer.
+ * Zabbix values are typically short decimals (e.g., "23.4500"), which are parsed exactly using the fast path
+ * described by Clinger (1990):  if the significant digits fit in a double without rounding (at most 2^53)
+ * and the power of ten is exact (at most 10^22), a single multiplication or division is correctly rounded.
+ * Other values (e.g., many significant digits, large exponents, "NaN", "Infinity") are parsed with
+ * Double.parseDouble(), so the result is always identical to Double.parseDouble().
+ */
+class DecimalParser {
+
+	/**
+	 * Largest significand that can be represented exactly in a double.
+	 */
+	private static final long MAX_EXACT_SIGNIFICAND = 1L << 53;
+
+	/**
+	 * Powers of ten that can be represented exactly in a double.
+	 */
+	private static final double [] EXACT_POWERS_OF_TEN = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	/**
+	 * Constructor.
+	 */
+	private DecimalParser () {
+	}
+
+	/**
+	 * Parse a decimal number.
+	 * @param chars character buffer
+	 * @param offset offset of the first character
+	 * @param length number of characters
+	 * @return the value, identical to Double.parseDouble() for the characters
+	 * @throws NumberFormatException if the characters are not a number
+	 */
+	static double parseDouble ( char [] chars, int offset, int length ) {
+		int i = offset;
+		int end = offset + length;
+		boolean isNegative = false;
+		if ( (i < end) && ((chars[i] == '-') || (chars[i] == '+')) ) {
+			isNegative = chars[i] == '-';
+			++i;
+		}
+		// Accumulate the significant digits, ignoring leading zeros.
+		long significand = 0;
+		int digitCount = 0;
+		int significantDigitCount = 0;
+		int exponent = 0;
+		boolean hasDecimalPoint = false;
+		for ( ; i < end; i++ ) {
+			char c = chars[i];
+			if ( (c >= '0') && (c <= '9') ) {
+				++digitCount;
+				if ( (significand == 0) && (c == '0') ) {
+					// Leading zero is not significant.
+				}
+				else if ( ++significantDigitCount <= 18 ) {
+					significand = significand*10 + (c - '0');
+				}
+				else {
+					// Too many digits for the fast path.
+					return parseSlow ( chars, offset, length );
+				}
+				if ( hasDecimalPoint ) {
+					--exponent;
+				}
+			}
+			else if ( (c == '.') && !hasDecimalPoint ) {
+				hasDecimalPoint = true;
+			}
+			else {
+				break;
+			}
+		}
+		if ( digitCount == 0 ) {
+			// Not a number or a special value such as "NaN".
+			return parseSlow ( chars, offset, length );
+		}
+		if ( (i < end) && ((chars[i] == 'e') || (chars[i] == 'E')) ) {
+			++i;
+			boolean isExponentNegative = false;
+			if ( (i < end) && ((chars[i] == '-') || (chars[i] == '+')) ) {
+				isExponentNegative = chars[i] == '-';
+				++i;
+			}
+			int exponentStart = i;
+			int explicitExponent = 0;
+			for ( ; (i < end) && (chars[i] >= '0') && (chars[i] <= '9'); i++ ) {
+				if ( explicitExponent > 10000 ) {
+					// Exponent is out of range for the fast path.
+					return parseSlow ( chars, offset, length );
+				}
+				explicitExponent = explicitExponent*10 + (chars[i] - '0');
+			}
+			if ( i == exponentStart ) {
+				return parseSlow ( chars, offset, length );
+			}
+			exponent += isExponentNegative ? -explicitExponent : explicitExponent;
+		}
+		if ( i != end ) {
+			// Trailing characters such as a type suffix, which Double.parseDouble() may allow.
+			return parseSlow ( chars, offset, length );
+		}
+		if ( significand == 0 ) {
+			return isNegative ? -0.0 : 0.0;
+		}
+		if ( (significand > MAX_EXACT_SIGNIFICAND) || (exponent < -22) || (exponent > 22) ) {
+			return parseSlow ( chars, offset, length );
+		}
+		double value = (double)significand;
+		if ( exponent < 0 ) {
+			value = value/EXACT_POWERS_OF_TEN[-exponent];
+		}
+		else {
+			value = value*EXACT_POWERS_OF_TEN[exponent];
+		}
+		return isNegative ? -value : value;
+	}
+
+	/**
+	 * Parse a number using Double.parseDouble(), for values that cannot use the fast path.
+	 * @param chars character buffer
+	 * @param offset offset of the first character
+	 * @param length number of characters
+	 * @return the value
+	 * @throws NumberFormatException if the characters are not a number
+	 */
+	private static double parseSlow ( char [] chars, int offset, int length ) {
+		return Double.parseDouble ( new String(chars, offset, length) );
+	}
+}
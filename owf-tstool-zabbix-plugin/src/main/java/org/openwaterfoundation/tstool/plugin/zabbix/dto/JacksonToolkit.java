@@ -26,21 +26,25 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 import org.openwaterfoundation.tstool.plugin.zabbix.dao.ApiError;
-import org.openwaterfoundation.tstool.plugin.zabbix.util.JsonUtil;
+import org.openwaterfoundation.tstool.plugin.zabbix.util.PooledStringDeserializer;
+import org.openwaterfoundation.tstool.plugin.zabbix.util.StringPool;
 
 import com.fasterxml.jackson.core.JsonParseException;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
-import RTi.Util.IO.UrlReader;
-import RTi.Util.IO.UrlResponse;
 import RTi.Util.Message.Message;
-import RTi.Util.String.MultiKeyStringDictionary;
 
 /**
  * This toolkit facilitates using Jackson package to translate JSON to/from data access objects.
@@ -59,7 +63,7 @@ public class JacksonToolkit {
 	 * Jackson Toolkit used for lazy initialization of a singleton class
 	 */
 	private static JacksonToolkit instance;
-	
+
 	private JacksonToolkit() {
 		this.mapper = new ObjectMapper()
 			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -77,103 +81,17 @@ public class JacksonToolkit {
 	}
 	
 	/**
-	 * Read data from a URL given the request data.
-	 * @param url URL to read.
-	 * @param apiToken API token (will be added as a request property.
-	 * @param requestData JSON request string, as per Zabbix API.
-	 * @param dataElement the JSON element containing data to parse
-	 * @param timeout connection and read timeout (ms), negative to use the default HttpURLConnection timeout
-	 * @return the JSON to parse
-	 * @throws IOException
-	 * @throws MalformedURLException
+	 * Handler for the 'result' value of a JSON-RPC response.
+	 * The parser is positioned on the first token of the value when the handler is called
+	 * and must be positioned on the last token of the value when the handler returns.
 	 */
-	public String getJsonFromWebServiceUrl ( String url, String apiToken, String requestData, String dataElement, int timeout )
-		throws IOException, MalformedURLException {
-		String routine = getClass().getSimpleName() + ".getJsonFromWebServicesUrl";
-		
-		
-		try {
-			MultiKeyStringDictionary requestProperties = new MultiKeyStringDictionary();
-			requestProperties.add("Content-Type", "application/json");
-			requestProperties.add("Authorizatione", "Bearer " + apiToken);
-			UrlReader urlReader = new UrlReader(url, requestProperties, requestData, timeout );
-			UrlResponse urlResponse = urlReader.read();
-			// Get the response for the initial request.
-			String responseJson = urlResponse.getResponse();
-			if ( Message.isDebugOn ) {
-				// This could be large so may need to increase the debug level.
-				// The following contains the general wrapper that generally contains either 'result' or 'error' object.
-				Message.printDebug(1, routine, "Response JSON = " + responseJson);
-			}
-			if ( urlResponse.getResponseCode() == 200 ) {
-				// Successful request, but still could contain 'error'.
-				if ( responseJson == null ) {
-					throw new IOException ( "Error from request, URL=\"" + url + "\" - null response.");
-				}
-				else {
-					// Have a response to process, but could be an error.
-					String responseJson2 = null;
-					if ( (dataElement != null) && !dataElement.isEmpty() ) {
-						// Have requested a specific element (e.g., "result") so extract it for parsing.
-						// - get everything in the object but not the object name itself
-						// - the following will return null if the data element was not found (e.g., "error")
-						responseJson2 = JsonUtil.extractObjectString(responseJson, dataElement, false);
-						if ( Message.isDebugOn ) {
-							// This could be large so may need to increase the level.
-							Message.printDebug(1, routine, "Extracted JSON for \"" + dataElement + "\" = " + responseJson2);
-						}
-						if ( responseJson2 == null ) {
-							// The expected JSON name (or top-level data) is not found:
-							// - search for 'error' name
-							// - get everything in the 'error' but not 'error' name itself
-							String errorJson = JsonUtil.extractObjectString(responseJson, "error", false);
-							// Decode the error object.
-							if ( (errorJson != null) && !errorJson.isEmpty() ) {
-								// Decode the error to get the message
-								ApiError error = JacksonToolkit.getInstance().getObjectMapper().readValue(errorJson, new TypeReference<ApiError>(){});
-								if ( error == null ) {
-									throw new IOException ( "Error from request, URL=\"" + url + "\" unable to determine error.");
-								}
-								else {
-									throw new IOException ( "Error from request, URL=\"" + url + "\" message=\"" + error.getMessage()
-											+ "\" detailedMessage=\"" + error.getDetailedMessage() + "\" requestData='" + requestData + "'.");
-								}
-							}
-							else {
-								Message.printStatus(2, routine, "Could not find 'error' object in response (and requested object '"
-									+ dataElement + "' was not found either).");
-							}
-						}
-						else {
-							// Had a valid response matching 'dataElement' so return the value below.
-							responseJson = responseJson2;
-						}
-					}
-				}
-			}
-			else {
-				// Failed HTTP request.
-				throw new IOException ( "Error from request, URL=\"" + url + "\" - HTTP code=" + urlResponse.getResponseCode()
-					+ ", error=\"" + urlResponse.getResponseError() + "\".");
-			}
-			return responseJson;
-		}
-		catch ( JsonParseException e ) {
-			Message.printWarning(2, routine, "Error parsing JSON response from \"" + url + "\" (" + e + ").");
-			throw e;
-		}
-		catch ( JsonMappingException e ) {
-			Message.printWarning(2, routine, "Error mapping JSON response from \"" + url + "\" (" + e + ").");
-			throw e;
-		}
-		catch ( MalformedURLException e ) {
-			Message.printWarning(2, routine, "Malformed URL has occured. URL=\"" + url + "\" (" + e + ").");
-			throw e;
-		}
-		catch ( IOException e ) {
-			Message.printWarning(2, routine, "IOException (" + e + ").");
-			throw e;
-		}
+	public interface JsonResultHandler {
+		/**
+		 * Process the 'result' value.
+		 * @param parser parser positioned on the first token of the 'result' value
+		 * @throws IOException if an error processing the value
+		 */
+		void handle ( JsonParser parser ) throws IOException;
 	}
 
 	/**
@@ -232,6 +150,168 @@ public class JacksonToolkit {
 		return results;
 	}
 	
+	/**
+	 * Read a JSON-RPC response from a stream, positioned before the top-level object.
+	 * The 'result' value is passed to the handler as it is parsed and an 'error' object is converted to an exception.
+	 * Other top-level values (e.g., 'jsonrpc' and 'id') are skipped.
+	 * @param parser parser for the response
+	 * @param url URL that was read, for messages
+	 * @param requestData JSON request string, for messages
+	 * @param dataElement name of the element to pass to the handler, typically "result"
+	 * @param handler handler for the element value
+	 * @return true if the element was found, false if not
+	 * @throws IOException if the response is not a JSON object
+	 * @throws ZabbixApiException if the response contains an error
+	 */
+	private boolean readResponse ( JsonParser parser, String url, String requestData, String dataElement,
+		JsonResultHandler handler ) throws IOException {
+		if ( parser.nextToken() != JsonToken.START_OBJECT ) {
+			throw new IOException ( "Error from request, URL=\"" + url + "\" - response is not a JSON object.");
+		}
+		boolean found = false;
+		while ( parser.nextToken() == JsonToken.FIELD_NAME ) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			if ( name.equals(dataElement) ) {
+				handler.handle(parser);
+				found = true;
+			}
+			else if ( name.equals("error") ) {
+				// Decode the error to get the message
+				ApiError error = this.mapper.readValue(parser, ApiError.class);
+				if ( error == null ) {
+					throw new ZabbixApiException ( "Error from request, URL=\"" + url + "\" unable to determine error.");
+				}
+				else {
+					throw new ZabbixApiException ( "Error from request, URL=\"" + url + "\" message=\"" + error.getMessage()
+						+ "\" detailedMessage=\"" + error.getDetailedMessage() + "\" requestData='" + requestData + "'.");
+				}
+			}
+			else {
+				// Skip the value, including nested objects and arrays.
+				parser.skipChildren();
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Post a JSON-RPC request and process the 'result' value while the response is streamed,
+	 * without reading the full response into memory.
+	 * @param transport HTTP transport owned by the datastore
+	 * @param url URL to read
+	 * @param apiToken API token to pass in the 'Authorization' header, or null or empty if passed in the request data
+	 * @param requestData JSON request string, as per Zabbix API
+	 * @param handler handler for the 'result' value
+	 * @throws IOException if the request fails, the response contains an error, or 'result' is not found
+	 */
+	public void readResult ( ZabbixHttpTransport transport, String url, String apiToken,
+		String requestData, JsonResultHandler handler ) throws IOException {
+		String routine = getClass().getSimpleName() + ".readResult";
+		try {
+			transport.post ( url, apiToken, requestData, (statusCode, in) -> {
+				if ( statusCode != 200 ) {
+					// Failed HTTP request:
+					// - the body is typically a short HTML or text message
+					byte [] bytes = in.readNBytes(1000);
+					throw new IOException ( "Error from request, URL=\"" + url + "\" - HTTP code=" + statusCode
+						+ ", error=\"" + new String(bytes, StandardCharsets.UTF_8) + "\".");
+				}
+				try ( JsonParser parser = this.mapper.getFactory().createParser(in) ) {
+					if ( !readResponse ( parser, url, requestData, "result", handler ) ) {
+						throw new IOException ( "Error from request, URL=\"" + url
+							+ "\" - response does not contain 'result' or 'error'.");
+					}
+				}
+				return null;
+			});
+		}
+		catch ( JsonParseException e ) {
+			Message.printWarning(2, routine, "Error parsing JSON response from \"" + url + "\" (" + e + ").");
+			throw e;
+		}
+		catch ( JsonMappingException e ) {
+			Message.printWarning(2, routine, "Error mapping JSON response from \"" + url + "\" (" + e + ").");
+			throw e;
+		}
+		catch ( IOException e ) {
+			Message.printWarning(2, routine, "IOException (" + e + ").");
+			throw e;
+		}
+	}
+
+	/**
+	 * Post a JSON-RPC request where the 'result' is an array of objects,
+	 * and pass each object to the consumer as it is parsed.
+	 * @param transport HTTP transport owned by the datastore
+	 * @param url URL to read
+	 * @param apiToken API token to pass in the 'Authorization' header, or null or empty if passed in the request data
+	 * @param requestData JSON request string, as per Zabbix API
+	 * @param elementClass class for the array elements
+	 * @param consumer consumer for each array element
+	 * @param <T> the array element type
+	 * @return the number of array elements that were processed
+	 * @throws IOException if the request fails, the response contains an error, or 'result' is not an array
+	 */
+	public <T> int readResultArray ( ZabbixHttpTransport transport, String url, String apiToken,
+		String requestData, Class<T> elementClass, Consumer<T> consumer ) throws IOException {
+		return readResultArray ( transport, url, apiToken, requestData, elementClass, null, consumer );
+	}
+
+	/**
+	 * Post a JSON-RPC request where the 'result' is an array of objects,
+	 * and pass each object to the consumer as it is parsed.
+	 * @param transport HTTP transport owned by the datastore
+	 * @param url URL to read
+	 * @param apiToken API token to pass in the 'Authorization' header, or null or empty if passed in the request data
+	 * @param requestData JSON request string, as per Zabbix API
+	 * @param elementClass class for the array elements
+	 * @param stringPool pool used for String fields that use PooledStringDeserializer, or null to not pool strings
+	 * @param consumer consumer for each array element
+	 * @param <T> the array element type
+	 * @return the number of array elements that were processed
+	 * @throws IOException if the request fails, the response contains an error, or 'result' is not an array
+	 */
+	public <T> int readResultArray ( ZabbixHttpTransport transport, String url, String apiToken,
+		String requestData, Class<T> elementClass, StringPool stringPool, Consumer<T> consumer ) throws IOException {
+		ObjectReader reader = this.mapper.readerFor(elementClass);
+		if ( stringPool != null ) {
+			reader = reader.withAttribute(PooledStringDeserializer.STRING_POOL_ATTRIBUTE, stringPool);
+		}
+		ObjectReader elementReader = reader;
+		int [] count = new int[1];
+		readResult ( transport, url, apiToken, requestData, parser -> {
+			if ( parser.currentToken() != JsonToken.START_ARRAY ) {
+				throw new IOException ( "Error from request, URL=\"" + url + "\" - 'result' is not an array.");
+			}
+			while ( parser.nextToken() != JsonToken.END_ARRAY ) {
+				T element = elementReader.readValue(parser);
+				consumer.accept(element);
+				++count[0];
+			}
+		});
+		return count[0];
+	}
+
+	/**
+	 * Post a JSON-RPC request and return the 'result' value converted to the requested class,
+	 * for example a String for a simple value.
+	 * @param transport HTTP transport owned by the datastore
+	 * @param url URL to read
+	 * @param apiToken API token to pass in the 'Authorization' header, or null or empty if passed in the request data
+	 * @param requestData JSON request string, as per Zabbix API
+	 * @param valueClass class for the 'result' value
+	 * @param <T> the 'result' type
+	 * @return the 'result' value
+	 * @throws IOException if the request fails or the response contains an error
+	 */
+	public <T> T readResultValue ( ZabbixHttpTransport transport, String url, String apiToken,
+		String requestData, Class<T> valueClass ) throws IOException {
+		List<T> value = new ArrayList<>(1);
+		readResult ( transport, url, apiToken, requestData, parser -> value.add(this.mapper.readValue(parser, valueClass)) );
+		return value.get(0);
+	}
+
 	/**
 	 * Return the object mapper used with the toolkit.
 	 * The object mapper can be reused.
@@ -0,0 +1,42 @@
+// ZabbixApiException - error returned in a Zabbix JSON-RPC response
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dto;
+
+import java.io.IOException;
+
+/**
+ * Exception for an 'error' returned in a Zabbix JSON-RPC response (e.g., not authorized or invalid parameters),
+ * as opposed to an HTTP or connection error.
+ * Repeating the request with different data (e.g., fewer hosts) will not avoid the error.
+ */
+public class ZabbixApiException extends IOException {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor.
+	 * @param message the exception message
+	 */
+	public ZabbixApiException ( String message ) {
+		super ( message );
+	}
+}
@@ -0,0 +1,396 @@
+// ZabbixHttpTransport - pooled HTTP transport used for Zabbix JSON-RPC requests
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+
+import RTi.Util.Message.Message;
+
+/**
+ * HTTP transport for Zabbix JSON-RPC requests.
+ * One instance is owned by each ZabbixDataStore so that all requests for the datastore share:
+ * <ul>
+ * <li> one HttpClient, which keeps connections alive and reuses them between requests</li>
+ * <li> HTTP/2 when the server offers it (HTTP/1.1 is used otherwise)</li>
+ * <li> a TLS session cache so that new connections can resume a session rather than doing a full handshake</li>
+ * <li> a limit on the number of concurrent requests, which limits the number of open connections</li>
+ * </ul>
+ * The request timeout is a deadline for the full request, including reading the response body.
+ * The HttpClient request timeout only applies until the response headers are received,
+ * so a request that is still reading the body at the deadline is cancelled by closing the body stream,
+ * so that a server that stalls while sending the body does not hold a connection permit indefinitely.
+ */
+public class ZabbixHttpTransport {
+
+	/**
+	 * Default connection timeout (ms).
+	 */
+	public static final int DEFAULT_CONNECT_TIMEOUT = 30000;
+
+	/**
+	 * Default request timeout (ms), from sending the request until the response body has been read.
+	 */
+	public static final int DEFAULT_TIMEOUT = 120000;
+
+	/**
+	 * Default maximum number of concurrent requests (and therefore connections).
+	 */
+	public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
+	/**
+	 * Number of TLS sessions to cache for resumption.
+	 */
+	private static final int TLS_SESSION_CACHE_SIZE = 100;
+
+	/**
+	 * Lifetime of cached TLS sessions (seconds).
+	 */
+	private static final int TLS_SESSION_TIMEOUT = 3600;
+
+	/**
+	 * Scheduler used to cancel requests that reach the deadline while reading the response body,
+	 * shared by all transports.  The thread is a daemon so that it does not prevent the application from exiting.
+	 */
+	private static final ScheduledThreadPoolExecutor DEADLINE_SCHEDULER = createDeadlineScheduler();
+
+	/**
+	 * The HTTP client, which manages the connection pool.
+	 */
+	private final HttpClient client;
+
+	/**
+	 * Connection timeout (ms), 0 or negative to not use a timeout.
+	 */
+	private final int connectTimeout;
+
+	/**
+	 * Request timeout (ms), from sending the request until the response body has been read,
+	 * 0 or negative to not use a timeout.
+	 */
+	private final int timeout;
+
+	/**
+	 * Maximum number of concurrent requests.
+	 */
+	private final int maxConnections;
+
+	/**
+	 * Semaphore used to limit the number of concurrent requests.
+	 */
+	private final Semaphore connectionPermits;
+
+	/**
+	 * Number of requests that have been made, for troubleshooting.
+	 */
+	private final AtomicLong requestCount = new AtomicLong(0);
+
+	/**
+	 * Constructor.
+	 * @param connectTimeout connection timeout (ms), 0 or negative to not use a timeout
+	 * @param timeout request timeout (ms), from sending the request until the response body has been read,
+	 * 0 or negative to not use a timeout
+	 * @param maxConnections maximum number of concurrent requests, which limits the number of open connections
+	 */
+	public ZabbixHttpTransport ( int connectTimeout, int timeout, int maxConnections ) {
+		String routine = getClass().getSimpleName() + ".ZabbixHttpTransport";
+		this.connectTimeout = connectTimeout;
+		this.timeout = timeout;
+		if ( maxConnections < 1 ) {
+			maxConnections = 1;
+		}
+		this.maxConnections = maxConnections;
+		this.connectionPermits = new Semaphore(maxConnections, true);
+
+		HttpClient.Builder builder = HttpClient.newBuilder()
+			// HTTP/2 is used if the server offers it during the TLS negotiation, otherwise HTTP/1.1 is used.
+			.version(HttpClient.Version.HTTP_2)
+			.followRedirects(HttpClient.Redirect.NORMAL);
+		if ( connectTimeout > 0 ) {
+			builder.connectTimeout(Duration.ofMillis(connectTimeout));
+		}
+		// Use a dedicated SSL context so that the TLS session cache is not shared with other code in the application
+		// and can be sized for the datastore.
+		try {
+			SSLContext sslContext = SSLContext.getInstance("TLS");
+			sslContext.init(null, null, null);
+			SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+			if ( sessionContext != null ) {
+				sessionContext.setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+				sessionContext.setSessionTimeout(TLS_SESSION_TIMEOUT);
+			}
+			builder.sslContext(sslContext);
+		}
+		catch ( GeneralSecurityException e ) {
+			// Use the default SSL context, which also caches sessions.
+			Message.printWarning(3, routine, "Unable to create SSL context, using the default (" + e + ").");
+		}
+		this.client = builder.build();
+		Message.printStatus(2, routine, "Created HTTP transport with ConnectTimeout=" + connectTimeout
+			+ " Timeout=" + timeout + " MaxConnections=" + maxConnections );
+	}
+
+	/**
+	 * Create the scheduler used to cancel requests that reach the deadline.
+	 * @return the scheduler
+	 */
+	private static ScheduledThreadPoolExecutor createDeadlineScheduler () {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor ( 1, runnable -> {
+			Thread thread = new Thread ( runnable, "ZabbixHttpTransport-deadline" );
+			thread.setDaemon ( true );
+			return thread;
+		});
+		// Requests normally complete before the deadline so remove the cancelled tasks right away.
+		scheduler.setRemoveOnCancelPolicy ( true );
+		return scheduler;
+	}
+
+	/**
+	 * Return the connection timeout (ms).
+	 * @return the connection timeout (ms)
+	 */
+	public int getConnectTimeout () {
+		return this.connectTimeout;
+	}
+
+	/**
+	 * Return the maximum number of concurrent requests.
+	 * @return the maximum number of concurrent requests
+	 */
+	public int getMaxConnections () {
+		return this.maxConnections;
+	}
+
+	/**
+	 * Return the number of requests that have been made.
+	 * @return the number of requests that have been made
+	 */
+	public long getRequestCount () {
+		return this.requestCount.get();
+	}
+
+	/**
+	 * Return the request timeout (ms).
+	 * @return the request timeout (ms)
+	 */
+	public int getTimeout () {
+		return this.timeout;
+	}
+
+	/**
+	 * Handler for a response body that is read as a stream.
+	 * @param <T> the type of object created from the response
+	 */
+	public interface ResponseStreamHandler<T> {
+		/**
+		 * Process the response.
+		 * @param statusCode the HTTP status code
+		 * @param in the response body stream, which is closed by the transport after this method returns
+		 * @return the object created from the response
+		 * @throws IOException if an error processing the response
+		 */
+		T handle ( int statusCode, InputStream in ) throws IOException;
+	}
+
+	/**
+	 * Acquire a permit to make a request.
+	 * @param url URL for the request, for messages
+	 * @throws IOException if interrupted
+	 */
+	private void acquirePermit ( String url ) throws IOException {
+		try {
+			this.connectionPermits.acquire();
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException ( "Interrupted waiting for a connection to \"" + url + "\".");
+		}
+	}
+
+	/**
+	 * Build a JSON-RPC POST request.
+	 * @param url URL for the request
+	 * @param apiToken API token to pass in the 'Authorization' header, or null or empty to not pass the header
+	 * @param requestData JSON request string, as per Zabbix API
+	 * @return the request
+	 * @throws IOException if the URL is invalid
+	 */
+	private HttpRequest buildRequest ( String url, String apiToken, String requestData ) throws IOException {
+		HttpRequest.Builder requestBuilder;
+		try {
+			requestBuilder = HttpRequest.newBuilder(URI.create(url));
+		}
+		catch ( IllegalArgumentException e ) {
+			throw new IOException ( "Invalid URL \"" + url + "\" (" + e + ").");
+		}
+		requestBuilder
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(requestData));
+		if ( (apiToken != null) && !apiToken.isEmpty() ) {
+			requestBuilder.header("Authorization", "Bearer " + apiToken);
+		}
+		if ( this.timeout > 0 ) {
+			requestBuilder.timeout(Duration.ofMillis(this.timeout));
+		}
+		return requestBuilder.build();
+	}
+
+	/**
+	 * Post a JSON-RPC request and process the response body as a stream, without reading the full response into memory.
+	 * The connection permit is held until the handler has processed the response.
+	 * If the timeout is reached while the handler is reading the response,
+	 * the body stream is closed and the reading thread is interrupted so that the read fails,
+	 * and an HttpTimeoutException is thrown.
+	 * @param url URL for the request
+	 * @param apiToken API token to pass in the 'Authorization' header, or null or empty to not pass the header
+	 * @param requestData JSON request string, as per Zabbix API
+	 * @param handler handler for the response body stream
+	 * @param <T> the type of object created from the response
+	 * @return the object returned by the handler
+	 * @throws IOException if the request fails or is interrupted
+	 */
+	public <T> T post ( String url, String apiToken, String requestData, ResponseStreamHandler<T> handler ) throws IOException {
+		HttpRequest request = buildRequest ( url, apiToken, requestData );
+		acquirePermit ( url );
+		try {
+			this.requestCount.incrementAndGet();
+			long startTime = System.currentTimeMillis();
+			HttpResponse<InputStream> response = this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+			try ( InputStream in = response.body() ) {
+				if ( this.timeout <= 0 ) {
+					return handler.handle ( response.statusCode(), in );
+				}
+				return handleWithDeadline ( url, response.statusCode(), in, handler,
+					this.timeout - (System.currentTimeMillis() - startTime) );
+			}
+		}
+		catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException ( "Interrupted reading from \"" + url + "\".");
+		}
+		finally {
+			this.connectionPermits.release();
+		}
+	}
+
+	/**
+	 * Process the response body stream, cancelling the read if it is not complete by the deadline.
+	 * The read is cancelled by closing the stream and interrupting the reading thread,
+	 * because a read that is waiting for data does not otherwise stop when the stream is closed.
+	 * Only the interrupt that is sent at the deadline is cleared,
+	 * so that an interrupt to cancel the calling task (e.g., Future.cancel(true)) is not lost.
+	 * @param url URL for the request, for messages
+	 * @param statusCode the HTTP status code
+	 * @param in the response body stream
+	 * @param handler handler for the response body stream
+	 * @param remaining time remaining until the deadline (ms)
+	 * @param <T> the type of object created from the response
+	 * @return the object returned by the handler
+	 * @throws IOException if an error processing the response, or HttpTimeoutException if the deadline is reached
+	 */
+	private <T> T handleWithDeadline ( String url, int statusCode, InputStream in, ResponseStreamHandler<T> handler,
+		long remaining ) throws IOException {
+		if ( remaining <= 0 ) {
+			throw new HttpTimeoutException ( "Timeout (" + this.timeout + " ms) reading from \"" + url + "\"." );
+		}
+		// Set to true when the handler returns, or when the deadline is reached, whichever is first.
+		AtomicBoolean done = new AtomicBoolean(false);
+		AtomicBoolean timedOut = new AtomicBoolean(false);
+		// Set to true when the deadline task interrupts the reading thread.
+		AtomicBoolean interruptSent = new AtomicBoolean(false);
+		Thread readThread = Thread.currentThread();
+		boolean wasInterrupted = readThread.isInterrupted();
+		ScheduledFuture<?> deadline = DEADLINE_SCHEDULER.schedule ( () -> {
+			if ( done.compareAndSet(false, true) ) {
+				timedOut.set ( true );
+				try {
+					in.close();
+				}
+				catch ( IOException e ) {
+					// Ignore - the interrupt stops the read.
+				}
+				interruptSent.set ( true );
+				readThread.interrupt();
+			}
+		}, remaining, TimeUnit.MILLISECONDS );
+		try {
+			return handler.handle ( statusCode, in );
+		}
+		catch ( IOException e ) {
+			if ( timedOut.get() ) {
+				throw new HttpTimeoutException ( "Timeout (" + this.timeout + " ms) reading from \"" + url + "\"." );
+			}
+			throw e;
+		}
+		finally {
+			if ( done.compareAndSet(false, true) ) {
+				deadline.cancel ( false );
+			}
+			else {
+				// The deadline was reached:
+				// - wait for the deadline task to finish so that its interrupt is not delivered after returning
+				// - an interrupt while waiting is the deadline interrupt unless the deadline task did not send one
+				boolean interruptedWhileWaiting = false;
+				while ( true ) {
+					try {
+						deadline.get();
+						break;
+					}
+					catch ( InterruptedException e ) {
+						interruptedWhileWaiting = true;
+					}
+					catch ( CancellationException | ExecutionException e ) {
+						break;
+					}
+				}
+				// Clear the interrupt that was used to stop the read,
+				// and restore an interrupt that was pending before the read or was not sent by the deadline task.
+				if ( interruptSent.get() ) {
+					Thread.interrupted();
+				}
+				if ( wasInterrupted || (interruptedWhileWaiting && !interruptSent.get()) ) {
+					readThread.interrupt();
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+// PooledStringDeserializer - Jackson deserializer for String fields that uses a StringPool
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.util;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+
+/**
+ * Jackson deserializer for String fields that returns pooled strings if a StringPool is set as a reader attribute.
+ * Use only on fields that repeat across objects (e.g., item names and units from templates), for example:
+ * <pre>
+ * &#64;JsonDeserialize(using=PooledStringDeserializer.class)
+ * private String units = "";
+ * </pre>
+ * Fields that are unique for each object (e.g., identifiers and keys) should not be pooled
+ * because each value would add an entry to the pool without saving any memory.
+ */
+public class PooledStringDeserializer extends StringDeserializer {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Reader attribute for the StringPool, set with ObjectReader.withAttribute().
+	 */
+	public static final String STRING_POOL_ATTRIBUTE = "StringPool";
+
+	/**
+	 * Constructor.
+	 */
+	public PooledStringDeserializer () {
+	}
+
+	/**
+	 * Deserialize a String value, returning the pooled instance if a StringPool is set as a reader attribute.
+	 */
+	@Override
+	public String deserialize ( JsonParser parser, DeserializationContext context ) throws IOException {
+		String s = super.deserialize ( parser, context );
+		Object pool = context.getAttribute ( STRING_POOL_ATTRIBUTE );
+		if ( pool != null ) {
+			return ((StringPool)pool).intern(s);
+		}
+		return s;
+	}
+}
@@ -0,0 +1,149 @@
+// StringPool - pool of shared String instances to avoid storing duplicate strings
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of shared String instances, used to avoid storing duplicate strings.
+ * Zabbix data repeat many strings (e.g., units, item names, delays, host group names),
+ * which are otherwise stored as separate String instances for each object that is read.
+ * The pool is owned by the code that reads the data (rather than using String.intern()) so that the strings can be
+ * garbage collected when the pool is discarded and the savings can be reported.
+ * Only values that repeat should be pooled because each distinct value adds an entry to the pool.
+ * The bytes are estimated assuming compact (Latin-1) strings on a 64-bit JVM with compressed references.
+ * The pool is thread-safe.
+ */
+public class StringPool {
+
+	/**
+	 * Estimated bytes for each pool entry:
+	 * ConcurrentHashMap node (32 bytes) and its share of the hash table (8 bytes).
+	 * The pooled string is not counted because it is also referenced by the object that was read.
+	 */
+	private static final long ENTRY_BYTES = 40;
+
+	/**
+	 * Pooled strings.
+	 */
+	private final ConcurrentHashMap<String,String> pool = new ConcurrentHashMap<>();
+
+	/**
+	 * Number of strings that were replaced by a pooled string.
+	 */
+	private final LongAdder duplicateCount = new LongAdder();
+
+	/**
+	 * Estimated number of bytes saved by using pooled strings.
+	 */
+	private final LongAdder savedBytes = new LongAdder();
+
+	/**
+	 * Constructor.
+	 */
+	public StringPool () {
+	}
+
+	/**
+	 * Estimate the memory used by a String.
+	 * @param s the string
+	 * @return the estimated bytes for the String object and its byte array
+	 */
+	private static long estimateBytes ( String s ) {
+		// String object (24 bytes) and byte array header (16 bytes) plus the bytes, aligned to 8 bytes.
+		return 24 + ((16 + s.length() + 7) & ~7);
+	}
+
+	/**
+	 * Return the number of strings that were replaced by a pooled string.
+	 * @return the number of duplicate strings
+	 */
+	public long getDuplicateCount () {
+		return this.duplicateCount.sum();
+	}
+
+	/**
+	 * Return the estimated number of bytes saved by using pooled strings, net of the memory used by the pool.
+	 * The result is negative if the pool uses more memory than it saves.
+	 * @return the estimated number of bytes saved
+	 */
+	public long getNetSavedBytes () {
+		return getSavedBytes() - getPoolBytes();
+	}
+
+	/**
+	 * Return the estimated number of bytes used by the pool entries.
+	 * @return the estimated number of bytes used by the pool
+	 */
+	public long getPoolBytes () {
+		return getSize()*ENTRY_BYTES;
+	}
+
+	/**
+	 * Return the estimated number of bytes saved by using pooled strings, not including the memory used by the pool.
+	 * @return the estimated gross number of bytes saved
+	 */
+	public long getSavedBytes () {
+		return this.savedBytes.sum();
+	}
+
+	/**
+	 * Return the number of distinct strings in the pool.
+	 * @return the number of distinct strings
+	 */
+	public int getSize () {
+		return this.pool.size();
+	}
+
+	/**
+	 * Return the pooled instance of a string, adding the string to the pool if not already in the pool.
+	 * @param s the string
+	 * @return the pooled string, or null if the string is null
+	 */
+	public String intern ( String s ) {
+		if ( s == null ) {
+			return null;
+		}
+		String pooled = this.pool.putIfAbsent ( s, s );
+		if ( pooled == null ) {
+			return s;
+		}
+		if ( pooled != s ) {
+			this.duplicateCount.increment();
+			this.savedBytes.add ( estimateBytes(s) );
+		}
+		return pooled;
+	}
+
+	/**
+	 * Return a summary of the pool, for logging.
+	 * @return a summary of the pool
+	 */
+	@Override
+	public String toString () {
+		return getSize() + " distinct strings, " + getDuplicateCount() + " duplicates replaced, about "
+			+ (getNetSavedBytes()/1024) + " KB saved (" + (getSavedBytes()/1024) + " KB duplicates less "
+			+ (getPoolBytes()/1024) + " KB pool)";
+	}
+}
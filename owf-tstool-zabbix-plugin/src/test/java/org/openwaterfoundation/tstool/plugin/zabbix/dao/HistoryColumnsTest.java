@@ -0,0 +1,134 @@
+// HistoryColumnsTest - tests for HistoryColumns
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.Test;
+
+/**
+ * Tests for HistoryColumns.
+ */
+public class HistoryColumnsTest {
+
+	/**
+	 * Test adding numeric records beyond the initial capacity and grouping them by item.
+	 */
+	@Test
+	public void testNumericRowsByItem () {
+		HistoryColumns columns = new HistoryColumns ( Arrays.asList("101", "202"), true, 1 );
+		int count = 5000;
+		for ( int i = 0; i < count; i++ ) {
+			columns.add ( i % 2, 1000 + i, i, i*0.5, -1 );
+		}
+		assertEquals ( count, columns.size() );
+		assertTrue ( columns.isNumeric() );
+		assertEquals ( 1000 + 4999, columns.getClock(4999) );
+		assertEquals ( 4999, columns.getNs(4999) );
+		assertEquals ( 2499.5, columns.getValue(4999), 0.0 );
+		assertNull ( columns.getText(0) );
+		int [][] rows = columns.getRowsByItem();
+		assertEquals ( 2, rows.length );
+		assertEquals ( count/2, rows[0].length );
+		assertEquals ( count/2, rows[1].length );
+		assertEquals ( 0, rows[0][0] );
+		assertEquals ( 1, rows[1][0] );
+		assertEquals ( 4999, rows[1][count/2 - 1] );
+	}
+
+	/**
+	 * Test finding the item index from the numeric itemid.
+	 */
+	@Test
+	public void testFindItemIndex () {
+		HistoryColumns columns = new HistoryColumns ( Arrays.asList("101", "202", "303"), true, 16 );
+		assertEquals ( 2, columns.findItemIndex(303) );
+		assertEquals ( 2, columns.findItemIndex(303) );
+		assertEquals ( 0, columns.findItemIndex(101) );
+		assertEquals ( -1, columns.findItemIndex(404) );
+		assertEquals ( "202", columns.getItemid(columns.findItemIndex(202)) );
+		assertEquals ( 3, columns.getItemCount() );
+	}
+
+	/**
+	 * Test that text values are shared, truncated, converted to numbers, and kept when cleared.
+	 */
+	@Test
+	public void testText () {
+		HistoryColumns columns = new HistoryColumns ( Arrays.asList("101"), false, 16 );
+		columns.setMaxTextLength ( 4 );
+		char [] chars = "status-ok".toCharArray();
+		columns.add ( 0, 1000, 0, Double.NaN, columns.encodeText(chars, 0, chars.length) );
+		columns.add ( 0, 1001, 0, Double.NaN, columns.encodeText("status-failed") );
+		columns.add ( 0, 1002, 0, Double.NaN, columns.encodeText("12") );
+		columns.add ( 0, 1003, 0, Double.NaN, columns.encodeText((String)null) );
+		assertEquals ( "stat", columns.getText(0) );
+		assertSame ( columns.getText(0), columns.getText(1) );
+		assertEquals ( 12.0, columns.getTextNumber(2), 0.0 );
+		assertTrue ( Double.isNaN(columns.getTextNumber(0)) );
+		assertNull ( columns.getText(3) );
+		assertTrue ( Double.isNaN(columns.getValue(0)) );
+		// Values are shared with later pages after clear().
+		String text = columns.getText(0);
+		columns.clear();
+		assertEquals ( 0, columns.size() );
+		columns.add ( 0, 2000, 0, Double.NaN, columns.encodeText("status") );
+		assertSame ( text, columns.getText(0) );
+	}
+
+	/**
+	 * Test removing records, keeping the order of the other records.
+	 */
+	@Test
+	public void testRemoveRows () {
+		HistoryColumns columns = new HistoryColumns ( Arrays.asList("101", "202"), true, 16 );
+		for ( int i = 0; i < 6; i++ ) {
+			columns.add ( i % 2, 1000 + i, 10*i, i, -1 );
+		}
+		BitSet rows = new BitSet();
+		rows.set ( 0 );
+		rows.set ( 3 );
+		rows.set ( 4 );
+		columns.removeRows ( rows );
+		assertEquals ( 3, columns.size() );
+		long [] clocks = new long[columns.size()];
+		int [] ns = new int[columns.size()];
+		for ( int i = 0; i < columns.size(); i++ ) {
+			clocks[i] = columns.getClock(i);
+			ns[i] = columns.getNs(i);
+		}
+		assertArrayEquals ( new long[] { 1001, 1002, 1005 }, clocks );
+		assertArrayEquals ( new int[] { 10, 20, 50 }, ns );
+		assertEquals ( 5.0, columns.getValue(2), 0.0 );
+		int [][] rowsByItem = columns.getRowsByItem();
+		assertArrayEquals ( new int[] { 1 }, rowsByItem[0] );
+		assertArrayEquals ( new int[] { 0, 2 }, rowsByItem[1] );
+	}
+}
@@ -0,0 +1,116 @@
+// TextDictionaryTest - tests for TextDictionary
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for TextDictionary.
+ */
+public class TextDictionaryTest {
+
+	/**
+	 * Test that a repeated value, whether added from a buffer or a String, returns the same code and String.
+	 */
+	@Test
+	public void testAddDuplicates () {
+		TextDictionary dictionary = new TextDictionary();
+		char [] chars = "xxOKyyFAILzz".toCharArray();
+		int okCode = dictionary.add ( chars, 2, 2 );
+		int failCode = dictionary.add ( chars, 6, 4 );
+		assertEquals ( 2, dictionary.size() );
+		assertEquals ( okCode, dictionary.add("OK") );
+		assertEquals ( failCode, dictionary.add(chars, 6, 4) );
+		assertEquals ( 2, dictionary.size() );
+		assertSame ( dictionary.getValue(okCode), dictionary.getValue(dictionary.add("OK".toCharArray(), 0, 2)) );
+		assertEquals ( "FAIL", dictionary.getValue(failCode) );
+	}
+
+	/**
+	 * Test that null is encoded as -1.
+	 */
+	@Test
+	public void testAddNull () {
+		TextDictionary dictionary = new TextDictionary();
+		assertEquals ( -1, dictionary.add((String)null) );
+		assertNull ( dictionary.getValue(-1) );
+		assertTrue ( Double.isNaN(dictionary.getNumber(-1)) );
+		assertEquals ( 0, dictionary.size() );
+	}
+
+	/**
+	 * Test that values are still found after the hash table is resized.
+	 */
+	@Test
+	public void testRehash () {
+		TextDictionary dictionary = new TextDictionary();
+		int count = 1000;
+		for ( int i = 0; i < count; i++ ) {
+			assertEquals ( i, dictionary.add("value" + i) );
+		}
+		for ( int i = 0; i < count; i++ ) {
+			char [] chars = ("value" + i).toCharArray();
+			assertEquals ( i, dictionary.add(chars, 0, chars.length) );
+		}
+		assertEquals ( count, dictionary.size() );
+	}
+
+	/**
+	 * Test that values are added without checking for duplicates after the maximum number of entries,
+	 * while values added before the limit are still found.
+	 */
+	@Test
+	public void testMaxEntries () {
+		TextDictionary dictionary = new TextDictionary ( 2 );
+		int aCode = dictionary.add ( "a" );
+		int bCode = dictionary.add ( "b" );
+		int cCode = dictionary.add ( "c" );
+		assertEquals ( aCode, dictionary.add("a") );
+		assertEquals ( bCode, dictionary.add("b") );
+		assertTrue ( dictionary.add("c") != cCode );
+		assertEquals ( 4, dictionary.size() );
+	}
+
+	/**
+	 * Test conversion of values to numbers.
+	 */
+	@Test
+	public void testGetNumber () {
+		TextDictionary dictionary = new TextDictionary();
+		int oneCode = dictionary.add ( "1.5" );
+		int textCode = dictionary.add ( "up" );
+		assertEquals ( 1.5, dictionary.getNumber(oneCode), 0.0 );
+		assertTrue ( Double.isNaN(dictionary.getNumber(textCode)) );
+		// Values added after numbers were computed.
+		for ( int i = 0; i < 100; i++ ) {
+			dictionary.add ( "" + i );
+		}
+		assertEquals ( 99.0, dictionary.getNumber(dictionary.add("99")), 0.0 );
+		assertEquals ( 1.5, dictionary.getNumber(oneCode), 0.0 );
+	}
+}
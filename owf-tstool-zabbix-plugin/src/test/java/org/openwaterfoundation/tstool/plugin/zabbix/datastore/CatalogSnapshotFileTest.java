@@ -0,0 +1,201 @@
+// CatalogSnapshotFileTest - tests for CatalogSnapshotFile
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Host;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HostGroup;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Template;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalog;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogHost;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TimeSeriesCatalogItem;
+
+/**
+ * Tests for CatalogSnapshotFile, writing a snapshot and reading it back.
+ */
+public class CatalogSnapshotFileTest {
+
+	/**
+	 * Service root URI used for the tests.
+	 */
+	private static final String SERVICE_ROOT_URI = "https://zabbix.example.org/zabbix/api_jsonrpc.php";
+
+	/**
+	 * Create a history time series catalog entry.
+	 * @param hostRecord host data for the entry
+	 * @param itemid item 'itemid'
+	 * @param itemName item 'name'
+	 * @param units item 'units', may be null
+	 * @return the time series catalog entry
+	 */
+	private TimeSeriesCatalog createTscatalog ( TimeSeriesCatalogHost hostRecord, String itemid, String itemName, String units ) {
+		TimeSeriesCatalogItem itemRecord = new TimeSeriesCatalogItem();
+		itemRecord.setItemDelay ( "1m" );
+		itemRecord.setItemHistory ( "90d" );
+		itemRecord.setItemId ( itemid );
+		itemRecord.setItemKey ( "key[" + itemid + "]" );
+		itemRecord.setItemName ( itemName );
+		itemRecord.setItemStatus ( "0" );
+		itemRecord.setItemTrends ( "365d" );
+		itemRecord.setItemType ( "Zabbix agent" );
+		itemRecord.setItemTypeNum ( 0 );
+		itemRecord.setItemUnits ( units );
+		itemRecord.setItemValueType ( "Numeric (float)" );
+		itemRecord.setItemValueTypeNum ( null );
+		TimeSeriesCatalog tscatalog = new TimeSeriesCatalog ( hostRecord, itemRecord );
+		tscatalog.setDataInterval ( "IrregSecond" );
+		return tscatalog;
+	}
+
+	/**
+	 * Create a temporary snapshot file path.
+	 * @return the path to a snapshot file that does not exist yet
+	 * @throws IOException if an error creating the temporary folder
+	 */
+	private Path createTempPath () throws IOException {
+		Path folder = Files.createTempDirectory ( "CatalogSnapshotFileTest" );
+		folder.toFile().deleteOnExit();
+		Path path = folder.resolve ( "catalog.bin" );
+		path.toFile().deleteOnExit();
+		return path;
+	}
+
+	/**
+	 * Test writing a snapshot and reading it back, including null values and shared host data.
+	 */
+	@Test
+	public void testRoundTrip () throws IOException {
+		HostGroup group1 = new HostGroup ( "1", "Pumps" );
+		HostGroup group2 = new HostGroup ( "2", "Wells \u00e9" );
+		List<HostGroup> hostGroupList = Arrays.asList ( group1, group2 );
+		List<Host> hostList = Arrays.asList (
+			new Host ( "10", "pump1", "Pump 1", null, Arrays.asList(group1, group2) ),
+			new Host ( "11", "well1", "Well 1", "Well description", null ) );
+		List<Template> templateList = Arrays.asList (
+			new Template ( "20", "Template Pump", "Template Pump", null, "uuid-20" ) );
+		TimeSeriesCatalogHost hostRecord = new TimeSeriesCatalogHost ( group1, "Wells \u00e9", "pump1", null, "10", "Pump 1" );
+		TimeSeriesCatalogHost hostRecord2 = new TimeSeriesCatalogHost ( null, null, "well1", "Well description", "11", "Well 1" );
+		List<TimeSeriesCatalog> historyTscatalogList = new ArrayList<>();
+		historyTscatalogList.add ( createTscatalog(hostRecord, "100", "Flow", "gpm") );
+		historyTscatalogList.add ( createTscatalog(hostRecord, "101", "Pressure", null) );
+		historyTscatalogList.add ( createTscatalog(hostRecord2, "102", "Level", "ft") );
+		CatalogSnapshot snapshot = new CatalogSnapshot ( hostGroupList, hostList, templateList, null, null,
+			historyTscatalogList, null );
+
+		CatalogSnapshotFile file = new CatalogSnapshotFile ( createTempPath() );
+		assertNull ( file.read(SERVICE_ROOT_URI) );
+		assertEquals ( -1, file.getAge() );
+		long start = System.currentTimeMillis();
+		file.write ( SERVICE_ROOT_URI, snapshot );
+		assertTrue ( file.getAge() >= 0 );
+		CatalogSnapshotFile.SnapshotData data = file.read ( SERVICE_ROOT_URI );
+		assertNotNull ( data );
+		assertTrue ( data.readTime >= start );
+
+		// Host groups.
+		assertEquals ( 2, data.hostGroupList.size() );
+		assertEquals ( "2", data.hostGroupList.get(1).getGroupid() );
+		assertEquals ( "Wells \u00e9", data.hostGroupList.get(1).getName() );
+
+		// Hosts, which share the host groups with the host group list.
+		assertEquals ( 2, data.hostList.size() );
+		Host host = data.hostList.get(0);
+		assertEquals ( "10", host.getHostid() );
+		assertEquals ( "pump1", host.getHost() );
+		assertEquals ( "Pump 1", host.getName() );
+		assertNull ( host.getDescription() );
+		assertEquals ( 2, host.getGroups().size() );
+		assertSame ( data.hostGroupList.get(0), host.getGroups().get(0) );
+		assertNull ( data.hostList.get(1).getGroups() );
+		assertEquals ( "Well description", data.hostList.get(1).getDescription() );
+
+		// Templates.
+		assertEquals ( 1, data.templateList.size() );
+		assertEquals ( "20", data.templateList.get(0).getTemplateid() );
+		assertNull ( data.templateList.get(0).getDescription() );
+		assertEquals ( "uuid-20", data.templateList.get(0).getUuid() );
+
+		// History time series catalog, which has the same content and shares the host data for the same host.
+		assertEquals ( historyTscatalogList.size(), data.historyTscatalogList.size() );
+		for ( int i = 0; i < historyTscatalogList.size(); i++ ) {
+			TimeSeriesCatalog expected = historyTscatalogList.get(i);
+			TimeSeriesCatalog actual = data.historyTscatalogList.get(i);
+			assertEquals ( expected.getContentHash(), actual.getContentHash() );
+			assertEquals ( expected.getLocId(), actual.getLocId() );
+			assertEquals ( expected.getDataType(), actual.getDataType() );
+			assertEquals ( expected.getDataInterval(), actual.getDataInterval() );
+			assertEquals ( expected.getDataUnits(), actual.getDataUnits() );
+			assertEquals ( expected.getHostGroupName(), actual.getHostGroupName() );
+			assertEquals ( expected.getHostGroupName2(), actual.getHostGroupName2() );
+			assertEquals ( expected.getItemId(), actual.getItemId() );
+			assertEquals ( expected.getItemTypeNum(), actual.getItemTypeNum() );
+			assertEquals ( expected.getItemValueTypeNum(), actual.getItemValueTypeNum() );
+		}
+		assertSame ( data.hostGroupList.get(0), findHostGroup(data.hostGroupList, data.historyTscatalogList.get(0).getHostGroupId()) );
+		assertNull ( data.historyTscatalogList.get(2).getHostGroupId() );
+	}
+
+	/**
+	 * Find a host group by 'groupid'.
+	 * @param hostGroupList host groups to search
+	 * @param groupid the 'groupid' to find
+	 * @return the host group, or null if not found
+	 */
+	private HostGroup findHostGroup ( List<HostGroup> hostGroupList, String groupid ) {
+		for ( HostGroup hostGroup : hostGroupList ) {
+			if ( hostGroup.getGroupid().equals(groupid) ) {
+				return hostGroup;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Test that a file for another service, or a truncated file, is ignored.
+	 */
+	@Test
+	public void testIgnoredFiles () throws IOException {
+		CatalogSnapshot snapshot = new CatalogSnapshot ( Arrays.asList(new HostGroup("1", "Pumps")), null, null, null, null, null, null );
+		Path path = createTempPath();
+		CatalogSnapshotFile file = new CatalogSnapshotFile ( path );
+		file.write ( SERVICE_ROOT_URI, snapshot );
+		assertNotNull ( file.read(SERVICE_ROOT_URI) );
+		assertNull ( file.read("https://other.example.org/zabbix/api_jsonrpc.php") );
+		byte [] bytes = Files.readAllBytes ( path );
+		Files.write ( path, Arrays.copyOf(bytes, bytes.length - 2) );
+		assertNull ( file.read(SERVICE_ROOT_URI) );
+	}
+}
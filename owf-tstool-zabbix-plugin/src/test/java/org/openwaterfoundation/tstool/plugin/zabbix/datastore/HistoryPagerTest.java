@@ -0,0 +1,198 @@
+// HistoryPagerTest - tests for HistoryPager
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.HistoryColumns;
+
+/**
+ * Tests for HistoryPager, using an in-memory history table in place of 'history.get'.
+ * Each test checks that every record is passed to the consumer exactly once.
+ */
+public class HistoryPagerTest {
+
+	/**
+	 * Item identifiers used for the tests.
+	 */
+	private static final List<String> ITEMIDS = Arrays.asList ( "100", "101" );
+
+	/**
+	 * History record in the in-memory table.
+	 */
+	private static class Record {
+		final int itemIndex;
+		final long clock;
+		final int ns;
+		final double value;
+
+		Record ( int itemIndex, long clock, int ns, double value ) {
+			this.itemIndex = itemIndex;
+			this.clock = clock;
+			this.ns = ns;
+			this.value = value;
+		}
+
+		@Override
+		public String toString () {
+			return this.itemIndex + "," + this.clock + "," + this.ns + "," + this.value;
+		}
+	}
+
+	/**
+	 * Number of page requests that were made.
+	 */
+	private int requestCount = 0;
+
+	/**
+	 * Return a page reader that behaves like 'history.get' sorted by clock with 'limit' and 'ns' in the output.
+	 * @param records records sorted by clock
+	 */
+	private HistoryPager.PageReader createPageReader ( List<Record> records ) {
+		return ( timeFrom, timeTill, limit, page ) -> {
+			++this.requestCount;
+			for ( Record record : records ) {
+				if ( (timeFrom >= 0) && (record.clock < timeFrom) ) {
+					continue;
+				}
+				if ( (timeTill >= 0) && (record.clock > timeTill) ) {
+					continue;
+				}
+				if ( (limit > 0) && (page.size() == limit) ) {
+					break;
+				}
+				page.add ( record.itemIndex, record.clock, record.ns, record.value, -1 );
+			}
+		};
+	}
+
+	/**
+	 * Read the records with the pager and return the records that were passed to the consumer.
+	 * @param records records sorted by clock
+	 * @param pageSize page size
+	 */
+	private List<String> readPages ( List<Record> records, int pageSize ) throws Exception {
+		List<String> readList = new ArrayList<>();
+		HistoryPager pager = new HistoryPager ( pageSize, createPageReader(records) );
+		pager.read ( new HistoryColumns(ITEMIDS, true, pageSize), 0, 1000, page -> {
+			for ( int i = 0; i < page.size(); i++ ) {
+				readList.add ( new Record(page.getItemIndex(i), page.getClock(i), page.getNs(i), page.getValue(i)).toString() );
+			}
+		});
+		assertEquals ( "Record count", readList.size(), pager.getRecordCount() );
+		return readList;
+	}
+
+	/**
+	 * Check that the records read with the pager are the same as the table, in order.
+	 */
+	private void checkPages ( List<Record> records, int pageSize ) throws Exception {
+		List<String> expected = new ArrayList<>();
+		for ( Record record : records ) {
+			expected.add ( record.toString() );
+		}
+		assertEquals ( "Records for page size " + pageSize, expected, readPages(records, pageSize) );
+	}
+
+	/**
+	 * Records with unique clocks are read without duplicates for page sizes that do and don't divide the count.
+	 */
+	@Test
+	public void testUniqueClocks () throws Exception {
+		List<Record> records = new ArrayList<>();
+		for ( int i = 0; i < 10; i++ ) {
+			records.add ( new Record(0, 100 + i, 0, i) );
+		}
+		for ( int pageSize = 1; pageSize <= 11; pageSize++ ) {
+			checkPages ( records, pageSize );
+		}
+	}
+
+	/**
+	 * A page boundary in the middle of records with the same clock does not duplicate or lose records,
+	 * including records for different items and the same item with different 'ns'.
+	 */
+	@Test
+	public void testSameClockAtPageBoundary () throws Exception {
+		List<Record> records = new ArrayList<>();
+		records.add ( new Record(0, 100, 0, 1) );
+		records.add ( new Record(0, 101, 0, 2) );
+		records.add ( new Record(1, 101, 0, 3) );
+		records.add ( new Record(0, 101, 500, 4) );
+		records.add ( new Record(0, 102, 0, 5) );
+		records.add ( new Record(1, 102, 0, 6) );
+		for ( int pageSize = 2; pageSize <= 7; pageSize++ ) {
+			checkPages ( records, pageSize );
+		}
+	}
+
+	/**
+	 * A full page that has only one clock is read again for the clock without a limit,
+	 * and the records from the previous page with the clock are not duplicated.
+	 */
+	@Test
+	public void testFullPageWithOneClock () throws Exception {
+		List<Record> records = new ArrayList<>();
+		records.add ( new Record(0, 100, 0, 1) );
+		records.add ( new Record(0, 101, 0, 2) );
+		records.add ( new Record(0, 101, 100, 3) );
+		records.add ( new Record(0, 101, 200, 4) );
+		records.add ( new Record(1, 101, 0, 5) );
+		records.add ( new Record(1, 101, 100, 6) );
+		records.add ( new Record(0, 102, 0, 7) );
+		// Page size 2:
+		// - the first page ends at clock 101 after one record
+		// - the second page starts at clock 101 and is full with clock 101, so the clock is read without a limit
+		checkPages ( records, 2 );
+		checkPages ( records, 3 );
+	}
+
+	/**
+	 * Records with the same clock and 'ns' for different items are not treated as duplicates.
+	 */
+	@Test
+	public void testSameClockAndNsForDifferentItems () throws Exception {
+		List<Record> records = new ArrayList<>();
+		for ( int i = 0; i < 5; i++ ) {
+			records.add ( new Record(0, 100 + i, 0, i) );
+			records.add ( new Record(1, 100 + i, 0, 10 + i) );
+		}
+		for ( int pageSize = 1; pageSize <= 11; pageSize++ ) {
+			checkPages ( records, pageSize );
+		}
+	}
+
+	/**
+	 * An empty result requires one request.
+	 */
+	@Test
+	public void testEmpty () throws Exception {
+		assertEquals ( 0, readPages(new ArrayList<>(), 5).size() );
+		assertEquals ( "Number of requests", 1, this.requestCount );
+	}
+}
@@ -0,0 +1,224 @@
+// ItemChunkPlannerTest - tests for ItemChunkPlanner
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.Item;
+import org.openwaterfoundation.tstool.plugin.zabbix.dto.ZabbixApiException;
+
+/**
+ * Tests for ItemChunkPlanner.
+ */
+public class ItemChunkPlannerTest {
+
+	/**
+	 * Create a chunk that failed with an exception.
+	 * @param start index of the first host
+	 * @param end index after the last host
+	 * @param e the exception
+	 */
+	private ItemChunkPlanner.Chunk failedChunk ( int start, int end, Exception e ) {
+		ItemChunkPlanner.Chunk chunk = new ItemChunkPlanner.Chunk ( start, end );
+		chunk.exception = e;
+		return chunk;
+	}
+
+	/**
+	 * Create a chunk that was read successfully.
+	 * @param start index of the first host
+	 * @param end index after the last host
+	 * @param itemCount number of items that were read
+	 * @param elapsedTime time to read the chunk (ms)
+	 */
+	private ItemChunkPlanner.Chunk readChunk ( int start, int end, int itemCount, long elapsedTime ) {
+		ItemChunkPlanner.Chunk chunk = new ItemChunkPlanner.Chunk ( start, end );
+		List<Item> itemList = new ArrayList<>();
+		for ( int i = 0; i < itemCount; i++ ) {
+			itemList.add ( new Item() );
+		}
+		chunk.itemList = itemList;
+		chunk.elapsedTime = elapsedTime;
+		return chunk;
+	}
+
+	/**
+	 * The initial chunk size is limited to 1 through the maximum.
+	 */
+	@Test
+	public void testInitialChunkSize () {
+		assertEquals ( 15, new ItemChunkPlanner(15, 500).getChunkSize() );
+		assertEquals ( 20, new ItemChunkPlanner(50, 20).getChunkSize() );
+		assertEquals ( 1, new ItemChunkPlanner(0, 500).getChunkSize() );
+		assertEquals ( 1, new ItemChunkPlanner(10, 0).getChunkSize() );
+	}
+
+	/**
+	 * Fast requests with few items grow the chunk size, up to the maximum.
+	 */
+	@Test
+	public void testChunkSizeGrows () {
+		ItemChunkPlanner planner = new ItemChunkPlanner ( 10, 40 );
+		planner.recordSuccess ( readChunk(0, 10, 500, 1000) );
+		assertEquals ( 15, planner.getChunkSize() );
+		planner.recordSuccess ( readChunk(10, 25, 750, 1000) );
+		assertEquals ( 22, planner.getChunkSize() );
+		for ( int i = 0; i < 10; i++ ) {
+			planner.recordSuccess ( readChunk(0, planner.getChunkSize(), 100, 100) );
+		}
+		assertEquals ( 40, planner.getChunkSize() );
+		// A partial chunk (e.g., the last chunk) does not grow the chunk size.
+		planner = new ItemChunkPlanner ( 10, 40 );
+		planner.recordSuccess ( readChunk(0, 3, 10, 100) );
+		assertEquals ( 10, planner.getChunkSize() );
+	}
+
+	/**
+	 * Slow requests or too many items shrink the chunk size.
+	 */
+	@Test
+	public void testChunkSizeShrinks () {
+		// Twice the target time: 20 hosts * 0.5 * 0.8 = 8.
+		ItemChunkPlanner planner = new ItemChunkPlanner ( 20, 500 );
+		planner.recordSuccess ( readChunk(0, 20, 100, 20000) );
+		assertEquals ( 8, planner.getChunkSize() );
+		// Four times the target item count: 20 hosts * 0.25 * 0.8 = 4.
+		planner = new ItemChunkPlanner ( 20, 500 );
+		planner.recordSuccess ( readChunk(0, 20, 40000, 1000) );
+		assertEquals ( 4, planner.getChunkSize() );
+		// Near the target neither grows nor shrinks.
+		planner = new ItemChunkPlanner ( 20, 500 );
+		planner.recordSuccess ( readChunk(0, 20, 6000, 6000) );
+		assertEquals ( 20, planner.getChunkSize() );
+	}
+
+	/**
+	 * A failed chunk reduces the chunk size to half of the failed chunk, but not less than 1.
+	 */
+	@Test
+	public void testChunkSizeAfterFailure () {
+		ItemChunkPlanner planner = new ItemChunkPlanner ( 20, 500 );
+		planner.recordFailure ( failedChunk(0, 20, new IOException("HTTP code=500")) );
+		assertEquals ( 10, planner.getChunkSize() );
+		// A failure for a smaller chunk than the current size (e.g., a retry) reduces further.
+		planner.recordFailure ( failedChunk(0, 5, new IOException("HTTP code=500")) );
+		assertEquals ( 2, planner.getChunkSize() );
+		// A failure for a larger chunk does not increase the size.
+		planner.recordFailure ( failedChunk(0, 20, new IOException("HTTP code=500")) );
+		assertEquals ( 2, planner.getChunkSize() );
+		planner.recordFailure ( failedChunk(0, 1, new IOException("HTTP code=500")) );
+		assertEquals ( 1, planner.getChunkSize() );
+	}
+
+	/**
+	 * Errors returned by the API and connection errors are not related to the response size.
+	 */
+	@Test
+	public void testIsSizeError () {
+		assertTrue ( ItemChunkPlanner.isSizeError(new IOException("HTTP code=500")) );
+		assertTrue ( ItemChunkPlanner.isSizeError(new HttpTimeoutException("Timeout")) );
+		assertFalse ( ItemChunkPlanner.isSizeError(new ZabbixApiException("Not authorized")) );
+		assertFalse ( ItemChunkPlanner.isSizeError(new ConnectException("Connection refused")) );
+		assertFalse ( ItemChunkPlanner.isSizeError(new IOException("Wrapped", new ConnectException("Connection refused"))) );
+	}
+
+	/**
+	 * Reading stops on the first error that is not related to the response size, without splitting.
+	 */
+	@Test
+	public void testRetryBudgetStopsForApiError () {
+		ItemChunkPlanner.RetryBudget budget = new ItemChunkPlanner.RetryBudget();
+		assertFalse ( budget.recordFailure(failedChunk(0, 15, new ZabbixApiException("Session terminated"))) );
+		assertTrue ( budget.isStopped() );
+	}
+
+	/**
+	 * If every request fails with a size-related error, reading all hosts one at a time is avoided:
+	 * the number of requests is limited by the split limit and the single host failure limit,
+	 * not by the number of hosts.
+	 */
+	@Test
+	public void testRetryBudgetLimitsRequestsWhenAllFail () {
+		int hostCount = 1000;
+		int chunkSize = 15;
+		ItemChunkPlanner.RetryBudget budget = new ItemChunkPlanner.RetryBudget();
+		ArrayDeque<ItemChunkPlanner.Chunk> queue = new ArrayDeque<>();
+		for ( int start = 0; start < hostCount; start += chunkSize ) {
+			queue.add ( new ItemChunkPlanner.Chunk(start, Math.min(hostCount, start + chunkSize)) );
+		}
+		int requestCount = 0;
+		while ( !queue.isEmpty() && !budget.isStopped() ) {
+			// Read retry chunks first, as in ZabbixDataStore.readItemListForHosts().
+			ItemChunkPlanner.Chunk chunk = queue.pollLast();
+			++requestCount;
+			chunk.exception = new HttpTimeoutException ( "Timeout" );
+			if ( budget.recordFailure(chunk) ) {
+				int middle = chunk.start + chunk.size()/2;
+				queue.addLast ( new ItemChunkPlanner.Chunk(middle, chunk.end) );
+				queue.addLast ( new ItemChunkPlanner.Chunk(chunk.start, middle) );
+			}
+		}
+		assertTrue ( budget.isStopped() );
+		assertTrue ( "Number of requests " + requestCount,
+			requestCount <= (1 + ItemChunkPlanner.MAX_SPLIT_COUNT*2 + ItemChunkPlanner.MAX_SINGLE_HOST_FAILURES) );
+	}
+
+	/**
+	 * A successful request resets the count of single host failures in a row.
+	 */
+	@Test
+	public void testRetryBudgetSingleHostFailures () {
+		ItemChunkPlanner.RetryBudget budget = new ItemChunkPlanner.RetryBudget();
+		for ( int i = 0; i < (ItemChunkPlanner.MAX_SINGLE_HOST_FAILURES - 1); i++ ) {
+			assertFalse ( budget.recordFailure(failedChunk(i, i + 1, new IOException("HTTP code=500"))) );
+			assertFalse ( budget.isStopped() );
+		}
+		budget.recordSuccess ( new ItemChunkPlanner.Chunk(10, 11) );
+		assertFalse ( budget.recordFailure(failedChunk(20, 21, new IOException("HTTP code=500"))) );
+		assertFalse ( budget.isStopped() );
+	}
+
+	/**
+	 * The number of splits is limited.
+	 */
+	@Test
+	public void testRetryBudgetSplitLimit () {
+		ItemChunkPlanner.RetryBudget budget = new ItemChunkPlanner.RetryBudget();
+		for ( int i = 0; i < ItemChunkPlanner.MAX_SPLIT_COUNT; i++ ) {
+			assertTrue ( budget.recordFailure(failedChunk(0, 10, new IOException("HTTP code=500"))) );
+		}
+		assertFalse ( budget.recordFailure(failedChunk(0, 10, new IOException("HTTP code=500"))) );
+		assertTrue ( budget.isStopped() );
+		assertEquals ( "failed chunks were split " + ItemChunkPlanner.MAX_SPLIT_COUNT + " times", budget.getStopReason() );
+	}
+}
@@ -0,0 +1,141 @@
+// ReadWindowPlannerTest - tests for ReadWindowPlanner
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for ReadWindowPlanner.
+ */
+public class ReadWindowPlannerTest {
+
+	/**
+	 * Check that the windows cover the period in order without gaps or overlap.
+	 * @param windowList the windows
+	 * @param timeFrom start of the period
+	 * @param timeTill end of the period (inclusive)
+	 */
+	private void checkCoverage ( List<ReadWindowPlanner.Window> windowList, long timeFrom, long timeTill ) {
+		assertEquals ( "First window start", timeFrom, windowList.get(0).timeFrom );
+		assertEquals ( "Last window end", timeTill, windowList.get(windowList.size() - 1).timeTill );
+		for ( int i = 0; i < windowList.size(); i++ ) {
+			ReadWindowPlanner.Window window = windowList.get(i);
+			if ( window.timeTill < window.timeFrom ) {
+				throw new AssertionError ( "Window " + i + " is empty" );
+			}
+			if ( i > 0 ) {
+				assertEquals ( "Window " + i + " start", windowList.get(i - 1).timeTill + 1, window.timeFrom );
+			}
+		}
+	}
+
+	/**
+	 * Item delays with and without suffixes, flexible intervals, and values that can't be used.
+	 */
+	@Test
+	public void testParseDelay () {
+		assertEquals ( 60, ReadWindowPlanner.parseDelay("60") );
+		assertEquals ( 30, ReadWindowPlanner.parseDelay("30s") );
+		assertEquals ( 300, ReadWindowPlanner.parseDelay("5m") );
+		assertEquals ( 3600, ReadWindowPlanner.parseDelay("1h") );
+		assertEquals ( 86400, ReadWindowPlanner.parseDelay("1d") );
+		assertEquals ( 604800, ReadWindowPlanner.parseDelay("1w") );
+		assertEquals ( 60, ReadWindowPlanner.parseDelay(" 1m ;50s/1-7,00:00-24:00") );
+		assertEquals ( -1, ReadWindowPlanner.parseDelay("0") );
+		assertEquals ( -1, ReadWindowPlanner.parseDelay("{$DELAY}") );
+		assertEquals ( -1, ReadWindowPlanner.parseDelay("5y") );
+		assertEquals ( -1, ReadWindowPlanner.parseDelay("") );
+		assertEquals ( -1, ReadWindowPlanner.parseDelay(null) );
+		assertEquals ( -1, ReadWindowPlanner.parseDelay(";wd1-5h9") );
+	}
+
+	/**
+	 * A period that does not divide evenly is covered, with the remainder in the last window.
+	 */
+	@Test
+	public void testUnevenSplit () {
+		long timeFrom = 1000;
+		long timeTill = 1000 + 100*3600 + 1234;
+		List<ReadWindowPlanner.Window> windowList = ReadWindowPlanner.plan ( timeFrom, timeTill, true, null, 7 );
+		assertEquals ( "Number of windows", 7, windowList.size() );
+		checkCoverage ( windowList, timeFrom, timeTill );
+		long windowLength = (timeTill - timeFrom + 1)/7;
+		for ( int i = 0; i < 6; i++ ) {
+			assertEquals ( "Window " + i + " length", windowLength,
+				windowList.get(i).timeTill - windowList.get(i).timeFrom + 1 );
+		}
+		assertEquals ( "Last window length", (timeTill - timeFrom + 1) - 6*windowLength,
+			windowList.get(6).timeTill - windowList.get(6).timeFrom + 1 );
+	}
+
+	/**
+	 * The number of windows is determined from the expected number of records and is limited.
+	 */
+	@Test
+	public void testWindowCountFromRecordCount () {
+		// One year of 1 minute history is about 525,600 records, which is 11 windows of 50,000 records.
+		long timeFrom = 1600000000;
+		long timeTill = timeFrom + 365L*86400;
+		List<ReadWindowPlanner.Window> windowList = ReadWindowPlanner.plan ( timeFrom, timeTill, false, "1m", 0 );
+		assertEquals ( "Number of windows", 11, windowList.size() );
+		checkCoverage ( windowList, timeFrom, timeTill );
+		// The same period with 1 second history is limited to the maximum.
+		windowList = ReadWindowPlanner.plan ( timeFrom, timeTill, false, "1s", 0 );
+		assertEquals ( "Number of windows", ReadWindowPlanner.MAX_WINDOW_COUNT, windowList.size() );
+		checkCoverage ( windowList, timeFrom, timeTill );
+		// One day of trend is 24 records, which is one window.
+		windowList = ReadWindowPlanner.plan ( timeFrom, timeFrom + 86399, true, "1m", 0 );
+		assertEquals ( "Number of windows", 1, windowList.size() );
+		checkCoverage ( windowList, timeFrom, timeFrom + 86399 );
+	}
+
+	/**
+	 * Windows are not shorter than the record interval.
+	 */
+	@Test
+	public void testWindowNotShorterThanInterval () {
+		// 5 hours of trend requested as 20 windows is limited to 5 windows.
+		List<ReadWindowPlanner.Window> windowList = ReadWindowPlanner.plan ( 0, 5*3600 - 1, true, null, 20 );
+		assertEquals ( "Number of windows", 5, windowList.size() );
+		checkCoverage ( windowList, 0, 5*3600 - 1 );
+		// A period shorter than the interval is one window.
+		windowList = ReadWindowPlanner.plan ( 0, 100, true, null, 4 );
+		assertEquals ( "Number of windows", 1, windowList.size() );
+		checkCoverage ( windowList, 0, 100 );
+	}
+
+	/**
+	 * A period that is not fully specified is not split.
+	 */
+	@Test
+	public void testUnspecifiedPeriod () {
+		List<ReadWindowPlanner.Window> windowList = ReadWindowPlanner.plan ( -1, 5000000, false, "1s", 8 );
+		assertEquals ( "Number of windows", 1, windowList.size() );
+		assertEquals ( -1, windowList.get(0).timeFrom );
+		assertEquals ( 5000000, windowList.get(0).timeTill );
+	}
+}
@@ -0,0 +1,109 @@
+// TrendCacheTest - tests for TrendCache
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.openwaterfoundation.tstool.plugin.zabbix.dao.TrendColumns;
+
+/**
+ * Tests for TrendCache, in particular that the -Avg, -Min, and -Max time series for an item
+ * only require one 'trend.get' request when they are read separately.
+ */
+public class TrendCacheTest {
+
+	/**
+	 * Number of requests that were made by read().
+	 */
+	private int requestCount = 0;
+
+	/**
+	 * Read trend data for one item the same way as ZabbixDataStore.readTrendColumns():
+	 * use the cache if it contains the statistic, otherwise "request" the data and add to the cache.
+	 * @param cache trend cache
+	 * @param itemid item identifier
+	 * @param statistic statistic that is needed, using the TrendColumns.STAT_* flags
+	 * @return the trend data
+	 */
+	private TrendColumns read ( TrendCache cache, String itemid, int statistic ) {
+		TrendColumns trendColumns = cache.get ( itemid, 1000, 2000, statistic );
+		if ( trendColumns == null ) {
+			++this.requestCount;
+			trendColumns = new TrendColumns ( itemid, 0, cache.getReadStatistics(statistic) );
+			cache.put ( 1000, 2000, trendColumns );
+		}
+		return trendColumns;
+	}
+
+	/**
+	 * Reading Avg, then Min, then Max for the same item and period only sends one request.
+	 */
+	@Test
+	public void testAvgMinMaxShareOneRequest () {
+		TrendCache cache = new TrendCache ( 10, 900 );
+		TrendColumns avg = read ( cache, "100", TrendColumns.STAT_AVG );
+		TrendColumns min = read ( cache, "100", TrendColumns.STAT_MIN );
+		TrendColumns max = read ( cache, "100", TrendColumns.STAT_MAX );
+		assertEquals ( "Number of requests", 1, this.requestCount );
+		assertSame ( avg, min );
+		assertSame ( avg, max );
+		assertEquals ( "Cache hits", 2, cache.getHitCount() );
+		// A different item requires its own request.
+		read ( cache, "101", TrendColumns.STAT_MAX );
+		assertEquals ( "Number of requests", 2, this.requestCount );
+	}
+
+	/**
+	 * If the cache is disabled, only the needed statistic is read.
+	 */
+	@Test
+	public void testDisabledCacheReadsOnlyNeededStatistic () {
+		TrendCache cache = new TrendCache ( 0, 900 );
+		assertEquals ( TrendColumns.STAT_MIN, cache.getReadStatistics(TrendColumns.STAT_MIN) );
+		read ( cache, "100", TrendColumns.STAT_AVG );
+		read ( cache, "100", TrendColumns.STAT_AVG );
+		assertEquals ( "Number of requests", 2, this.requestCount );
+	}
+
+	/**
+	 * An entry is not replaced by an entry that contains fewer statistics.
+	 */
+	@Test
+	public void testPutDoesNotNarrowEntry () {
+		TrendCache cache = new TrendCache ( 10, 900 );
+		TrendColumns all = new TrendColumns ( "100", 0, TrendColumns.STAT_ALL );
+		cache.put ( 1000, 2000, all );
+		cache.put ( 1000, 2000, new TrendColumns ( "100", 0, TrendColumns.STAT_AVG ) );
+		assertSame ( all, cache.get("100", 1000, 2000, TrendColumns.STAT_MAX) );
+		// An entry with more statistics replaces an entry with fewer statistics.
+		TrendColumns avg = new TrendColumns ( "101", 0, TrendColumns.STAT_AVG );
+		cache.put ( 1000, 2000, avg );
+		assertNull ( cache.get("101", 1000, 2000, TrendColumns.STAT_MIN) );
+		cache.put ( 1000, 2000, new TrendColumns ( "101", 0, TrendColumns.STAT_ALL ) );
+		assertNotNull ( cache.get("101", 1000, 2000, TrendColumns.STAT_MIN) );
+	}
+}
@@ -0,0 +1,122 @@
+// ZoneDateTimeConverterTest - tests for ZoneDateTimeConverter
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+package org.openwaterfoundation.tstool.plugin.zabbix.datastore;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+
+import RTi.Util.Time.DateTime;
+
+/**
+ * Tests for ZoneDateTimeConverter, comparing with java.time around daylight saving time changes.
+ */
+public class ZoneDateTimeConverterTest {
+
+	/**
+	 * Check that each second in a period converts to the same date/time as java.time.
+	 * @param zoneId time zone
+	 * @param epochStart first UNIX epoch second to check
+	 * @param epochEnd last UNIX epoch second to check
+	 * @param step seconds between values
+	 */
+	private void checkPeriod ( ZoneId zoneId, long epochStart, long epochEnd, long step ) {
+		ZoneDateTimeConverter converter = new ZoneDateTimeConverter ( zoneId );
+		for ( long epochSecond = epochStart; epochSecond <= epochEnd; epochSecond += step ) {
+			checkValue ( converter, zoneId, epochSecond );
+		}
+	}
+
+	/**
+	 * Check that a value converts to the same date/time as java.time.
+	 * @param converter the converter to check
+	 * @param zoneId time zone
+	 * @param epochSecond UNIX epoch second to check
+	 */
+	private void checkValue ( ZoneDateTimeConverter converter, ZoneId zoneId, long epochSecond ) {
+		ZonedDateTime expected = Instant.ofEpochSecond(epochSecond).atZone(zoneId);
+		DateTime dt = converter.toDateTime ( epochSecond );
+		String message = "" + epochSecond;
+		assertEquals ( message, expected.getYear(), dt.getYear() );
+		assertEquals ( message, expected.getMonthValue(), dt.getMonth() );
+		assertEquals ( message, expected.getDayOfMonth(), dt.getDay() );
+		assertEquals ( message, expected.getHour(), dt.getHour() );
+		assertEquals ( message, expected.getMinute(), dt.getMinute() );
+		assertEquals ( message, expected.getSecond(), dt.getSecond() );
+	}
+
+	/**
+	 * Test the spring daylight saving time change in America/Denver (2024-03-10 02:00 MST to 03:00 MDT).
+	 */
+	@Test
+	public void testSpringForward () {
+		ZoneId zoneId = ZoneId.of ( "America/Denver" );
+		long transition = ZonedDateTime.of(2024, 3, 10, 3, 0, 0, 0, zoneId).toEpochSecond();
+		checkPeriod ( zoneId, transition - 7200, transition + 7200, 1 );
+		// The last second before the change and the first second after.
+		ZoneDateTimeConverter converter = new ZoneDateTimeConverter ( zoneId );
+		assertEquals ( 1, converter.toDateTime(transition - 1).getHour() );
+		assertEquals ( 3, converter.toDateTime(transition).getHour() );
+	}
+
+	/**
+	 * Test the fall daylight saving time change in America/Denver (2024-11-03 02:00 MDT to 01:00 MST),
+	 * when the hour from 01:00 to 02:00 occurs twice.
+	 */
+	@Test
+	public void testFallBack () {
+		ZoneId zoneId = ZoneId.of ( "America/Denver" );
+		long transition = ZonedDateTime.of(2024, 11, 3, 1, 0, 0, 0, zoneId).withLaterOffsetAtOverlap().toEpochSecond();
+		checkPeriod ( zoneId, transition - 7200, transition + 7200, 1 );
+		ZoneDateTimeConverter converter = new ZoneDateTimeConverter ( zoneId );
+		assertEquals ( 1, converter.toDateTime(transition - 3600).getHour() );
+		assertEquals ( 1, converter.toDateTime(transition).getHour() );
+	}
+
+	/**
+	 * Test values that are not in clock order, which requires the offset to be looked up again.
+	 */
+	@Test
+	public void testOutOfOrder () {
+		ZoneId zoneId = ZoneId.of ( "America/Denver" );
+		ZoneDateTimeConverter converter = new ZoneDateTimeConverter ( zoneId );
+		long summer = ZonedDateTime.of(2024, 7, 1, 12, 0, 0, 0, zoneId).toEpochSecond();
+		long winter = ZonedDateTime.of(2024, 1, 1, 12, 0, 0, 0, zoneId).toEpochSecond();
+		checkValue ( converter, zoneId, summer );
+		checkValue ( converter, zoneId, winter );
+		checkValue ( converter, zoneId, summer );
+	}
+
+	/**
+	 * Test dates over a range of years, including leap days and dates before 1970, in a zone without transitions.
+	 */
+	@Test
+	public void testCalendar () {
+		checkPeriod ( ZoneId.of("UTC"), -86400L*365*30, 86400L*365*100, 3600*7 + 13 );
+		checkPeriod ( ZoneId.of("America/Denver"), 0, 86400L*365*60, 3600*5 + 7 );
+	}
+}
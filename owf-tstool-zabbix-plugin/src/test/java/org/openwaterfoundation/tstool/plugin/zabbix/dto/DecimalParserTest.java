@@ -0,0 +1,182 @@
+// DecimalParserTest - tests for DecimalParser
+
+/* NoticeStart
+
+OWF TSTool Zabbix Plugin
+Copyright (C) 2023 Open Water Foundation
+
+OWF TSTool Zabbix Plugin is free software:  you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+OWF TSTool Zabbix Plugin is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+You should have received a copy of the GNU General Public License
+    along with OWF TSTool Zabbix Plugin.  If not, see <https://www.gnu.org/licenses/>.
+
+NoticeEnd */
+
+
+package org.openwaterfoundation.tstool.plugin.zabbix.dto;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for DecimalParser, which must return the same value as Double.parseDouble() for all input.
+ * Values are compared using the bits of the double so that a difference of one ulp,
+ * and the sign of zero, are detected.
+ */
+public class DecimalParserTest {
+
+	/**
+	 * Check that DecimalParser.parseDouble() returns the same value as Double.parseDouble().
+	 * The text is placed in the middle of a larger buffer to check that the offset and length are used.
+	 * @param text the text to parse
+	 */
+	private void checkSame ( String text ) {
+		char [] chars = ("[" + text + "]").toCharArray();
+		double expected = Double.parseDouble(text);
+		double actual = DecimalParser.parseDouble(chars, 1, text.length());
+		assertEquals ( "Value for \"" + text + "\"", Double.doubleToLongBits(expected), Double.doubleToLongBits(actual) );
+	}
+
+	/**
+	 * Check that DecimalParser.parseDouble() throws NumberFormatException, the same as Double.parseDouble().
+	 * @param text the text to parse
+	 */
+	private void checkMalformed ( String text ) {
+		try {
+			Double.parseDouble(text);
+			fail ( "Double.parseDouble() did not fail for \"" + text + "\"" );
+		}
+		catch ( NumberFormatException e ) {
+			// Expected.
+		}
+		char [] chars = text.toCharArray();
+		try {
+			double value = DecimalParser.parseDouble(chars, 0, chars.length);
+			fail ( "DecimalParser.parseDouble() returned " + value + " for \"" + text + "\"" );
+		}
+		catch ( NumberFormatException e ) {
+			// Expected.
+		}
+	}
+
+	/**
+	 * Typical Zabbix history and trend values, including trailing zeros.
+	 */
+	@Test
+	public void testTypicalValues () {
+		String [] values = {
+			"0", "1", "-1", "23.45", "23.4500", "100.0000", "1000000", "3.1415", "-17.2500",
+			"0.5", "99.9999", "1696204800", "123456.789000"
+		};
+		for ( String value : values ) {
+			checkSame ( value );
+		}
+	}
+
+	/**
+	 * Values with leading zeros after the decimal point, and leading zeros before the point.
+	 */
+	@Test
+	public void testLeadingZeros () {
+		String [] values = {
+			"0.1", "0.01", "0.0001", "0.000000123", "0.00000000000000000001", "-0.0025", "000123.4", "00.000"
+		};
+		for ( String value : values ) {
+			checkSame ( value );
+		}
+	}
+
+	/**
+	 * Values with 16 to 19 significant digits, which are near or beyond the exact significand limit (2^53).
+	 */
+	@Test
+	public void testManySignificantDigits () {
+		String [] values = {
+			"0.1234567890123456", "1234567890123456", "12345678901234567", "123456789012345678", "1234567890123456789",
+			"9007199254740991", "9007199254740992", "9007199254740993", "9007199254740994", "9007199254740995",
+			"9.007199254740993", "0.9007199254740993", "1.000000000000000111", "0.30000000000000004",
+			"12345678901234567.8", "-9999999999999999.99"
+		};
+		for ( String value : values ) {
+			checkSame ( value );
+		}
+	}
+
+	/**
+	 * Values with exponents near the exact power of ten limit (10^22).
+	 */
+	@Test
+	public void testExponents () {
+		String [] values = {
+			"1e21", "1e22", "1e23", "1E22", "1e+22", "9.5e22", "1.5e-21", "1.5e-22", "1e-22", "1e-23",
+			"123e20", "123e-25", "4.9e-324", "1.7976931348623157e308", "1e309", "1e-400", "-2.5E-3"
+		};
+		for ( String value : values ) {
+			checkSame ( value );
+		}
+	}
+
+	/**
+	 * Signed zero and special values.
+	 */
+	@Test
+	public void testSpecialValues () {
+		String [] values = { "-0", "-0.0", "0.0", "+0", "NaN", "Infinity", "-Infinity", "+1.5" };
+		for ( String value : values ) {
+			checkSame ( value );
+		}
+	}
+
+	/**
+	 * Malformed input must fail.
+	 */
+	@Test
+	public void testMalformed () {
+		String [] values = { "", "-", "+", ".", "1.2.3", "abc", "1e", "1e+", "--1", "1-", "0x10", "1,5", "nan" };
+		for ( String value : values ) {
+			checkMalformed ( value );
+		}
+	}
+
+	/**
+	 * Random decimal values similar to Zabbix values, with a fixed seed so that failures can be reproduced.
+	 */
+	@Test
+	public void testRandomValues () {
+		Random random = new Random(20231001);
+		for ( int i = 0; i < 100000; i++ ) {
+			// Up to 19 significant digits, with the decimal point at a random position.
+			int digitCount = 1 + random.nextInt(19);
+			StringBuilder b = new StringBuilder();
+			if ( random.nextBoolean() ) {
+				b.append('-');
+			}
+			int pointPosition = random.nextInt(digitCount + 1);
+			for ( int iDigit = 0; iDigit < digitCount; iDigit++ ) {
+				if ( iDigit == pointPosition ) {
+					if ( iDigit == 0 ) {
+						b.append('0');
+					}
+					b.append('.');
+				}
+				b.append((char)('0' + random.nextInt(10)));
+			}
+			if ( random.nextInt(4) == 0 ) {
+				b.append('e').append(random.nextInt(61) - 30);
+			}
+			checkSame ( b.toString() );
+		}
+	}
+}